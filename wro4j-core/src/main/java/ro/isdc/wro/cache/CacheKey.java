@@ -3,6 +3,7 @@ package ro.isdc.wro.cache;
 import static org.apache.commons.lang3.Validate.notNull;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -93,6 +94,13 @@ public final class CacheKey implements Serializable {
     return this;
   }
 
+  /**
+   * @return the read-only view of the custom attributes.
+   */
+  public Map<String, String> getAttributes() {
+    return Collections.unmodifiableMap(map);
+  }
+
   @Override
 	public boolean equals(final Object obj) {
     return EqualsBuilder.reflectionEquals(this, obj);
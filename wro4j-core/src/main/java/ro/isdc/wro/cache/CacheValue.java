@@ -3,24 +3,34 @@
  */
 package ro.isdc.wro.cache;
 
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Serializable;
-import java.util.zip.GZIPOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.http.support.ContentEncoder;
+import ro.isdc.wro.http.support.GzipContentEncoder;
 
 
 /**
- * Entry holding a resource content along with its associated hash.
+ * Entry holding a resource content along with its associated hash. The content is stored as bytes, encoded once with
+ * the configured encoding, so that it can be written to the response as is. The content encoded with a
+ * {@link ContentEncoder} (ex: gzip) is also cached when {@link WroConfiguration#isCacheGzippedContent()} is true.
+ * <p/>
+ * The content can also be backed by a {@link ByteBuffer} living outside of the java heap (see
+ * {@link #withContentBuffer(ByteBuffer)}), in which case it is written to the response without being copied back to the
+ * heap.
  *
  * @author Alex Objelean
  */
@@ -28,32 +38,62 @@ import ro.isdc.wro.config.Context;
 public final class CacheValue
   implements Serializable {
   private static final Logger LOG = LoggerFactory.getLogger(CacheValue.class);
-  private String rawContent;
-  private byte[] gzippedContent;
+  private static final ContentEncoder DEFAULT_GZIP_ENCODER = new GzipContentEncoder();
+  private byte[] content;
+  /**
+   * Alternative storage of the content, used instead of {@link #content} when not null.
+   */
+  private transient ByteBuffer contentBuffer;
+  private String charset;
   private String hash;
+  private String etag;
+  /**
+   * The time (truncated to seconds, as sent in http headers) when this value was created.
+   */
+  private long lastModified = System.currentTimeMillis() / 1000 * 1000;
+  /**
+   * Holds the content encoded by a {@link ContentEncoder}, mapped by encoder name. Stays null when encoded content
+   * should not be cached.
+   */
+  private final ConcurrentMap<String, byte[]> encodedContents;
 
-  private CacheValue(final String rawContent, final String hash) {
-    this.rawContent = rawContent;
+  private CacheValue(final ByteBuffer contentBuffer, final String charset, final String hash,
+      final ConcurrentMap<String, byte[]> encodedContents) {
+    this.contentBuffer = contentBuffer;
+    this.charset = charset;
+    this.encodedContents = encodedContents;
     this.hash = hash;
+    this.etag = toETag(hash);
+  }
+
+  private CacheValue(final byte[] content, final String charset, final String hash) {
+    final WroConfiguration config = Context.get().getConfig();
+    this.charset = charset;
+    this.content = content;
+    setHash(hash);
     //the trade-off between the memory and processing time
-    if (Context.get().getConfig().isCacheGzippedContent()) {
-      gzippedContent = computeGzippedContent(rawContent);
+    if (config.isCacheGzippedContent()) {
+      encodedContents = new ConcurrentHashMap<String, byte[]>();
+      if (content != null) {
+        getEncodedContent(new GzipContentEncoder(config.getGzipCompressionLevel()));
+      }
+    } else {
+      encodedContents = null;
     }
   }
 
-  private byte[] computeGzippedContent(final String content) {
-    LOG.debug("Gzipping the content....");
+  private static String toETag(final String hash) {
+    // enclose etag value in quotes to be compliant with the RFC
+    return String.format("\"%s\"", hash);
+  }
+
+  private static byte[] toBytes(final String rawContent, final String charset) {
     try {
-      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      final OutputStream os = new GZIPOutputStream(new BufferedOutputStream(baos));
-      IOUtils.copy(new ByteArrayInputStream(content.getBytes(Context.get().getConfig().getEncoding())), os);
-      os.close();
-      return baos.toByteArray();
-    } catch (final IOException e) {
-      throw WroRuntimeException.wrap(e, "Problem while computing gzipped content").logError();
+      return rawContent == null ? null : rawContent.getBytes(charset);
+    } catch (final UnsupportedEncodingException e) {
+      throw WroRuntimeException.wrap(e, "Unsupported encoding: " + charset).logError();
     }
-  };
-
+  }
 
   /**
    * Factory method.
@@ -61,14 +101,35 @@ public final class CacheValue
    * @return {@link CacheValue} based on supplied values.
    */
   public static final CacheValue valueOf(final String rawContent, final String hash) {
-    return new CacheValue(rawContent, hash);
+    final String charset = Context.get().getConfig().getEncoding();
+    return new CacheValue(toBytes(rawContent, charset), charset, hash);
+  }
+
+  /**
+   * Factory method creating a value from already encoded content.
+   *
+   * @param content
+   *          the bytes of the content. The array must not be modified after this call.
+   * @param charset
+   *          the name of the charset used to encode the content.
+   * @return {@link CacheValue} based on supplied values.
+   */
+  public static final CacheValue valueOf(final byte[] content, final String charset, final String hash) {
+    Validate.notNull(charset);
+    return new CacheValue(content, charset, hash);
   }
 
   /**
-   * @return the content
+   * @return the content decoded as {@link String}. Prefer {@link #getContent()} when the content has to be written as
+   *         bytes, since it doesn't require any conversion.
    */
   public String getRawContent() {
-    return this.rawContent;
+    try {
+      final byte[] bytes = getContent();
+      return bytes == null ? null : new String(bytes, charset);
+    } catch (final UnsupportedEncodingException e) {
+      throw WroRuntimeException.wrap(e, "Unsupported encoding: " + charset).logError();
+    }
   }
 
 
@@ -76,9 +137,101 @@ public final class CacheValue
    * @param rawContent the content to set
    */
   public void setRawContent(final String rawContent) {
-    this.rawContent = rawContent;
+    this.content = toBytes(rawContent, charset);
+    this.contentBuffer = null;
+    if (encodedContents != null) {
+      encodedContents.clear();
+    }
+  }
+
+  /**
+   * @return the content encoded using {@link #getCharset()}. The returned array must not be modified. When the content
+   *         is backed by a {@link ByteBuffer}, a copy is returned, thus prefer {@link #writeContentTo(OutputStream)}.
+   */
+  public byte[] getContent() {
+    if (contentBuffer != null) {
+      final byte[] bytes = new byte[contentBuffer.remaining()];
+      contentBuffer.duplicate().get(bytes);
+      return bytes;
+    }
+    return content;
+  }
+
+  /**
+   * @return true if there is any content (even empty) associated with this value.
+   */
+  public boolean hasContent() {
+    return content != null || contentBuffer != null;
+  }
+
+  /**
+   * @return the number of bytes of the content, or zero if there is no content.
+   */
+  public int getContentLength() {
+    if (contentBuffer != null) {
+      return contentBuffer.remaining();
+    }
+    return content == null ? 0 : content.length;
+  }
+
+  /**
+   * Writes the content (not encoded) to the provided stream. Unlike {@link #getContent()}, the content backed by a
+   * {@link ByteBuffer} is transferred without copying it entirely to the heap.
+   */
+  public void writeContentTo(final OutputStream outputStream)
+      throws IOException {
+    if (contentBuffer != null) {
+      Channels.newChannel(outputStream).write(contentBuffer.duplicate());
+    } else if (content != null) {
+      outputStream.write(content);
+    }
+  }
+
+  /**
+   * Writes a range of the content (not encoded) to the provided stream, without copying the rest of the content.
+   *
+   * @param offset
+   *          the index of the first byte to write.
+   * @param length
+   *          the number of bytes to write.
+   */
+  public void writeContentTo(final OutputStream outputStream, final int offset, final int length)
+      throws IOException {
+    Validate.isTrue(offset >= 0 && length >= 0 && offset + length <= getContentLength(), "Invalid range");
+    if (contentBuffer != null) {
+      final ByteBuffer range = contentBuffer.duplicate();
+      range.position(range.position() + offset);
+      range.limit(range.position() + length);
+      Channels.newChannel(outputStream).write(range);
+    } else if (content != null) {
+      outputStream.write(content, offset, length);
+    }
   }
 
+  /**
+   * Creates a value having the same hash, charset and cached encoded content as this value, but whose content is backed
+   * by the provided buffer. Useful for storing the content outside of the java heap.
+   *
+   * @param buffer
+   *          holds the bytes of the content, between its current position and its limit. The buffer must not be
+   *          modified after this call.
+   * @return a new {@link CacheValue} backed by a read-only view of the provided buffer.
+   */
+  public CacheValue withContentBuffer(final ByteBuffer buffer) {
+    Validate.notNull(buffer);
+    final ConcurrentMap<String, byte[]> encodedContentsCopy = encodedContents == null ? null
+        : new ConcurrentHashMap<String, byte[]>(encodedContents);
+    final CacheValue value = new CacheValue(buffer.asReadOnlyBuffer(), charset, hash, encodedContentsCopy);
+    value.lastModified = lastModified;
+    return value;
+  }
+
+  /**
+   * @return the name of the charset used to encode the content.
+   */
+  public String getCharset() {
+    return charset;
+  }
 
   /**
    * @return the hash
@@ -93,20 +246,90 @@ public final class CacheValue
    */
   public void setHash(final String hash) {
     this.hash = hash;
+    this.etag = toETag(hash);
+    if (encodedContents != null) {
+      encodedContents.clear();
+    }
+  }
+
+  /**
+   * @return the time when this value was created, truncated to seconds. Used as the Last-Modified date of the content.
+   */
+  public long getLastModified() {
+    return lastModified;
+  }
+
+  /**
+   * @return the quoted ETag value of the content.
+   */
+  public String getETag() {
+    return etag;
+  }
+
+  /**
+   * @param encoder
+   *          the {@link ContentEncoder} used to encode the content.
+   * @return the quoted ETag value of the content encoded with the provided encoder. It differs from the {@link #getETag()}
+   *         value, since the encoded content is a different representation of the same resource.
+   */
+  public String getETag(final ContentEncoder encoder) {
+    return encoder == null ? etag : "\"" + hash + "-" + encoder.getName() + "\"";
+  }
+
+  /**
+   * @param encoder
+   *          the {@link ContentEncoder} used to encode the content.
+   * @return the encoded content, which is computed only the first time if the encoded content is cached. The returned
+   *         array must not be modified.
+   */
+  public byte[] getEncodedContent(final ContentEncoder encoder) {
+    if (encodedContents == null) {
+      return encode(encoder);
+    }
+    byte[] encoded = encodedContents.get(encoder.getName());
+    if (encoded == null) {
+      encoded = encode(encoder);
+      final byte[] existing = encodedContents.putIfAbsent(encoder.getName(), encoded);
+      encoded = existing != null ? existing : encoded;
+    }
+    return encoded;
+  }
+
+  private byte[] encode(final ContentEncoder encoder) {
+    LOG.debug("Encoding the content using {}....", encoder);
+    try {
+      final byte[] bytes = getContent();
+      return encoder.encode(bytes == null ? new byte[0] : bytes);
+    } catch (final IOException e) {
+      throw WroRuntimeException.wrap(e, "Problem while computing " + encoder.getName() + " content").logError();
+    }
   }
 
   /**
    * @return the gzippedContent
    */
   public byte[] getGzippedContent() {
-    return this.gzippedContent == null ? computeGzippedContent(rawContent) : gzippedContent;
+    return getEncodedContent(DEFAULT_GZIP_ENCODER);
   }
 
   /**
    * Used by unit test to prove that gzipped content is cached only when required.
    */
   byte[] getGzippedContentInternal() {
-    return this.gzippedContent;
+    return encodedContents != null ? encodedContents.get(GzipContentEncoder.NAME) : null;
+  }
+
+  /**
+   * Serializes the content backed by a buffer as a byte array.
+   */
+  private Object writeReplace() {
+    if (contentBuffer != null) {
+      final CacheValue value = new CacheValue(null, charset, hash, encodedContents);
+      value.content = getContent();
+      value.lastModified = lastModified;
+      return value;
+    }
+    return this;
   }
 
   /**
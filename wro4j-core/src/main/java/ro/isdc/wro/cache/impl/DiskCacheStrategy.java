@@ -0,0 +1,680 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.cache.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import javax.servlet.ServletContext;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.ArrayUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.cache.support.CacheStrategyDecorator;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
+import ro.isdc.wro.config.ReadOnlyContext;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.model.factory.DefaultWroModelFactoryDecorator;
+import ro.isdc.wro.model.factory.WroModelFactory;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.group.Inject;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
+import ro.isdc.wro.model.resource.support.hash.HashStrategy;
+import ro.isdc.wro.model.resource.support.hash.SHA1HashStrategy;
+import ro.isdc.wro.util.AbstractDecorator;
+import ro.isdc.wro.util.DestroyableLazyInitializer;
+import ro.isdc.wro.util.LazyInitializer;
+
+
+/**
+ * A {@link CacheStrategy} persisting the processed content on the file system, thus the groups don't have to be
+ * processed again after a restart. Values are also kept by a decorated (in memory by default) {@link CacheStrategy},
+ * which is used to serve the requests, while the disk is used only when the decorated strategy misses a value.
+ * <p/>
+ * Each entry is stored in a file named after a fingerprint of the {@link CacheKey}, the processors used along with
+ * their configuration (the simple values held by the processors and their decorators), the wro4j version, the encoding
+ * and the uri & content of each resource of the group. The content of the resources is hashed once per version of the
+ * group (until the model is reloaded or an entry of the group is invalidated), no matter how many keys are built from
+ * the group. The entry also contains the uri & content hash of the other resources read while processing the group
+ * (recorded by the {@link ResourceDependencyGraph}, ex: the targets of <code>@import</code> directives), which are
+ * validated when the entry is loaded. This way an entry is never used after the model, the processors or the resources
+ * it depends on were changed, even if the change happened while the application was stopped.
+ * The file also contains a checksum of the content, which is validated every time the entry is read and once for all
+ * entries when the strategy is first used. Invalid entries are deleted.
+ * <p/>
+ * Writing an entry deletes the entries of the same key having a different fingerprint, while invalidating an entry
+ * deletes the entries of all keys of the group. When the files exceed {@link WroConfiguration#getDiskCacheSize()}, the
+ * least recently used entries are deleted.
+ * <p/>
+ * The folder can be shared by several JVM's: the files are written to a temporary file and renamed atomically, thus an
+ * entry is never read partially written. The folder is configured by {@link WroConfiguration#getDiskCacheDirectory()}.
+ * When not configured, a folder specific to the application is created inside the temporary folder, thus the
+ * applications don't remove each other's entries.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class DiskCacheStrategy
+    extends CacheStrategyDecorator<CacheKey, CacheValue> {
+  private static final Logger LOG = LoggerFactory.getLogger(DiskCacheStrategy.class);
+  /**
+   * Alias used by provider for this implementation.
+   */
+  public static final String ALIAS = "disk";
+  /**
+   * The name of the folder created inside of temporary folder when no folder is configured.
+   */
+  static final String DEFAULT_FOLDER_NAME = "wro4j-cache";
+  static final String FILE_SUFFIX = ".cache";
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  /**
+   * Identifies the format of the persisted entries.
+   */
+  private static final int MAGIC = 0x77726F34;
+  private static final int FORMAT_VERSION = 2;
+  /**
+   * The number of characters of the hashes identifying the group and the key in the name of a file.
+   */
+  private static final int ID_LENGTH = 16;
+  /**
+   * Temporary files older than this age are considered leftovers of a JVM which stopped while writing an entry.
+   */
+  private static final long TEMP_FILE_MAX_AGE = 60 * 60 * 1000;
+  @Inject
+  private WroModelFactory modelFactory;
+  @Inject
+  private ProcessorsFactory processorsFactory;
+  @Inject
+  private UriLocatorFactory locatorFactory;
+  @Inject
+  private ReadOnlyContext context;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
+  private final HashStrategy hashStrategy = new SHA1HashStrategy();
+  /**
+   * Fingerprints of the resources of the groups already computed, mapped by group name and resource type. Removed when
+   * an entry of the group is invalidated.
+   */
+  private final Map<String, GroupFingerprint> groupFingerprints = new ConcurrentHashMap<String, GroupFingerprint>();
+  /**
+   * Describes the processors and their configuration, which is the same for all entries.
+   */
+  private final DestroyableLazyInitializer<String> processorsFingerprint = new DestroyableLazyInitializer<String>() {
+    @Override
+    protected String initialize() {
+      final StringBuilder source = new StringBuilder();
+      for (final ResourcePreProcessor processor : processorsFactory.getPreProcessors()) {
+        source.append('|').append(describe(processor));
+      }
+      for (final ResourcePostProcessor processor : processorsFactory.getPostProcessors()) {
+        source.append('|').append(describe(processor));
+      }
+      return source.toString();
+    }
+  };
+  private final File configuredDirectory;
+  private final LazyInitializer<File> directoryInitializer = new LazyInitializer<File>() {
+    @Override
+    protected File initialize() {
+      File directory = configuredDirectory;
+      if (directory == null) {
+        final String folder = context.getConfig().getDiskCacheDirectory();
+        directory = folder != null ? new File(folder) : new File(new File(FileUtils.getTempDirectory(),
+            DEFAULT_FOLDER_NAME), getApplicationId());
+      }
+      if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+        throw new WroRuntimeException("Cannot create disk cache folder: " + directory);
+      }
+      validateEntries(directory);
+      return directory;
+    }
+  };
+
+  /**
+   * The content of a file: the value and the content hash of the resources it depends on, mapped by uri.
+   */
+  private static final class Entry {
+    private final CacheValue value;
+    private final Map<String, String> dependencies;
+
+    Entry(final CacheValue value, final Map<String, String> dependencies) {
+      this.value = value;
+      this.dependencies = dependencies;
+    }
+  }
+
+  /**
+   * The fingerprint of the resources of a version of a group.
+   */
+  private static final class GroupFingerprint {
+    private final Group group;
+    private final String value;
+
+    GroupFingerprint(final Group group, final String value) {
+      this.group = group;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Uses a {@link LruMemoryCacheStrategy} to keep the values in memory and the folder provided by
+   * {@link WroConfiguration#getDiskCacheDirectory()}.
+   */
+  public DiskCacheStrategy() {
+    this(new LruMemoryCacheStrategy<CacheKey, CacheValue>(), null);
+  }
+
+  /**
+   * @param decorated
+   *          the {@link CacheStrategy} used to keep the values in memory.
+   * @param directory
+   *          the folder where the values are persisted. When null, the configured folder is used.
+   */
+  public DiskCacheStrategy(final CacheStrategy<CacheKey, CacheValue> decorated, final File directory) {
+    super(decorated);
+    this.configuredDirectory = directory;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CacheValue get(final CacheKey key) {
+    CacheValue value = getDecoratedObject().get(key);
+    if (value == null) {
+      value = read(key);
+      if (value != null) {
+        getDecoratedObject().put(key, value);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void put(final CacheKey key, final CacheValue value) {
+    if (value == null) {
+      groupFingerprints.remove(getGroupId(key));
+      // the entries of the other keys of the group are stale as well
+      deleteFiles(getGroupPrefix(key), null);
+    } else {
+      write(key, value);
+    }
+    getDecoratedObject().put(key, value);
+  }
+
+  /**
+   * Removes all entries, including the ones persisted by other JVM's using the same folder.
+   */
+  @Override
+  public void clear() {
+    groupFingerprints.clear();
+    processorsFingerprint.destroy();
+    final File[] files = directoryInitializer.get().listFiles();
+    if (files != null) {
+      for (final File file : files) {
+        if (file.getName().endsWith(FILE_SUFFIX)) {
+          FileUtils.deleteQuietly(file);
+        }
+      }
+    }
+    super.clear();
+  }
+
+  private CacheValue read(final CacheKey key) {
+    final File file = getFile(key, getFingerprint(key));
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      final Entry entry = readEntry(file);
+      if (!isUpToDate(entry.dependencies)) {
+        LOG.debug("Deleting disk cache file: {} depending on changed resources", file);
+        FileUtils.deleteQuietly(file);
+        return null;
+      }
+      recordDependencies(key, entry.dependencies.keySet());
+      // used by the eviction of the least recently used entries
+      file.setLastModified(System.currentTimeMillis());
+      LOG.debug("Loaded {} from disk cache file: {}", key, file);
+      return entry.value;
+    } catch (final IOException e) {
+      LOG.warn("Deleting invalid disk cache file: {}. Reason: {}", file, e.getMessage());
+      FileUtils.deleteQuietly(file);
+      return null;
+    }
+  }
+
+  /**
+   * @return true if the content of none of the provided dependencies was changed.
+   */
+  private boolean isUpToDate(final Map<String, String> dependencies) {
+    for (final Map.Entry<String, String> dependency : dependencies.entrySet()) {
+      if (!dependency.getValue().equals(getContentHash(dependency.getKey()))) {
+        LOG.debug("Changed dependency: {}", dependency.getKey());
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The value loaded from disk is not processed, thus its dependencies have to be recorded explicitly, in order to
+   * evict it when one of them is changed.
+   */
+  private void recordDependencies(final CacheKey key, final Set<String> dependencies) {
+    if (dependencyGraph != null) {
+      dependencyGraph.startRecording(key);
+      try {
+        final Group group = getGroupFingerprint(key).group;
+        if (group != null) {
+          for (final Resource resource : group.getResources()) {
+            dependencyGraph.record(resource.getUri());
+          }
+        }
+        for (final String uri : dependencies) {
+          dependencyGraph.record(uri);
+        }
+      } finally {
+        dependencyGraph.stopRecording();
+      }
+    }
+  }
+
+  private void write(final CacheKey key, final CacheValue value) {
+    final File directory = directoryInitializer.get();
+    File tempFile = null;
+    try {
+      tempFile = File.createTempFile(DEFAULT_FOLDER_NAME, TEMP_FILE_SUFFIX, directory);
+      writeEntry(tempFile, new Entry(value, getDependencies(key)));
+      final File file = getFile(key, getFingerprint(key));
+      // some platforms cannot rename over an existing file. In that case, the entry was written by another JVM.
+      if (!tempFile.renameTo(file) && !file.isFile()) {
+        throw new IOException("Cannot rename " + tempFile + " to " + file);
+      }
+      // the entries of the key having a different fingerprint won't be used anymore
+      deleteFiles(getKeyPrefix(key), file);
+      evictLeastRecentlyUsed(directory, file);
+    } catch (final IOException e) {
+      LOG.warn("Cannot persist " + key + " in disk cache folder: " + directory, e);
+    } finally {
+      FileUtils.deleteQuietly(tempFile);
+    }
+  }
+
+  /**
+   * @return the content hash of the resources recorded as dependencies of the key, except the resources of the group
+   *         (which are part of the fingerprint), mapped by uri.
+   */
+  private Map<String, String> getDependencies(final CacheKey key) {
+    final Map<String, String> dependencies = new LinkedHashMap<String, String>();
+    if (dependencyGraph != null) {
+      final Set<String> groupUris = new HashSet<String>();
+      final Group group = getGroupFingerprint(key).group;
+      if (group != null) {
+        for (final Resource resource : group.getResources()) {
+          groupUris.add(resource.getUri());
+        }
+      }
+      for (final String uri : dependencyGraph.getDependencies(key)) {
+        if (!groupUris.contains(uri)) {
+          dependencies.put(uri, getContentHash(uri));
+        }
+      }
+    }
+    return dependencies;
+  }
+
+  private void writeEntry(final File file, final Entry entry)
+      throws IOException {
+    final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    try {
+      final CacheValue value = entry.value;
+      final byte[] content = value.getContent();
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+      output.writeUTF(value.getCharset());
+      output.writeBoolean(value.getHash() != null);
+      output.writeUTF(value.getHash() != null ? value.getHash() : "");
+      output.writeInt(entry.dependencies.size());
+      for (final Map.Entry<String, String> dependency : entry.dependencies.entrySet()) {
+        output.writeUTF(dependency.getKey());
+        output.writeUTF(dependency.getValue());
+      }
+      output.writeInt(content == null ? -1 : content.length);
+      if (content != null) {
+        output.write(content);
+      }
+      output.writeLong(checksum(content, entry.dependencies));
+    } finally {
+      IOUtils.closeQuietly(output);
+    }
+  }
+
+  /**
+   * @return the {@link Entry} persisted in the provided file.
+   * @throws IOException
+   *           if the file cannot be read or is not a valid entry.
+   */
+  private Entry readEntry(final File file)
+      throws IOException {
+    final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    try {
+      if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+        throw new IOException("Unknown format");
+      }
+      final String charset = input.readUTF();
+      final boolean hasHash = input.readBoolean();
+      final String hash = input.readUTF();
+      final int dependencyCount = input.readInt();
+      if (dependencyCount < 0) {
+        throw new IOException("Invalid number of dependencies");
+      }
+      final Map<String, String> dependencies = new LinkedHashMap<String, String>();
+      for (int i = 0; i < dependencyCount; i++) {
+        dependencies.put(input.readUTF(), input.readUTF());
+      }
+      final int length = input.readInt();
+      byte[] content = null;
+      if (length >= 0) {
+        content = new byte[length];
+        input.readFully(content);
+      }
+      if (input.readLong() != checksum(content, dependencies)) {
+        throw new IOException("Checksum mismatch");
+      }
+      return new Entry(CacheValue.valueOf(content, charset, hasHash ? hash : null), dependencies);
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  private long checksum(final byte[] content, final Map<String, String> dependencies)
+      throws IOException {
+    final CRC32 checksum = new CRC32();
+    for (final Map.Entry<String, String> dependency : dependencies.entrySet()) {
+      checksum.update(dependency.getKey().getBytes("UTF-8"));
+      checksum.update(dependency.getValue().getBytes("UTF-8"));
+    }
+    if (content != null) {
+      checksum.update(content);
+    }
+    return checksum.getValue();
+  }
+
+  /**
+   * Deletes the entries whose name starts with the provided prefix.
+   *
+   * @param exclude
+   *          a file which should not be deleted. Can be null.
+   */
+  private void deleteFiles(final String prefix, final File exclude) {
+    final File[] files = directoryInitializer.get().listFiles();
+    if (files != null) {
+      for (final File file : files) {
+        if (file.getName().startsWith(prefix) && file.getName().endsWith(FILE_SUFFIX) && !file.equals(exclude)) {
+          LOG.debug("Deleting stale disk cache file: {}", file);
+          FileUtils.deleteQuietly(file);
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the least recently used entries until the size of the entries doesn't exceed the configured limit.
+   *
+   * @param current
+   *          the entry just written, which is never deleted.
+   */
+  private void evictLeastRecentlyUsed(final File directory, final File current) {
+    final long maxSize = context.getConfig().getDiskCacheSize();
+    final File[] files = directory.listFiles();
+    if (maxSize <= 0 || files == null) {
+      return;
+    }
+    long size = 0;
+    final List<File> entries = new ArrayList<File>();
+    for (final File file : files) {
+      if (file.getName().endsWith(FILE_SUFFIX)) {
+        size += file.length();
+        entries.add(file);
+      }
+    }
+    if (size > maxSize) {
+      Collections.sort(entries, new Comparator<File>() {
+        public int compare(final File first, final File second) {
+          final long firstModified = first.lastModified();
+          final long secondModified = second.lastModified();
+          return firstModified < secondModified ? -1 : (firstModified == secondModified ? 0 : 1);
+        }
+      });
+      for (final File file : entries) {
+        if (size <= maxSize) {
+          break;
+        }
+        if (!file.equals(current)) {
+          LOG.debug("Evicting disk cache file: {}", file);
+          size -= file.length();
+          FileUtils.deleteQuietly(file);
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the entries which are not valid and the temporary files left by a JVM which stopped while writing.
+   */
+  private void validateEntries(final File directory) {
+    final File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    int count = 0;
+    for (final File file : files) {
+      if (file.getName().endsWith(FILE_SUFFIX)) {
+        try {
+          readEntry(file);
+          count++;
+        } catch (final IOException e) {
+          LOG.debug("Deleting invalid disk cache file: {}", file);
+          FileUtils.deleteQuietly(file);
+        }
+      } else if (file.getName().endsWith(TEMP_FILE_SUFFIX)
+          && System.currentTimeMillis() - file.lastModified() > TEMP_FILE_MAX_AGE) {
+        FileUtils.deleteQuietly(file);
+      }
+    }
+    LOG.debug("Found {} valid entries in disk cache folder: {}", count, directory);
+  }
+
+  /**
+   * @return the file of the entry, named after the group, the key and the fingerprint. This allows the removal of the
+   *         entries of a key or of a group, no matter their fingerprint.
+   */
+  private File getFile(final CacheKey key, final String fingerprint) {
+    return new File(directoryInitializer.get(), getKeyPrefix(key) + fingerprint + FILE_SUFFIX);
+  }
+
+  private String getGroupPrefix(final CacheKey key) {
+    return hash(getGroupId(key)).substring(0, ID_LENGTH) + "-";
+  }
+
+  private String getKeyPrefix(final CacheKey key) {
+    final String keyId = hash(key.getGroupName() + '|' + key.getType() + '|' + key.isMinimize() + '|'
+        + new TreeMap<String, String>(key.getAttributes()));
+    return getGroupPrefix(key) + keyId.substring(0, ID_LENGTH) + "-";
+  }
+
+  /**
+   * @return an identifier of the application, used to create a folder inside the temporary folder.
+   */
+  private String getApplicationId() {
+    final ServletContext servletContext = context.getServletContext();
+    final String application = servletContext != null ? servletContext.getServletContextName() + "|"
+        + servletContext.getRealPath("/") : "standalone|" + System.getProperty("user.dir");
+    return hash(application).substring(0, ID_LENGTH);
+  }
+
+  private String getFingerprint(final CacheKey key) {
+    return hash(computeFingerprintSource(key, getGroupFingerprint(key).value));
+  }
+
+  private GroupFingerprint getGroupFingerprint(final CacheKey key) {
+    final Group group = DefaultWroModelFactoryDecorator.inspect(modelFactory).getFilteredGroup(key.getGroupName(),
+        key.getType());
+    final String groupId = getGroupId(key);
+    GroupFingerprint groupFingerprint = groupFingerprints.get(groupId);
+    // the model inspector creates new groups when the model is reloaded
+    if (groupFingerprint == null || groupFingerprint.group != group) {
+      groupFingerprint = new GroupFingerprint(group, computeGroupFingerprint(group));
+      groupFingerprints.put(groupId, groupFingerprint);
+    }
+    return groupFingerprint;
+  }
+
+  private String getGroupId(final CacheKey key) {
+    return key.getGroupName() + ":" + key.getType();
+  }
+
+  /**
+   * @return a description of everything the processed content of the provided key depends on.
+   */
+  private String computeFingerprintSource(final CacheKey key, final String groupFingerprint) {
+    final StringBuilder source = new StringBuilder();
+    source.append(key.getGroupName()).append('|').append(key.getType()).append('|').append(key.isMinimize());
+    source.append('|').append(new TreeMap<String, String>(key.getAttributes()));
+    source.append('|').append(CacheValue.class.getPackage().getImplementationVersion());
+    source.append('|').append(context.getConfig().getEncoding());
+    source.append(processorsFingerprint.get());
+    source.append('|').append(groupFingerprint);
+    return source.toString();
+  }
+
+  /**
+   * @return the hash of the uri and content of each resource of the group.
+   */
+  private String computeGroupFingerprint(final Group group) {
+    final StringBuilder source = new StringBuilder();
+    if (group != null) {
+      for (final Resource resource : group.getResources()) {
+        source.append('|').append(resource.getUri()).append('|').append(resource.isMinimize());
+        source.append('|').append(getContentHash(resource.getUri()));
+      }
+    }
+    return hash(source.toString());
+  }
+
+  /**
+   * @return the class name of the processor and of each of its decorators, along with their configuration.
+   */
+  private String describe(final Object processor) {
+    final StringBuilder description = new StringBuilder();
+    Object current = processor;
+    while (current instanceof AbstractDecorator) {
+      describeObject(current, description);
+      current = ((AbstractDecorator<?>) current).getDecoratedObject();
+    }
+    describeObject(AbstractDecorator.getOriginalDecoratedObject(processor), description);
+    return description.toString();
+  }
+
+  /**
+   * Appends the class name and the fields holding simple values (primitives, strings, enums and their arrays), which
+   * usually hold the options of a processor. The other fields are ignored, since their description is not necessarily
+   * the same after a restart.
+   */
+  private void describeObject(final Object object, final StringBuilder description) {
+    description.append(object.getClass().getName());
+    for (Class<?> type = object.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+      for (final Field field : getSortedFields(type)) {
+        final int modifiers = field.getModifiers();
+        if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()
+            && isSimpleType(field.getType())) {
+          try {
+            field.setAccessible(true);
+            description.append(',').append(field.getName()).append('=').append(
+                ArrayUtils.toString(field.get(object)));
+          } catch (final Exception e) {
+            LOG.debug("Cannot read field {} of {}", field.getName(), type.getName());
+          }
+        }
+      }
+    }
+  }
+
+  private List<Field> getSortedFields(final Class<?> type) {
+    final List<Field> fields = new ArrayList<Field>(Arrays.asList(type.getDeclaredFields()));
+    Collections.sort(fields, new Comparator<Field>() {
+      public int compare(final Field first, final Field second) {
+        return first.getName().compareTo(second.getName());
+      }
+    });
+    return fields;
+  }
+
+  private boolean isSimpleType(final Class<?> type) {
+    if (type.isArray()) {
+      return isSimpleType(type.getComponentType());
+    }
+    return type.isPrimitive() || type.isEnum() || type == String.class || type == Boolean.class
+        || type == Character.class || Number.class.isAssignableFrom(type);
+  }
+
+  private String getContentHash(final String uri) {
+    InputStream inputStream = null;
+    try {
+      inputStream = locatorFactory.locate(uri);
+      return hashStrategy.getHash(inputStream);
+    } catch (final IOException e) {
+      // a missing resource is part of the fingerprint as well
+      return "";
+    } finally {
+      IOUtils.closeQuietly(inputStream);
+    }
+  }
+
+  private String hash(final String value) {
+    try {
+      return hashStrategy.getHash(new ByteArrayInputStream(value.getBytes("UTF-8")));
+    } catch (final IOException e) {
+      throw WroRuntimeException.wrap(e);
+    }
+  }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.cache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+
+
+/**
+ * A {@link CacheStrategy} storing the processed content outside of the java heap, which reduces the garbage collection
+ * pressure when there are a lot of large bundles. Only a small index of {@link CacheValue}'s (hash, ETag and charset) is
+ * kept on the heap, while the content is stored either in direct buffers or in memory-mapped files created in a
+ * configured folder.
+ * <p/>
+ * The entries are evicted in LRU (Least Recently Used) order when the total size of the content exceeds the configured
+ * number of bytes. An entry larger than this limit is still cached, but it evicts all other entries. Evicted buffers are
+ * released by the garbage collector, thus a value being served while evicted is still valid.
+ * <p/>
+ * When not provided explicitly, the settings are read from {@link WroConfiguration#getOffHeapCacheSize()} and
+ * {@link WroConfiguration#getOffHeapCacheDirectory()}. Notice that direct buffers are limited by the
+ * -XX:MaxDirectMemorySize JVM option and that the content encoded with gzip (cached when
+ * {@link WroConfiguration#isCacheGzippedContent()} is true) is still kept on the heap.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class OffHeapCacheStrategy
+    implements CacheStrategy<CacheKey, CacheValue> {
+  private static final Logger LOG = LoggerFactory.getLogger(OffHeapCacheStrategy.class);
+  /**
+   * Alias used by provider for this implementation.
+   */
+  public static final String ALIAS = "offHeap";
+  private static final String FILE_PREFIX = "wro4j-";
+  private static final String FILE_SUFFIX = ".cache";
+  /**
+   * Values in access order, the eldest being the least recently used.
+   */
+  private final Map<CacheKey, CacheValue> index = new LinkedHashMap<CacheKey, CacheValue>(16, 0.75f, true);
+  private long maxBytes;
+  private File directory;
+  private boolean initialized;
+  /**
+   * Total number of bytes of the cached content.
+   */
+  private long usedBytes;
+
+  /**
+   * Uses the settings provided by {@link WroConfiguration}.
+   */
+  public OffHeapCacheStrategy() {
+  }
+
+  /**
+   * @param maxBytes
+   *          the maximum number of bytes of cached content.
+   * @param directory
+   *          the folder where memory-mapped files are created. When null, direct buffers are used.
+   */
+  public OffHeapCacheStrategy(final long maxBytes, final File directory) {
+    Validate.isTrue(maxBytes > 0, "maxBytes must be positive");
+    this.maxBytes = maxBytes;
+    this.directory = directory;
+    this.initialized = true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public CacheValue get(final CacheKey key) {
+    synchronized (index) {
+      return index.get(key);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void put(final CacheKey key, final CacheValue value) {
+    CacheValue storedValue = value;
+    if (value != null && value.hasContent()) {
+      initialize();
+      // copy the content outside of the lock, since it can be slow for large content.
+      storedValue = value.withContentBuffer(allocate(value.getContent()));
+    }
+    synchronized (index) {
+      final CacheValue previous = storedValue == null ? index.remove(key) : index.put(key, storedValue);
+      usedBytes += sizeOf(storedValue) - sizeOf(previous);
+      evict();
+    }
+  }
+
+  /**
+   * Removes the least recently used entries until the cached content fits the maximum number of bytes.
+   */
+  private void evict() {
+    final Iterator<CacheValue> iterator = index.values().iterator();
+    while (usedBytes > maxBytes && index.size() > 1 && iterator.hasNext()) {
+      final CacheValue eldest = iterator.next();
+      iterator.remove();
+      usedBytes -= sizeOf(eldest);
+      LOG.debug("Evicted cache value with hash: {}", eldest.getHash());
+    }
+  }
+
+  private long sizeOf(final CacheValue value) {
+    return value == null ? 0 : value.getContentLength();
+  }
+
+  /**
+   * Reads the settings from the configuration, unless they were provided explicitly.
+   */
+  private synchronized void initialize() {
+    if (!initialized) {
+      final WroConfiguration config = Context.get().getConfig();
+      maxBytes = config.getOffHeapCacheSize();
+      directory = config.getOffHeapCacheDirectory() == null ? null : new File(config.getOffHeapCacheDirectory());
+      initialized = true;
+      LOG.debug("Using off-heap cache of {} bytes in {}", maxBytes, directory == null ? "direct buffers" : directory);
+    }
+  }
+
+  /**
+   * @return a buffer, allocated outside of the heap, holding a copy of the provided bytes.
+   */
+  protected ByteBuffer allocate(final byte[] bytes) {
+    if (directory == null || bytes.length == 0) {
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+      buffer.put(bytes);
+      buffer.flip();
+      return buffer;
+    }
+    try {
+      return map(bytes);
+    } catch (final IOException e) {
+      throw WroRuntimeException.wrap(e, "Cannot create memory-mapped cache file in: " + directory).logError();
+    }
+  }
+
+  /**
+   * Writes the bytes to a new file and maps it in memory. The file is deleted right away, since the mapping remains
+   * valid until the buffer is garbage collected.
+   */
+  private ByteBuffer map(final byte[] bytes)
+      throws IOException {
+    directory.mkdirs();
+    final File file = File.createTempFile(FILE_PREFIX, FILE_SUFFIX, directory);
+    final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+    try {
+      final FileChannel channel = randomAccessFile.getChannel();
+      final ByteBuffer source = ByteBuffer.wrap(bytes);
+      while (source.hasRemaining()) {
+        channel.write(source);
+      }
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes.length);
+    } finally {
+      randomAccessFile.close();
+      if (!file.delete()) {
+        // some platforms do not allow deleting a mapped file
+        file.deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * @return the total number of bytes of cached content.
+   */
+  public long getUsedBytes() {
+    synchronized (index) {
+      return usedBytes;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void clear() {
+    synchronized (index) {
+      index.clear();
+      usedBytes = 0;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void destroy() {
+    clear();
+  }
+}
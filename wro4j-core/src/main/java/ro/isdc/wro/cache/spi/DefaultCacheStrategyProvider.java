@@ -6,8 +6,10 @@ import java.util.Map;
 import ro.isdc.wro.cache.CacheKey;
 import ro.isdc.wro.cache.CacheStrategy;
 import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.cache.impl.DiskCacheStrategy;
 import ro.isdc.wro.cache.impl.LruMemoryCacheStrategy;
 import ro.isdc.wro.cache.impl.MemoryCacheStrategy;
+import ro.isdc.wro.cache.impl.OffHeapCacheStrategy;
 import ro.isdc.wro.model.resource.support.naming.NamingStrategy;
 import ro.isdc.wro.model.resource.support.naming.NamingStrategyProvider;
 
@@ -29,6 +31,8 @@ public class DefaultCacheStrategyProvider
     final Map<String, CacheStrategy<CacheKey, CacheValue>> map = new HashMap<String, CacheStrategy<CacheKey, CacheValue>>();
     map.put(MemoryCacheStrategy.ALIAS, new MemoryCacheStrategy<CacheKey, CacheValue>());
     map.put(LruMemoryCacheStrategy.ALIAS, new LruMemoryCacheStrategy<CacheKey, CacheValue>());
+    map.put(OffHeapCacheStrategy.ALIAS, new OffHeapCacheStrategy());
+    map.put(DiskCacheStrategy.ALIAS, new DiskCacheStrategy());
     return map;
   }
 }
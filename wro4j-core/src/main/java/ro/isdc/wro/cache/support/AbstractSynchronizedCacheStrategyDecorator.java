@@ -2,21 +2,35 @@ package ro.isdc.wro.cache.support;
 
 import static org.apache.commons.lang3.Validate.notNull;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.model.group.Inject;
+import ro.isdc.wro.util.DestroyableLazyInitializer;
+import ro.isdc.wro.util.concurrent.WroExecutorProvider;
 
 
 /**
  * Ensure that the {@link AbstractSynchronizedCacheStrategyDecorator#loadValue(Object)} will be called only once for the same
  * key. This behavior is important for avoiding redundant execution of expensive computation in concurrent environment
  * which cause high memory and CPU consumption.
+ * <p/>
+ * The first caller of a missing key computes the value, while all concurrent callers for the same key await the same
+ * pending load (single-flight) for at most {@link #getLoadTimeout()} milliseconds. When
+ * {@link #isStaleWhileRevalidate()} is true, a value invalidated with {@link #put(Object, Object)} (using a null value)
+ * is still served to callers while the new value is loaded in background.
  *
  * @author Alex Objelean
  * @created 30 Apr 2012
@@ -25,7 +39,37 @@ import ro.isdc.wro.cache.CacheStrategy;
 public abstract class AbstractSynchronizedCacheStrategyDecorator<K, V>
     extends CacheStrategyDecorator<K, V> {
   private static final Logger LOG = LoggerFactory.getLogger(AbstractSynchronizedCacheStrategyDecorator.class);
-  private final ConcurrentMap<K, ReadWriteLock> locks = new ConcurrentHashMap<K, ReadWriteLock>();
+  /**
+   * Loads in progress, removed as soon as the load completes.
+   */
+  private final ConcurrentMap<K, LoadTask> pendingLoads = new ConcurrentHashMap<K, LoadTask>();
+  /**
+   * Values invalidated while stale-while-revalidate is enabled. They are served until the refreshed value is available.
+   */
+  private final ConcurrentMap<K, V> staleValues = new ConcurrentHashMap<K, V>();
+  /**
+   * Provides the threads refreshing stale values in background.
+   */
+  @Inject
+  private WroExecutorProvider executorProvider;
+  /**
+   * Used only when no {@link WroExecutorProvider} was injected (ex: the decorator is used outside of a
+   * {@link ro.isdc.wro.manager.WroManager}).
+   */
+  private final DestroyableLazyInitializer<WroExecutorProvider> defaultExecutorProvider = new DestroyableLazyInitializer<WroExecutorProvider>() {
+    @Override
+    protected WroExecutorProvider initialize() {
+      return new WroExecutorProvider();
+    }
+
+    @Override
+    public void destroy() {
+      if (isInitialized()) {
+        get().destroy();
+      }
+      super.destroy();
+    }
+  };
 
   public AbstractSynchronizedCacheStrategyDecorator(final CacheStrategy<K, V> decorated) {
     super(decorated);
@@ -35,33 +79,94 @@ public abstract class AbstractSynchronizedCacheStrategyDecorator<K, V>
   public final V get(final K key) {
     notNull(key);
     LOG.debug("Searching cache key: {}", key);
-    V value = null;
-    //invoke this callback method before the lock is acquired to avoid dead-lock
+    //invoke this callback method before the value is loaded, since it can invalidate the value.
     onBeforeGet(key);
-    final ReadWriteLock lock = getLockForKey(key);
-    lock.readLock().lock();
-    try {
-      value = getDecoratedObject().get(key);
-    } finally {
-      lock.readLock().unlock();
-    }
+    V value = getDecoratedObject().get(key);
     if (value == null) {
-      lock.writeLock().lock();
-      try {
-        // this is necessary to ensure that the load wasn't invoked
-        value = getDecoratedObject().get(key);
-        if (value == null) {
-          LOG.debug("Cache is empty. Loading new value...");
-          value = loadValue(key);
-          put(key, value);
-        }
-      } finally {
-        lock.writeLock().unlock();
+      final V staleValue = isStaleWhileRevalidate() ? staleValues.get(key) : null;
+      if (staleValue != null) {
+        refreshInBackground(key);
+        value = staleValue;
+      } else {
+        value = awaitLoad(key);
       }
     }
     return value;
   }
 
+  /**
+   * Loads the value in the current thread, unless there is already a pending load for the same key, in which case the
+   * result of the pending load is awaited.
+   */
+  private V awaitLoad(final K key) {
+    final LoadTask task = new LoadTask(key);
+    final LoadTask pendingTask = pendingLoads.putIfAbsent(key, task);
+    if (pendingTask != null) {
+      LOG.debug("Awaiting pending load of key: {}", key);
+      return getResult(pendingTask, getLoadTimeout());
+    }
+    // the value could have been stored by a load which completed after the cache was checked
+    final V value = getDecoratedObject().get(key);
+    if (value != null) {
+      pendingLoads.remove(key, task);
+      return value;
+    }
+    LOG.debug("Cache is empty. Loading new value...");
+    task.run();
+    return getResult(task, 0);
+  }
+
+  /**
+   * Triggers the background load of the value associated with the key, unless there is already a pending load. When the
+   * refresh is not run by the executor (discarded or rejected), the pending load is canceled and the stale value is
+   * served until a subsequent refresh succeeds.
+   */
+  private void refreshInBackground(final K key) {
+    final LoadTask task = new LoadTask(key);
+    if (pendingLoads.putIfAbsent(key, task) == null) {
+      LOG.debug("Serving stale value while refreshing key: {}", key);
+      try {
+        executeRefresh(new FutureTask<Void>(decorateRefresh(task), null) {
+          @Override
+          protected void done() {
+            if (isCancelled()) {
+              task.cancel(false);
+            }
+          }
+        });
+      } catch (final RejectedExecutionException e) {
+        LOG.warn("Refresh of key: {} was rejected, serving the stale value", key);
+        task.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * @param timeout
+   *          number of milliseconds to wait. Zero or less, means forever.
+   * @return the result of the load, propagating the failure of the load.
+   */
+  private V getResult(final LoadTask task, final long timeout) {
+    try {
+      return timeout > 0 ? task.get(timeout, TimeUnit.MILLISECONDS) : task.get();
+    } catch (final TimeoutException e) {
+      throw new WroRuntimeException("Timeout while waiting for the value of key: " + task.key + " to be loaded", e);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw WroRuntimeException.wrap(e);
+    } catch (final CancellationException e) {
+      throw new WroRuntimeException("The load of key: " + task.key + " was canceled", e);
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new WroRuntimeException("Could not load the value of key: " + task.key, cause);
+    }
+  }
+
   /**
    * Invoked just before the get method is invoked. Can be useful for checking if resources are stale and invalidating
    * the cache.
@@ -69,23 +174,102 @@ public abstract class AbstractSynchronizedCacheStrategyDecorator<K, V>
   protected void onBeforeGet(final K key) {
   }
 
+  /**
+   * Stores the value. A null value invalidates the entry associated with the key, including any pending load, whose
+   * result won't be stored anymore.
+   */
   @Override
   public final void put(final K key, final V value) {
-    final ReadWriteLock lock = getLockForKey(key);
-    lock.writeLock().lock();
-    try {
+    if (value == null) {
+      invalidate(key);
+    } else {
       getDecoratedObject().put(key, value);
-    } finally {
-      lock.writeLock().unlock();
     }
   }
 
+  private void invalidate(final K key) {
+    if (isStaleWhileRevalidate()) {
+      final V currentValue = getDecoratedObject().get(key);
+      if (currentValue != null) {
+        staleValues.put(key, currentValue);
+      }
+    }
+    final LoadTask pendingTask = pendingLoads.remove(key);
+    if (pendingTask != null) {
+      pendingTask.invalidate();
+    }
+    getDecoratedObject().put(key, null);
+    onInvalidate(key);
+  }
+
   /**
-   * Ensure that the returned lock will never be null.
+   * Invoked after the entry associated with the key was invalidated.
    */
-  private ReadWriteLock getLockForKey(final K key) {
-    final ReadWriteLock lock = locks.putIfAbsent(key, new ReentrantReadWriteLock());
-    return lock == null ? locks.get(key) : lock;
+  protected void onInvalidate(final K key) {
+  }
+
+  @Override
+  public void clear() {
+    staleValues.clear();
+    for (final LoadTask pendingTask : pendingLoads.values()) {
+      pendingTask.invalidate();
+    }
+    pendingLoads.clear();
+    super.clear();
+  }
+
+  @Override
+  public void destroy() {
+    super.destroy();
+    defaultExecutorProvider.destroy();
+  }
+
+  /**
+   * @return the injected {@link WroExecutorProvider} or, when none was injected, a provider owned by this decorator.
+   */
+  protected final WroExecutorProvider getExecutorProvider() {
+    return executorProvider != null ? executorProvider : defaultExecutorProvider.get();
+  }
+
+  /**
+   * @return the number of milliseconds a caller waits for a value loaded by a concurrent caller. Zero or less, means
+   *         forever. By default the caller waits forever.
+   */
+  protected long getLoadTimeout() {
+    return 0;
+  }
+
+  /**
+   * @return true if an invalidated value should be served while the new value is loaded in background. By default
+   *         this is false.
+   */
+  protected boolean isStaleWhileRevalidate() {
+    return false;
+  }
+
+  /**
+   * Allows to decorate the background refresh of a stale value, in order to prepare the environment required by
+   * {@link #loadValue(Object)} outside of the caller thread.
+   *
+   * @param refresh
+   *          the {@link Runnable} performing the refresh.
+   * @return the decorated refresh.
+   */
+  protected Runnable decorateRefresh(final Runnable refresh) {
+    return refresh;
+  }
+
+  /**
+   * Runs the background refresh of a stale value. By default, the refresh is run by the executor shared with the other
+   * background work.
+   *
+   * @param refresh
+   *          the decorated {@link Runnable} performing the refresh. It is a {@link java.util.concurrent.Future} which
+   *          must be canceled (or a {@link RejectedExecutionException} thrown) when it won't be run, thus it must be
+   *          executed as is, without being wrapped.
+   */
+  protected void executeRefresh(final Runnable refresh) {
+    getExecutorProvider().getExecutor().execute(refresh);
   }
 
   /**
@@ -93,4 +277,58 @@ public abstract class AbstractSynchronizedCacheStrategyDecorator<K, V>
    * multiple times for the same key.
    */
   protected abstract V loadValue(final K key);
+
+  /**
+   * Loads the value associated with a key and stores it in the cache, unless it was invalidated in the meantime.
+   */
+  private class LoadTask
+      extends FutureTask<V> {
+    private final K key;
+    private boolean invalidated;
+
+    public LoadTask(final K key) {
+      this(key, new Callable<V>() {
+        public V call()
+            throws Exception {
+          return loadValue(key);
+        }
+      });
+    }
+
+    private LoadTask(final K key, final Callable<V> callable) {
+      super(callable);
+      this.key = key;
+    }
+
+    @Override
+    protected void set(final V value) {
+      synchronized (this) {
+        if (!invalidated && value != null) {
+          getDecoratedObject().put(key, value);
+        }
+      }
+      super.set(value);
+    }
+
+    @Override
+    protected void setException(final Throwable t) {
+      if (staleValues.remove(key) != null) {
+        LOG.error("Could not refresh the stale value of key: " + key, t);
+      }
+      super.setException(t);
+    }
+
+    @Override
+    protected void done() {
+      pendingLoads.remove(key, this);
+      // a canceled refresh keeps the stale value, which triggers a new refresh when requested again
+      if (!isCancelled()) {
+        staleValues.remove(key);
+      }
+    }
+
+    public synchronized void invalidate() {
+      invalidated = true;
+    }
+  }
 }
@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.StringUtils;
@@ -14,14 +15,17 @@ import org.slf4j.LoggerFactory;
 import ro.isdc.wro.cache.CacheKey;
 import ro.isdc.wro.cache.CacheStrategy;
 import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.ReadOnlyContext;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.group.processor.GroupsProcessor;
+import ro.isdc.wro.model.group.processor.PreProcessorExecutor;
 import ro.isdc.wro.model.resource.support.MutableResourceAuthorizationManager;
 import ro.isdc.wro.model.resource.support.ResourceAuthorizationManager;
 import ro.isdc.wro.model.resource.support.change.ResourceWatcher;
 import ro.isdc.wro.model.resource.support.hash.HashStrategy;
 import ro.isdc.wro.util.LazyInitializer;
+import ro.isdc.wro.util.ObjectFactory;
 import ro.isdc.wro.util.SchedulerHelper;
 
 
@@ -45,6 +49,10 @@ public class DefaultSynchronizedCacheStrategyDecorator
   private ReadOnlyContext context;
   @Inject
   private ResourceWatcher resourceWatcher;
+  @Inject
+  private PreProcessorExecutor preProcessorExecutor;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
 
   /**
    * Holds the keys that were checked for change. As long as a key is contained in this set, it won't be checked again.
@@ -91,13 +99,19 @@ public class DefaultSynchronizedCacheStrategyDecorator
           }
         };
       }
-    }, "resourceWatcherScheduler");
+    }, "resourceWatcherScheduler", new ObjectFactory<ScheduledExecutorService>() {
+      public ScheduledExecutorService create() {
+        return getExecutorProvider().getScheduler();
+      }
+    });
   }
 
   @Override
   protected CacheValue loadValue(final CacheKey key) {
     resourceWatcherScheduler.scheduleWithPeriod(getResourceWatcherUpdatePeriod(), getTimeUnitForResourceWatcher());
     LOG.debug("load value in cache for key: {}", key);
+    // the dependencies of the previous value (if any) are recorded again during processing
+    removeDependencies(key);
     final String content = groupsProcessor.process(key);
     if (LOG.isDebugEnabled()) {
       LOG.debug("found content: {}", StringUtils.abbreviate(content, 30));
@@ -137,6 +151,54 @@ public class DefaultSynchronizedCacheStrategyDecorator
     }
   }
 
+  @Override
+  protected long getLoadTimeout() {
+    return context.getConfig().getCacheLoadTimeout();
+  }
+
+  @Override
+  protected boolean isStaleWhileRevalidate() {
+    return context.getConfig().isStaleWhileRevalidate();
+  }
+
+  /**
+   * The refresh runs with a detached copy of the current {@link Context}, because the request cycle of the caller which
+   * triggered it is likely to complete before the refresh does.
+   */
+  @Override
+  protected Runnable decorateRefresh(final Runnable refresh) {
+    final Context detachedContext = Context.get().detach();
+    return new Runnable() {
+      public void run() {
+        // the refresh is run by the caller thread when the queue of the executor is full
+        final String callerCorrelationId = Context.isContextSet() ? Context.getCorrelationId() : null;
+        Context.set(detachedContext, detachedContext.getConfig());
+        try {
+          refresh.run();
+        } finally {
+          Context.unset();
+          if (callerCorrelationId != null) {
+            Context.setCorrelationId(callerCorrelationId);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * The dependencies of an invalidated entry are no longer needed: they are recorded again when the value is loaded.
+   */
+  @Override
+  protected void onInvalidate(final CacheKey key) {
+    removeDependencies(key);
+  }
+
+  private void removeDependencies(final CacheKey key) {
+    if (dependencyGraph != null) {
+      dependencyGraph.remove(key);
+    }
+  }
+
   @Override
   protected void onBeforeGet(final CacheKey key) {
     if (shouldWatchForChange(key)) {
@@ -163,6 +225,12 @@ public class DefaultSynchronizedCacheStrategyDecorator
     if (authorizationManager instanceof MutableResourceAuthorizationManager) {
       ((MutableResourceAuthorizationManager) authorizationManager).clear();
     }
+    if (preProcessorExecutor != null) {
+      preProcessorExecutor.clearCache();
+    }
+    if (dependencyGraph != null) {
+      dependencyGraph.clear();
+    }
   }
 
   @Override
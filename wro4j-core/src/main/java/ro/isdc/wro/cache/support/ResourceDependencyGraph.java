@@ -0,0 +1,264 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.cache.support;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.cache.CacheKey;
+
+
+/**
+ * Records, for each resource read while processing a group, the {@link CacheKey}'s which depend on it. Besides the
+ * resources of the group, the graph contains any other resource located during processing (ex: the targets of
+ * <code>@import</code> directives, the images converted to data uri). This allows the eviction of exactly the cache
+ * entries affected by a change of a resource.
+ * <p/>
+ * The recording is thread bound: the resources located by the current thread between {@link #startRecording(CacheKey)}
+ * and {@link #stopRecording()} are associated with the recorded key. The recordings can be nested (ex: a group
+ * processed while including the content of another group). Use {@link #propagate(Callable)} to record the
+ * resources located by a task run in a different thread.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class ResourceDependencyGraph
+    implements ResourceDependencyGraphMBean {
+  private static final Logger LOG = LoggerFactory.getLogger(ResourceDependencyGraph.class);
+  private final ThreadLocal<LinkedList<CacheKey>> recordedKeys = new ThreadLocal<LinkedList<CacheKey>>();
+  /**
+   * The number of resources located by each thread, recorded or not.
+   */
+  private final ThreadLocal<AtomicLong> locatedCount = new ThreadLocal<AtomicLong>() {
+    @Override
+    protected AtomicLong initialValue() {
+      return new AtomicLong();
+    }
+  };
+  /**
+   * The keys depending on a resource, mapped by resource uri.
+   */
+  private final ConcurrentMap<String, Map<CacheKey, Boolean>> dependentKeys = new ConcurrentHashMap<String, Map<CacheKey, Boolean>>();
+  /**
+   * The uri's of the resources read while processing a key.
+   */
+  private final ConcurrentMap<CacheKey, Map<String, Boolean>> dependencies = new ConcurrentHashMap<CacheKey, Map<String, Boolean>>();
+
+  /**
+   * Associates all resources located by the current thread with the provided key, until {@link #stopRecording()} is
+   * invoked. The previously recorded dependencies of the key are kept, since a resource which was not changed can be
+   * reused without being read again (ex: the content of an <code>@import</code> target).
+   */
+  public void startRecording(final CacheKey key) {
+    notNull(key);
+    getRecordedKeys().addLast(key);
+  }
+
+  /**
+   * Stops associating the resources located by the current thread with the recorded key. The key recorded before the
+   * last {@link #startRecording(CacheKey)} invocation (if any) is recorded again.
+   */
+  public void stopRecording() {
+    final LinkedList<CacheKey> keys = getRecordedKeys();
+    if (!keys.isEmpty()) {
+      keys.removeLast();
+    }
+    if (keys.isEmpty()) {
+      recordedKeys.remove();
+    }
+  }
+
+  private LinkedList<CacheKey> getRecordedKeys() {
+    LinkedList<CacheKey> keys = recordedKeys.get();
+    if (keys == null) {
+      keys = new LinkedList<CacheKey>();
+      recordedKeys.set(keys);
+    }
+    return keys;
+  }
+
+  private CacheKey getRecordedKey() {
+    final LinkedList<CacheKey> keys = recordedKeys.get();
+    return keys == null || keys.isEmpty() ? null : keys.getLast();
+  }
+
+  /**
+   * Records the dependency of the key being recorded by the current thread (if any) on the provided resource.
+   *
+   * @param uri
+   *          the uri of a located resource.
+   */
+  public void record(final String uri) {
+    locatedCount.get().incrementAndGet();
+    final CacheKey key = getRecordedKey();
+    if (key != null && uri != null) {
+      LOG.debug("{} depends on {}", key.getGroupName(), uri);
+      getOrCreate(dependentKeys, uri).put(key, Boolean.TRUE);
+      getOrCreate(dependencies, key).put(uri, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Allows to find out if a computation located any resource, by comparing the values returned before and after the
+   * computation, even when no key is recorded.
+   *
+   * @return the number of resources located so far by the current thread.
+   */
+  public long getLocatedCount() {
+    return locatedCount.get().get();
+  }
+
+  private <K, V> Map<V, Boolean> getOrCreate(final ConcurrentMap<K, Map<V, Boolean>> map, final K key) {
+    Map<V, Boolean> value = map.get(key);
+    if (value == null) {
+      final Map<V, Boolean> newValue = new ConcurrentHashMap<V, Boolean>();
+      value = map.putIfAbsent(key, newValue);
+      if (value == null) {
+        value = newValue;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * @return a {@link Callable} recording the resources it locates for the key recorded by the current thread.
+   */
+  public <T> Callable<T> propagate(final Callable<T> callable) {
+    notNull(callable);
+    final CacheKey key = getRecordedKey();
+    if (key == null) {
+      return callable;
+    }
+    return new Callable<T>() {
+      public T call()
+          throws Exception {
+        startRecording(key);
+        try {
+          return callable.call();
+        } finally {
+          stopRecording();
+        }
+      }
+    };
+  }
+
+  /**
+   * @param uri
+   *          the uri of a resource.
+   * @return the keys which were processed using the provided resource.
+   */
+  public Set<CacheKey> getDependentKeys(final String uri) {
+    notNull(uri);
+    final Map<CacheKey, Boolean> keys = dependentKeys.get(uri);
+    return keys == null ? new HashSet<CacheKey>() : new HashSet<CacheKey>(keys.keySet());
+  }
+
+  /**
+   * @param key
+   *          a processed {@link CacheKey}.
+   * @return the uri's of the resources read while processing the provided key.
+   */
+  public Set<String> getDependencies(final CacheKey key) {
+    notNull(key);
+    final Map<String, Boolean> uris = dependencies.get(key);
+    return uris == null ? new TreeSet<String>() : new TreeSet<String>(uris.keySet());
+  }
+
+  /**
+   * Removes the dependencies recorded for the provided key.
+   */
+  public void remove(final CacheKey key) {
+    notNull(key);
+    final Map<String, Boolean> uris = dependencies.remove(key);
+    if (uris != null) {
+      for (final String uri : uris.keySet()) {
+        final Map<CacheKey, Boolean> keys = dependentKeys.get(uri);
+        if (keys != null) {
+          keys.remove(key);
+        }
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void clear() {
+    dependentKeys.clear();
+    dependencies.clear();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getResourceCount() {
+    int count = 0;
+    for (final Map<CacheKey, Boolean> keys : dependentKeys.values()) {
+      if (!keys.isEmpty()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getCacheKeyCount() {
+    return dependencies.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public String[] getResourceUris() {
+    final Collection<String> uris = new TreeSet<String>();
+    for (final Map.Entry<String, Map<CacheKey, Boolean>> entry : dependentKeys.entrySet()) {
+      if (!entry.getValue().isEmpty()) {
+        uris.add(entry.getKey());
+      }
+    }
+    return uris.toArray(new String[uris.size()]);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public String[] getDependentCacheKeys(final String uri) {
+    final Collection<String> keys = new TreeSet<String>();
+    for (final CacheKey key : getDependentKeys(uri)) {
+      keys.add(describe(key));
+    }
+    return keys.toArray(new String[keys.size()]);
+  }
+
+  /**
+   * @return a short description of the key, used for reporting.
+   */
+  public static String describe(final CacheKey key) {
+    final StringBuilder description = new StringBuilder(key.getGroupName()).append('.').append(
+        key.getType().name().toLowerCase());
+    if (!key.isMinimize()) {
+      description.append(" (minimize=false)");
+    }
+    if (!key.getAttributes().isEmpty()) {
+      description.append(' ').append(key.getAttributes());
+    }
+    return description.toString();
+  }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.cache.support;
+
+/**
+ * Exposes through JMX the resources read while processing the cached groups.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public interface ResourceDependencyGraphMBean {
+  /**
+   * @return the number of distinct resources read while processing the cached groups.
+   */
+  int getResourceCount();
+
+  /**
+   * @return the number of cache entries having recorded dependencies.
+   */
+  int getCacheKeyCount();
+
+  /**
+   * @return the uri's of all resources read while processing the cached groups.
+   */
+  String[] getResourceUris();
+
+  /**
+   * @param uri
+   *          the uri of a resource.
+   * @return the description of the cache entries which depend on the provided resource.
+   */
+  String[] getDependentCacheKeys(String uri);
+
+  /**
+   * Removes all recorded dependencies.
+   */
+  void clear();
+}
@@ -23,6 +23,7 @@ import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.config.support.ContextPropagatingCallable;
 import ro.isdc.wro.http.WroFilter;
+import ro.isdc.wro.http.support.PreserveDetailsRequestWrapper;
 
 
 /**
@@ -242,6 +243,21 @@ public class Context
   }
 
 
+  /**
+   * Creates a copy of this context which can be used outside of the request cycle, for instance by a task which keeps
+   * running in background after the response is committed. The details of the request are preserved using
+   * {@link PreserveDetailsRequestWrapper}.
+   *
+   * @return a detached copy of this {@link Context}.
+   */
+  public Context detach() {
+    final Context copy = request != null ? webContext(new PreserveDetailsRequestWrapper(request), response,
+        filterConfig) : standaloneContext();
+    copy.aggregatedFolderPath = aggregatedFolderPath;
+    copy.config = config;
+    return copy;
+  }
+
   /**
    * @return the request
    */
@@ -4,6 +4,7 @@
 package ro.isdc.wro.config.factory;
 
 import java.util.Properties;
+import java.util.zip.Deflater;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.Validate;
@@ -50,6 +51,10 @@ public class PropertyWroConfigurationFactory
     config.setResourceWatcherUpdatePeriod(valueAsLong(
         properties.get(ConfigConstants.resourceWatcherUpdatePeriod.name()), 0));
     config.setResourceWatcherAsync(valueAsBoolean(properties.get(ConfigConstants.resourceWatcherAsync.name()), false));
+    config.setResourceWatcherNative(valueAsBoolean(properties.get(ConfigConstants.resourceWatcherNative.name()), false));
+    config.setAsyncServing(valueAsBoolean(properties.get(ConfigConstants.asyncServing.name()), false));
+    config.setAsyncServingTimeout(valueAsLong(properties.get(ConfigConstants.asyncServingTimeout.name()),
+        WroConfiguration.DEFAULT_ASYNC_SERVING_TIMEOUT));
     config.setMinimizeEnabled(valueAsBoolean(properties.get(ConfigConstants.minimizeEnabled.name()), true));
     config.setIgnoreMissingResources(valueAsBoolean(properties.get(ConfigConstants.ignoreMissingResources.name()), true));
     config.setIgnoreEmptyGroup(valueAsBoolean(properties.get(ConfigConstants.ignoreEmptyGroup.name()), true));
@@ -59,9 +64,32 @@ public class PropertyWroConfigurationFactory
     config.setMbeanName(valueAsString(properties.get(ConfigConstants.mbeanName.name())));
     config.setHeader(valueAsString(properties.get(ConfigConstants.header.name())));
     config.setCacheGzippedContent(valueAsBoolean(properties.get(ConfigConstants.cacheGzippedContent.name()), false));
+    config.setGzipCompressionLevel((int) valueAsLong(properties.get(ConfigConstants.gzipCompressionLevel.name()),
+        Deflater.DEFAULT_COMPRESSION));
     config.setParallelPreprocessing(valueAsBoolean(properties.get(ConfigConstants.parallelPreprocessing.name()), false));
+    config.setParallelPreprocessingWindow((int) valueAsLong(
+        properties.get(ConfigConstants.parallelPreprocessingWindow.name()), 0));
+    config.setCachePreProcessedResources(valueAsBoolean(
+        properties.get(ConfigConstants.cachePreProcessedResources.name()), false));
+    config.setDisableCache(valueAsBoolean(properties.get(ConfigConstants.disableCache.name()), false));
     config.setConnectionTimeout((int) valueAsLong(properties.get(ConfigConstants.connectionTimeout.name()),
         WroConfiguration.DEFAULT_CONNECTION_TIMEOUT));
+    config.setCacheLoadTimeout(valueAsLong(properties.get(ConfigConstants.cacheLoadTimeout.name()), 0));
+    config.setStaleWhileRevalidate(valueAsBoolean(properties.get(ConfigConstants.staleWhileRevalidate.name()), false));
+    config.setOffHeapCacheSize(valueAsLong(properties.get(ConfigConstants.offHeapCacheSize.name()),
+        WroConfiguration.DEFAULT_OFF_HEAP_CACHE_SIZE));
+    config.setOffHeapCacheDirectory(valueAsString(properties.get(ConfigConstants.offHeapCacheDirectory.name())));
+    config.setDiskCacheDirectory(valueAsString(properties.get(ConfigConstants.diskCacheDirectory.name())));
+    config.setDiskCacheSize(valueAsLong(properties.get(ConfigConstants.diskCacheSize.name()),
+        WroConfiguration.DEFAULT_DISK_CACHE_SIZE));
+    config.setExecutorPoolSize((int) valueAsLong(properties.get(ConfigConstants.executorPoolSize.name()), 0));
+    config.setExecutorQueueSize((int) valueAsLong(properties.get(ConfigConstants.executorQueueSize.name()),
+        WroConfiguration.DEFAULT_EXECUTOR_QUEUE_SIZE));
+    config.setExecutorRejectionPolicy(valueAsString(properties.get(ConfigConstants.executorRejectionPolicy.name())));
+    config.setExecutorVirtualThreads(valueAsBoolean(properties.get(ConfigConstants.executorVirtualThreads.name()),
+        false));
+    config.setSchedulerPoolSize((int) valueAsLong(properties.get(ConfigConstants.schedulerPoolSize.name()),
+        WroConfiguration.DEFAULT_SCHEDULER_POOL_SIZE));
     LOG.debug("WroConfiguration created: {}", config);
     return config;
   }
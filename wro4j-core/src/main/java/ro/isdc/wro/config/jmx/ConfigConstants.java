@@ -41,6 +41,24 @@ public enum ConfigConstants {
    * Flag which enables an experimental feature: asynchronous check for resource watcher.
    */
   resourceWatcherAsync,
+  /**
+   * When true, the resource watcher registers the resources backed by files (servletContext resources having a real
+   * path and classpath resources from a folder) to the file system watch service. The changes of these resources are
+   * pushed as soon as they occur, without being re-read and hashed during each check. The other resources are still
+   * checked by comparing their hash. Requires a JVM supporting java.nio.file (1.7 or newer). Default is false.
+   */
+  resourceWatcherNative,
+  /**
+   * When true, the bundles are processed and served asynchronously by the threads dedicated to serving, releasing the
+   * container thread as soon as the request is accepted. Requires a servlet 3.0 container and the filter declared with
+   * async-supported; the requests are served synchronously otherwise. Default is false.
+   */
+  asyncServing,
+  /**
+   * How many milliseconds a bundle served asynchronously can take before the request is responded with the 503 (service
+   * unavailable) status. Zero or less means to use the timeout of the container. Default is 60000.
+   */
+  asyncServingTimeout,
   /**
    * Flag indicating if the minimization is enabled. When this flag is false, the minimization will be
    *         suppressed for all resources.
@@ -55,12 +73,30 @@ public enum ConfigConstants {
    * When true, will run in parallel pre processing of multiple resources. In theory this should improve the performance.
    */
   parallelPreprocessing,
+  /**
+   * The maximum number of resources processed in parallel for the same group, when parallelPreprocessing is enabled.
+   * The processed resources are merged in order, as soon as all the previous resources are merged, thus only the
+   * content of these resources is kept in memory. When zero or less, twice the number of available processors is used.
+   */
+  parallelPreprocessingWindow,
+  /**
+   * When true, the pre processed content of each resource is cached, in order to reprocess only the changed resources
+   * when a group is invalidated (ex: by the resource watcher). The cached content is reused only if the resource
+   * content and the pre processors are unchanged. The resources importing other resources are not cached, since
+   * their imports are not validated. At most 512 resources are cached, the least recently used being evicted first.
+   * Default is false. It has no effect when disableCache is true in DEVELOPMENT mode.
+   */
+  cachePreProcessedResources,
   /**
    * When this flag is enabled, the raw processed content will be gzipped only the first time and all subsequent
    * requests will use the cached gzipped content. Otherwise, the gzip operation will be performed for each request.
    * This flag allow to control the memory vs processing power trade-off.
    */
   cacheGzippedContent,
+  /**
+   * The compression level (0-9) used to gzip the processed content. By default the zlib default level is used.
+   */
+  gzipCompressionLevel,
   /**
    * Instructs wro4j to not throw an exception when a resource is missing.
    */
@@ -95,5 +131,58 @@ public enum ConfigConstants {
    * After how many seconds the connection to servlet context and external url will be timed-out. This is useful to
    * avoid memory leaks when connection pool responsible for cache and model reload is destroyed.
    */
-  connectionTimeout
+  connectionTimeout,
+  /**
+   * How many milliseconds a request waits for a cache entry which is being loaded by a concurrent request. Zero or less
+   * means to wait until the load completes.
+   */
+  cacheLoadTimeout,
+  /**
+   * When true, a cache entry invalidated because of a resource change is still served while the new value is computed
+   * in background.
+   */
+  staleWhileRevalidate,
+  /**
+   * The maximum number of bytes of processed content kept by the off-heap cache strategy. When the limit is exceeded,
+   * the least recently used entries are evicted.
+   */
+  offHeapCacheSize,
+  /**
+   * The folder where the off-heap cache strategy creates the memory-mapped files holding the processed content. When
+   * not set, the content is stored in direct buffers.
+   */
+  offHeapCacheDirectory,
+  /**
+   * The folder where the disk cache strategy persists the processed content. The folder can be shared by several JVM's.
+   * When not set, a folder of the application inside the temporary directory is used.
+   */
+  diskCacheDirectory,
+  /**
+   * The maximum number of bytes of the files persisted by the disk cache strategy. When the limit is exceeded, the least
+   * recently used entries are deleted. Zero or less means no limit. Default is 256MB.
+   */
+  diskCacheSize,
+  /**
+   * The maximum number of threads used by the executor shared by all wro4j background work (parallel preProcessing,
+   * asynchronous resource watcher checks, background cache refresh, warmup). When zero or less, the number of available
+   * processors is used.
+   */
+  executorPoolSize,
+  /**
+   * The maximum number of tasks waiting for a thread of the shared executor. When zero or less, the queue is unbounded.
+   */
+  executorQueueSize,
+  /**
+   * What happens with a task submitted when the queue of the shared executor is full. Possible values are: callerRuns
+   * (the default, the task is run by the submitting thread), abort, discard and discardOldest.
+   */
+  executorRejectionPolicy,
+  /**
+   * When true, the shared executor uses virtual threads if the JVM supports them. Default is false.
+   */
+  executorVirtualThreads,
+  /**
+   * The number of threads shared by the schedulers of wro4j (cache & model reload, resource watcher).
+   */
+  schedulerPoolSize
 }
\ No newline at end of file
@@ -5,8 +5,9 @@ package ro.isdc.wro.config.jmx;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
 
 import org.apache.commons.lang3.CharEncoding;
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -35,6 +36,26 @@ public final class WroConfiguration
    * Default value for connectionTimeout property.
    */
   public static int DEFAULT_CONNECTION_TIMEOUT = 2000;
+  /**
+   * Default value for offHeapCacheSize property (64MB).
+   */
+  public static final long DEFAULT_OFF_HEAP_CACHE_SIZE = 64 * 1024 * 1024;
+  /**
+   * Default value for diskCacheSize property (256MB).
+   */
+  public static final long DEFAULT_DISK_CACHE_SIZE = 256 * 1024 * 1024;
+  /**
+   * Default value for executorQueueSize property.
+   */
+  public static final int DEFAULT_EXECUTOR_QUEUE_SIZE = 1000;
+  /**
+   * Default value for schedulerPoolSize property.
+   */
+  public static final int DEFAULT_SCHEDULER_POOL_SIZE = 2;
+  /**
+   * Default value for asyncServingTimeout property (one minute).
+   */
+  public static final long DEFAULT_ASYNC_SERVING_TIMEOUT = 60000;
   /**
    * How often to run a thread responsible for refreshing the cache.
    */
@@ -51,6 +72,18 @@ public final class WroConfiguration
    * Flag for enabling an experimental feature which allows asynchronous resource watcher check.
    */
   private boolean resourceWatcherAsync;
+  /**
+   * When true, the changes of the resources backed by files are detected using the file system watch service.
+   */
+  private boolean resourceWatcherNative;
+  /**
+   * When true, the bundles are processed and served by the wro4j executor, using the servlet 3.0 async support.
+   */
+  private boolean asyncServing;
+  /**
+   * Timeout (milliseconds) of the asynchronous processing of a request.
+   */
+  private long asyncServingTimeout = DEFAULT_ASYNC_SERVING_TIMEOUT;
   /**
    * Gzip enable flag.
    */
@@ -70,6 +103,10 @@ public final class WroConfiguration
    * This flag allow to control the memory vs processing power trade-off.
    */
   private boolean cacheGzippedContent = false;
+  /**
+   * The compression level (0-9) used to gzip the processed content. The default value (-1) uses the zlib default level.
+   */
+  private int gzipCompressionLevel = Deflater.DEFAULT_COMPRESSION;
   /**
    * Allow to turn jmx on or off. By default this value is true.
    */
@@ -100,6 +137,20 @@ public final class WroConfiguration
    * By default this flag is false, because this feature is experimental.
    */
   private boolean parallelPreprocessing = false;
+  /**
+   * The maximum number of resources of a group processed in parallel. When zero or less, twice the number of available
+   * processors is used.
+   */
+  private int parallelPreprocessingWindow = 0;
+  /**
+   * When true, the pre processed content of each resource is cached, in order to reprocess only the changed resources
+   * when a group is invalidated.
+   */
+  private boolean cachePreProcessedResources = false;
+  /**
+   * When true, the processed content is not cached in DEVELOPMENT mode.
+   */
+  private boolean disableCache = false;
   /**
    * When a group is empty and this flag is false, the processing will fail. This is useful for runtime solution to
    * allow filter chaining when there is nothing to process for a given request.
@@ -115,12 +166,59 @@ public final class WroConfiguration
    */
   private boolean minimizeEnabled = true;
   /**
-   * Listeners for the change of cache & model period properties.
+   * Timeout (milliseconds) for awaiting a cache entry which is being loaded by a concurrent request. Zero or less means
+   * to wait until the load completes.
    */
-  private final transient List<PropertyChangeListener> cacheUpdatePeriodListeners = new ArrayList<PropertyChangeListener>(
-      1);
-  private final transient List<PropertyChangeListener> modelUpdatePeriodListeners = new ArrayList<PropertyChangeListener>(
-      1);
+  private long cacheLoadTimeout;
+  /**
+   * When true, a cache entry invalidated because of a resource change is still served while the new value is computed
+   * in background. By default this flag is false.
+   */
+  private boolean staleWhileRevalidate = false;
+  /**
+   * The maximum number of bytes of processed content kept by the off-heap cache strategy.
+   */
+  private long offHeapCacheSize = DEFAULT_OFF_HEAP_CACHE_SIZE;
+  /**
+   * The folder of memory-mapped files used by the off-heap cache strategy. When null, direct buffers are used.
+   */
+  private String offHeapCacheDirectory;
+  /**
+   * The folder where the disk cache strategy persists the processed content. When null, the temporary folder is used.
+   */
+  private String diskCacheDirectory;
+  /**
+   * The maximum number of bytes of the files persisted by the disk cache strategy.
+   */
+  private long diskCacheSize = DEFAULT_DISK_CACHE_SIZE;
+  /**
+   * The maximum number of threads of the shared executor. When zero or less, the number of available processors is used.
+   */
+  private int executorPoolSize = 0;
+  /**
+   * The maximum number of tasks waiting for a thread of the shared executor. When zero or less, the queue is unbounded.
+   */
+  private int executorQueueSize = DEFAULT_EXECUTOR_QUEUE_SIZE;
+  /**
+   * The policy applied to tasks submitted while the queue of the shared executor is full.
+   */
+  private String executorRejectionPolicy;
+  /**
+   * Use virtual threads for the shared executor (if supported by the JVM).
+   */
+  private boolean executorVirtualThreads = false;
+  /**
+   * The number of threads shared by all schedulers.
+   */
+  private int schedulerPoolSize = DEFAULT_SCHEDULER_POOL_SIZE;
+  /**
+   * Listeners for the change of cache & model period properties. Listeners can be registered while the cache or the
+   * model is reloaded (ex: by a lazily created request handler).
+   */
+  private final transient List<PropertyChangeListener> cacheUpdatePeriodListeners =
+      new CopyOnWriteArrayList<PropertyChangeListener>();
+  private final transient List<PropertyChangeListener> modelUpdatePeriodListeners =
+      new CopyOnWriteArrayList<PropertyChangeListener>();
 
   /**
    * @return the name of the object used to register the MBean.
@@ -307,6 +405,21 @@ public final class WroConfiguration
     this.cacheGzippedContent = cacheGzippedContent;
   }
 
+  /**
+   * @return the compression level used to gzip the processed content.
+   */
+  public int getGzipCompressionLevel() {
+    return gzipCompressionLevel;
+  }
+
+  /**
+   * @param gzipCompressionLevel
+   *          the compression level (0-9) used to gzip the processed content, or -1 for the zlib default level.
+   */
+  public void setGzipCompressionLevel(final int gzipCompressionLevel) {
+    this.gzipCompressionLevel = gzipCompressionLevel;
+  }
+
   /**
    * Perform the cleanup, clear the listeners.
    */
@@ -408,6 +521,52 @@ public final class WroConfiguration
     this.parallelPreprocessing = parallelPreprocessing;
   }
 
+  /**
+   * @return the maximum number of resources of a group processed in parallel. When zero or less, twice the number of
+   *         available processors is used.
+   */
+  public int getParallelPreprocessingWindow() {
+    return parallelPreprocessingWindow;
+  }
+
+  /**
+   * @param parallelPreprocessingWindow
+   *          the maximum number of resources of a group processed in parallel.
+   */
+  public void setParallelPreprocessingWindow(final int parallelPreprocessingWindow) {
+    this.parallelPreprocessingWindow = parallelPreprocessingWindow;
+  }
+
+  /**
+   * @return true if the pre processed content of each resource is cached.
+   */
+  public boolean isCachePreProcessedResources() {
+    return cachePreProcessedResources;
+  }
+
+  /**
+   * @param cachePreProcessedResources
+   *          flag for caching the pre processed content of each resource.
+   */
+  public void setCachePreProcessedResources(final boolean cachePreProcessedResources) {
+    this.cachePreProcessedResources = cachePreProcessedResources;
+  }
+
+  /**
+   * @return true if the processed content should not be cached. It has effect only in DEVELOPMENT mode.
+   */
+  public boolean isDisableCache() {
+    return disableCache;
+  }
+
+  /**
+   * @param disableCache
+   *          flag for disabling the cache of processed content in DEVELOPMENT mode.
+   */
+  public void setDisableCache(final boolean disableCache) {
+    this.disableCache = disableCache;
+  }
+
   /**
    * @return value of the flag responsible for handling empty group behavior.
    */
@@ -466,6 +625,220 @@ public final class WroConfiguration
     this.resourceWatcherAsync = resourceWatcherAsync;
   }
 
+  /**
+   * @return true if the changes of the resources backed by files are detected using the file system watch service.
+   */
+  public boolean isResourceWatcherNative() {
+    return resourceWatcherNative;
+  }
+
+  /**
+   * @param resourceWatcherNative
+   *          flag for detecting the changes of the resources backed by files using the file system watch service.
+   */
+  public void setResourceWatcherNative(final boolean resourceWatcherNative) {
+    this.resourceWatcherNative = resourceWatcherNative;
+  }
+
+  /**
+   * @return true if the bundles are processed and served asynchronously by the wro4j executor.
+   */
+  public boolean isAsyncServing() {
+    return asyncServing;
+  }
+
+  /**
+   * @param asyncServing
+   *          flag for processing and serving the bundles asynchronously, using the servlet 3.0 async support.
+   */
+  public void setAsyncServing(final boolean asyncServing) {
+    this.asyncServing = asyncServing;
+  }
+
+  /**
+   * @return the number of milliseconds after which a request served asynchronously is responded with the
+   *         {@link javax.servlet.http.HttpServletResponse#SC_SERVICE_UNAVAILABLE} status.
+   */
+  public long getAsyncServingTimeout() {
+    return asyncServingTimeout;
+  }
+
+  /**
+   * @param asyncServingTimeout
+   *          the number of milliseconds after which a request served asynchronously is responded with the
+   *          {@link javax.servlet.http.HttpServletResponse#SC_SERVICE_UNAVAILABLE} status. Zero or less means to use the
+   *          timeout of the container.
+   */
+  public void setAsyncServingTimeout(final long asyncServingTimeout) {
+    this.asyncServingTimeout = asyncServingTimeout;
+  }
+
+  /**
+   * @return the number of milliseconds to wait for a cache entry loaded by a concurrent request.
+   */
+  public long getCacheLoadTimeout() {
+    return cacheLoadTimeout;
+  }
+
+  /**
+   * @param cacheLoadTimeout
+   *          the number of milliseconds to wait for a cache entry loaded by a concurrent request. Zero or less means to
+   *          wait until the load completes.
+   */
+  public void setCacheLoadTimeout(final long cacheLoadTimeout) {
+    this.cacheLoadTimeout = cacheLoadTimeout;
+  }
+
+  /**
+   * @return true if an invalidated cache entry is served while the new value is computed in background.
+   */
+  public boolean isStaleWhileRevalidate() {
+    return staleWhileRevalidate;
+  }
+
+  public void setStaleWhileRevalidate(final boolean staleWhileRevalidate) {
+    this.staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+  /**
+   * @return the maximum number of bytes of processed content kept by the off-heap cache strategy.
+   */
+  public long getOffHeapCacheSize() {
+    return offHeapCacheSize;
+  }
+
+  /**
+   * @param offHeapCacheSize
+   *          the maximum number of bytes of processed content kept by the off-heap cache strategy.
+   */
+  public void setOffHeapCacheSize(final long offHeapCacheSize) {
+    this.offHeapCacheSize = offHeapCacheSize;
+  }
+
+  /**
+   * @return the folder of memory-mapped files used by the off-heap cache strategy, or null if direct buffers are used.
+   */
+  public String getOffHeapCacheDirectory() {
+    return offHeapCacheDirectory;
+  }
+
+  /**
+   * @param offHeapCacheDirectory
+   *          the folder of memory-mapped files used by the off-heap cache strategy.
+   */
+  public void setOffHeapCacheDirectory(final String offHeapCacheDirectory) {
+    this.offHeapCacheDirectory = offHeapCacheDirectory;
+  }
+
+  /**
+   * @return the folder where the disk cache strategy persists the processed content, or null if the default folder is
+   *         used.
+   */
+  public String getDiskCacheDirectory() {
+    return diskCacheDirectory;
+  }
+
+  /**
+   * @param diskCacheDirectory
+   *          the folder where the disk cache strategy persists the processed content.
+   */
+  public void setDiskCacheDirectory(final String diskCacheDirectory) {
+    this.diskCacheDirectory = diskCacheDirectory;
+  }
+
+  /**
+   * @return the maximum number of bytes of the files persisted by the disk cache strategy.
+   */
+  public long getDiskCacheSize() {
+    return diskCacheSize;
+  }
+
+  /**
+   * @param diskCacheSize
+   *          the maximum number of bytes of the files persisted by the disk cache strategy. Zero or less means no limit.
+   */
+  public void setDiskCacheSize(final long diskCacheSize) {
+    this.diskCacheSize = diskCacheSize;
+  }
+
+  /**
+   * @return the maximum number of threads of the executor shared by all wro4j background work. When zero or less, the
+   *         number of available processors is used.
+   */
+  public int getExecutorPoolSize() {
+    return executorPoolSize;
+  }
+
+  /**
+   * @param executorPoolSize
+   *          the maximum number of threads of the executor shared by all wro4j background work.
+   */
+  public void setExecutorPoolSize(final int executorPoolSize) {
+    this.executorPoolSize = executorPoolSize;
+  }
+
+  /**
+   * @return the maximum number of tasks waiting for a thread of the shared executor. When zero or less, the queue is
+   *         unbounded.
+   */
+  public int getExecutorQueueSize() {
+    return executorQueueSize;
+  }
+
+  /**
+   * @param executorQueueSize
+   *          the maximum number of tasks waiting for a thread of the shared executor.
+   */
+  public void setExecutorQueueSize(final int executorQueueSize) {
+    this.executorQueueSize = executorQueueSize;
+  }
+
+  /**
+   * @return the alias of the policy applied to tasks submitted while the queue of the shared executor is full, or null
+   *         if the default policy is used.
+   */
+  public String getExecutorRejectionPolicy() {
+    return executorRejectionPolicy;
+  }
+
+  /**
+   * @param executorRejectionPolicy
+   *          the alias of the policy applied to tasks submitted while the queue of the shared executor is full.
+   */
+  public void setExecutorRejectionPolicy(final String executorRejectionPolicy) {
+    this.executorRejectionPolicy = executorRejectionPolicy;
+  }
+
+  /**
+   * @return true if the shared executor should use virtual threads.
+   */
+  public boolean isExecutorVirtualThreads() {
+    return executorVirtualThreads;
+  }
+
+  /**
+   * @param executorVirtualThreads
+   *          flag for using virtual threads in the shared executor (ignored when not supported by the JVM).
+   */
+  public void setExecutorVirtualThreads(final boolean executorVirtualThreads) {
+    this.executorVirtualThreads = executorVirtualThreads;
+  }
+
+  /**
+   * @return the number of threads shared by all schedulers.
+   */
+  public int getSchedulerPoolSize() {
+    return schedulerPoolSize;
+  }
+
+  /**
+   * @param schedulerPoolSize
+   *          the number of threads shared by all schedulers.
+   */
+  public void setSchedulerPoolSize(final int schedulerPoolSize) {
+    this.schedulerPoolSize = schedulerPoolSize;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -57,11 +57,17 @@ public class ContextPropagatingCallable<T>
 
   public T call()
       throws Exception {
+    // the callable can be run by the thread which submitted it (ex: when the executor queue is full)
+    final String previousCorrelationId = Context.isContextSet() ? Context.getCorrelationId() : null;
     Context.setCorrelationId(correlationId);
     try {
       return decorated.call();
     } finally {
-      Context.unsetCorrelationId();
+      if (previousCorrelationId != null) {
+        Context.setCorrelationId(previousCorrelationId);
+      } else {
+        Context.unsetCorrelationId();
+      }
     }
   }
 }
@@ -1,9 +1,6 @@
 package ro.isdc.wro.http;
 
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -13,21 +10,24 @@ import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpServletResponseWrapper;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.CountingOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.http.support.HttpHeader;
-import ro.isdc.wro.http.support.RedirectedStreamServletResponseWrapper;
+import ro.isdc.wro.http.support.DeflaterPool;
+import ro.isdc.wro.http.support.GzipServletResponseWrapper;
 import ro.isdc.wro.model.resource.locator.support.DispatcherStreamLocator;
 import ro.isdc.wro.util.WroUtil;
 
 
 /**
- * A filter responsible for gzipping all content served through this filter.
+ * A filter responsible for gzipping all content served through this filter. The content is compressed while it is
+ * written (without being buffered entirely), unless it is smaller than the minimum size or it is already compressed.
+ * The following init parameters are supported:
+ * <ul>
+ * <li>minSize - the minimum number of bytes of the content to be compressed. Default is 0.</li>
+ * <li>compressionLevel - the compression level (0-9). Default is 6.</li>
+ * </ul>
  *
  * @author Alex Objelean
  * @created 11 Apr 2013
@@ -36,12 +36,46 @@ import ro.isdc.wro.util.WroUtil;
 public class GzipFilter
     implements Filter {
   private static final Logger LOG = LoggerFactory.getLogger(GzipFilter.class);
+  /**
+   * The init parameter for the minimum number of bytes of the content to be compressed.
+   */
+  public static final String PARAM_MIN_SIZE = "minSize";
+  /**
+   * The init parameter for the compression level.
+   */
+  public static final String PARAM_COMPRESSION_LEVEL = "compressionLevel";
+  private static final int DEFAULT_COMPRESSION_LEVEL = 6;
+  private int minSize = 0;
+  private DeflaterPool deflaterPool;
 
   /**
    * {@inheritDoc}
    */
   public void init(final FilterConfig filterConfig)
       throws ServletException {
+    final String minSizeParam = filterConfig.getInitParameter(PARAM_MIN_SIZE);
+    final String levelParam = filterConfig.getInitParameter(PARAM_COMPRESSION_LEVEL);
+    try {
+      minSize = minSizeParam != null ? Integer.parseInt(minSizeParam.trim()) : 0;
+      final int level = levelParam != null ? Integer.parseInt(levelParam.trim()) : DEFAULT_COMPRESSION_LEVEL;
+      deflaterPool = newDeflaterPool(level);
+    } catch (final IllegalArgumentException e) {
+      throw new ServletException("Invalid init parameter of GzipFilter", e);
+    }
+  }
+
+  /**
+   * @return the pool of deflaters, keeping at most one idle deflater for each available processor.
+   */
+  private DeflaterPool newDeflaterPool(final int level) {
+    return new DeflaterPool(level, Runtime.getRuntime().availableProcessors());
+  }
+
+  private DeflaterPool getDeflaterPool() {
+    if (deflaterPool == null) {
+      deflaterPool = newDeflaterPool(DEFAULT_COMPRESSION_LEVEL);
+    }
+    return deflaterPool;
   }
 
   /**
@@ -65,22 +99,13 @@ public class GzipFilter
    */
   private void doGzipResponse(final HttpServletRequest req, final HttpServletResponse response, final FilterChain chain)
       throws IOException, ServletException {
-    LOG.debug("Applying gzip on resource: " + req.getRequestURI());
-    response.setHeader(HttpHeader.CONTENT_ENCODING.toString(), "gzip");
-    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    final CountingOutputStream countingStream = new CountingOutputStream(new GZIPOutputStream(new BufferedOutputStream(
-        baos)));
-    // final GZIPOutputStream gzout = new GZIPOutputStream(new BufferedOutputStream(baos));
-    // Perform gzip operation in-memory before sending response
-    final HttpServletResponseWrapper wrappedResponse = new RedirectedStreamServletResponseWrapper(countingStream,
-        response);
-    chain.doFilter(req, wrappedResponse);
-    // close underlying stream
-    countingStream.close();
-    response.setContentLength(countingStream.getCount());
-    // avoid NO CONTENT error thrown by jetty when gzipping empty response
-    if (countingStream.getCount() > 0) {
-      IOUtils.write(baos.toByteArray(), response.getOutputStream());
+    LOG.debug("Applying gzip on resource: {}", req.getRequestURI());
+    final GzipServletResponseWrapper wrappedResponse = new GzipServletResponseWrapper(response, getDeflaterPool(),
+        minSize);
+    try {
+      chain.doFilter(req, wrappedResponse);
+    } finally {
+      wrappedResponse.finish();
     }
   }
 
@@ -95,6 +120,8 @@ public class GzipFilter
    * {@inheritDoc}
    */
   public void destroy() {
+    if (deflaterPool != null) {
+      deflaterPool.destroy();
+    }
   }
-
 }
@@ -10,6 +10,9 @@ import java.beans.PropertyChangeListener;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.util.Collection;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.management.JMException;
 import javax.management.MBeanServer;
@@ -30,14 +33,18 @@ import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.factory.PropertiesAndFilterConfigWroConfigurationFactory;
 import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.http.handler.RequestHandler;
 import ro.isdc.wro.http.handler.factory.DefaultRequestHandlerFactory;
 import ro.isdc.wro.http.handler.factory.RequestHandlerFactory;
+import ro.isdc.wro.http.support.AsyncContextAdapter;
 import ro.isdc.wro.http.support.ResponseHeadersConfigurer;
 import ro.isdc.wro.http.support.ServletContextAttributeHelper;
+import ro.isdc.wro.manager.WroManager;
 import ro.isdc.wro.manager.factory.DefaultWroManagerFactory;
 import ro.isdc.wro.manager.factory.WroManagerFactory;
 import ro.isdc.wro.model.group.processor.Injector;
@@ -46,6 +53,7 @@ import ro.isdc.wro.model.resource.locator.ServletContextUriLocator;
 import ro.isdc.wro.model.resource.locator.support.DispatcherStreamLocator;
 import ro.isdc.wro.util.ObjectFactory;
 import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.util.concurrent.WroExecutorProvider;
 
 
 /**
@@ -71,6 +79,11 @@ public class WroFilter
    */
   public static final String ATTRIBUTE_PASSED_THROUGH_FILTER = WroFilter.class.getName()
       + ".passed_through_filter";
+  /**
+   * Attribute holding the exception thrown while a request was processed asynchronously, until the request is
+   * dispatched back to this filter.
+   */
+  private static final String ATTRIBUTE_ASYNC_EXCEPTION = WroFilter.class.getName() + ".async_exception";
   /**
    * Filter config.
    */
@@ -97,6 +110,10 @@ public class WroFilter
   private boolean enable = true;
   private Injector injector;
   private MBeanServer mbeanServer = null;
+  /**
+   * Flag indicating that the MBean exposing the state of the shared executor was registered.
+   */
+  private volatile boolean managerMBeansRegistered = false;
 
   /**
    * @return true if the provided request contains an attribute indicating that it was handled through {@link WroFilter}
@@ -173,11 +190,46 @@ public class WroFilter
     }
   }
 
+  /**
+   * Expose the state of the threads used for background work and the recorded resource dependencies. These belong to
+   * the {@link WroManager}, thus they are registered once the manager is created.
+   */
+  private void registerManagerMBeans(final WroManager manager) {
+    if (!managerMBeansRegistered && mbeanServer != null) {
+      synchronized (this) {
+        if (!managerMBeansRegistered) {
+          registerMBean(manager.getExecutorProvider(), getExecutorMBeanObjectName());
+          registerMBean(manager.getDependencyGraph(), getDependencyGraphMBeanObjectName());
+          managerMBeansRegistered = true;
+        }
+      }
+    }
+  }
+
+  private void registerMBean(final Object mbean, final ObjectName name) {
+    try {
+      if (mbean != null && !mbeanServer.isRegistered(name)) {
+        mbeanServer.registerMBean(mbean, name);
+      }
+    } catch (final JMException e) {
+      LOG.error("Exception occured while registering MBean", e);
+    }
+  }
+
   private void unregisterMBean() {
     try {
       if (mbeanServer != null && mbeanServer.isRegistered(getMBeanObjectName())) {
         mbeanServer.unregisterMBean(getMBeanObjectName());
       }
+      if (managerMBeansRegistered) {
+        for (final ObjectName name : new ObjectName[] {
+          getExecutorMBeanObjectName(), getDependencyGraphMBeanObjectName()
+        }) {
+          if (mbeanServer.isRegistered(name)) {
+            mbeanServer.unregisterMBean(name);
+          }
+        }
+      }
     } catch (final JMException e) {
       LOG.error("Exception occured while registering MBean", e);
     }
@@ -188,6 +240,22 @@ public class WroFilter
     return new ObjectName(newMBeanName(), "type", WroConfiguration.class.getSimpleName());
   }
 
+  private ObjectName getExecutorMBeanObjectName() {
+    return newManagerMBeanObjectName(WroExecutorProvider.class);
+  }
+
+  private ObjectName getDependencyGraphMBeanObjectName() {
+    return newManagerMBeanObjectName(ResourceDependencyGraph.class);
+  }
+
+  private ObjectName newManagerMBeanObjectName(final Class<?> type) {
+    try {
+      return new ObjectName(newMBeanName(), "type", type.getSimpleName());
+    } catch (final MalformedObjectNameException e) {
+      throw WroRuntimeException.wrap(e);
+    }
+  }
+
   /**
    * @return the name of MBean to be used by JMX to configure wro4j.
    */
@@ -285,9 +353,18 @@ public class WroFilter
         // add request, response & servletContext to thread local
         Context.set(Context.webContext(request, response, filterConfig), wroConfiguration);
         addPassThroughFilterAttribute(request);
-        if (!handledWithRequestHandler(request, response)) {
-          processRequest(request, response);
-          onRequestProcessed();
+        final Exception asyncException = (Exception) request.getAttribute(ATTRIBUTE_ASYNC_EXCEPTION);
+        if (asyncException != null) {
+          // the request failed asynchronously and was dispatched back by the container
+          request.removeAttribute(ATTRIBUTE_ASYNC_EXCEPTION);
+          onException(asyncException, response, chain);
+        } else if (!handledWithRequestHandler(request, response)) {
+          if (isAsyncServing(request)) {
+            processRequestAsync(request, response);
+          } else {
+            processRequest(request, response);
+            onRequestProcessed();
+          }
         }
       } catch (final Exception e) {
         onException(e, response, chain);
@@ -332,7 +409,99 @@ public class WroFilter
       throws ServletException, IOException {
     setResponseHeaders(response);
     // process the uri using manager
-    wroManagerFactory.create().process();
+    final WroManager manager = wroManagerFactory.create();
+    registerManagerMBeans(manager);
+    manager.process();
+  }
+
+  /**
+   * @return true if the request should be processed and served by the wro4j executor.
+   */
+  private boolean isAsyncServing(final HttpServletRequest request) {
+    return wroConfiguration.isAsyncServing() && AsyncContextAdapter.isAsyncSupported(request);
+  }
+
+  /**
+   * Puts the request into asynchronous mode and hands its processing to the serving executor of wro4j, releasing the
+   * container thread. The bundle is written by the serving executor directly to the response. The serving executor is
+   * not used for background work, thus slow clients don't delay the processing of the bundles. When the task is not run
+   * (rejected, or canceled because the executor is destroyed) or the processing times out, the request is responded
+   * with the {@link HttpServletResponse#SC_SERVICE_UNAVAILABLE} status.
+   */
+  private void processRequestAsync(final HttpServletRequest request, final HttpServletResponse response) {
+    final AtomicReference<AsyncContextAdapter> asyncContextHolder = new AtomicReference<AsyncContextAdapter>();
+    final FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
+      public void run() {
+        Context.set(Context.webContext(request, response, filterConfig), wroConfiguration);
+        try {
+          processRequest(request, response);
+          onRequestProcessed();
+          asyncContextHolder.get().complete();
+        } catch (final Exception e) {
+          onAsyncException(e, request, response, asyncContextHolder.get());
+        } finally {
+          Context.unset();
+        }
+      }
+    }, null) {
+      @Override
+      protected void done() {
+        if (isCancelled()) {
+          onAsyncUnavailable(response, asyncContextHolder.get());
+        }
+      }
+    };
+    asyncContextHolder.set(AsyncContextAdapter.start(request, wroConfiguration.getAsyncServingTimeout(),
+        new Runnable() {
+          public void run() {
+            LOG.debug("Async processing of {} timed out", request.getRequestURI());
+            task.cancel(false);
+          }
+        }));
+    try {
+      wroManagerFactory.create().getExecutorProvider().getServingExecutor().execute(task);
+    } catch (final RejectedExecutionException e) {
+      LOG.debug("Async processing rejected");
+      task.cancel(false);
+    }
+  }
+
+  /**
+   * Responds with the {@link HttpServletResponse#SC_SERVICE_UNAVAILABLE} status a request which could not be served
+   * asynchronously.
+   */
+  private void onAsyncUnavailable(final HttpServletResponse response, final AsyncContextAdapter asyncContext) {
+    try {
+      if (!response.isCommitted()) {
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      }
+    } catch (final Exception e) {
+      LOG.debug("Cannot respond with unavailable status", e);
+    } finally {
+      asyncContext.complete();
+    }
+  }
+
+  /**
+   * The filter chain cannot be continued by a thread other than the container thread, thus the failed request is
+   * dispatched back to the container. The dispatched request is handled by {@link #onException(Exception,
+   * HttpServletResponse, FilterChain)} when this filter is mapped for the ASYNC dispatcher type, otherwise it is
+   * served by the target servlet. The response is just completed if it is already committed.
+   */
+  private void onAsyncException(final Exception e, final HttpServletRequest request,
+      final HttpServletResponse response, final AsyncContextAdapter asyncContext) {
+    LOG.debug("Exception occured during async processing", e);
+    if (response.isCommitted()) {
+      asyncContext.complete();
+      return;
+    }
+    try {
+      request.setAttribute(ATTRIBUTE_ASYNC_EXCEPTION, e);
+      asyncContext.dispatch();
+    } catch (final Exception ex) {
+      LOG.debug("Cannot dispatch the request", ex);
+      asyncContext.complete();
+    }
   }
 
   /**
@@ -345,7 +514,9 @@ public class WroFilter
 
   /**
    * Invoked when a {@link Exception} is thrown. Allows custom exception handling. The default implementation proceeds
-   * with filter chaining when exception is thrown.
+   * with filter chaining when exception is thrown. When the bundles are served asynchronously, this method is invoked
+   * only if the filter is mapped for the ASYNC dispatcher type, once the failed request is dispatched back by the
+   * container.
    *
    * @param e
    *          {@link Exception} thrown during request processing.
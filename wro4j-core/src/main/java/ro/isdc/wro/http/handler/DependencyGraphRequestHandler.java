@@ -0,0 +1,72 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.handler;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
+import ro.isdc.wro.config.ReadOnlyContext;
+import ro.isdc.wro.http.support.ResponseHeadersConfigurer;
+import ro.isdc.wro.model.group.Inject;
+import ro.isdc.wro.util.WroUtil;
+
+
+/**
+ * Lists, as plain text, each resource recorded by the {@link ResourceDependencyGraph} followed by the cache entries
+ * which depend on it. Useful to find out which groups are evicted when a resource is changed. Handles the requests to
+ * "wroAPI/dependencyGraph".
+ * <p/>
+ * This handler is available only in debug mode by default. You can change this behavior by overriding
+ * {@link RequestHandler#isEnabled()} method.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class DependencyGraphRequestHandler
+    extends RequestHandlerSupport {
+  /**
+   * The alias of this {@link RequestHandler} used for configuration.
+   */
+  public static final String ALIAS = "dependencyGraph";
+  /**
+   * API - dependency graph method call
+   */
+  public static final String ENDPOINT_URI = PATH_API + "/dependencyGraph";
+  @Inject
+  private ReadOnlyContext context;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
+
+  @Override
+  public void handle(final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException {
+    ResponseHeadersConfigurer.noCache().setHeaders(response);
+    response.setContentType("text/plain");
+    response.setStatus(HttpServletResponse.SC_OK);
+    final PrintWriter writer = response.getWriter();
+    for (final String uri : dependencyGraph.getResourceUris()) {
+      writer.println(uri);
+      for (final String key : dependencyGraph.getDependentCacheKeys(uri)) {
+        writer.print("  ");
+        writer.println(key);
+      }
+    }
+    writer.flush();
+  }
+
+  @Override
+  public boolean accept(final HttpServletRequest request) {
+    return WroUtil.matchesUrl(request, ENDPOINT_URI);
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return super.isEnabled() && context.getConfig().isDebug();
+  }
+}
@@ -16,6 +16,7 @@ import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.config.ReadOnlyContext;
 import ro.isdc.wro.http.WroFilter;
+import ro.isdc.wro.http.support.ConditionalRequestHelper;
 import ro.isdc.wro.http.support.ContentTypeResolver;
 import ro.isdc.wro.http.support.HttpHeader;
 import ro.isdc.wro.http.support.ResponseHeadersConfigurer;
@@ -85,6 +86,10 @@ public class ResourceProxyRequestHandler
     if (isResourceChanged(request)) {
       // set expiry headers
       getHeadersConfigurer().setHeaders(response);
+      if (ConditionalRequestHelper.isHeadRequest(request)) {
+        response.setStatus(HttpServletResponse.SC_OK);
+        return;
+      }
       InputStream is = null;
       try {
         is = new AutoCloseInputStream(locatorFactory.locate(resourceUri));
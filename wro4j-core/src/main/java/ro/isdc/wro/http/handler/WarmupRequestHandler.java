@@ -0,0 +1,285 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.handler;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.cache.factory.CacheKeyFactory;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.ReadOnlyContext;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.http.support.ResponseHeadersConfigurer;
+import ro.isdc.wro.model.WroModelInspector;
+import ro.isdc.wro.model.factory.DefaultWroModelFactoryDecorator;
+import ro.isdc.wro.model.factory.WroModelFactory;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.group.Inject;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.util.concurrent.WroExecutorProvider;
+
+
+/**
+ * Processes all the groups of the model on HTTP requests to "wroAPI/warmup", in order to have the cache populated
+ * before the application receives the real traffic.
+ * <p/>
+ * The first request triggers the warmup and responds when all the groups are processed. The groups are processed in
+ * parallel, each one as if it was requested using the same path as the warmup request (ex: a request to
+ * /wro/wroAPI/warmup warms up /wro/all.css and /wro/all.js), thus the processed content is identical to the one which
+ * would be computed when serving a real request. Any other request to this handler responds with the progress of the
+ * warmup and has the {@link HttpServletResponse#SC_SERVICE_UNAVAILABLE} status until the warmup is completed, which
+ * makes this handler suitable as a readiness check of a load balancer. When any cache entry cannot be processed, the
+ * warmup is reported as failed, with the {@link HttpServletResponse#SC_INTERNAL_SERVER_ERROR} status.
+ * <p/>
+ * Reloading the cache or the model makes the warmed up content obsolete, thus the first request received after the
+ * reload (and after the completion of the warmup in progress, if any) triggers the warmup again.
+ * <p/>
+ * The readiness is advisory only: the requests for groups are never blocked or rejected while the warmup is in
+ * progress (or when it was never triggered). Such a request either loads the group itself or, when the group is being
+ * warmed up, awaits the pending load of the same cache entry. Keeping the traffic away until the warmup is completed
+ * is the responsibility of the load balancer polling this handler.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class WarmupRequestHandler
+    extends RequestHandlerSupport {
+  private static final Logger LOG = LoggerFactory.getLogger(WarmupRequestHandler.class);
+  /**
+   * The alias of this {@link RequestHandler} used for configuration.
+   */
+  public static final String ALIAS = "warmup";
+  /**
+   * API - warmup method call
+   */
+  public static final String ENDPOINT_URI = PATH_API + "/warmup";
+  @Inject
+  private ReadOnlyContext context;
+  @Inject
+  private WroModelFactory modelFactory;
+  @Inject
+  private CacheKeyFactory cacheKeyFactory;
+  @Inject
+  private CacheStrategy<CacheKey, CacheValue> cacheStrategy;
+  @Inject
+  private WroExecutorProvider executorProvider;
+  /**
+   * The most recently triggered warmup, null until the first request is handled.
+   */
+  private final AtomicReference<Warmup> current = new AtomicReference<Warmup>();
+
+  /**
+   * The progress of a warmup.
+   */
+  private static final class Warmup {
+    private final AtomicInteger processed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile int total;
+    private volatile boolean completed;
+    /**
+     * Set when the cache or the model is reloaded, thus the warmup must be triggered again.
+     */
+    private volatile boolean obsolete;
+    private volatile long startTime = System.currentTimeMillis();
+    private volatile long elapsedTime;
+
+    private boolean isFailed() {
+      return completed && failed.get() > 0;
+    }
+
+    /**
+     * @return a description of the warmup progress.
+     */
+    private String getStatus() {
+      final String state = completed ? (isFailed() ? "failed" : "completed") : "in progress";
+      return String.format("Warmup %s: %s of %s cache entries processed (%s failed) in %s ms", state, processed.get(),
+          total, failed.get(), completed ? elapsedTime : System.currentTimeMillis() - startTime);
+    }
+  }
+
+  @Override
+  public void handle(final HttpServletRequest request, final HttpServletResponse response)
+      throws IOException {
+    final Warmup previous = current.get();
+    if (previous == null || (previous.completed && previous.obsolete)) {
+      final Warmup warmup = new Warmup();
+      if (current.compareAndSet(previous, warmup)) {
+        if (previous == null) {
+          registerReloadListeners();
+        }
+        warmUp(warmup, request, response);
+      }
+    }
+    final Warmup warmup = current.get();
+    ResponseHeadersConfigurer.noCache().setHeaders(response);
+    response.setContentType("text/plain");
+    response.setStatus(warmup.completed ? (warmup.isFailed() ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+        : HttpServletResponse.SC_OK) : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.getWriter().write(warmup.getStatus());
+  }
+
+  /**
+   * Marks the current warmup as obsolete when the cache or the model is reloaded.
+   */
+  private void registerReloadListeners() {
+    final PropertyChangeListener listener = new PropertyChangeListener() {
+      public void propertyChange(final PropertyChangeEvent event) {
+        LOG.debug("The {} was reloaded, the next request triggers the warmup", event.getPropertyName());
+        current.get().obsolete = true;
+      }
+    };
+    final WroConfiguration config = context.getConfig();
+    config.registerCacheUpdatePeriodChangeListener(listener);
+    config.registerModelUpdatePeriodChangeListener(listener);
+  }
+
+  /**
+   * Processes all the groups and waits until the processing is completed.
+   */
+  private void warmUp(final Warmup warmup, final HttpServletRequest request, final HttpServletResponse response) {
+    final String folder = StringUtils.removeEndIgnoreCase(StringUtils.removeEnd(request.getRequestURI(), "/"),
+        ENDPOINT_URI);
+    final Map<CacheKey, HttpServletRequest> groupRequests = createGroupRequests(request, folder);
+    warmup.total = groupRequests.size();
+    LOG.info("Warming up {} cache entries...", warmup.total);
+    try {
+      final List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (final Map.Entry<CacheKey, HttpServletRequest> entry : groupRequests.entrySet()) {
+        futures.add(executorProvider.submit(newWarmupTask(warmup, entry.getKey(), entry.getValue(), response)));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } catch (final InterruptedException e) {
+      // the warmup is not known to be successful
+      warmup.failed.incrementAndGet();
+      Thread.currentThread().interrupt();
+      throw WroRuntimeException.wrap(e);
+    } catch (final ExecutionException e) {
+      warmup.failed.incrementAndGet();
+      throw new WroRuntimeException("Warmup failed", e.getCause());
+    } catch (final CancellationException e) {
+      warmup.failed.incrementAndGet();
+      throw new WroRuntimeException("Warmup failed, a task was discarded by the executor", e);
+    } finally {
+      warmup.elapsedTime = System.currentTimeMillis() - warmup.startTime;
+      warmup.completed = true;
+      LOG.info(warmup.getStatus());
+    }
+  }
+
+  /**
+   * @return the requests of all groups, mapped by the {@link CacheKey} they are associated with.
+   */
+  private Map<CacheKey, HttpServletRequest> createGroupRequests(final HttpServletRequest request, final String folder) {
+    final Map<CacheKey, HttpServletRequest> groupRequests = new LinkedHashMap<CacheKey, HttpServletRequest>();
+    final WroModelInspector modelInspector = DefaultWroModelFactoryDecorator.inspect(modelFactory);
+    for (final String groupName : modelInspector.getGroupNames()) {
+      final Group group = modelInspector.getGroupByName(groupName);
+      for (final ResourceType type : ResourceType.values()) {
+        if (group.hasResourcesOfType(type)) {
+          final HttpServletRequest groupRequest = newGroupRequest(request, folder + groupName + "."
+              + type.name().toLowerCase());
+          final CacheKey cacheKey = cacheKeyFactory.create(groupRequest);
+          if (cacheKey != null) {
+            groupRequests.put(cacheKey, groupRequest);
+          }
+        }
+      }
+    }
+    return groupRequests;
+  }
+
+  private HttpServletRequest newGroupRequest(final HttpServletRequest request, final String requestUri) {
+    return new HttpServletRequestWrapper(request) {
+      @Override
+      public String getRequestURI() {
+        return requestUri;
+      }
+    };
+  }
+
+  /**
+   * @return a task loading the value associated with the cacheKey, using a {@link Context} created for the provided
+   *         group request.
+   */
+  private Callable<Void> newWarmupTask(final Warmup warmup, final CacheKey cacheKey,
+      final HttpServletRequest groupRequest, final HttpServletResponse response) {
+    final WroConfiguration config = context.getConfig();
+    final FilterConfig filterConfig = context.getFilterConfig();
+    return new Callable<Void>() {
+      public Void call() {
+        final long start = System.currentTimeMillis();
+        final Context groupContext = Context.webContext(groupRequest, response, filterConfig);
+        if (ResourceType.CSS == cacheKey.getType()) {
+          // same as the folder computed when serving the group
+          final String requestUri = groupRequest.getRequestURI();
+          groupContext.setAggregatedFolderPath(StringUtils.removeStart(
+              StringUtils.removeEnd(requestUri, FilenameUtils.getName(requestUri)), groupRequest.getContextPath()));
+        }
+        // the task is run by the caller thread when the queue of the executor is full
+        final String callerCorrelationId = Context.isContextSet() ? Context.getCorrelationId() : null;
+        Context.set(groupContext, config);
+        try {
+          cacheStrategy.get(cacheKey);
+          LOG.info("Warmed up {} in {}ms ({}/{})", new Object[] {
+            groupRequest.getRequestURI(), System.currentTimeMillis() - start, warmup.processed.incrementAndGet(),
+            warmup.total
+          });
+        } catch (final Exception e) {
+          warmup.failed.incrementAndGet();
+          warmup.processed.incrementAndGet();
+          LOG.error("Cannot warm up " + groupRequest.getRequestURI(), e);
+        } finally {
+          Context.unset();
+          if (callerCorrelationId != null) {
+            Context.setCorrelationId(callerCorrelationId);
+          }
+        }
+        return null;
+      }
+    };
+  }
+
+  /**
+   * @return true if the most recently triggered warmup is completed (successfully or not). This flag does not affect
+   *         the processing of other requests.
+   */
+  public boolean isCompleted() {
+    final Warmup warmup = current.get();
+    return warmup != null && warmup.completed;
+  }
+
+  @Override
+  public boolean accept(final HttpServletRequest request) {
+    return WroUtil.matchesUrl(request, ENDPOINT_URI);
+  }
+}
@@ -3,12 +3,14 @@ package ro.isdc.wro.http.handler.spi;
 import java.util.HashMap;
 import java.util.Map;
 
+import ro.isdc.wro.http.handler.DependencyGraphRequestHandler;
 import ro.isdc.wro.http.handler.LazyRequestHandlerDecorator;
 import ro.isdc.wro.http.handler.ReloadCacheRequestHandler;
 import ro.isdc.wro.http.handler.ReloadModelRequestHandler;
 import ro.isdc.wro.http.handler.RequestHandler;
 import ro.isdc.wro.http.handler.ResourceProxyRequestHandler;
 import ro.isdc.wro.http.handler.ResourceWatcherRequestHandler;
+import ro.isdc.wro.http.handler.WarmupRequestHandler;
 import ro.isdc.wro.util.LazyInitializer;
 
 
@@ -47,6 +49,18 @@ public class DefaultRequestHandlerProvider implements RequestHandlerProvider {
         return new ResourceWatcherRequestHandler();
       }
     }));
+    map.put(WarmupRequestHandler.ALIAS, new LazyRequestHandlerDecorator(new LazyInitializer<RequestHandler>() {
+      @Override
+      protected RequestHandler initialize() {
+        return new WarmupRequestHandler();
+      }
+    }));
+    map.put(DependencyGraphRequestHandler.ALIAS, new LazyRequestHandlerDecorator(new LazyInitializer<RequestHandler>() {
+      @Override
+      protected RequestHandler initialize() {
+        return new DependencyGraphRequestHandler();
+      }
+    }));
     return map;
   }
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+
+
+/**
+ * Adapts the AsyncContext of a servlet 3.0 container. Since wro4j is compiled against the servlet 2.3 api (in order
+ * to run in older containers), the async support is accessed using reflection and is used only when the container
+ * provides it.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class AsyncContextAdapter {
+  private static final Logger LOG = LoggerFactory.getLogger(AsyncContextAdapter.class);
+  private final Object asyncContext;
+  private final AtomicBoolean completed = new AtomicBoolean();
+
+  private AsyncContextAdapter(final Object asyncContext) {
+    this.asyncContext = asyncContext;
+  }
+
+  /**
+   * @return true if the container supports asynchronous processing of the provided request (the container implements
+   *         servlet 3.0 and all filters & servlets handling the request are declared as async-supported).
+   */
+  public static boolean isAsyncSupported(final HttpServletRequest request) {
+    notNull(request);
+    final Method method = findMethod(request, "isAsyncSupported");
+    try {
+      return method != null && Boolean.TRUE.equals(method.invoke(request));
+    } catch (final Exception e) {
+      LOG.debug("Cannot check async support (Exception message: {})", e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Puts the request into asynchronous mode. The response will not be committed when the container thread returns,
+   * but only after {@link #complete()} is invoked.
+   *
+   * @param request
+   *          a request for which {@link #isAsyncSupported(HttpServletRequest)} is true.
+   * @param timeout
+   *          the number of milliseconds after which the asynchronous operation times out. Zero or less means to use the
+   *          timeout of the container.
+   * @param timeoutHandler
+   *          invoked by the container thread when the operation times out. It is expected to complete the operation.
+   * @return the adapter of the created AsyncContext.
+   */
+  public static AsyncContextAdapter start(final HttpServletRequest request, final long timeout,
+      final Runnable timeoutHandler) {
+    notNull(request);
+    notNull(timeoutHandler);
+    final Object asyncContext = invoke(request, findMethod(request, "startAsync"));
+    if (timeout > 0) {
+      invoke(asyncContext, findMethod(asyncContext, "setTimeout", long.class), timeout);
+    }
+    addTimeoutListener(asyncContext, timeoutHandler);
+    return new AsyncContextAdapter(asyncContext);
+  }
+
+  /**
+   * Registers an AsyncListener invoking the handler when the operation times out. Since the AsyncListener interface is
+   * not available at compile time, the listener is a proxy of the interface accepted by the addListener method.
+   */
+  private static void addTimeoutListener(final Object asyncContext, final Runnable timeoutHandler) {
+    for (final Method method : asyncContext.getClass().getMethods()) {
+      final Class<?>[] parameterTypes = method.getParameterTypes();
+      if ("addListener".equals(method.getName()) && parameterTypes.length == 1 && parameterTypes[0].isInterface()) {
+        method.setAccessible(true);
+        final Object listener = Proxy.newProxyInstance(parameterTypes[0].getClassLoader(), parameterTypes,
+            new InvocationHandler() {
+              public Object invoke(final Object proxy, final Method listenerMethod, final Object[] args) {
+                if ("onTimeout".equals(listenerMethod.getName())) {
+                  LOG.debug("Async processing timed out");
+                  timeoutHandler.run();
+                } else if (listenerMethod.getDeclaringClass() == Object.class) {
+                  return invokeObjectMethod(proxy, listenerMethod, args);
+                }
+                return null;
+              }
+            });
+        AsyncContextAdapter.invoke(asyncContext, method, listener);
+        return;
+      }
+    }
+    LOG.warn("Cannot listen for the timeout of async processing using {}", asyncContext.getClass().getName());
+  }
+
+  private static Object invokeObjectMethod(final Object proxy, final Method method, final Object[] args) {
+    if ("equals".equals(method.getName())) {
+      return proxy == args[0];
+    } else if ("hashCode".equals(method.getName())) {
+      return System.identityHashCode(proxy);
+    }
+    return "AsyncListener@" + Integer.toHexString(System.identityHashCode(proxy));
+  }
+
+  /**
+   * Completes the asynchronous operation, committing the response. Any subsequent invocation is ignored.
+   */
+  public void complete() {
+    if (completed.compareAndSet(false, true)) {
+      invoke(asyncContext, findMethod(asyncContext, "complete"));
+    }
+  }
+
+  /**
+   * Dispatches the request back to the container, which processes it again using the filters mapped for the ASYNC
+   * dispatcher type and the target servlet. The asynchronous operation is completed by the container once the
+   * dispatched request is processed, thus a subsequent {@link #complete()} is ignored.
+   */
+  public void dispatch() {
+    if (completed.compareAndSet(false, true)) {
+      invoke(asyncContext, findMethod(asyncContext, "dispatch"));
+    }
+  }
+
+  /**
+   * @return the public method with provided name and parameter types or null if the target doesn't have such method.
+   */
+  private static Method findMethod(final Object target, final String name, final Class<?>... parameterTypes) {
+    try {
+      final Method method = target.getClass().getMethod(name, parameterTypes);
+      // the implementation class of the container is not necessarily public
+      method.setAccessible(true);
+      return method;
+    } catch (final NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static Object invoke(final Object target, final Method method, final Object... args) {
+    if (method == null) {
+      throw new WroRuntimeException("Async processing is not supported by " + target.getClass().getName());
+    }
+    try {
+      return method.invoke(target, args);
+    } catch (final InvocationTargetException e) {
+      final Throwable cause = e.getTargetException();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw WroRuntimeException.wrap((Exception) cause);
+    } catch (final IllegalAccessException e) {
+      throw WroRuntimeException.wrap(e);
+    }
+  }
+}
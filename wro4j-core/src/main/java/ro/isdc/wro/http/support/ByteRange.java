@@ -0,0 +1,102 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * A single byte range requested using the Range header (RFC 7233). Requests for multiple ranges are not supported and
+ * are served with the entire content, which is allowed by the specification.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public final class ByteRange {
+  private static final Pattern PATTERN_RANGE = Pattern.compile("^\\s*bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)\\s*$");
+  /**
+   * The index of the first byte of the range.
+   */
+  private final long first;
+  /**
+   * The index of the last byte of the range (inclusive).
+   */
+  private final long last;
+  private final int contentLength;
+
+  private ByteRange(final long first, final long last, final int contentLength) {
+    this.first = first;
+    this.last = last;
+    this.contentLength = contentLength;
+  }
+
+  /**
+   * @param headerValue
+   *          the value of the Range header (can be null).
+   * @param contentLength
+   *          the number of bytes of the served content.
+   * @return the requested range or null if the entire content should be served (the header is missing, is not valid or
+   *         contains multiple ranges).
+   */
+  public static ByteRange parse(final String headerValue, final int contentLength) {
+    if (headerValue == null) {
+      return null;
+    }
+    final Matcher matcher = PATTERN_RANGE.matcher(headerValue);
+    if (!matcher.matches()) {
+      return null;
+    }
+    final String first = matcher.group(1);
+    final String last = matcher.group(2);
+    try {
+      if (first.length() == 0) {
+        if (last.length() == 0) {
+          return null;
+        }
+        // suffix range: the last N bytes
+        final long suffixLength = Long.parseLong(last);
+        return new ByteRange(Math.max(0, contentLength - suffixLength), contentLength - 1, contentLength);
+      }
+      final long firstIndex = Long.parseLong(first);
+      final long lastIndex = last.length() == 0 ? contentLength - 1 : Math.min(Long.parseLong(last), contentLength - 1);
+      if (last.length() > 0 && Long.parseLong(last) < firstIndex) {
+        return null;
+      }
+      return new ByteRange(firstIndex, lastIndex, contentLength);
+    } catch (final NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @return true if the range overlaps the content. Otherwise a
+   *         {@link javax.servlet.http.HttpServletResponse#SC_REQUESTED_RANGE_NOT_SATISFIABLE} status should be sent.
+   */
+  public boolean isSatisfiable() {
+    return first < contentLength && first <= last;
+  }
+
+  /**
+   * @return the index of the first byte to serve.
+   */
+  public int getOffset() {
+    return (int) first;
+  }
+
+  /**
+   * @return the number of bytes to serve.
+   */
+  public int getLength() {
+    return (int) (last - first + 1);
+  }
+
+  /**
+   * @return the value of the Content-Range header describing this range.
+   */
+  public String getContentRange() {
+    return isSatisfiable() ? String.format("bytes %s-%s/%s", first, last, contentLength) : "bytes */" + contentLength;
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+
+
+/**
+ * Evaluates the preconditions of a request (If-None-Match, If-Modified-Since and If-Range headers) against the
+ * validators of the served content, as described by RFC 7232 and RFC 7233.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public final class ConditionalRequestHelper {
+  private static final String WEAK_PREFIX = "W/";
+  /**
+   * Matches an entity tag (weak or strong) or the "*" wildcard, as found in the If-None-Match header.
+   */
+  private static final Pattern PATTERN_ETAG = Pattern.compile("\\*|(?:W/)?\"[^\"]*\"");
+
+  private ConditionalRequestHelper() {
+  }
+
+  /**
+   * The If-None-Match header takes precedence over If-Modified-Since, which is evaluated only when the former is
+   * missing.
+   *
+   * @param etag
+   *          the quoted ETag of the served content.
+   * @param lastModified
+   *          the last modification time of the served content, in milliseconds.
+   * @return true if the client already has the content, thus a
+   *         {@link javax.servlet.http.HttpServletResponse#SC_NOT_MODIFIED} status can be sent.
+   */
+  public static boolean isNotModified(final HttpServletRequest request, final String etag, final long lastModified) {
+    final String ifNoneMatch = request.getHeader(HttpHeader.IF_NONE_MATCH.toString());
+    if (ifNoneMatch != null) {
+      return etag != null && matchesETag(ifNoneMatch, etag);
+    }
+    final long ifModifiedSince = getDateHeader(request, HttpHeader.IF_MODIFIED_SINCE.toString());
+    return ifModifiedSince > 0 && lastModified > 0 && lastModified <= ifModifiedSince;
+  }
+
+  /**
+   * Uses the weak comparison of entity tags, as required for the If-None-Match header.
+   *
+   * @param headerValue
+   *          a comma separated list of entity tags or "*".
+   * @param etag
+   *          the quoted ETag of the served content.
+   * @return true if any entity tag from the list matches the provided etag.
+   */
+  public static boolean matchesETag(final String headerValue, final String etag) {
+    final String opaqueTag = stripWeakPrefix(etag);
+    final Matcher matcher = PATTERN_ETAG.matcher(headerValue);
+    while (matcher.find()) {
+      final String candidate = matcher.group();
+      if ("*".equals(candidate) || stripWeakPrefix(candidate).equals(opaqueTag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String stripWeakPrefix(final String etag) {
+    final String trimmed = etag.trim();
+    return trimmed.startsWith(WEAK_PREFIX) ? trimmed.substring(WEAK_PREFIX.length()) : trimmed;
+  }
+
+  /**
+   * @return true if the Range header of the request should be honored, which is the case when the If-Range header is
+   *         missing or it matches the current validators of the content (using strong comparison).
+   */
+  public static boolean isRangeApplicable(final HttpServletRequest request, final String etag, final long lastModified) {
+    final String ifRange = request.getHeader(HttpHeader.IF_RANGE.toString());
+    if (ifRange == null) {
+      return true;
+    }
+    final String value = ifRange.trim();
+    if (value.startsWith("\"") || value.startsWith(WEAK_PREFIX)) {
+      return etag != null && !etag.startsWith(WEAK_PREFIX) && value.equals(etag);
+    }
+    final long date = getDateHeader(request, HttpHeader.IF_RANGE.toString());
+    return date > 0 && lastModified > 0 && lastModified <= date;
+  }
+
+  /**
+   * @return the value of the date header or -1 if the header is missing or has an invalid format.
+   */
+  private static long getDateHeader(final HttpServletRequest request, final String name) {
+    try {
+      return request.getDateHeader(name);
+    } catch (final IllegalArgumentException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * @return true if the request is a HEAD request, whose response must contain only the headers.
+   */
+  public static boolean isHeadRequest(final HttpServletRequest request) {
+    return "HEAD".equalsIgnoreCase(request.getMethod());
+  }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import java.io.IOException;
+
+
+/**
+ * Encodes (compresses) the processed content for a given HTTP content-coding. The encoded result is cached along with
+ * the processed content, thus implementations are invoked at most once per cached entry and do not need to be fast.
+ * Implementations must be thread-safe.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public interface ContentEncoder {
+  /**
+   * @return the content-coding token, used as value of Content-Encoding header and searched in Accept-Encoding request
+   *         header (ex: gzip).
+   */
+  String getName();
+
+  /**
+   * @param content
+   *          the bytes to encode.
+   * @return the encoded bytes.
+   */
+  byte[] encode(final byte[] content)
+      throws IOException;
+}
@@ -0,0 +1,23 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import java.util.List;
+
+
+/**
+ * A service provider responsible for contributing {@link ContentEncoder} implementations, in addition to the gzip
+ * encoding supported by default.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public interface ContentEncoderProvider {
+  /**
+   * @return the {@link ContentEncoder} implementations to contribute, in the order of preference. An encoder is used
+   *         only if its name is accepted by the client.
+   */
+  List<ContentEncoder> provideContentEncoders();
+}
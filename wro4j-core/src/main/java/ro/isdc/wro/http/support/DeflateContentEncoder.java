@@ -0,0 +1,74 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+
+/**
+ * Encodes the content using deflate content-coding (zlib format, as required by RFC 2616). It is not used by default
+ * and can be contributed with a {@link ContentEncoderProvider}.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class DeflateContentEncoder
+    implements ContentEncoder {
+  /**
+   * The content-coding token.
+   */
+  public static final String NAME = "deflate";
+  private final int level;
+
+  /**
+   * Uses the default compression level.
+   */
+  public DeflateContentEncoder() {
+    this(Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * @param level
+   *          the compression level (0-9), or {@link Deflater#DEFAULT_COMPRESSION}.
+   */
+  public DeflateContentEncoder(final int level) {
+    if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    this.level = level;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public byte[] encode(final byte[] content)
+      throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream(content.length / 4 + 64);
+    final Deflater deflater = new Deflater(level);
+    try {
+      final DeflaterOutputStream os = new DeflaterOutputStream(baos, deflater);
+      os.write(content);
+      os.close();
+    } finally {
+      deflater.end();
+    }
+    return baos.toByteArray();
+  }
+
+  @Override
+  public String toString() {
+    return NAME + "(" + level + ")";
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+import ro.isdc.wro.model.resource.processor.Destroyable;
+
+
+/**
+ * Reuses the {@link Deflater} instances, which allocate a significant amount of native memory and are expensive to
+ * create for each compressed response. The idle deflaters exceeding the maximum size of the pool are ended. This class
+ * is thread-safe.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class DeflaterPool
+    implements Destroyable {
+  private final Queue<Deflater> idle = new ConcurrentLinkedQueue<Deflater>();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final int level;
+  private final int maxIdle;
+
+  /**
+   * @param level
+   *          the compression level (0-9), or {@link Deflater#DEFAULT_COMPRESSION}.
+   * @param maxIdle
+   *          the maximum number of idle deflaters kept by the pool.
+   */
+  public DeflaterPool(final int level, final int maxIdle) {
+    if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    if (maxIdle < 0) {
+      throw new IllegalArgumentException("maxIdle cannot be negative: " + maxIdle);
+    }
+    this.level = level;
+    this.maxIdle = maxIdle;
+  }
+
+  /**
+   * @return an idle deflater or a new one when the pool is empty. The deflater produces raw deflate data (without zlib
+   *         header), as required by the gzip format.
+   */
+  public Deflater acquire() {
+    final Deflater deflater = idle.poll();
+    if (deflater != null) {
+      idleCount.decrementAndGet();
+      return deflater;
+    }
+    return new Deflater(level, true);
+  }
+
+  /**
+   * Returns the deflater to the pool after resetting it. The deflater must not be used after this call.
+   */
+  public void release(final Deflater deflater) {
+    if (deflater == null) {
+      return;
+    }
+    if (idleCount.incrementAndGet() <= maxIdle) {
+      deflater.reset();
+      idle.offer(deflater);
+    } else {
+      idleCount.decrementAndGet();
+      deflater.end();
+    }
+  }
+
+  /**
+   * @return the number of idle deflaters.
+   */
+  public int getIdleCount() {
+    return idleCount.get();
+  }
+
+  /**
+   * Ends all idle deflaters.
+   */
+  public void destroy() {
+    Deflater deflater;
+    while ((deflater = idle.poll()) != null) {
+      idleCount.decrementAndGet();
+      deflater.end();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Encodes the content using gzip content-coding.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class GzipContentEncoder
+    implements ContentEncoder {
+  /**
+   * The content-coding token.
+   */
+  public static final String NAME = "gzip";
+  private final int level;
+
+  /**
+   * Uses the default compression level.
+   */
+  public GzipContentEncoder() {
+    this(Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * @param level
+   *          the compression level (0-9), or {@link Deflater#DEFAULT_COMPRESSION}.
+   */
+  public GzipContentEncoder(final int level) {
+    if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    this.level = level;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public byte[] encode(final byte[] content)
+      throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream(content.length / 4 + 64);
+    final GZIPOutputStream os = new GZIPOutputStream(baos) {
+      {
+        def.setLevel(level);
+      }
+    };
+    os.write(content);
+    os.close();
+    return baos.toByteArray();
+  }
+
+  /**
+   * @return the compression level used by this encoder.
+   */
+  public int getLevel() {
+    return level;
+  }
+
+  @Override
+  public String toString() {
+    return NAME + "(" + level + ")";
+  }
+}
@@ -0,0 +1,366 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A {@link HttpServletResponseWrapper} which gzips the content while it is written, instead of buffering the entire
+ * response. Only the first bytes of the response (up to the minimum size) are buffered, in order to decide if the
+ * content is worth compressing:
+ * <ul>
+ * <li>responses smaller than the minimum size are written as they are, since the gzip overhead would exceed the
+ * gain.</li>
+ * <li>responses having an already compressed content type (images, archives, fonts...) or an already encoded content
+ * are written as they are.</li>
+ * </ul>
+ * The Content-Length of a compressed response is not known in advance, thus it is dropped and the container uses
+ * chunked transfer encoding. Invoke {@link #finish()} once the response is written.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class GzipServletResponseWrapper
+    extends HttpServletResponseWrapper {
+  private static final Logger LOG = LoggerFactory.getLogger(GzipServletResponseWrapper.class);
+  /**
+   * The prefixes of content types which are already compressed.
+   */
+  private static final String[] COMPRESSED_CONTENT_TYPES = {
+    "image/", "audio/", "video/", "font/woff", "application/font-woff", "application/zip", "application/gzip",
+    "application/x-gzip", "application/x-bzip2", "application/x-compress", "application/x-rar-compressed",
+    "application/x-7z-compressed"
+  };
+  private final DeflaterPool deflaterPool;
+  private final int minSize;
+  private final GzipServletOutputStream outputStream = new GzipServletOutputStream();
+  private PrintWriter printWriter;
+  private String contentType;
+  private String contentEncoding;
+  private int contentLength = -1;
+
+  /**
+   * @param response
+   *          the wrapped response.
+   * @param deflaterPool
+   *          provides the {@link Deflater} used to compress the content.
+   * @param minSize
+   *          the minimum number of bytes of the content to be compressed.
+   */
+  public GzipServletResponseWrapper(final HttpServletResponse response, final DeflaterPool deflaterPool,
+      final int minSize) {
+    super(response);
+    notNull(deflaterPool);
+    this.deflaterPool = deflaterPool;
+    this.minSize = minSize;
+  }
+
+  /**
+   * @return true if the content type denotes an already compressed content (svg images are still compressed).
+   */
+  public static boolean isCompressedContentType(final String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    final String type = contentType.trim().toLowerCase();
+    if (type.startsWith("image/svg")) {
+      return false;
+    }
+    for (final String compressedType : COMPRESSED_CONTENT_TYPES) {
+      if (type.startsWith(compressedType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public ServletOutputStream getOutputStream()
+      throws IOException {
+    return outputStream;
+  }
+
+  @Override
+  public PrintWriter getWriter()
+      throws IOException {
+    if (printWriter == null) {
+      final String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : "ISO-8859-1";
+      printWriter = new PrintWriter(new OutputStreamWriter(outputStream, encoding));
+    }
+    return printWriter;
+  }
+
+  @Override
+  public void flushBuffer()
+      throws IOException {
+    if (printWriter != null) {
+      printWriter.flush();
+    }
+    outputStream.flush();
+  }
+
+  @Override
+  public void setContentType(final String contentType) {
+    this.contentType = contentType;
+    super.setContentType(contentType);
+  }
+
+  /**
+   * The Content-Length is applied only if the content is not compressed.
+   */
+  @Override
+  public void setContentLength(final int contentLength) {
+    this.contentLength = contentLength;
+    if (outputStream.isDecided() && !outputStream.isCompressing()) {
+      super.setContentLength(contentLength);
+    }
+  }
+
+  @Override
+  public void setHeader(final String name, final String value) {
+    if (interceptHeader(name, value)) {
+      super.setHeader(name, value);
+    }
+  }
+
+  @Override
+  public void addHeader(final String name, final String value) {
+    if (interceptHeader(name, value)) {
+      super.addHeader(name, value);
+    }
+  }
+
+  @Override
+  public void setIntHeader(final String name, final int value) {
+    if (interceptHeader(name, String.valueOf(value))) {
+      super.setIntHeader(name, value);
+    }
+  }
+
+  @Override
+  public void addIntHeader(final String name, final int value) {
+    if (interceptHeader(name, String.valueOf(value))) {
+      super.addIntHeader(name, value);
+    }
+  }
+
+  /**
+   * Keeps track of the headers required to decide if the content should be compressed.
+   *
+   * @return true if the header should be set on the wrapped response.
+   */
+  private boolean interceptHeader(final String name, final String value) {
+    if (HttpHeader.CONTENT_LENGTH.toString().equalsIgnoreCase(name)) {
+      try {
+        setContentLength(Integer.parseInt(value.trim()));
+      } catch (final NumberFormatException e) {
+        LOG.debug("Invalid Content-Length: {}", value);
+      }
+      return false;
+    }
+    if (HttpHeader.CONTENT_TYPE.toString().equalsIgnoreCase(name)) {
+      contentType = value;
+    } else if (HttpHeader.CONTENT_ENCODING.toString().equalsIgnoreCase(name)) {
+      contentEncoding = value;
+    }
+    return true;
+  }
+
+  /**
+   * @return true if the content written so far is compressed.
+   */
+  public boolean isCompressing() {
+    return outputStream.isCompressing();
+  }
+
+  /**
+   * Writes the buffered content (if any) and the end of the compressed stream. Must be invoked once the response is
+   * written, even if an exception occurred, in order to release the {@link Deflater}.
+   */
+  public void finish()
+      throws IOException {
+    if (printWriter != null) {
+      printWriter.flush();
+    }
+    outputStream.finish();
+  }
+
+  private boolean isCompressible() {
+    return contentEncoding == null && !isCompressedContentType(contentType);
+  }
+
+  /**
+   * Buffers the first bytes until the decision to compress the content is taken.
+   */
+  private class GzipServletOutputStream
+      extends ServletOutputStream {
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private OutputStream target;
+    private GzipOutputStream gzipStream;
+    private boolean finished;
+
+    @Override
+    public void write(final int b)
+        throws IOException {
+      write(new byte[] {
+        (byte) b
+      }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len)
+        throws IOException {
+      if (finished) {
+        throw new IOException("The response is already finished");
+      }
+      if (target == null) {
+        if (pending.size() + len < minSize) {
+          pending.write(b, off, len);
+          return;
+        }
+        decide(true);
+      }
+      target.write(b, off, len);
+    }
+
+    /**
+     * Flushes only the content which is already decided to be written.
+     */
+    @Override
+    public void flush()
+        throws IOException {
+      if (target != null) {
+        target.flush();
+      }
+    }
+
+    @Override
+    public void close()
+        throws IOException {
+      finish();
+    }
+
+    boolean isDecided() {
+      return target != null;
+    }
+
+    boolean isCompressing() {
+      return gzipStream != null;
+    }
+
+    private void decide(final boolean largeEnough)
+        throws IOException {
+      final HttpServletResponse response = (HttpServletResponse) getResponse();
+      if (largeEnough && isCompressible()) {
+        response.setHeader(HttpHeader.CONTENT_ENCODING.toString(), "gzip");
+        response.addHeader(HttpHeader.VARY.toString(), "Accept-Encoding");
+        gzipStream = new GzipOutputStream(response.getOutputStream(), deflaterPool);
+        target = gzipStream;
+      } else {
+        LOG.debug("Writing response without compression (contentType: {})", contentType);
+        if (contentLength >= 0) {
+          response.setContentLength(contentLength);
+        }
+        target = response.getOutputStream();
+      }
+      pending.writeTo(target);
+      pending = null;
+    }
+
+    void finish()
+        throws IOException {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      if (target == null) {
+        // avoid NO CONTENT error thrown by jetty when writing an empty response
+        if (pending.size() > 0) {
+          decide(false);
+        } else if (contentLength >= 0) {
+          ((HttpServletResponse) getResponse()).setContentLength(contentLength);
+        }
+      }
+      if (gzipStream != null) {
+        gzipStream.finish();
+      }
+      if (target != null) {
+        target.flush();
+      }
+    }
+  }
+
+  /**
+   * Writes the gzip format using a pooled {@link Deflater}, since {@link java.util.zip.GZIPOutputStream} always creates
+   * its own instance. The deflater is released once the stream is finished.
+   */
+  private static class GzipOutputStream
+      extends DeflaterOutputStream {
+    private static final byte[] HEADER = {
+      0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+    };
+    private final DeflaterPool pool;
+    private final CRC32 crc = new CRC32();
+    private boolean finished;
+
+    GzipOutputStream(final OutputStream out, final DeflaterPool pool)
+        throws IOException {
+      super(out, pool.acquire(), 8192);
+      this.pool = pool;
+      out.write(HEADER);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len)
+        throws IOException {
+      super.write(b, off, len);
+      crc.update(b, off, len);
+    }
+
+    @Override
+    public void finish()
+        throws IOException {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      try {
+        super.finish();
+        writeInt((int) crc.getValue());
+        writeInt((int) def.getBytesRead());
+      } finally {
+        pool.release(def);
+      }
+    }
+
+    /**
+     * Writes an integer in little endian byte order, as required by the gzip trailer.
+     */
+    private void writeInt(final int value)
+        throws IOException {
+      out.write(value & 0xff);
+      out.write((value >> 8) & 0xff);
+      out.write((value >> 16) & 0xff);
+      out.write((value >> 24) & 0xff);
+    }
+  }
+}
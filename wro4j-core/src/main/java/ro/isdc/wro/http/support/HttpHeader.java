@@ -16,6 +16,13 @@ public enum HttpHeader {
   IF_MODIFIED_SINCE("If-Modified-Since"),
   IF_NONE_MATCH("If-None-Match"),
   CONTENT_ENCODING("Content-Encoding"),
+  CONTENT_LENGTH("Content-Length"),
+  CONTENT_TYPE("Content-Type"),
+  VARY("Vary"),
+  RANGE("Range"),
+  IF_RANGE("If-Range"),
+  ACCEPT_RANGES("Accept-Ranges"),
+  CONTENT_RANGE("Content-Range"),
   PRAGMA("Pragma");
   /**
    * HTTP header as string.
@@ -2,6 +2,8 @@ package ro.isdc.wro.manager;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -19,11 +21,17 @@ import ro.isdc.wro.cache.CacheValue;
 import ro.isdc.wro.cache.factory.CacheKeyFactory;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.ReadOnlyContext;
-import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.http.support.ByteRange;
+import ro.isdc.wro.http.support.ConditionalRequestHelper;
+import ro.isdc.wro.http.support.ContentEncoder;
+import ro.isdc.wro.http.support.ContentEncoderProvider;
+import ro.isdc.wro.http.support.GzipContentEncoder;
 import ro.isdc.wro.http.support.HttpHeader;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.util.LazyInitializer;
 import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.util.provider.ProviderFinder;
 
 
 /**
@@ -44,14 +52,31 @@ public class ResourceBundleProcessor {
   private ReadOnlyContext context;
   @Inject
   private CacheKeyFactory cacheKeyFactory;
+  /**
+   * The {@link ContentEncoder}'s contributed by {@link ContentEncoderProvider}'s, in the order of preference, followed by
+   * the gzip encoder.
+   */
+  private final LazyInitializer<List<ContentEncoder>> contentEncoders = new LazyInitializer<List<ContentEncoder>>() {
+    @Override
+    protected List<ContentEncoder> initialize() {
+      final List<ContentEncoder> encoders = new ArrayList<ContentEncoder>();
+      for (final ContentEncoderProvider provider : ProviderFinder.of(ContentEncoderProvider.class).find()) {
+        encoders.addAll(provider.provideContentEncoders());
+      }
+      encoders.add(new GzipContentEncoder(context.getConfig().getGzipCompressionLevel()));
+      LOG.debug("content encoders: {}", encoders);
+      return encoders;
+    }
+  };
 
 
   /**
-   * Write to stream the content of the processed resource bundle.
+   * Write to stream the content of the processed resource bundle. The conditional requests (using ETag or last
+   * modified date), the HEAD requests and the requests for a single byte range are supported. The content is written
+   * directly from the cached value.
    */
   public void serveProcessedBundle()
       throws IOException {
-    final WroConfiguration configuration = context.getConfig();
     final HttpServletRequest request = context.getRequest();
     final HttpServletResponse response = context.getResponse();
 
@@ -61,41 +86,59 @@ public class ResourceBundleProcessor {
       final CacheKey cacheKey = getSafeCacheKey(request);
       initAggregatedFolderPath(request, cacheKey.getType());
       final CacheValue cacheValue = cacheStrategy.get(cacheKey);
+      final ContentEncoder encoder = getContentEncoder();
 
       // TODO move ETag check in wroManagerFactory
-      final String ifNoneMatch = request.getHeader(HttpHeader.IF_NONE_MATCH.toString());
-
-      // enclose etag value in quotes to be compliant with the RFC
-      final String etagValue = String.format("\"%s\"", cacheValue.getHash());
+      final String etagValue = cacheValue.getETag(encoder);
 
-      if (etagValue != null && etagValue.equals(ifNoneMatch)) {
+      if (ConditionalRequestHelper.isNotModified(request, etagValue, cacheValue.getLastModified())) {
         LOG.debug("ETag hash detected: {}. Sending {} status code", etagValue, HttpServletResponse.SC_NOT_MODIFIED);
         response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-        // because we cannot return null, return a stream containing nothing.
-        // TODO close output stream?
+        response.setHeader(HttpHeader.ETAG.toString(), etagValue);
         return;
       }
       /**
        * Set contentType before actual content is written, solves <br/>
        * <a href="http://code.google.com/p/wro4j/issues/detail?id=341">issue341</a>
        */
-      response.setContentType(cacheKey.getType().getContentType() + "; charset=" + configuration.getEncoding());
+      response.setContentType(cacheKey.getType().getContentType() + "; charset=" + cacheValue.getCharset());
       // set ETag header
       response.setHeader(HttpHeader.ETAG.toString(), etagValue);
-
-      os = response.getOutputStream();
-      if (cacheValue.getRawContent() != null) {
-        // use gziped response if supported & Set content length based on gzip flag
-        if (isGzipAllowed()) {
-          response.setContentLength(cacheValue.getGzippedContent().length);
-          // add gzip header and gzip response
-          response.setHeader(HttpHeader.CONTENT_ENCODING.toString(), "gzip");
+      response.setDateHeader(HttpHeader.LAST_MODIFIED.toString(), cacheValue.getLastModified());
+
+      if (cacheValue.hasContent()) {
+        // use encoded response if supported & Set content length based on encoding
+        final byte[] encodedContent = encoder != null ? cacheValue.getEncodedContent(encoder) : null;
+        if (encoder != null) {
+          // add content encoding header
+          response.setHeader(HttpHeader.CONTENT_ENCODING.toString(), encoder.getName());
           response.setHeader("Vary", "Accept-Encoding");
-          IOUtils.write(cacheValue.getGzippedContent(), os);
-        } else {
-          //using getRawContent().length() is not the same and can return 2Bytes smaller size.
-          response.setContentLength(cacheValue.getRawContent().getBytes(configuration.getEncoding()).length);
-          IOUtils.write(cacheValue.getRawContent(), os, configuration.getEncoding());
+        }
+        final int length = encodedContent != null ? encodedContent.length : cacheValue.getContentLength();
+        response.setHeader(HttpHeader.ACCEPT_RANGES.toString(), "bytes");
+        final ByteRange range = ConditionalRequestHelper.isRangeApplicable(request, etagValue,
+            cacheValue.getLastModified()) ? ByteRange.parse(request.getHeader(HttpHeader.RANGE.toString()), length)
+            : null;
+        int offset = 0;
+        int count = length;
+        if (range != null) {
+          response.setHeader(HttpHeader.CONTENT_RANGE.toString(), range.getContentRange());
+          if (!range.isSatisfiable()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+          }
+          response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+          offset = range.getOffset();
+          count = range.getLength();
+        }
+        response.setContentLength(count);
+        if (!ConditionalRequestHelper.isHeadRequest(request)) {
+          os = response.getOutputStream();
+          if (encodedContent != null) {
+            os.write(encodedContent, offset, count);
+          } else {
+            cacheValue.writeContentTo(os, offset, count);
+          }
         }
       }
     } finally {
@@ -105,6 +148,24 @@ public class ResourceBundleProcessor {
     }
   }
 
+  /**
+   * @return the preferred {@link ContentEncoder} accepted by the current request, or null if the content should not be
+   *         encoded.
+   */
+  private ContentEncoder getContentEncoder() {
+    if (context.getConfig().isGzipEnabled()) {
+      final HttpServletRequest request = context.getRequest();
+      for (final ContentEncoder encoder : contentEncoders.get()) {
+        final boolean isAccepted = GzipContentEncoder.NAME.equals(encoder.getName()) ? WroUtil.isGzipSupported(request)
+            : WroUtil.isContentCodingAccepted(request, encoder.getName());
+        if (isAccepted) {
+          return encoder;
+        }
+      }
+    }
+    return null;
+  }
+
   private CacheKey getSafeCacheKey(final HttpServletRequest request) {
     final CacheKey cacheKey = cacheKeyFactory.create(request);
     if (cacheKey == null) {
@@ -113,10 +174,6 @@ public class ResourceBundleProcessor {
     return cacheKey;
   }
 
-  private boolean isGzipAllowed() {
-    return context.getConfig().isGzipEnabled() && WroUtil.isGzipSupported(context.getRequest());
-  }
-
   /**
    * Set the aggregatedFolderPath if required.
    */
@@ -8,6 +8,7 @@ import static org.apache.commons.lang3.Validate.notNull;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +20,7 @@ import ro.isdc.wro.cache.factory.CacheKeyFactory;
 import ro.isdc.wro.cache.factory.DefaultCacheKeyFactory;
 import ro.isdc.wro.cache.impl.LruMemoryCacheStrategy;
 import ro.isdc.wro.cache.support.DefaultSynchronizedCacheStrategyDecorator;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.config.metadata.DefaultMetaDataFactory;
@@ -40,6 +42,7 @@ import ro.isdc.wro.model.group.processor.InjectorBuilder;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.locator.factory.DefaultUriLocatorFactory;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.locator.wildcard.JarWildcardStreamLocator;
 import ro.isdc.wro.model.resource.processor.Destroyable;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
@@ -57,6 +60,7 @@ import ro.isdc.wro.util.LazyInitializer;
 import ro.isdc.wro.util.ObjectFactory;
 import ro.isdc.wro.util.SchedulerHelper;
 import ro.isdc.wro.util.Transformer;
+import ro.isdc.wro.util.concurrent.WroExecutorProvider;
 
 
 /**
@@ -108,6 +112,14 @@ public class WroManager
   private final MetaDataFactory metaDataFactory;
   @Inject
   private final ResourceWatcher resourceWatcher;
+  /**
+   * Provides the threads used for background work by all components of this manager.
+   */
+  private final WroExecutorProvider executorProvider;
+  /**
+   * Records the resources each cached group depends on.
+   */
+  private final ResourceDependencyGraph dependencyGraph = new ResourceDependencyGraph();
   /**
    * Schedules the model update.
    */
@@ -115,9 +127,9 @@ public class WroManager
     @Override
     protected Runnable initialize() {
       // decorate with ContextPropagatingCallable to make context available in the new thread
-      return ContextPropagatingCallable.decorate(new ReloadModelRunnable(getModelFactory()));
+      return ContextPropagatingCallable.decorate(new ReloadModelRunnable(getModelFactory(), dependencyGraph));
     }
-  }, ReloadModelRunnable.class.getSimpleName());
+  }, ReloadModelRunnable.class.getSimpleName(), newSchedulerFactory());
   /**
    * Schedules the cache update.
    */
@@ -127,7 +139,7 @@ public class WroManager
       // decorate with ContextPropagatingCallable to make context available in the new thread
       return ContextPropagatingCallable.decorate(new ReloadCacheRunnable(getCacheStrategy()));
     }
-  }, ReloadCacheRunnable.class.getSimpleName());
+  }, ReloadCacheRunnable.class.getSimpleName(), newSchedulerFactory());
 
   private WroManager(final Builder builder) {
     this.authorizationManager = builder.authorizationManager;
@@ -142,6 +154,18 @@ public class WroManager
     this.processorsFactory = builder.processorsFactory;
     this.modelFactory = DefaultWroModelFactoryDecorator.decorate(builder.modelFactory, builder.modelTransformers);
     this.resourceWatcher = new ResourceWatcher();
+    this.executorProvider = builder.executorProvider;
+  }
+
+  /**
+   * @return the factory of the scheduler shared by all periodic jobs.
+   */
+  private ObjectFactory<ScheduledExecutorService> newSchedulerFactory() {
+    return new ObjectFactory<ScheduledExecutorService>() {
+      public ScheduledExecutorService create() {
+        return getExecutorProvider().getScheduler();
+      }
+    };
   }
 
   /**
@@ -200,6 +224,8 @@ public class WroManager
     LOG.info("onModelPeriodChanged with value {} has been triggered!", period);
     // trigger model destroy
     getModelFactory().destroy();
+    // the dependencies are recorded again when the groups of the new model are processed
+    dependencyGraph.clear();
     modelSchedulerHelper.scheduleWithPeriod(period);
   }
 
@@ -214,6 +240,9 @@ public class WroManager
       modelFactory.destroy();
       resourceWatcher.destroy();
       destroyProcessors();
+      executorProvider.destroy();
+      dependencyGraph.clear();
+      JarWildcardStreamLocator.clearIndexes();
     } catch (final Exception e) {
       LOG.error("Exception occured during manager destroy!", e);
     } finally {
@@ -292,6 +321,20 @@ public class WroManager
     return resourceWatcher;
   }
 
+  /**
+   * @return the {@link WroExecutorProvider} providing the threads used for background work.
+   */
+  public WroExecutorProvider getExecutorProvider() {
+    return executorProvider;
+  }
+
+  /**
+   * @return the {@link ResourceDependencyGraph} recording the resources each cached group depends on.
+   */
+  public ResourceDependencyGraph getDependencyGraph() {
+    return dependencyGraph;
+  }
+
   /**
    * Registers a callback.
    *
@@ -338,6 +381,7 @@ public class WroManager
     private ResourceAuthorizationManager authorizationManager = new DefaultResourceAuthorizationManager();
     private CacheKeyFactory cacheKeyFactory = new DefaultCacheKeyFactory();
     private MetaDataFactory metaDataFactory = new DefaultMetaDataFactory();
+    private WroExecutorProvider executorProvider = new WroExecutorProvider();
 
     public Builder() {
     }
@@ -355,6 +399,7 @@ public class WroManager
       this.authorizationManager = manager.getResourceAuthorizationManager();
       this.cacheKeyFactory = manager.getCacheKeyFactory();
       this.metaDataFactory = manager.getMetaDataFactory();
+      this.executorProvider = manager.getExecutorProvider();
     }
 
     public Builder setModelFactory(final WroModelFactory modelFactory) {
@@ -428,6 +473,12 @@ public class WroManager
       return this;
     }
 
+    public Builder setExecutorProvider(final WroExecutorProvider executorProvider) {
+      notNull(executorProvider);
+      this.executorProvider = executorProvider;
+      return this;
+    }
+
     private List<Transformer<WroModel>> createDefaultTransformers() {
       final List<Transformer<WroModel>> list = new ArrayList<Transformer<WroModel>>();
       list.add(new WildcardExpanderModelTransformer());
@@ -8,6 +8,7 @@ import static org.apache.commons.lang3.Validate.notNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.model.factory.WroModelFactory;
 
 
@@ -22,16 +23,30 @@ public final class ReloadModelRunnable
     implements Runnable {
   private static final Logger LOG = LoggerFactory.getLogger(ReloadModelRunnable.class);
   private final WroModelFactory modelFactory;
+  private final ResourceDependencyGraph dependencyGraph;
 
   public ReloadModelRunnable(final WroModelFactory modelFactory) {
+    this(modelFactory, null);
+  }
+
+  /**
+   * @param dependencyGraph
+   *          the {@link ResourceDependencyGraph} to clear when the model is reloaded, since the recorded dependencies may
+   *          refer to groups which no longer exist. Can be null.
+   */
+  public ReloadModelRunnable(final WroModelFactory modelFactory, final ResourceDependencyGraph dependencyGraph) {
     notNull(modelFactory);
     this.modelFactory = modelFactory;
+    this.dependencyGraph = dependencyGraph;
   }
 
   public void run() {
     LOG.debug("Reloading Model....");
     try {
       modelFactory.destroy();
+      if (dependencyGraph != null) {
+        dependencyGraph.clear();
+      }
     } catch (final Exception e) {
       LOG.error("Exception occured during cache reload: ", e);
     }
@@ -8,17 +8,21 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
 import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 
 
 /**
  * Helper for querying a snapshot of a model. Any changes of the model performed after model inspector instantiation
- * will not be reflected.
+ * will not be reflected. The lookups are indexed, thus the inspector of a model published by
+ * {@link ro.isdc.wro.model.factory.DefaultWroModelFactoryDecorator} is created once and reused (see
+ * {@link ro.isdc.wro.model.factory.DefaultWroModelFactoryDecorator#inspect(ro.isdc.wro.model.factory.WroModelFactory)}).
  *
  * @author Alex Objelean
  * @created 21 Sep 2012
@@ -26,6 +30,15 @@ import ro.isdc.wro.model.resource.Resource;
  */
 public class WroModelInspector {
   private final Map<String, Group> map = new HashMap<String, Group>();
+  /**
+   * The groups containing only the resources of a type, computed on demand.
+   */
+  private final Map<String, Group> filteredGroups = new ConcurrentHashMap<String, Group>();
+  /**
+   * Names of the groups containing a resource, mapped by resource uri. Computed on first usage.
+   */
+  private volatile Map<String, Set<String>> groupNamesByResourceUri;
+
   public WroModelInspector(final WroModel model) {
     Validate.notNull(model);
     for (final Group group : model.getGroups()) {
@@ -51,13 +64,50 @@ public class WroModelInspector {
    */
   public Collection<String> getGroupNamesContainingResource(final String resourceUri) {
     Validate.notNull(resourceUri);
-    final Set<String> groupNames = new TreeSet<String>();
-    for (final Group group : map.values()) {
-      if (group.hasResource(resourceUri)) {
-        groupNames.add(group.getName());
+    final Set<String> groupNames = getGroupNamesByResourceUri().get(resourceUri);
+    return groupNames == null ? new TreeSet<String>() : new TreeSet<String>(groupNames);
+  }
+
+  private Map<String, Set<String>> getGroupNamesByResourceUri() {
+    Map<String, Set<String>> index = groupNamesByResourceUri;
+    if (index == null) {
+      index = new HashMap<String, Set<String>>();
+      for (final Group group : map.values()) {
+        for (final Resource resource : group.getResources()) {
+          Set<String> groupNames = index.get(resource.getUri());
+          if (groupNames == null) {
+            groupNames = new TreeSet<String>();
+            index.put(resource.getUri(), groupNames);
+          }
+          groupNames.add(group.getName());
+        }
       }
+      groupNamesByResourceUri = index;
+    }
+    return index;
+  }
+
+  /**
+   * @param name
+   *          of group to find.
+   * @param type
+   *          the type of resources to retain.
+   * @return the group with searched name containing only the resources of the provided type (if available) or null
+   *         otherwise. The result is computed once for each group and type.
+   */
+  public Group getFilteredGroup(final String name, final ResourceType type) {
+    Validate.notNull(type);
+    final Group group = getGroupByName(name);
+    if (group == null) {
+      return null;
+    }
+    final String key = name + ":" + type;
+    Group filteredGroup = filteredGroups.get(key);
+    if (filteredGroup == null) {
+      filteredGroup = group.collectResourcesOfType(type);
+      filteredGroups.put(key, filteredGroup);
     }
-    return groupNames;
+    return filteredGroup;
   }
 
   /**
@@ -45,11 +45,16 @@ public final class DefaultWroModelFactoryDecorator
   @Inject
   private Injector injector;
   /**
-   * Responsible for model caching
+   * Responsible for model caching. The model and its inspector are published together, thus a reload swaps both at once.
    */
-  private final DestroyableLazyInitializer<WroModel> modelInitializer = new DestroyableLazyInitializer<WroModel>() {
+  private final DestroyableLazyInitializer<ModelSnapshot> modelInitializer = new DestroyableLazyInitializer<ModelSnapshot>() {
     @Override
-    protected WroModel initialize() {
+    protected ModelSnapshot initialize() {
+      final WroModel model = createModel();
+      return new ModelSnapshot(model, model == null ? null : new WroModelInspector(model));
+    }
+
+    private WroModel createModel() {
       callbackRegistry.onBeforeModelCreated();
       final StopWatch watch = new StopWatch("Create Model");
       watch.start("createModel");
@@ -111,7 +116,42 @@ public final class DefaultWroModelFactoryDecorator
   }
 
   public WroModel create() {
-    return modelInitializer.get();
+    return modelInitializer.get().model;
+  }
+
+  /**
+   * @return the {@link WroModelInspector} of the created model. The inspector is created once for each model.
+   */
+  public WroModelInspector getModelInspector() {
+    final ModelSnapshot snapshot = modelInitializer.get();
+    return snapshot.inspector != null ? snapshot.inspector : new WroModelInspector(snapshot.model);
+  }
+
+  /**
+   * Avoids indexing the model each time it is inspected, when the provided factory is the decorated factory used by
+   * {@link ro.isdc.wro.manager.WroManager}.
+   *
+   * @return the {@link WroModelInspector} of the model created by the provided factory.
+   */
+  public static WroModelInspector inspect(final WroModelFactory modelFactory) {
+    Validate.notNull(modelFactory);
+    if (modelFactory instanceof DefaultWroModelFactoryDecorator) {
+      return ((DefaultWroModelFactoryDecorator) modelFactory).getModelInspector();
+    }
+    return new WroModelInspector(modelFactory.create());
+  }
+
+  /**
+   * A created model along with its inspector.
+   */
+  private static class ModelSnapshot {
+    private final WroModel model;
+    private final WroModelInspector inspector;
+
+    ModelSnapshot(final WroModel model, final WroModelInspector inspector) {
+      this.model = model;
+      this.inspector = inspector;
+    }
   }
 
   public void destroy() {
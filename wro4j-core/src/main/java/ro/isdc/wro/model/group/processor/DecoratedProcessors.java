@@ -0,0 +1,45 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.group.processor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+
+
+/**
+ * Holds the processors decorated once for a processing criteria, along with the processors they decorate. Decorating
+ * (and injecting) the processors for each processed resource is expensive, thus the decorated processors are reused
+ * as long as the processors provided by the factory are the same.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+final class DecoratedProcessors {
+  private final List<Object> processors;
+  private final List<ResourcePreProcessor> decorated;
+
+  DecoratedProcessors(final Collection<?> processors, final List<ResourcePreProcessor> decorated) {
+    this.processors = new ArrayList<Object>(processors);
+    this.decorated = Collections.unmodifiableList(decorated);
+  }
+
+  /**
+   * @return true if the decorated processors were created for the provided processors.
+   */
+  boolean isDecorating(final Collection<?> processors) {
+    return this.processors.equals(new ArrayList<Object>(processors));
+  }
+
+  /**
+   * @return the decorated processors, in the order of the processors they decorate.
+   */
+  List<ResourcePreProcessor> getDecorated() {
+    return decorated;
+  }
+}
@@ -5,10 +5,12 @@ package ro.isdc.wro.model.group.processor;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
@@ -16,10 +18,10 @@ import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.config.ReadOnlyContext;
 import ro.isdc.wro.manager.callback.LifecycleCallbackRegistry;
-import ro.isdc.wro.model.WroModel;
-import ro.isdc.wro.model.WroModelInspector;
+import ro.isdc.wro.model.factory.DefaultWroModelFactoryDecorator;
 import ro.isdc.wro.model.factory.WroModelFactory;
 import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.group.Inject;
@@ -29,6 +31,9 @@ import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.model.resource.processor.decorator.DefaultProcessorDecorator;
 import ro.isdc.wro.model.resource.processor.decorator.ProcessorDecorator;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
+import ro.isdc.wro.model.resource.processor.support.ProcessingCriteria;
+import ro.isdc.wro.model.resource.processor.support.ProcessingType;
+import ro.isdc.wro.util.io.ProcessingBuffer;
 
 
 /**
@@ -49,6 +54,12 @@ public class GroupsProcessor {
   private ReadOnlyContext context;
   @Inject
   private Injector injector;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
+  /**
+   * The decorated postProcessors for each minimize flag.
+   */
+  private final Map<Boolean, DecoratedProcessors> decoratedProcessors = new ConcurrentHashMap<Boolean, DecoratedProcessors>();
 
   /**
    * This field is transient because {@link PreProcessorExecutor} is not serializable (according to findbugs eclipse
@@ -64,27 +75,31 @@ public class GroupsProcessor {
    */
   public String process(final CacheKey cacheKey) {
     Validate.notNull(cacheKey);
+    dependencyGraph.startRecording(cacheKey);
     try {
       LOG.debug("Starting processing group [{}] of type [{}] with minimized flag: " + cacheKey.isMinimize(),
           cacheKey.getGroupName(), cacheKey.getType());
       // find processed result for a group
-      final WroModel model = modelFactory.create();
-      final Group group = new WroModelInspector(model).getGroupByName(cacheKey.getGroupName());
-      if (group == null) {
+      final Group filteredGroup = DefaultWroModelFactoryDecorator.inspect(modelFactory).getFilteredGroup(
+          cacheKey.getGroupName(), cacheKey.getType());
+      if (filteredGroup == null) {
         throw new WroRuntimeException("No such group available in the model: " + cacheKey.getGroupName());
       }
-      final Group filteredGroup = group.collectResourcesOfType(cacheKey.getType());
       if (filteredGroup.getResources().isEmpty()) {
-        LOG.debug("No resources found in group: {} and resource type: {}", group.getName(), cacheKey.getType());
+        LOG.debug("No resources found in group: {} and resource type: {}", filteredGroup.getName(), cacheKey.getType());
         if (!context.getConfig().isIgnoreEmptyGroup()) {
-          throw new WroRuntimeException("No resources found in group: " + group.getName());
+          throw new WroRuntimeException("No resources found in group: " + filteredGroup.getName());
         }
       }
-      final String result = preProcessorExecutor.processAndMerge(filteredGroup.getResources(), cacheKey.isMinimize());
-      return applyPostProcessors(cacheKey, result);
+      final ProcessingBuffer buffer = new ProcessingBuffer();
+      preProcessorExecutor.processAndMerge(filteredGroup.getResources(),
+          ProcessingCriteria.create(ProcessingType.ALL, cacheKey.isMinimize()), buffer.getWriter());
+      buffer.flip();
+      return applyPostProcessors(cacheKey, buffer);
     } catch (final IOException e) {
       throw new WroRuntimeException("Exception while merging resources: " + e.getMessage(), e).logError();
     } finally {
+      dependencyGraph.stopRecording();
       callbackRegistry.onProcessingComplete();
     }
   }
@@ -94,36 +109,47 @@ public class GroupsProcessor {
    *
    * @param cacheKey
    *          the {@link CacheKey} being processed.
-   * @param content
-   *          to process with all postProcessors.
+   * @param buffer
+   *          the {@link ProcessingBuffer} holding the content to process with all postProcessors.
    * @return the post processed content.
    */
-  private String applyPostProcessors(final CacheKey cacheKey, final String content)
+  private String applyPostProcessors(final CacheKey cacheKey, final ProcessingBuffer buffer)
       throws IOException {
     final Collection<ResourcePostProcessor> processors = processorsFactory.getPostProcessors();
     LOG.debug("appying post processors: {}", processors);
-    if (processors.isEmpty()) {
-      return content;
+    if (!processors.isEmpty()) {
+      final Resource resource = Resource.create(cacheKey.getGroupName(), cacheKey.getType());
+      for (final ResourcePreProcessor decoratedProcessor : getDecoratedPostProcessors(processors, cacheKey.isMinimize())) {
+        decoratedProcessor.process(resource, buffer.getReader(), buffer.getWriter());
+        buffer.flip();
+      }
     }
-    final Resource resource = Resource.create(cacheKey.getGroupName(), cacheKey.getType());
+    return buffer.toString();
+  }
 
-    Reader reader = new StringReader(content.toString());
-    Writer writer = null;
-    for (final ResourcePostProcessor processor : processors) {
-      final ResourcePreProcessor decoratedProcessor = decorateProcessor(processor, cacheKey.isMinimize());
-      writer = new StringWriter();
-      decoratedProcessor.process(resource, reader, writer);
-      reader = new StringReader(writer.toString());
+  /**
+   * @return the postProcessors decorated for the provided minimize flag. The decorated processors are created once and
+   *         reused until the processors provided by the factory are changed.
+   */
+  private List<ResourcePreProcessor> getDecoratedPostProcessors(final Collection<ResourcePostProcessor> processors,
+      final boolean minimize) {
+    DecoratedProcessors decorated = decoratedProcessors.get(minimize);
+    if (decorated == null || !decorated.isDecorating(processors)) {
+      final List<ResourcePreProcessor> list = new ArrayList<ResourcePreProcessor>();
+      for (final ResourcePostProcessor processor : processors) {
+        list.add(decorateProcessor(processor, minimize));
+      }
+      // the decorated processors are injected before being visible to other threads.
+      decorated = new DecoratedProcessors(processors, list);
+      decoratedProcessors.put(minimize, decorated);
     }
-    return writer.toString();
+    return decorated.getDecorated();
   }
 
   /**
-   * This method is synchronized to ensure that processor is injected before it is being used by other thread.
-   *
    * @return a decorated processor.
    */
-  private synchronized ProcessorDecorator decorateProcessor(final ResourcePostProcessor processor,
+  private ProcessorDecorator decorateProcessor(final ResourcePostProcessor processor,
       final boolean minimize) {
     final ProcessorDecorator decorated = new DefaultProcessorDecorator(processor, minimize) {
       @Override
@@ -12,6 +12,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +37,14 @@ public final class Injector {
   private static final Logger LOG = LoggerFactory.getLogger(Injector.class);
   private final Map<Class<?>, Object> map;
   private final Map<Object, Boolean> injectedObjects = Collections.synchronizedMap(new WeakHashMap<Object, Boolean>());
+  /**
+   * The injections in progress. Only the threads injecting the same object wait for each other.
+   */
+  private final ConcurrentMap<Integer, PendingInjection> pendingInjections = new ConcurrentHashMap<Integer, PendingInjection>();
+  /**
+   * The fields to inject for each class.
+   */
+  private final Map<Class<?>, Collection<InjectionPoint>> injectionPlans = new ConcurrentHashMap<Class<?>, Collection<InjectionPoint>>();
   /**
    * Mapping of classes to be annotated and the corresponding injected object.
    */
@@ -54,9 +65,27 @@ public final class Injector {
     if (!Context.isContextSet()) {
       throw new WroRuntimeException("No Context Set");
     }
-    if (!injectedObjects.containsKey(computeKey(object))) {
-      injectedObjects.put(computeKey(object), true);
-      processInjectAnnotation(object);
+    final int key = computeKey(object);
+    if (!injectedObjects.containsKey(key)) {
+      final PendingInjection injection = new PendingInjection();
+      final PendingInjection pending = pendingInjections.putIfAbsent(key, injection);
+      if (pending == null) {
+        try {
+          if (!injectedObjects.containsKey(key)) {
+            processInjectAnnotation(object);
+            // a failed injection is not marked, allowing a subsequent injection attempt to fail as well
+            injectedObjects.put(key, true);
+          }
+        } finally {
+          pendingInjections.remove(key);
+          injection.done();
+        }
+      } else if (!pending.isOwnedByCurrentThread()) {
+        // never hand a partially injected object to a concurrent thread
+        pending.await();
+        return inject(object);
+      }
+      // else the object is reached recursively by the thread injecting it
     }
     return object;
   }
@@ -74,17 +103,8 @@ public final class Injector {
    */
   private void processInjectAnnotation(final Object object) {
     try {
-      final Collection<Field> fields = getAllFields(object);
-      for (final Field field : fields) {
-        if (field.isAnnotationPresent(Inject.class)) {
-          if (!acceptAnnotatedField(object, field)) {
-            final String message = String.format(
-                "@Inject cannot be applied on object: %s to field of type: %s using injector %s", object,
-                field.getType(), this);
-            LOG.error(message + ". Supported types are: {}", map.keySet());
-            throw new WroRuntimeException(message);
-          }
-        }
+      for (final InjectionPoint injectionPoint : getInjectionPlan(object)) {
+        injectionPoint.field.set(object, getValue(injectionPoint));
       }
       // handle special cases like decorators. Perform recursive injection
       if (object instanceof ObjectDecorator) {
@@ -96,6 +116,53 @@ public final class Injector {
     }
   }
 
+  /**
+   * @return the value to set on the field of the {@link InjectionPoint}.
+   */
+  private Object getValue(final InjectionPoint injectionPoint) {
+    Object value = injectionPoint.value;
+    // treat factories as a special case for lazy load of the objects.
+    if (value instanceof InjectorObjectFactory) {
+      value = ((InjectorObjectFactory<?>) value).create();
+      inject(value);
+    }
+    return value;
+  }
+
+  /**
+   * Scanning the fields of a class is expensive, thus the result is computed once for each class.
+   *
+   * @return the {@link InjectionPoint}'s of the provided object.
+   */
+  private Collection<InjectionPoint> getInjectionPlan(final Object object) {
+    Collection<InjectionPoint> plan = injectionPlans.get(object.getClass());
+    if (plan == null) {
+      plan = createInjectionPlan(object);
+      injectionPlans.put(object.getClass(), plan);
+    }
+    return plan;
+  }
+
+  private Collection<InjectionPoint> createInjectionPlan(final Object object) {
+    final Collection<InjectionPoint> plan = new ArrayList<InjectionPoint>();
+    for (final Field field : getAllFields(object)) {
+      if (field.isAnnotationPresent(Inject.class)) {
+        final Map.Entry<Class<?>, Object> entry = getSupportedEntry(field);
+        if (entry == null) {
+          final String message = String.format(
+              "@Inject cannot be applied on object: %s to field of type: %s using injector %s", object,
+              field.getType(), this);
+          LOG.error(message + ". Supported types are: {}", map.keySet());
+          throw new WroRuntimeException(message);
+        }
+        // accept private modifiers
+        field.setAccessible(true);
+        plan.add(new InjectionPoint(field, entry.getValue()));
+      }
+    }
+    return plan;
+  }
+
   /**
    * Return all fields for given object, also those from the super classes.
    */
@@ -112,34 +179,54 @@ public final class Injector {
   }
 
   /**
-   * Analyze the field containing {@link Inject} annotation and set its value to appropriate value. Override this method
-   * if you want to inject something else but uriLocatorFactory.
-   *
-   * @param object
-   *          an object containing @Inject annotation.
    * @param field
    *          {@link Field} object containing {@link Inject} annotation.
-   * @return true if field was injected with some not null value.
-   * @throws IllegalAccessException
+   * @return the entry of the map providing the value of the field or null if the type of the field is not supported.
    */
-  private boolean acceptAnnotatedField(final Object object, final Field field)
-      throws IllegalAccessException {
-    boolean accept = false;
-    // accept private modifiers
-    field.setAccessible(true);
+  private Map.Entry<Class<?>, Object> getSupportedEntry(final Field field) {
     for (final Map.Entry<Class<?>, Object> entry : map.entrySet()) {
       if (entry.getKey().isAssignableFrom(field.getType())) {
-        Object value = entry.getValue();
-        // treat factories as a special case for lazy load of the objects.
-        if (value instanceof InjectorObjectFactory) {
-          value = ((InjectorObjectFactory<?>) value).create();
-          inject(value);
-        }
-        field.set(object, value);
-        accept = true;
-        break;
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A field annotated with {@link Inject} and the value (or the factory of the value) to inject.
+   */
+  private static class InjectionPoint {
+    private final Field field;
+    private final Object value;
+
+    InjectionPoint(final Field field, final Object value) {
+      this.field = field;
+      this.value = value;
+    }
+  }
+
+  /**
+   * The injection of an object performed by a thread, awaited by the concurrent threads injecting the same object.
+   */
+  private static class PendingInjection {
+    private final Thread thread = Thread.currentThread();
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    boolean isOwnedByCurrentThread() {
+      return thread == Thread.currentThread();
+    }
+
+    void done() {
+      latch.countDown();
+    }
+
+    void await() {
+      try {
+        latch.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw WroRuntimeException.wrap(e);
       }
     }
-    return accept;
   }
 }
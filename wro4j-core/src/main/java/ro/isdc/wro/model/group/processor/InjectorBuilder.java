@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.cache.CacheStrategy;
 import ro.isdc.wro.cache.factory.CacheKeyFactory;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.ReadOnlyContext;
 import ro.isdc.wro.config.jmx.WroConfiguration;
@@ -38,6 +39,7 @@ import ro.isdc.wro.model.resource.support.naming.NamingStrategy;
 import ro.isdc.wro.util.ObjectFactory;
 import ro.isdc.wro.util.ProxyFactory;
 import ro.isdc.wro.util.ProxyFactory.TypedObjectFactory;
+import ro.isdc.wro.util.concurrent.WroExecutorProvider;
 
 
 /**
@@ -109,6 +111,24 @@ public class InjectorBuilder {
     map.put(ResourceChangeDetector.class, createResourceChangeDetectorProxy());
     map.put(ResourceWatcher.class, createResourceWatcherProxy());
     map.put(DispatcherStreamLocator.class, createDispatcherLocatorProxy());
+    map.put(WroExecutorProvider.class, createExecutorProviderProxy());
+    map.put(ResourceDependencyGraph.class, createDependencyGraphProxy());
+  }
+
+  private Object createDependencyGraphProxy() {
+    return new InjectorObjectFactory<ResourceDependencyGraph>() {
+      public ResourceDependencyGraph create() {
+        return managerFactory.create().getDependencyGraph();
+      }
+    };
+  }
+
+  private Object createExecutorProviderProxy() {
+    return new InjectorObjectFactory<WroExecutorProvider>() {
+      public WroExecutorProvider create() {
+        return managerFactory.create().getExecutorProvider();
+      }
+    };
   }
 
   private Object createDispatcherLocatorProxy() {
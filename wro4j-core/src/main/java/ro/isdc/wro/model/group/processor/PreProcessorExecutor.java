@@ -2,40 +2,53 @@ package ro.isdc.wro.model.group.processor;
 
 import static org.apache.commons.lang3.Validate.notNull;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.io.Charsets;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BOMInputStream;
-import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.ReadOnlyContext;
+import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.config.support.ContextPropagatingCallable;
 import ro.isdc.wro.manager.callback.LifecycleCallbackRegistry;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.model.resource.processor.decorator.DefaultProcessorDecorator;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
 import ro.isdc.wro.model.resource.processor.support.ProcessingCriteria;
 import ro.isdc.wro.model.resource.processor.support.ProcessingType;
-import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.model.resource.support.hash.HashStrategy;
+import ro.isdc.wro.util.concurrent.WroExecutorProvider;
+import ro.isdc.wro.util.io.ProcessingBuffer;
 
 
 /**
@@ -48,6 +61,17 @@ import ro.isdc.wro.util.WroUtil;
  */
 public class PreProcessorExecutor {
   private static final Logger LOG = LoggerFactory.getLogger(PreProcessorExecutor.class);
+  /**
+   * The maximum number of resources whose pre processed content is cached. The least recently used entries are
+   * evicted first.
+   */
+  private static final int MAX_PROCESSED_RESOURCES = 512;
+  /**
+   * Set when the thread processes the imports of a resource (the nested processing performed by the css import
+   * processors). The pre processed content of such a resource depends on the imported resources and on the imports
+   * already processed for the same request, thus it is not cached.
+   */
+  private static final ThreadLocal<Boolean> IMPORTS_PROCESSED = new ThreadLocal<Boolean>();
   @Inject
   private UriLocatorFactory uriLocatorFactory;
   @Inject
@@ -61,7 +85,27 @@ public class PreProcessorExecutor {
   /**
    * Runs the preProcessing in parallel.
    */
-  private ExecutorService executor;
+  @Inject
+  private WroExecutorProvider executorProvider;
+  @Inject
+  private HashStrategy hashStrategy;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
+  /**
+   * The pre processed content of the most recently used resources. The content of a resource whose processing located
+   * other resources is not cached, since it changes when those resources are changed.
+   */
+  private final Map<String, ProcessedResource> processedResources = Collections.synchronizedMap(
+      new LinkedHashMap<String, ProcessedResource>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, ProcessedResource> eldest) {
+          return size() > MAX_PROCESSED_RESOURCES;
+        }
+      });
+  /**
+   * The decorated preProcessors for each processing criteria.
+   */
+  private final Map<String, DecoratedProcessors> decoratedProcessors = new ConcurrentHashMap<String, DecoratedProcessors>();
 
   /**
    * Apply preProcessors on resources and merge them after all preProcessors are applied.
@@ -88,22 +132,43 @@ public class PreProcessorExecutor {
    */
   public String processAndMerge(final List<Resource> resources, final ProcessingCriteria criteria)
       throws IOException {
+    final StringBuilderWriter result = new StringBuilderWriter();
+    processAndMerge(resources, criteria, result);
+    return result.toString();
+  }
+
+  /**
+   * Apply preProcessors on resources and write the merged result to the provided writer. No intermediate
+   * {@link String} is created for the processed content of each resource.
+   *
+   * @param resources
+   *          what are the resources to merge.
+   * @param criteria
+   *          {@link ProcessingCriteria} used to identify the processors to apply and those to skip.
+   * @param writer
+   *          where the preProcessed merged content is written. The writer is not closed.
+   */
+  public void processAndMerge(final List<Resource> resources, final ProcessingCriteria criteria, final Writer writer)
+      throws IOException {
     notNull(criteria);
+    notNull(writer);
     LOG.debug("criteria: {}", criteria);
     callbackRegistry.onBeforeMerge();
     try {
       notNull(resources);
       LOG.debug("process and merge resources: {}", resources);
-      final StringBuffer result = new StringBuffer();
+      if (criteria.getProcessingType() == ProcessingType.IMPORT_ONLY && !resources.isEmpty()) {
+        IMPORTS_PROCESSED.set(Boolean.TRUE);
+      }
       if (shouldRunInParallel(resources)) {
-        result.append(runInParallel(resources, criteria));
+        runInParallel(resources, criteria, writer);
       } else {
+        final ProcessingBuffer buffer = new ProcessingBuffer();
         for (final Resource resource : resources) {
           LOG.debug("\tmerging resource: {}", resource);
-          result.append(applyPreProcessors(resource, criteria));
+          applyPreProcessors(resource, criteria, buffer, writer);
         }
       }
-      return result.toString();
     } finally {
       callbackRegistry.onAfterMerge();
     }
@@ -112,112 +177,237 @@ public class PreProcessorExecutor {
   private boolean shouldRunInParallel(final List<Resource> resources) {
     final boolean isParallel = context.getConfig().isParallelPreprocessing();
     final int availableProcessors = Runtime.getRuntime().availableProcessors();
-    return isParallel && resources.size() > 1 && availableProcessors > 1;
+    // a thread of the shared executor would run all the tasks itself anyway
+    return isParallel && resources.size() > 1 && availableProcessors > 1 && !executorProvider.isWorkerThread();
   }
 
   /**
-   * runs the pre processors in parallel.
-   *
-   * @return merged and pre processed content.
+   * Runs the pre processors in parallel and writes the merged result to the provided writer. At most
+   * {@link #getParallelWindow()} resources are processed at the same time. The processed content of each resource is
+   * written as soon as all the previous resources are written, in order to keep in memory only the content of the
+   * resources being processed. When the processing of a resource fails, the processing of the remaining resources is
+   * canceled.
    */
-  private String runInParallel(final List<Resource> resources, final ProcessingCriteria criteria)
+  private void runInParallel(final List<Resource> resources, final ProcessingCriteria criteria, final Writer writer)
       throws IOException {
     LOG.debug("Running preProcessing in Parallel");
-    final StringBuffer result = new StringBuffer();
-    final List<Callable<String>> callables = new ArrayList<Callable<String>>();
-    for (final Resource resource : resources) {
-      callables.add(new Callable<String>() {
-        public String call()
-            throws Exception {
-          LOG.debug("Callable started for resource: {} ...", resource);
-          return applyPreProcessors(resource, criteria);
+    final int window = getParallelWindow();
+    final LinkedList<Future<String>> futures = new LinkedList<Future<String>>();
+    final Iterator<Resource> iterator = resources.iterator();
+    try {
+      while (iterator.hasNext() || !futures.isEmpty()) {
+        while (iterator.hasNext() && futures.size() < window) {
+          futures.addLast(submit(iterator.next(), criteria));
         }
-      });
-    }
-    final ExecutorService exec = getExecutorService();
-    final List<Future<String>> futures = new ArrayList<Future<String>>();
-    for (final Callable<String> callable : callables) {
-      // decorate with ContextPropagatingCallable in order to allow spawn threads to access the Context
-      final Callable<String> decoratedCallable = new ContextPropagatingCallable<String>(callable);
-      futures.add(exec.submit(decoratedCallable));
+        writer.write(getResult(futures.removeFirst()));
+      }
+    } finally {
+      for (final Future<String> future : futures) {
+        future.cancel(true);
+      }
     }
+  }
 
-    for (final Future<String> future : futures) {
-      try {
-        result.append(future.get());
-      } catch (final Exception e) {
-        // propagate original cause
-        final Throwable cause = e.getCause();
-        if (cause instanceof WroRuntimeException) {
-          throw (WroRuntimeException) cause;
-        } else if (cause instanceof IOException) {
-          throw (IOException) cause;
-        } else {
-          throw new WroRuntimeException("Problem during parallel pre processing", e);
-        }
+  /**
+   * @return the maximum number of resources processed in parallel.
+   */
+  private int getParallelWindow() {
+    final int window = context.getConfig().getParallelPreprocessingWindow();
+    return window > 0 ? window : Runtime.getRuntime().availableProcessors() * 2;
+  }
+
+  private Future<String> submit(final Resource resource, final ProcessingCriteria criteria) {
+    final Callable<String> callable = new Callable<String>() {
+      public String call()
+          throws Exception {
+        LOG.debug("Callable started for resource: {} ...", resource);
+        final StringBuilderWriter result = new StringBuilderWriter();
+        applyPreProcessors(resource, criteria, new ProcessingBuffer(), result);
+        return result.toString();
       }
-    }
-    return result.toString();
+    };
+    // decorate with ContextPropagatingCallable in order to allow spawn threads to access the Context
+    return executorProvider.submit(new ContextPropagatingCallable<String>(dependencyGraph.propagate(callable)));
   }
 
-  private ExecutorService getExecutorService() {
-    if (executor == null) {
-      // use at most the number of available processors (true parallelism)
-      final int threadPoolSize = Runtime.getRuntime().availableProcessors();
-      LOG.debug("Parallel thread pool size: {}", threadPoolSize);
-      executor = Executors.newFixedThreadPool(threadPoolSize,
-          WroUtil.createDaemonThreadFactory("parallelPreprocessing"));
+  /**
+   * @return the processed content of a resource, once available.
+   */
+  private String getResult(final Future<String> future)
+      throws IOException {
+    try {
+      return future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw WroRuntimeException.wrap(e);
+    } catch (final CancellationException e) {
+      throw new WroRuntimeException("Pre processing task was discarded by the executor", e);
+    } catch (final Exception e) {
+      // propagate original cause
+      final Throwable cause = e.getCause();
+      if (cause instanceof WroRuntimeException) {
+        throw (WroRuntimeException) cause;
+      } else if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else {
+        throw new WroRuntimeException("Problem during parallel pre processing", e);
+      }
     }
-    return executor;
   }
 
   /**
-   * Apply a list of preprocessors on a resource.
+   * Apply a list of preprocessors on a resource. The output of each processor is piped into the next one through the
+   * provided {@link ProcessingBuffer}, which is reused across resources.
    *
    * @param resource
    *          the {@link Resource} on which processors will be applied
-   * @param processors
-   *          the list of processor to apply on the resource.
+   * @param criteria
+   *          {@link ProcessingCriteria} used to identify the processors to apply and those to skip.
+   * @param buffer
+   *          the {@link ProcessingBuffer} used to chain processors.
+   * @param writer
+   *          where the processed content is appended.
    */
-  private String applyPreProcessors(final Resource resource, final ProcessingCriteria criteria)
+  private void applyPreProcessors(final Resource resource, final ProcessingCriteria criteria,
+      final ProcessingBuffer buffer, final Writer writer)
       throws IOException {
     final Collection<ResourcePreProcessor> processors = processorsFactory.getPreProcessors();
     LOG.debug("applying preProcessors: {}", processors);
 
-    String resourceContent = null;
+    buffer.clear();
     try {
-      resourceContent = getResourceContent(resource);
+      readResourceContent(resource, buffer.getWriter());
+      buffer.flip();
     } catch (final IOException e) {
       LOG.debug("Invalid resource found: {}", resource);
       if (Context.get().getConfig().isIgnoreMissingResources()) {
-        return StringUtils.EMPTY;
+        return;
       } else {
         LOG.error("Cannot ignore missing resource:  {}", resource);
         throw e;
       }
     }
-    if (!processors.isEmpty()) {
-      Writer writer = null;
-      for (final ResourcePreProcessor processor : processors) {
-        final ResourcePreProcessor decoratedProcessor = decoratePreProcessor(processor, criteria);
-
-        writer = new StringWriter();
-        final Reader reader = new StringReader(resourceContent);
-        // decorate and process
-        decoratedProcessor.process(resource, reader, writer);
-        // use the outcome for next input
-        resourceContent = writer.toString();
+    final String cacheKey = isCachePreProcessedResources(criteria) ? getCacheKey(resource, criteria) : null;
+    final String contentHash = cacheKey != null ? getContentHash(buffer) : null;
+    final ProcessedResource cached = cacheKey != null ? processedResources.get(cacheKey) : null;
+    if (cached != null && cached.isValid(contentHash, processors)) {
+      LOG.debug("Reusing pre processed content of: {}", resource);
+      writer.write(cached.content);
+    } else {
+      final Boolean importsProcessed = IMPORTS_PROCESSED.get();
+      IMPORTS_PROCESSED.remove();
+      final long locatedCount = dependencyGraph.getLocatedCount();
+      try {
+        for (final ResourcePreProcessor decoratedProcessor : getDecoratedPreProcessors(processors, criteria)) {
+          // the outcome of each processor is used as input for the next processor
+          decoratedProcessor.process(resource, buffer.getReader(), buffer.getWriter());
+          buffer.flip();
+        }
+        // the content depends on the other resources located by the processors (ex: less imports, data uri images)
+        final boolean locatedOtherResources = dependencyGraph.getLocatedCount() != locatedCount;
+        if (cacheKey != null && IMPORTS_PROCESSED.get() == null && !locatedOtherResources) {
+          processedResources.put(cacheKey, new ProcessedResource(resource.getUri(), contentHash, processors,
+              buffer.toString()));
+        }
+      } finally {
+        // the enclosing resource (if any) is already aware of its processed imports
+        if (importsProcessed == null) {
+          IMPORTS_PROCESSED.remove();
+        } else {
+          IMPORTS_PROCESSED.set(importsProcessed);
+        }
       }
+      buffer.writeTo(writer);
     }
     // add explicitly new line at the end to avoid unexpected comment issue
-    return String.format("%s%n", resourceContent);
+    writer.write(IOUtils.LINE_SEPARATOR);
+  }
+
+  /**
+   * @return true if the pre processed content can be cached. The imported resources are processed each time, since
+   *         their content depends on the imports already processed for the current resource.
+   */
+  private boolean isCachePreProcessedResources(final ProcessingCriteria criteria) {
+    final WroConfiguration config = context.getConfig();
+    final boolean cacheDisabled = config.isDebug() && config.isDisableCache();
+    return config.isCachePreProcessedResources() && !cacheDisabled
+        && criteria.getProcessingType() != ProcessingType.IMPORT_ONLY;
+  }
+
+  /**
+   * @return the key of the pre processed content of a resource. Besides the resource and the criteria, the key of a
+   *         css resource contains the details of the request, because the css url rewriting depends on them.
+   */
+  private String getCacheKey(final Resource resource, final ProcessingCriteria criteria) {
+    final StringBuilder key = new StringBuilder().append(resource.getType()).append(':').append(resource.getUri());
+    key.append(':').append(resource.isMinimize()).append(':').append(criteria.getProcessingType()).append(':').append(
+        criteria.isMinimize());
+    if (resource.getType() == ResourceType.CSS) {
+      key.append(':').append(context.getAggregatedFolderPath());
+      final HttpServletRequest request = context.getRequest();
+      if (request != null) {
+        key.append(':').append(request.getContextPath()).append(':').append(request.getRequestURI());
+      }
+    }
+    return key.toString();
+  }
+
+  private String getContentHash(final ProcessingBuffer buffer)
+      throws IOException {
+    final String encoding = context.getConfig().getEncoding();
+    return hashStrategy.getHash(new ByteArrayInputStream(buffer.toString().getBytes(
+        Charsets.toCharset(encoding).name())));
+  }
+
+  /**
+   * Removes the cached pre processed content of the resource. Useful when the content of the resource is unchanged,
+   * but the pre processed content could change (ex: an imported resource was changed).
+   *
+   * @param uri
+   *          the uri of the changed resource.
+   */
+  public void invalidate(final String uri) {
+    notNull(uri);
+    synchronized (processedResources) {
+      for (final Iterator<ProcessedResource> iterator = processedResources.values().iterator(); iterator.hasNext();) {
+        if (uri.equals(iterator.next().uri)) {
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes the pre processed content of all resources.
+   */
+  public void clearCache() {
+    processedResources.clear();
+  }
+
+  /**
+   * @return the preProcessors decorated for the provided criteria. The decorated processors are created once and reused
+   *         until the processors provided by the factory are changed.
+   */
+  private List<ResourcePreProcessor> getDecoratedPreProcessors(final Collection<ResourcePreProcessor> processors,
+      final ProcessingCriteria criteria) {
+    final String key = criteria.getProcessingType() + ":" + criteria.isMinimize();
+    DecoratedProcessors decorated = decoratedProcessors.get(key);
+    if (decorated == null || !decorated.isDecorating(processors)) {
+      final List<ResourcePreProcessor> list = new ArrayList<ResourcePreProcessor>();
+      for (final ResourcePreProcessor processor : processors) {
+        list.add(decoratePreProcessor(processor, criteria));
+      }
+      // the decorated processors are injected before being visible to other threads.
+      decorated = new DecoratedProcessors(processors, list);
+      decoratedProcessors.put(key, decorated);
+    }
+    return decorated.getDecorated();
   }
 
   /**
    * Decorates preProcessor with mandatory decorators.
-   * This method is synchronized to ensure that processor is injected before it is being used by other thread.
    */
-  private synchronized ResourcePreProcessor decoratePreProcessor(final ResourcePreProcessor processor,
+  private ResourcePreProcessor decoratePreProcessor(final ResourcePreProcessor processor,
       final ProcessingCriteria criteria) {
     final ResourcePreProcessor decorated = new DefaultProcessorDecorator(processor, criteria) {
       @Override
@@ -236,31 +426,59 @@ public class PreProcessorExecutor {
   }
 
   /**
-   * @return a Reader for the provided resource.
+   * Copies the content of the provided resource into the writer.
+   *
    * @param resource
-   *          {@link Resource} which content to return.
-   * @param resources
-   *          the list of all resources processed in this context, used for duplicate resource detection.
+   *          {@link Resource} which content to read.
+   * @param writer
+   *          where the content is copied.
    */
-  private String getResourceContent(final Resource resource)
+  private void readResourceContent(final Resource resource, final Writer writer)
       throws IOException {
     InputStream is = null;
     try {
       is = new BOMInputStream(uriLocatorFactory.locate(resource.getUri()));
-      final String result = IOUtils.toString(is, context.getConfig().getEncoding());
-      if (StringUtils.isEmpty(result)) {
+      final Reader reader = new InputStreamReader(is, Charsets.toCharset(context.getConfig().getEncoding()));
+      final int count = IOUtils.copy(reader, writer);
+      if (count == 0) {
         LOG.debug("Empty resource detected: {}", resource.getUri());
       }
-      return result;
     } finally {
       IOUtils.closeQuietly(is);
     }
   }
 
   /**
-   * Perform cleanUp on service shut down.
+   * The pre processed content of a resource, along with what it was computed from.
+   */
+  private static class ProcessedResource {
+    private final String uri;
+    private final String contentHash;
+    private final List<ResourcePreProcessor> processors;
+    private final String content;
+
+    ProcessedResource(final String uri, final String contentHash, final Collection<ResourcePreProcessor> processors,
+        final String content) {
+      this.uri = uri;
+      this.contentHash = contentHash;
+      this.processors = new ArrayList<ResourcePreProcessor>(processors);
+      this.content = content;
+    }
+
+    /**
+     * @return true if this content was computed from the same resource content using the same processors.
+     */
+    boolean isValid(final String contentHash, final Collection<ResourcePreProcessor> processors) {
+      return this.contentHash != null && this.contentHash.equals(contentHash)
+          && this.processors.equals(new ArrayList<ResourcePreProcessor>(processors));
+    }
+  }
+
+  /**
+   * Perform cleanUp on service shut down. The threads used for parallel preProcessing are shared and destroyed by their
+   * {@link WroExecutorProvider}.
    */
   public void destroy() {
-    getExecutorService().shutdownNow();
+    clearCache();
   }
 }
@@ -3,6 +3,7 @@ package ro.isdc.wro.model.resource.locator.factory;
 import java.io.IOException;
 import java.io.InputStream;
 
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.group.processor.Injector;
 import ro.isdc.wro.model.resource.locator.UriLocator;
@@ -21,6 +22,8 @@ public class InjectableUriLocatorFactoryDecorator extends AbstractDecorator<UriL
     implements UriLocatorFactory  {
   @Inject
   private Injector injector;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
   public InjectableUriLocatorFactoryDecorator(final UriLocatorFactory decorated) {
     super(decorated);
   }
@@ -30,6 +33,8 @@ public class InjectableUriLocatorFactoryDecorator extends AbstractDecorator<UriL
    */
   public InputStream locate(final String uri)
       throws IOException {
+    // the resources located while processing a group are recorded as dependencies of the group
+    dependencyGraph.record(uri);
     final UriLocator locator = getInstance(uri);
     if (locator == null) {
       return getDecoratedObject().locate(uri);
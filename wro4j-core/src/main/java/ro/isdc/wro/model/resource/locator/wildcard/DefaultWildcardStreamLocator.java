@@ -6,23 +6,35 @@ package ro.isdc.wro.model.resource.locator.wildcard;
 import static org.apache.commons.lang3.Validate.notNull;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.filefilter.FalseFileFilter;
-import org.apache.commons.io.filefilter.IOFileFilter;
-import org.apache.commons.io.filefilter.TrueFileFilter;
-import org.apache.commons.io.filefilter.WildcardFileFilter;
+import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +43,11 @@ import ro.isdc.wro.util.Function;
 
 /**
  * Default implementation of {@link WildcardStreamLocator}.
+ * <p/>
+ * The files matching a wildcard are searched using {@link Files#walkFileTree(Path, Set, int, java.nio.file.FileVisitor)}
+ * when available (java 7 or later). The result is cached for each folder & wildcard and reused as long as none of the
+ * searched folders is modified. The content of the matched files is not loaded in memory, each file being opened only
+ * when the returned stream reaches it.
  *
  * @author Alex Objelean
  * @created May 8, 2010
@@ -50,6 +67,7 @@ public class DefaultWildcardStreamLocator
    * following characters: [?*].
    */
   private static final String WILDCARD_REGEX = "^(?:(?!http))(.)*[\\*\\?]+(.)*";
+  private static final Pattern WILDCARD_PATTERN = Pattern.compile(WILDCARD_REGEX);
   /**
    * Regex used to identify the query path from the provided path.
    */
@@ -62,6 +80,68 @@ public class DefaultWildcardStreamLocator
       return o1.getPath().compareTo(o2.getPath());
     }
   };
+  /**
+   * The folders modified more recently than this number of milliseconds are not trusted, since a change performed in
+   * the same time unit (a second on some file systems) as the search would not be detected.
+   */
+  private static final long TIMESTAMP_TOLERANCE = 2000;
+  private static final boolean NIO_AVAILABLE = isNioAvailable();
+  /**
+   * The result of the previous searches, the key being the folder & the wildcard.
+   */
+  private final ConcurrentMap<String, WildcardExpansion> expansionCache = new ConcurrentHashMap<String, WildcardExpansion>();
+
+  /**
+   * The files matching a wildcard and the last modification time of the folders searched to find them.
+   */
+  private static final class WildcardExpansion {
+    private final List<File> files;
+    private final List<File> folders;
+    private final long[] lastModified;
+
+    WildcardExpansion(final Collection<File> files, final List<File> folders) {
+      this.files = Collections.unmodifiableList(new ArrayList<File>(files));
+      this.folders = folders;
+      this.lastModified = new long[folders.size()];
+      for (int i = 0; i < lastModified.length; i++) {
+        lastModified[i] = folders.get(i).lastModified();
+      }
+    }
+
+    /**
+     * @return true if the result can be reused by the next searches.
+     */
+    boolean isCacheable() {
+      final long limit = System.currentTimeMillis() - TIMESTAMP_TOLERANCE;
+      for (final long time : lastModified) {
+        if (time == 0 || time > limit) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @return true if none of the searched folders was modified (a file being added, removed or renamed).
+     */
+    boolean isValid() {
+      for (int i = 0; i < lastModified.length; i++) {
+        if (folders.get(i).lastModified() != lastModified[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static boolean isNioAvailable() {
+    try {
+      Class.forName("java.nio.file.Files");
+      return true;
+    } catch (final ClassNotFoundException e) {
+      return false;
+    }
+  }
 
   /**
    * Removes the query path from the path which potentially could be treated as a path containing wildcard special
@@ -83,7 +163,7 @@ public class DefaultWildcardStreamLocator
    * {@inheritDoc}
    */
   public boolean hasWildcard(final String uri) {
-    return uri.matches(WILDCARD_REGEX);
+    return WILDCARD_PATTERN.matcher(uri).matches();
   }
 
   /**
@@ -92,42 +172,38 @@ public class DefaultWildcardStreamLocator
   public InputStream locateStream(final String uri, final File folder)
       throws IOException {
     final Collection<File> files = findMatchedFiles(new WildcardContext(uri, folder));
-    final ByteArrayOutputStream out = new ByteArrayOutputStream();
-    for (final File file : files) {
-      if (file.isFile()) {
-        final InputStream is = new FileInputStream(file);
-        IOUtils.copy(is, out);
-        is.close();
-      } else {
-        LOG.debug("Ignoring folder: " + file);
+    final Iterator<File> iterator = files.iterator();
+    return new BufferedInputStream(new SequenceInputStream(new Enumeration<InputStream>() {
+      private File next = findNext();
+
+      private File findNext() {
+        while (iterator.hasNext()) {
+          final File file = iterator.next();
+          if (file.isFile()) {
+            return file;
+          }
+          LOG.debug("Ignoring folder: {}", file);
+        }
+        return null;
       }
-    }
-    return new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
-  }
 
+      public boolean hasMoreElements() {
+        return next != null;
+      }
 
-  /**
-   * Creates a {@link IOFileFilter} which collects found files into a collection and also populates a map with found
-   * resources and corresponding files.
-   *
-   * @param wildcardContext
-   * @param allFiles - where all found files and folders are collected.
-   */
-  @SuppressWarnings("serial")
-  private IOFileFilter createWildcardCollectorFileFilter(final WildcardContext wildcardContext, final Collection<File> allFiles) {
-    notNull(wildcardContext);
-    notNull(allFiles);
-    return new WildcardFileFilter(wildcardContext.getWildcard()) {
-      @Override
-      public boolean accept(final File file) {
-        final boolean accept = super.accept(file);
-        if (accept) {
-          LOG.debug("\tfound resource: {}", file.getPath());
-          allFiles.add(file);
-        }
-        return accept;
+      public InputStream nextElement() {
+        final File file = next;
+        next = findNext();
+        // opened only when read, in order to have a single file opened at a time
+        return new LazyInputStream() {
+          @Override
+          protected InputStream open()
+              throws IOException {
+            return new FileInputStream(file);
+          }
+        };
       }
-    };
+    }));
   }
 
   /**
@@ -136,15 +212,112 @@ public class DefaultWildcardStreamLocator
   private Collection<File> findMatchedFiles(final WildcardContext wildcardContext)
       throws IOException {
     validate(wildcardContext);
+    final String key = wildcardContext.getFolder().getAbsolutePath() + File.pathSeparator
+        + wildcardContext.getWildcard();
+    WildcardExpansion expansion = expansionCache.get(key);
+    if (expansion == null || !expansion.isValid()) {
+      expansion = expand(wildcardContext);
+      if (expansion.isCacheable()) {
+        expansionCache.put(key, expansion);
+      } else {
+        expansionCache.remove(key);
+      }
+    } else {
+      LOG.debug("reusing wildcard resources: {}", expansion.files);
+    }
+    // a copy, since the expander handler should not be able to alter the cached result
+    triggerWildcardExpander(new ArrayList<File>(expansion.files), wildcardContext);
+    return expansion.files;
+  }
 
+  /**
+   * Searches the files & folders whose name matches the wildcard. The subfolders are searched only if the wildcard is
+   * recursive.
+   */
+  private WildcardExpansion expand(final WildcardContext wildcardContext)
+      throws IOException {
+    final String wildcard = wildcardContext.getWildcard();
+    final boolean recursive = wildcard.contains(RECURSIVE_WILDCARD);
     // Holds a set of all files (also folders, not only resources). This is useful for wildcard expander processing.
     final Set<File> allFiles = new TreeSet<File>(ALPHABETIC_FILE_COMPARATOR);
-    final IOFileFilter fileFilter = createWildcardCollectorFileFilter(wildcardContext, allFiles);
-    FileUtils.listFiles(wildcardContext.getFolder(), fileFilter, getFolderFilter(wildcardContext.getWildcard()));
+    final List<File> folders = new ArrayList<File>();
+    if (NIO_AVAILABLE) {
+      FileTreeWalker.walk(wildcardContext.getFolder(), wildcard, recursive, allFiles, folders);
+    } else {
+      walk(wildcardContext.getFolder(), wildcard, recursive, allFiles, folders);
+    }
+    return new WildcardExpansion(allFiles, folders);
+  }
 
-    triggerWildcardExpander(allFiles, wildcardContext);
+  /**
+   * Searches the files using {@link File#listFiles()}, used when java 7 is not available.
+   */
+  private void walk(final File folder, final String wildcard, final boolean recursive, final Collection<File> allFiles,
+      final List<File> folders) {
+    folders.add(folder);
+    final File[] children = folder.listFiles();
+    if (children == null) {
+      return;
+    }
+    for (final File child : children) {
+      if (FilenameUtils.wildcardMatch(child.getName(), wildcard)) {
+        LOG.debug("\tfound resource: {}", child.getPath());
+        allFiles.add(child);
+      }
+      if (recursive && child.isDirectory()) {
+        walk(child, wildcard, recursive, allFiles, folders);
+      }
+    }
+  }
 
-    return allFiles;
+  /**
+   * Searches the files using {@link Files#walkFileTree(Path, Set, int, java.nio.file.FileVisitor)} and a glob
+   * {@link PathMatcher} applied on the file names. This class is loaded only if java 7 is available.
+   */
+  private static final class FileTreeWalker {
+    private static final Pattern GLOB_SPECIAL_CHARS = Pattern.compile("([\\\\\\[\\]\\{\\}])");
+
+    static void walk(final File folder, final String wildcard, final boolean recursive,
+        final Collection<File> allFiles, final List<File> folders)
+        throws IOException {
+      final PathMatcher matcher = FileSystems.getDefault().getPathMatcher(
+          "glob:" + GLOB_SPECIAL_CHARS.matcher(wildcard).replaceAll("\\\\$1"));
+      final Path root = folder.toPath();
+      final int maxDepth = recursive ? Integer.MAX_VALUE : 1;
+      Files.walkFileTree(root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), maxDepth, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+          folders.add(dir.toFile());
+          if (!dir.equals(root)) {
+            accept(dir);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+          accept(file);
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(final Path file, final IOException e) {
+          if (e instanceof FileSystemLoopException) {
+            LOG.debug("Ignoring file system loop: {}", file);
+          } else {
+            LOG.debug("Cannot visit: {}", file, e);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        private void accept(final Path path) {
+          if (matcher.matches(path.getFileName())) {
+            LOG.debug("\tfound resource: {}", path);
+            allFiles.add(path.toFile());
+          }
+        }
+      });
+    }
   }
 
 
@@ -203,16 +376,6 @@ public class DefaultWildcardStreamLocator
     }
   }
 
-  /**
-   * @param wildcard
-   *          to use to determine if the folder filter should be recursive or not.
-   * @return filter to be used for folders.
-   */
-  private IOFileFilter getFolderFilter(final String wildcard) {
-    final boolean recursive = wildcard.contains(RECURSIVE_WILDCARD);
-    return recursive ? TrueFileFilter.INSTANCE : FalseFileFilter.INSTANCE;
-  }
-
   /**
    * {@inheritDoc}
    */
@@ -1,20 +1,25 @@
 package ro.isdc.wro.model.resource.locator.wildcard;
 
 import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
@@ -34,6 +39,12 @@ import ro.isdc.wro.model.resource.locator.ClasspathUriLocator;
  * <p>
  * For the moment this {@link WildcardStreamLocator} only supports a single wildcard.
  * </p>
+ * <p>
+ * The opened JAR files and the index of their entries are shared by all instances and reused until the JAR file is
+ * modified, thus a lookup inspects only the entries located in the folder of the wildcard. A replaced JAR file is
+ * closed as soon as the streams reading its entries are closed. Use {@link #clearIndexes()} to close all the JAR files
+ * when they are no longer needed.
+ * </p>
  *
  * @author Matias Mirabelli <matias.mirabelli@globant.com>
  * @since 1.3.6
@@ -46,6 +57,128 @@ public class JarWildcardStreamLocator
    * supports .jar extension.
    */
   private static final List<String> SUPPORTED_EXTENSIONS = Arrays.asList(".jar");
+  /**
+   * The index of each JAR file, the key being the absolute path of the JAR.
+   */
+  private static final ConcurrentMap<String, JarIndex> INDEXES = new ConcurrentHashMap<String, JarIndex>();
+
+  /**
+   * An opened JAR file along with its entries, sorted by name in order to find the entries of a folder (and its
+   * subfolders) with a binary search. The JAR file is closed once the index is retired and no longer used.
+   */
+  private static final class JarIndex {
+    private final JarFile jarFile;
+    private final long lastModified;
+    private final long length;
+    /**
+     * The number of lookups (and streams) using the JAR file.
+     */
+    private int users;
+    private boolean retired;
+    /**
+     * The entries in their original order.
+     */
+    private final JarEntry[] entries;
+    private final String[] sortedNames;
+    /**
+     * The original position of each sorted name.
+     */
+    private final int[] sortedPositions;
+
+    JarIndex(final JarFile jarFile, final long lastModified, final long length) {
+      this.jarFile = jarFile;
+      this.lastModified = lastModified;
+      this.length = length;
+      final List<JarEntry> entryList = Collections.list(jarFile.entries());
+      entries = entryList.toArray(new JarEntry[entryList.size()]);
+      final Integer[] order = new Integer[entries.length];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+        public int compare(final Integer o1, final Integer o2) {
+          return entries[o1].getName().compareTo(entries[o2].getName());
+        }
+      });
+      sortedNames = new String[entries.length];
+      sortedPositions = new int[entries.length];
+      for (int i = 0; i < order.length; i++) {
+        sortedNames[i] = entries[order[i]].getName();
+        sortedPositions[i] = order[i];
+      }
+    }
+
+    boolean isValid(final File file) {
+      return file.lastModified() == lastModified && file.length() == length;
+    }
+
+    /**
+     * @return false if the index is retired, in which case it cannot be used anymore.
+     */
+    synchronized boolean acquire() {
+      if (retired) {
+        return false;
+      }
+      users++;
+      return true;
+    }
+
+    synchronized void release() {
+      users--;
+      closeIfUnused();
+    }
+
+    /**
+     * Prevents new usages of the index. The JAR file is closed when the current usages are released.
+     */
+    synchronized void retire() {
+      retired = true;
+      closeIfUnused();
+    }
+
+    private void closeIfUnused() {
+      if (retired && users == 0) {
+        try {
+          jarFile.close();
+        } catch (final IOException e) {
+          LOG.debug("[FAIL] closing jar: {}", jarFile.getName(), e);
+        }
+      }
+    }
+
+    /**
+     * @return the entries whose name starts with the provided prefix, in their original order.
+     */
+    List<JarEntry> getEntries(final String prefix) {
+      final int found = Arrays.binarySearch(sortedNames, prefix);
+      int end = found >= 0 ? found : -(found + 1);
+      final int start = end;
+      while (end < sortedNames.length && sortedNames[end].startsWith(prefix)) {
+        end++;
+      }
+      final int[] positions = new int[end - start];
+      System.arraycopy(sortedPositions, start, positions, 0, positions.length);
+      Arrays.sort(positions);
+      final List<JarEntry> result = new ArrayList<JarEntry>(positions.length);
+      for (final int position : positions) {
+        result.add(entries[position]);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Closes the JAR files indexed by all instances of this locator. The JAR files still being read are closed when their
+   * streams are closed. Should be invoked when the application is stopped, in order to release the file handles (and
+   * the locks on some platforms).
+   */
+  public static void clearIndexes() {
+    for (final Iterator<JarIndex> iterator = INDEXES.values().iterator(); iterator.hasNext();) {
+      final JarIndex index = iterator.next();
+      iterator.remove();
+      index.retire();
+    }
+  }
 
   /**
    * Finds the specified URI pattern inside a JAR file. If the specified file isn't a valid JAR default strategy will be
@@ -113,6 +246,45 @@ public class JarWildcardStreamLocator
     return new JarFile(jarFile);
   }
 
+  /**
+   * @return the acquired index of the JAR file, reusing the one created previously if the JAR file didn't change since
+   *         then. The caller must release the index.
+   */
+  private JarIndex acquireIndex(final File jarPath)
+      throws IOException {
+    final long lastModified = jarPath.lastModified();
+    if (lastModified == 0) {
+      // the changes cannot be detected, thus the index is not cached and its JAR file is closed once released.
+      final JarIndex index = new JarIndex(open(jarPath), lastModified, 0);
+      index.acquire();
+      index.retire();
+      return index;
+    }
+    final String key = jarPath.getAbsolutePath();
+    while (true) {
+      JarIndex index = INDEXES.get(key);
+      if (index == null || !index.isValid(jarPath)) {
+        LOG.debug("Indexing jar: {}", jarPath);
+        final JarIndex newIndex = new JarIndex(open(jarPath), lastModified, jarPath.length());
+        final boolean stored = index == null ? INDEXES.putIfAbsent(key, newIndex) == null : INDEXES.replace(key, index,
+            newIndex);
+        if (!stored) {
+          // a concurrent lookup has indexed the JAR file in the meantime
+          newIndex.retire();
+          continue;
+        }
+        if (index != null) {
+          // closed once the concurrent lookups release it
+          index.retire();
+        }
+        index = newIndex;
+      }
+      if (index.acquire()) {
+        return index;
+      }
+    }
+  }
+
   /**
    * Finds the specified wildcard-URI resource(s) inside a JAR file and returns an {@link InputStream} to read a bundle
    * of matching resources.
@@ -135,29 +307,90 @@ public class JarWildcardStreamLocator
       classPath = StringUtils.substringAfter(classPath, ClasspathUriLocator.PREFIX);
     }
 
-    final JarFile file = open(jarPath);
-    final List<JarEntry> jarEntryList = Collections.list(file.entries());
-    final List<JarEntry> filteredJarEntryList = new ArrayList<JarEntry>();
-    final List<File> allFiles = new ArrayList<File>();
-    for (final JarEntry entry : jarEntryList) {
-      final String entryName = entry.getName();
-      //ignore the parent folder itself and accept only child resources
-      final boolean isSupportedEntry = entryName.startsWith(classPath) && !entryName.equals(classPath)
-        && accept(entryName, wildcardContext.getWildcard());
-      if (isSupportedEntry) {
-        allFiles.add(new File(entryName));
-        LOG.debug("\tfound jar entry: {}", entryName);
-        filteredJarEntryList.add(entry);
+    final JarIndex index = acquireIndex(jarPath);
+    boolean released = true;
+    try {
+      final List<JarEntry> jarEntryList = index.getEntries(classPath);
+      final List<JarEntry> filteredJarEntryList = new ArrayList<JarEntry>();
+      final List<File> allFiles = new ArrayList<File>();
+      for (final JarEntry entry : jarEntryList) {
+        final String entryName = entry.getName();
+        //ignore the parent folder itself and accept only child resources
+        final boolean isSupportedEntry = !entryName.equals(classPath)
+          && accept(entryName, wildcardContext.getWildcard());
+        if (isSupportedEntry) {
+          allFiles.add(new File(entryName));
+          LOG.debug("\tfound jar entry: {}", entryName);
+          filteredJarEntryList.add(entry);
+        }
+      }
+      triggerWildcardExpander(allFiles, wildcardContext);
+      final InputStream stream = newEntriesStream(index, filteredJarEntryList);
+      released = false;
+      return stream;
+    } finally {
+      if (released) {
+        index.release();
       }
     }
-    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  }
 
-    triggerWildcardExpander(allFiles, wildcardContext);
-    for (final JarEntry entry : filteredJarEntryList) {
-      final InputStream is = file.getInputStream(entry);
-      IOUtils.copy(is, out);
-      is.close();
-    }
-    return new BufferedInputStream(new ByteArrayInputStream(out.toByteArray()));
+  /**
+   * @return the stream merging the content of the entries, each entry being opened only when the stream reaches it.
+   *         The index is released when the stream is closed or fully read.
+   */
+  private InputStream newEntriesStream(final JarIndex index, final List<JarEntry> entries) {
+    final Iterator<JarEntry> iterator = entries.iterator();
+    final InputStream stream = new SequenceInputStream(new Enumeration<InputStream>() {
+      public boolean hasMoreElements() {
+        return iterator.hasNext();
+      }
+
+      public InputStream nextElement() {
+        final JarEntry entry = iterator.next();
+        return new LazyInputStream() {
+          @Override
+          protected InputStream open()
+              throws IOException {
+            return index.jarFile.getInputStream(entry);
+          }
+        };
+      }
+    });
+    return new BufferedInputStream(new FilterInputStream(stream) {
+      private final AtomicBoolean released = new AtomicBoolean();
+
+      @Override
+      public int read()
+          throws IOException {
+        return releaseAtEnd(super.read());
+      }
+
+      @Override
+      public int read(final byte[] b, final int off, final int len)
+          throws IOException {
+        return releaseAtEnd(super.read(b, off, len));
+      }
+
+      private int releaseAtEnd(final int result)
+          throws IOException {
+        if (result < 0) {
+          close();
+        }
+        return result;
+      }
+
+      @Override
+      public void close()
+          throws IOException {
+        try {
+          super.close();
+        } finally {
+          if (released.compareAndSet(false, true)) {
+            index.release();
+          }
+        }
+      }
+    });
   }
 }
@@ -0,0 +1,62 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.locator.wildcard;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Opens the decorated stream when it is read for the first time. Useful for merging the content of multiple resources
+ * with a single resource opened at a time, a resource which cannot be opened being reported as an {@link IOException}
+ * thrown by the stream.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+abstract class LazyInputStream
+    extends InputStream {
+  private InputStream stream;
+
+  /**
+   * @return the stream to read.
+   */
+  protected abstract InputStream open()
+      throws IOException;
+
+  private InputStream getStream()
+      throws IOException {
+    if (stream == null) {
+      stream = open();
+    }
+    return stream;
+  }
+
+  @Override
+  public int read()
+      throws IOException {
+    return getStream().read();
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len)
+      throws IOException {
+    return getStream().read(b, off, len);
+  }
+
+  @Override
+  public int available()
+      throws IOException {
+    return stream == null ? 0 : stream.available();
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+}
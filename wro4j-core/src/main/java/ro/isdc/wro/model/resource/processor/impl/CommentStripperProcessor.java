@@ -7,16 +7,17 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 
-import org.apache.commons.io.IOUtils;
-
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
-import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.model.resource.processor.support.CommentStripper;
 
 
 /**
  * CommentStripperProcessor. Removes both type of comments. It uses both: multi line & single line comment strippers.
+ * The content is processed as a stream by {@link CommentStripper}, which preserves the comment delimiters found inside
+ * string & regular expression literals.
  *
  * @author Alex Objelean
  * @created Created on Nov 28, 2008
@@ -29,13 +30,8 @@ public class CommentStripperProcessor
   public void process(final Resource resource, final Reader reader, final Writer writer)
     throws IOException {
     try {
-      final String content = IOUtils.toString(reader);
-      // apply single line comment stripper processor first
-      String result = SingleLineCommentStripperProcessor.PATTERN.matcher(content).replaceAll("");
-      // apply multi line comment stripper processor after
-      result = MultiLineCommentStripperProcessor.PATTERN.matcher(result).replaceAll("");
-      result = WroUtil.EMTPY_LINE_PATTERN.matcher(result).replaceAll("");
-      writer.write(result);
+      final boolean css = resource != null && resource.getType() == ResourceType.CSS;
+      new CommentStripper(reader).setCss(css).strip(writer);
     } finally {
       reader.close();
       writer.close();
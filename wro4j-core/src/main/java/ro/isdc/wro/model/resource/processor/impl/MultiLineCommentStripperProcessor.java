@@ -8,16 +8,17 @@ import java.io.Reader;
 import java.io.Writer;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
-
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.support.CommentStripper;
 import ro.isdc.wro.util.WroUtil;
 
 
 /**
- * Removes multi line comments from processed resource.
+ * Removes multi line comments from processed resource. The content is processed as a stream by
+ * {@link CommentStripper}, which preserves the comment delimiters found inside string & regular expression literals.
  *
  * @author Alex Objelean
  * @created Created on Nov 28, 2008
@@ -26,7 +27,10 @@ public class MultiLineCommentStripperProcessor
   implements ResourcePreProcessor, ResourcePostProcessor {
   /**
    * Pattern containing a regex matching multiline comments & empty new lines.
+   *
+   * @deprecated not used anymore, the comments are removed by {@link CommentStripper}.
    */
+  @Deprecated
   public static final Pattern PATTERN = Pattern.compile(WroUtil.loadRegexpWithKey("comment.multiline"));
   public static final String ALIAS = "multilineStripper";
 
@@ -37,10 +41,8 @@ public class MultiLineCommentStripperProcessor
   public void process(final Resource resource, final Reader source, final Writer destination)
     throws IOException {
     try {
-      final String content = IOUtils.toString(source);
-      String result = PATTERN.matcher(content).replaceAll("");
-      result = WroUtil.EMTPY_LINE_PATTERN.matcher(result).replaceAll("");
-      destination.write(result);
+      final boolean css = resource != null && resource.getType() == ResourceType.CSS;
+      new CommentStripper(source).setCss(css).setStripSingleLine(false).strip(destination);
     } finally {
       source.close();
       destination.close();
@@ -8,17 +8,18 @@ import java.io.Reader;
 import java.io.Writer;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
-
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.support.CommentStripper;
 import ro.isdc.wro.util.WroUtil;
 
 
 /**
  * SingleLineCommentStripperProcessor can be both: preProcessor & postProcessor. Remove single line comments from
- * processed resource. This processor exist only for the sake of proof of concept.
+ * processed resource. The content is processed as a stream by {@link CommentStripper}, which preserves the comment
+ * delimiters found inside string & regular expression literals.
  *
  * @author Alex Objelean
  * @created Created on Nov 28, 2008
@@ -27,7 +28,10 @@ public class SingleLineCommentStripperProcessor
   implements ResourcePreProcessor, ResourcePostProcessor {
   /**
    * Pattern containing a regex matching singleline comments & preceding empty spaces & tabs.
+   *
+   * @deprecated not used anymore, the comments are removed by {@link CommentStripper}.
    */
+  @Deprecated
   public static final Pattern PATTERN = Pattern.compile(WroUtil.loadRegexpWithKey("comment.singleline"),
       Pattern.MULTILINE);
   public static final String ALIAS = "singlelineStripper";
@@ -38,10 +42,8 @@ public class SingleLineCommentStripperProcessor
   public void process(final Resource resource, final Reader reader, final Writer writer)
     throws IOException {
     try {
-      final String content = IOUtils.toString(reader);
-      String result = PATTERN.matcher(content).replaceAll("");
-      result = WroUtil.EMTPY_LINE_PATTERN.matcher(result).replaceAll("");
-      writer.write(result);
+      final boolean css = resource != null && resource.getType() == ResourceType.CSS;
+      new CommentStripper(reader).setCss(css).setStripMultiLine(false).strip(writer);
     } finally {
       reader.close();
       writer.close();
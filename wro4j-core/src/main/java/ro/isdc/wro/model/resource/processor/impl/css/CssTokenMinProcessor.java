@@ -0,0 +1,68 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.processor.impl.css;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.model.group.processor.Minimize;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.support.CssTokenMinifier;
+
+
+/**
+ * A css minifier using the single pass {@link CssTokenMinifier}. It produces a result similar to
+ * {@link CssCompressorProcessor}, without applying a cascade of regular expressions on the entire stylesheet. This
+ * processor can be used as both: PreProcessor & postProcessor.<br/>
+ * This processor is annotated with {@link Minimize} because it performs minimization.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+@Minimize
+@SupportedResourceType(ResourceType.CSS)
+public class CssTokenMinProcessor
+    implements ResourcePreProcessor, ResourcePostProcessor {
+  private static final Logger LOG = LoggerFactory.getLogger(CssTokenMinProcessor.class);
+  public static final String ALIAS = "cssTokenMin";
+  private final CssTokenMinifier minifier = new CssTokenMinifier();
+
+  /**
+   * {@inheritDoc}
+   */
+  public void process(final Reader reader, final Writer writer)
+      throws IOException {
+    process(null, reader, writer);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void process(final Resource resource, final Reader reader, final Writer writer)
+      throws IOException {
+    try {
+      minifier.minify(reader, writer);
+      writer.flush();
+    } catch (final Exception e) {
+      final String resourceUri = resource == null ? StringUtils.EMPTY : "[" + resource.getUri() + "]";
+      final String message = "Exception while applying " + getClass().getSimpleName() + " processor on the "
+          + resourceUri + " resource";
+      LOG.error(message, e);
+      throw new IOException(message);
+    } finally {
+      reader.close();
+      writer.close();
+    }
+  }
+}
@@ -5,16 +5,16 @@ import java.io.Reader;
 import java.io.Writer;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
-
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.support.ConsoleStripper;
 import ro.isdc.wro.util.WroUtil;
 
 /**
- * A preProcessor, responsible for removing console.log(..) and console.debug(..) statements.
+ * A preProcessor, responsible for removing console.log(..) and console.debug(..) statements. The script is processed
+ * as a stream by {@link ConsoleStripper}.
  *
  * @author Ivar Conradi Østhus
  */
@@ -24,7 +24,10 @@ public class ConsoleStripperProcessor
   public static final String ALIAS = "consoleStripper";
   /**
    * Matches console statements
+   *
+   * @deprecated not used anymore, the statements are removed by {@link ConsoleStripper}.
    */
+  @Deprecated
   public static final Pattern PATTERN = Pattern.compile(WroUtil.loadRegexpWithKey("javascript.consoleStripper"));
 
   /**
@@ -33,9 +36,7 @@ public class ConsoleStripperProcessor
   public void process(final Resource resource, final Reader reader, final Writer writer) 
     throws IOException {
     try {
-      final String content = IOUtils.toString(reader);
-      String result = ConsoleStripperProcessor.PATTERN.matcher(content).replaceAll("");
-      writer.write(result);
+      new ConsoleStripper(reader).strip(writer);
     } finally {
       reader.close();
       writer.close();
@@ -2,8 +2,6 @@ package ro.isdc.wro.model.resource.processor.support;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -11,6 +9,7 @@ import java.util.List;
 
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.util.io.ProcessingBuffer;
 
 
 /**
@@ -42,13 +41,13 @@ public class ChainedProcessor
    */
   public void process(final Resource resource, final Reader reader, final Writer writer)
       throws IOException {
+    final ProcessingBuffer buffer = new ProcessingBuffer();
     Reader tempReader = reader;
-    Writer tempWriter = new StringWriter();
     for (final ResourcePreProcessor processor : processors) {
-      tempWriter = new StringWriter();
-      processor.process(resource, tempReader, tempWriter);
-      tempReader = new StringReader(tempWriter.toString());
+      processor.process(resource, tempReader, buffer.getWriter());
+      buffer.flip();
+      tempReader = buffer.getReader();
     }
-    writer.write(tempWriter.toString());
+    buffer.writeTo(writer);
   }
 }
\ No newline at end of file
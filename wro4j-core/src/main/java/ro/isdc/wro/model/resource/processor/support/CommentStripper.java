@@ -0,0 +1,165 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+
+/**
+ * Removes the comments of a script or stylesheet while it is read, without loading the entire content in memory. The
+ * string, template and regular expression literals are recognized, thus the comment delimiters they contain are
+ * preserved. The whitespaces preceding a removed comment and the lines left empty are removed as well. Stylesheets do
+ * not have single line comments nor regular expressions, use {@link #setCss(boolean)} to process them accordingly.
+ * <p/>
+ * Usage: <code>new CommentStripper(reader).setStripSingleLine(false).strip(writer);</code>
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class CommentStripper
+    extends JsStreamScanner {
+  private boolean stripSingleLine = true;
+  private boolean stripMultiLine = true;
+  private boolean css = false;
+  private Writer writer;
+  /**
+   * The whitespaces of the current line which are not written yet, since they are dropped if followed by a comment or
+   * if the line is empty.
+   */
+  private final StringBuilder pendingWhitespace = new StringBuilder();
+  private boolean lineHasContent = false;
+  /**
+   * Set when a comment was removed between two characters, which could form a single token without it.
+   */
+  private boolean separatorRequired = false;
+  private int lastWritten = -1;
+
+  public CommentStripper(final Reader reader) {
+    super(reader);
+  }
+
+  /**
+   * @param stripSingleLine
+   *          flag for removing the single line (//) comments.
+   */
+  public CommentStripper setStripSingleLine(final boolean stripSingleLine) {
+    this.stripSingleLine = stripSingleLine;
+    return this;
+  }
+
+  /**
+   * @param stripMultiLine
+   *          flag for removing the multi line comments.
+   */
+  public CommentStripper setStripMultiLine(final boolean stripMultiLine) {
+    this.stripMultiLine = stripMultiLine;
+    return this;
+  }
+
+  /**
+   * @param css
+   *          true if the processed content is a stylesheet.
+   */
+  public CommentStripper setCss(final boolean css) {
+    this.css = css;
+    return this;
+  }
+
+  /**
+   * Writes the content without comments. The reader is consumed, but none of the streams is closed.
+   */
+  public void strip(final Writer writer)
+      throws IOException {
+    this.writer = writer;
+    int c;
+    while ((c = read()) >= 0) {
+      if (c == '\n') {
+        newLine();
+      } else if (isWhitespace(c)) {
+        pendingWhitespace.append((char) c);
+      } else if (c == '/' && peek() == '*') {
+        read();
+        multiLineComment();
+      } else if (c == '/' && !css && peek() == '/') {
+        read();
+        singleLineComment();
+      } else if (c == '"' || c == '\'' || c == '`' && !css) {
+        beforeContent(c);
+        copyString(c, writer);
+        lastWritten = c;
+      } else if (c == '/' && !css && isRegexAllowed()) {
+        beforeContent(c);
+        copyRegex(writer);
+        lastWritten = '/';
+      } else if (isIdentifierPart(c)) {
+        beforeContent(c);
+        final String word = readWord(c);
+        writer.write(word);
+        lastWritten = word.charAt(word.length() - 1);
+      } else {
+        beforeContent(c);
+        writer.write(c);
+        lastWritten = c;
+        onPunctuator(c);
+      }
+    }
+    if (lineHasContent) {
+      writer.append(pendingWhitespace);
+    }
+    writer.flush();
+  }
+
+  private void newLine()
+      throws IOException {
+    if (lineHasContent) {
+      writer.append(pendingWhitespace).append('\n');
+      lastWritten = '\n';
+    }
+    pendingWhitespace.setLength(0);
+    lineHasContent = false;
+    separatorRequired = false;
+  }
+
+  /**
+   * Writes the whitespaces preceding a content character.
+   */
+  private void beforeContent(final int c)
+      throws IOException {
+    if (separatorRequired && pendingWhitespace.length() == 0 && isIdentifierPart(lastWritten) && isIdentifierPart(c)) {
+      writer.write(' ');
+    }
+    writer.append(pendingWhitespace);
+    pendingWhitespace.setLength(0);
+    separatorRequired = false;
+    lineHasContent = true;
+  }
+
+  private void multiLineComment()
+      throws IOException {
+    if (stripMultiLine) {
+      pendingWhitespace.setLength(0);
+      readMultiLineComment(null);
+      separatorRequired = true;
+    } else {
+      beforeContent('/');
+      readMultiLineComment(writer);
+      lastWritten = '/';
+    }
+  }
+
+  private void singleLineComment()
+      throws IOException {
+    if (stripSingleLine) {
+      pendingWhitespace.setLength(0);
+      readSingleLineComment(null);
+    } else {
+      beforeContent('/');
+      readSingleLineComment(writer);
+      lastWritten = '/';
+    }
+  }
+}
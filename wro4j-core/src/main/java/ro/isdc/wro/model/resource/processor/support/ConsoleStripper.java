@@ -0,0 +1,176 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+
+/**
+ * Removes the <code>console.log|debug|info|count(...);</code> statements (optionally prefixed with
+ * <code>window.</code>) of a script while it is read. The arguments of the call are scanned until the matching closing
+ * parenthesis, skipping the parenthesis of nested calls, strings, regular expressions and comments. Only the
+ * statement being inspected is buffered: if it turns out not to be a console statement (ex: missing semicolon), it is
+ * written as it is.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class ConsoleStripper
+    extends JsStreamScanner {
+  private static final String[] METHODS = {
+    "log", "debug", "info", "count"
+  };
+
+  public ConsoleStripper(final Reader reader) {
+    super(reader);
+  }
+
+  /**
+   * Writes the script without console statements. The reader is consumed, but none of the streams is closed.
+   */
+  public void strip(final Writer writer)
+      throws IOException {
+    int c;
+    while ((c = read()) >= 0) {
+      if (isWhitespace(c)) {
+        writer.write(c);
+      } else if (c == '/' && peek() == '*') {
+        read();
+        readMultiLineComment(writer);
+      } else if (c == '/' && peek() == '/') {
+        read();
+        readSingleLineComment(writer);
+      } else if (c == '"' || c == '\'' || c == '`') {
+        copyString(c, writer);
+      } else if (c == '/' && isRegexAllowed()) {
+        copyRegex(writer);
+      } else if (isIdentifierPart(c)) {
+        final boolean member = getLastSignificant() == '.';
+        final String word = readWord(c);
+        if (member || !(word.equals("console") || word.equals("window")) || !skipConsoleStatement(word)) {
+          writer.write(word);
+        }
+      } else {
+        writer.write(c);
+        onPunctuator(c);
+      }
+    }
+    writer.flush();
+  }
+
+  /**
+   * Reads the rest of the console statement starting with the provided word. If the statement is not a console
+   * statement, all the characters read after the word are pushed back.
+   *
+   * @return true if a console statement was skipped.
+   */
+  private boolean skipConsoleStatement(final String word)
+      throws IOException {
+    final Object state = saveState();
+    final StringBuilder statement = new StringBuilder();
+    if (isConsoleCall(word, statement) && skipArguments(statement) && skipSemicolon(statement)) {
+      onPunctuator(';');
+      return true;
+    }
+    unread(statement);
+    restoreState(state);
+    return false;
+  }
+
+  private boolean isConsoleCall(final String word, final StringBuilder statement)
+      throws IOException {
+    if (word.equals("window") && !(expect('.', statement) && "console".equals(readWord(statement)))) {
+      return false;
+    }
+    if (!expect('.', statement)) {
+      return false;
+    }
+    final String method = readWord(statement);
+    for (final String name : METHODS) {
+      if (name.equals(method)) {
+        return expect('(', statement);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads the arguments of the call, until the matching closing parenthesis.
+   */
+  private boolean skipArguments(final StringBuilder statement)
+      throws IOException {
+    int depth = 1;
+    int c;
+    while ((c = read()) >= 0) {
+      if (c == '/' && peek() == '*') {
+        read();
+        readMultiLineComment(statement);
+      } else if (c == '/' && peek() == '/') {
+        read();
+        readSingleLineComment(statement);
+      } else if (c == '"' || c == '\'' || c == '`') {
+        copyString(c, statement);
+      } else if (c == '/' && isRegexAllowed()) {
+        copyRegex(statement);
+      } else if (isIdentifierPart(c)) {
+        statement.append(readWord(c));
+      } else {
+        statement.append((char) c);
+        if (!isWhitespace(c)) {
+          onPunctuator(c);
+        }
+        if (c == '(') {
+          depth++;
+        } else if (c == ')' && --depth == 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads the semicolon ending the statement, optionally preceded by spaces.
+   */
+  private boolean skipSemicolon(final StringBuilder statement)
+      throws IOException {
+    int c;
+    while ((c = read()) == ' ' || c == '\t') {
+      statement.append((char) c);
+    }
+    unread(c);
+    return expect(';', statement);
+  }
+
+  private boolean expect(final char expected, final StringBuilder statement)
+      throws IOException {
+    final int c = read();
+    if (c == expected) {
+      statement.append(expected);
+      return true;
+    }
+    unread(c);
+    return false;
+  }
+
+  /**
+   * Reads an identifier into the statement.
+   *
+   * @return the identifier or an empty string if the next character does not start an identifier.
+   */
+  private String readWord(final StringBuilder statement)
+      throws IOException {
+    final int c = read();
+    if (!isIdentifierPart(c)) {
+      unread(c);
+      return "";
+    }
+    final String word = readWord(c);
+    statement.append(word);
+    return word;
+  }
+}
@@ -0,0 +1,472 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+import org.apache.commons.io.IOUtils;
+
+
+/**
+ * Minifies css in a single pass over the characters of the stylesheet, instead of applying a cascade of regular
+ * expressions. The scanner recognizes the tokens which must be preserved as they are (strings, unquoted urls, escaped
+ * characters and important comments), keeps track of the block being processed (style rule declarations or nested
+ * rules) and writes only the required characters:
+ * <ul>
+ * <li>comments are removed, except the important comments (<code>/*! ... *&#47;</code>) and the IE Mac hack.</li>
+ * <li>the whitespaces are collapsed and removed around the characters which don't need them (the space before a
+ * pseudo-class colon of a selector, the spaces around the operators of calc() and the space before an opening
+ * parenthesis are preserved).</li>
+ * <li>the last semicolon of each block, duplicate semicolons and empty rules are removed.</li>
+ * <li>the units of zero lengths, the leading zero and the trailing zeros of decimal numbers are removed and the
+ * #AABBCC colors are shortened to #ABC (only in declarations).</li>
+ * </ul>
+ * The minifier is stateless, thus thread-safe.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class CssTokenMinifier {
+  /**
+   * The at-rules whose blocks contain rules instead of declarations.
+   */
+  private static final String[] GROUPING_AT_RULES = {
+    "media", "supports", "document", "-moz-document", "container", "layer", "scope", "keyframes",
+    "-webkit-keyframes", "-moz-keyframes", "-o-keyframes", "-ms-keyframes"
+  };
+  /**
+   * The units of the lengths which can be omitted when the value is zero.
+   */
+  private static final String[] LENGTH_UNITS = {
+    "px", "em", "rem", "ex", "ch", "in", "cm", "mm", "pc", "pt", "vw", "vh", "vmin", "vmax"
+  };
+
+  /**
+   * Holds the state of a single minification.
+   */
+  private static class Scanner {
+    private final char[] in;
+    private final StringBuilder out;
+    private int pos = 0;
+    private boolean pendingSpace = false;
+    /**
+     * True when the current block contains declarations, false when it contains rules (stylesheet, @media...).
+     */
+    private boolean declarations = false;
+    private boolean[] declarationsStack = new boolean[16];
+    /**
+     * The position in the output where the statement owning each open block starts.
+     */
+    private int[] statementStack = new int[16];
+    private int depth = 0;
+    private int statementStart = 0;
+    private int parenthesisDepth = 0;
+    private boolean ieMacHack = false;
+
+    Scanner(final char[] in) {
+      this.in = in;
+      this.out = new StringBuilder(in.length / 2 + 16);
+    }
+
+    String minify() {
+      while (pos < in.length) {
+        final char c = in[pos];
+        if (c == '/' && peek(1) == '*') {
+          comment();
+        } else if (isWhitespace(c)) {
+          pendingSpace = true;
+          pos++;
+        } else if (c == '"' || c == '\'') {
+          writePendingSpace();
+          string(c);
+        } else if (c == '\\') {
+          writePendingSpace();
+          escape();
+        } else if (c == '{') {
+          openBlock();
+        } else if (c == '}') {
+          closeBlock();
+        } else if (c == ';') {
+          semicolon();
+        } else if (c == '(') {
+          openParenthesis();
+        } else if (c == ')') {
+          pendingSpace = false;
+          parenthesisDepth = Math.max(0, parenthesisDepth - 1);
+          append(c);
+        } else if (isSpaceInsensitive(c)) {
+          pendingSpace = false;
+          append(c);
+        } else if (declarations && c == '#' && last() != '=') {
+          writePendingSpace();
+          color();
+        } else if (declarations && isNumberStart(c) && isValueBoundary(last())) {
+          writePendingSpace();
+          number();
+        } else {
+          writePendingSpace();
+          append(c);
+        }
+      }
+      return out.toString();
+    }
+
+    private char peek(final int offset) {
+      return pos + offset < in.length ? in[pos + offset] : 0;
+    }
+
+    private char last() {
+      return out.length() > 0 ? out.charAt(out.length() - 1) : 0;
+    }
+
+    private void append(final char c) {
+      out.append(c);
+      pos++;
+    }
+
+    private boolean isWhitespace(final char c) {
+      return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    /**
+     * @return true if the whitespaces around the character can be removed.
+     */
+    private boolean isSpaceInsensitive(final char c) {
+      if (c == ',' || c == '!') {
+        return true;
+      }
+      return declarations ? c == ':' : c == '>' || c == '+' || c == '~';
+    }
+
+    /**
+     * Writes the space collected before the current token, unless it starts a statement or the previous character
+     * doesn't need it.
+     */
+    private void writePendingSpace() {
+      if (pendingSpace) {
+        pendingSpace = false;
+        final char last = last();
+        if (out.length() > statementStart && last != '{' && last != '}' && last != ';' && last != '(' && !isSpaceInsensitive(last)
+            && (declarations || last != ':')) {
+          out.append(' ');
+        }
+      }
+    }
+
+    private void comment() {
+      final int start = pos;
+      final boolean atStatementStart = statementStart == out.length();
+      int end = indexOf("*/", pos + 2);
+      end = end < 0 ? in.length : end + 2;
+      if (peek(2) == '!') {
+        writePendingSpace();
+        out.append(in, start, end - start);
+      } else if (end - start >= 5 && in[end - 3] == '\\' && in[end - 1] == '/') {
+        // the IE Mac hack: keep this comment and the following one
+        writePendingSpace();
+        out.append("/*\\*/");
+        ieMacHack = true;
+      } else if (ieMacHack) {
+        writePendingSpace();
+        out.append("/**/");
+        ieMacHack = false;
+      }
+      if (atStatementStart) {
+        // a preserved comment doesn't belong to the next statement
+        statementStart = out.length();
+      }
+      pos = end;
+    }
+
+    private int indexOf(final String token, final int from) {
+      final char first = token.charAt(0);
+      for (int i = from; i <= in.length - token.length(); i++) {
+        if (in[i] == first && in[i + 1] == token.charAt(1)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Copies a string literal, including its escaped characters. An unterminated string ends with the line.
+     */
+    private void string(final char quote) {
+      out.append(quote);
+      pos++;
+      while (pos < in.length) {
+        final char c = in[pos];
+        if (c == '\\' && pos + 1 < in.length) {
+          out.append(c).append(in[pos + 1]);
+          pos += 2;
+        } else if (c == quote) {
+          append(c);
+          return;
+        } else if (c == '\n' || c == '\r') {
+          return;
+        } else {
+          append(c);
+        }
+      }
+    }
+
+    private void escape() {
+      append('\\');
+      if (pos < in.length) {
+        append(in[pos]);
+      }
+    }
+
+    private void openBlock() {
+      pendingSpace = false;
+      if (depth == declarationsStack.length) {
+        final boolean[] declarationsCopy = new boolean[depth * 2];
+        System.arraycopy(declarationsStack, 0, declarationsCopy, 0, depth);
+        declarationsStack = declarationsCopy;
+        final int[] statementCopy = new int[depth * 2];
+        System.arraycopy(statementStack, 0, statementCopy, 0, depth);
+        statementStack = statementCopy;
+      }
+      declarationsStack[depth] = declarations;
+      statementStack[depth] = statementStart;
+      depth++;
+      declarations = declarations || !isGroupingAtRule();
+      parenthesisDepth = 0;
+      append('{');
+      statementStart = out.length();
+    }
+
+    /**
+     * @return true if the statement owning the block being opened is an at-rule containing rules.
+     */
+    private boolean isGroupingAtRule() {
+      if (statementStart >= out.length() || out.charAt(statementStart) != '@') {
+        return false;
+      }
+      int end = statementStart + 1;
+      while (end < out.length() && (Character.isLetterOrDigit(out.charAt(end)) || out.charAt(end) == '-')) {
+        end++;
+      }
+      final String name = out.substring(statementStart + 1, end).toLowerCase();
+      for (final String atRule : GROUPING_AT_RULES) {
+        if (atRule.equals(name)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void closeBlock() {
+      pendingSpace = false;
+      pos++;
+      if (last() == ';') {
+        out.setLength(out.length() - 1);
+      }
+      if (depth == 0) {
+        out.append('}');
+        statementStart = out.length();
+        return;
+      }
+      depth--;
+      declarations = declarationsStack[depth];
+      if (last() == '{') {
+        // empty rule
+        out.setLength(statementStack[depth]);
+      } else {
+        out.append('}');
+      }
+      statementStart = out.length();
+      parenthesisDepth = 0;
+    }
+
+    private void semicolon() {
+      pendingSpace = false;
+      pos++;
+      final char last = last();
+      if (last != 0 && last != ';' && last != '{') {
+        out.append(';');
+      }
+      statementStart = out.length();
+    }
+
+    private void openParenthesis() {
+      if (endsWithUrl()) {
+        pendingSpace = false;
+        url();
+      } else {
+        writePendingSpace();
+        parenthesisDepth++;
+        append('(');
+      }
+    }
+
+    private boolean endsWithUrl() {
+      final int length = out.length();
+      if (length < 3 || !"url".equalsIgnoreCase(out.substring(length - 3))) {
+        return false;
+      }
+      return length == 3 || !isIdentifierChar(out.charAt(length - 4));
+    }
+
+    /**
+     * Copies the content of an url() function. A quoted url is handled as a regular string.
+     */
+    private void url() {
+      append('(');
+      while (pos < in.length && isWhitespace(in[pos])) {
+        pos++;
+      }
+      if (pos < in.length && (in[pos] == '"' || in[pos] == '\'')) {
+        string(in[pos]);
+      } else {
+        final int start = out.length();
+        while (pos < in.length && in[pos] != ')') {
+          if (in[pos] == '\\' && pos + 1 < in.length) {
+            out.append(in[pos]);
+            pos++;
+          }
+          append(in[pos]);
+        }
+        int end = out.length();
+        while (end > start && isWhitespace(out.charAt(end - 1))) {
+          end--;
+        }
+        out.setLength(end);
+      }
+      while (pos < in.length && isWhitespace(in[pos])) {
+        pos++;
+      }
+      if (pos < in.length && in[pos] == ')') {
+        append(')');
+      }
+    }
+
+    private boolean isIdentifierChar(final char c) {
+      return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c > 127;
+    }
+
+    /**
+     * Shortens a #AABBCC color to #ABC.
+     */
+    private void color() {
+      append('#');
+      final int start = pos;
+      while (pos < in.length && isIdentifierChar(in[pos])) {
+        pos++;
+      }
+      final int length = pos - start;
+      if (length == 6 && isHex(start, length) && equalsIgnoreCase(in[start], in[start + 1])
+          && equalsIgnoreCase(in[start + 2], in[start + 3]) && equalsIgnoreCase(in[start + 4], in[start + 5])) {
+        out.append(in[start]).append(in[start + 2]).append(in[start + 4]);
+      } else {
+        out.append(in, start, length);
+      }
+    }
+
+    private boolean isHex(final int start, final int length) {
+      for (int i = start; i < start + length; i++) {
+        if (Character.digit(in[i], 16) < 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean equalsIgnoreCase(final char a, final char b) {
+      return Character.toLowerCase(a) == Character.toLowerCase(b);
+    }
+
+    private boolean isNumberStart(final char c) {
+      return isDigit(c) || c == '.' && isDigit(peek(1));
+    }
+
+    private boolean isDigit(final char c) {
+      return c >= '0' && c <= '9';
+    }
+
+    /**
+     * @return true if a number starting after the provided character is a standalone value.
+     */
+    private boolean isValueBoundary(final char c) {
+      return c == ':' || c == ',' || c == '(' || c == ' ' || c == '/' || pendingSpace;
+    }
+
+    /**
+     * Writes a number, removing the leading & trailing zeros of decimals and the unit of zero lengths.
+     */
+    private void number() {
+      final int integerStart = pos;
+      while (pos < in.length && isDigit(in[pos])) {
+        pos++;
+      }
+      final int integerEnd = pos;
+      int fractionStart = -1;
+      int fractionEnd = -1;
+      if (pos + 1 < in.length && in[pos] == '.' && isDigit(in[pos + 1])) {
+        fractionStart = ++pos;
+        while (pos < in.length && isDigit(in[pos])) {
+          pos++;
+        }
+        fractionEnd = pos;
+        // remove trailing zeros
+        while (fractionEnd > fractionStart && in[fractionEnd - 1] == '0') {
+          fractionEnd--;
+        }
+      }
+      final int unitStart = pos;
+      while (pos < in.length && (Character.isLetter(in[pos]) || in[pos] == '%')) {
+        pos++;
+      }
+      final String unit = new String(in, unitStart, pos - unitStart);
+      // remove leading zeros of the integer part
+      int integerFirst = integerStart;
+      while (integerFirst < integerEnd && in[integerFirst] == '0') {
+        integerFirst++;
+      }
+      final boolean hasFraction = fractionStart >= 0 && fractionEnd > fractionStart;
+      if (integerFirst == integerEnd && !hasFraction) {
+        // zero
+        out.append('0');
+        if (!(parenthesisDepth == 0 && isLengthUnit(unit))) {
+          out.append(unit);
+        }
+        return;
+      }
+      out.append(in, integerFirst, integerEnd - integerFirst);
+      if (hasFraction) {
+        out.append('.').append(in, fractionStart, fractionEnd - fractionStart);
+      }
+      out.append(unit);
+    }
+
+    private boolean isLengthUnit(final String unit) {
+      for (final String lengthUnit : LENGTH_UNITS) {
+        if (lengthUnit.equalsIgnoreCase(unit)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * @param css
+   *          the stylesheet to minify.
+   * @return the minified stylesheet.
+   */
+  public String minify(final String css) {
+    return new Scanner(css.toCharArray()).minify();
+  }
+
+  /**
+   * Minifies the stylesheet read from the reader and writes the result to the writer.
+   */
+  public void minify(final Reader reader, final Writer writer)
+      throws IOException {
+    writer.write(new Scanner(IOUtils.toCharArray(reader)).minify());
+  }
+}
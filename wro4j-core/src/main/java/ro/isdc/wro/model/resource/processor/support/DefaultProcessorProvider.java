@@ -14,6 +14,7 @@ import ro.isdc.wro.model.resource.processor.impl.css.CssCompressorProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssDataUriPreProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssImportPreProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssMinProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.CssTokenMinProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssUrlAuthorizationProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssUrlRewritingProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssVariablesProcessor;
@@ -70,6 +71,7 @@ public class DefaultProcessorProvider
     map.put(LessCssImportPreProcessor.ALIAS, new LessCssImportPreProcessor());
     map.put(CssVariablesProcessor.ALIAS, new CssVariablesProcessor());
     map.put(CssCompressorProcessor.ALIAS, new CssCompressorProcessor());
+    map.put(CssTokenMinProcessor.ALIAS, new CssTokenMinProcessor());
     map.put(SemicolonAppenderPreProcessor.ALIAS, new SemicolonAppenderPreProcessor());
     map.put(CssDataUriPreProcessor.ALIAS, new CssDataUriPreProcessor());
     map.put(FallbackCssDataUriProcessor.ALIAS, new FallbackCssDataUriProcessor());
@@ -5,8 +5,12 @@ package ro.isdc.wro.model.resource.processor.support;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.PushbackInputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 
 /**
  * JsMin.java.
@@ -17,6 +21,10 @@ import java.io.PushbackInputStream;
  * conditions as the jsmin.c on which it is based.
  * <p>
  * http://www.crockford.com/javascript/jsmin.html
+ * <p>
+ * The script is processed as characters, read in blocks from a {@link Reader} and written in blocks to a
+ * {@link Writer}, thus no charset conversion is involved and the non-ASCII characters are handled as identifier
+ * characters. This class is not thread-safe: create one instance for each script.
  *
  * @author Alex Objelean
  * @created Created on Dec 5, 2008
@@ -25,9 +33,32 @@ import java.io.PushbackInputStream;
 public class JSMin {
   private static final int EOF = -1;
 
-  private final PushbackInputStream in;
+  private static final int BUFFER_SIZE = 8192;
+
+  /**
+   * The charset mapping each byte to the char having the same value (and back), used to process byte streams.
+   */
+  private static final String BYTE_CHARSET = "ISO-8859-1";
+
+  private final Reader in;
+
+  private final Writer out;
+
+  private final char[] inBuffer = new char[BUFFER_SIZE];
+
+  private int inPosition;
 
-  private final OutputStream out;
+  private int inLimit;
+
+  private final char[] outBuffer = new char[BUFFER_SIZE];
+
+  private int outPosition;
+
+  /**
+   * True if the processed content is made of bytes (each byte being a char), in which case the byte order mark is
+   * made of 3 chars.
+   */
+  private final boolean bytes;
 
   private int theA;
 
@@ -37,9 +68,30 @@ public class JSMin {
 
   private int theY = EOF;
 
+  /**
+   * Processes the bytes of the script, without decoding them: the non-ASCII bytes are handled as identifier
+   * characters, thus the multibyte characters are preserved.
+   */
   public JSMin(final InputStream in, final OutputStream out) {
-    this.in = new PushbackInputStream(in);
+    try {
+      this.in = new InputStreamReader(in, BYTE_CHARSET);
+      this.out = new OutputStreamWriter(out, BYTE_CHARSET);
+    } catch (final UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+    this.bytes = true;
+  }
+
+  /**
+   * @param in
+   *          the script to minimize. It is read in blocks, thus it doesn't need to be buffered.
+   * @param out
+   *          where the minimized script is written. Only the complete blocks are written before the end of processing.
+   */
+  public JSMin(final Reader in, final Writer out) {
+    this.in = in;
     this.out = out;
+    this.bytes = false;
   }
 
   /**
@@ -56,7 +108,7 @@ public class JSMin {
    * the character is a control character, translate it to a space or linefeed.
    */
   int get() throws IOException {
-    final int c = in.read();
+    final int c = inPosition < inLimit || fill() ? inBuffer[inPosition++] : EOF;
 
     if (c >= ' ' || c == '\n' || c == EOF) {
       return c;
@@ -73,9 +125,34 @@ public class JSMin {
    * Get the next character without getting it.
    */
   int peek() throws IOException {
-    final int lookaheadChar = in.read();
-    in.unread(lookaheadChar);
-    return lookaheadChar;
+    return inPosition < inLimit || fill() ? inBuffer[inPosition] : EOF;
+  }
+
+  /**
+   * Reads the next block of characters.
+   *
+   * @return false if the end of the stream is reached.
+   */
+  private boolean fill() throws IOException {
+    int read;
+    do {
+      read = in.read(inBuffer, 0, inBuffer.length);
+    } while (read == 0);
+    inPosition = 0;
+    inLimit = Math.max(read, 0);
+    return read > 0;
+  }
+
+  private void write(final int c) throws IOException {
+    if (outPosition == outBuffer.length) {
+      flushBuffer();
+    }
+    outBuffer[outPosition++] = (char) c;
+  }
+
+  private void flushBuffer() throws IOException {
+    out.write(outBuffer, 0, outPosition);
+    outPosition = 0;
   }
 
   /**
@@ -133,16 +210,16 @@ public class JSMin {
       UnterminatedStringLiteralException {
     switch (d) {
     case 1:
-      out.write(theA);
+      write(theA);
       if (theA == theB && (theA == '+' || theA == '-') && theY != theA) {
-        out.write(' ');
+        write(' ');
       }
     case 2:
       theA = theB;
 
       if (theA == '\'' || theA == '"' || theA == '`') {
         for (;;) {
-          out.write(theA);
+          write(theA);
           theA = get();
           if (theA == theB) {
             break;
@@ -151,7 +228,7 @@ public class JSMin {
             throw new UnterminatedStringLiteralException();
           }
           if (theA == '\\') {
-            out.write(theA);
+            write(theA);
             theA = get();
           }
         }
@@ -164,22 +241,22 @@ public class JSMin {
               || theA == '[' || theA == '!' || theA == '&' || theA == '|'
               || theA == '?' || theA == '+' || theA == '-' || theA == '~'
               || theA == '*' || theA == '/' || theA == '{' || theA == '\n')) {
-        out.write(theA);
+        write(theA);
         if (theA == '/' || theA == '*') {
-          out.write(' ');
+          write(' ');
         }
-        out.write(theB);
+        write(theB);
         for (;;) {
           theA = get();
           if (theA == '[') {
             for (;;) {
-              out.write(theA);
+              write(theA);
               theA = get();
               if (theA == ']') {
                 break;
               }
               if (theA == '\\') {
-                out.write(theA);
+                write(theA);
                 theA = get();
               }
               if (theA <= '\n') {
@@ -194,12 +271,12 @@ public class JSMin {
             }
             break;
           } else if (theA == '\\') {
-            out.write(theA);
+            write(theA);
             theA = get();
           } else if (theA <= '\n') {
             throw new UnterminatedRegExpLiteralException();
           }
-          out.write(theA);
+          write(theA);
         }
         theB = next();
       }
@@ -214,9 +291,11 @@ public class JSMin {
    */
   public void jsmin() throws IOException, UnterminatedRegExpLiteralException,
       UnterminatedCommentException, UnterminatedStringLiteralException {
-    if (peek() == 0xEF) {
+    if (bytes && peek() == 0xEF) {
+      get();
       get();
       get();
+    } else if (peek() == '\uFEFF') {
       get();
     }
     theA = '\n';
@@ -287,6 +366,7 @@ public class JSMin {
         }
       }
     }
+    flushBuffer();
     out.flush();
   }
 
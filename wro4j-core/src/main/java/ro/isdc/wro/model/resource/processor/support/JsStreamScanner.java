@@ -0,0 +1,266 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+
+/**
+ * Base class for the processors reading a script (or a stylesheet) character by character, which need to know where
+ * the string, template & regular expression literals start and end. Each literal is scanned in linear time, without
+ * backtracking, and unterminated literals end with the stream (or with the line for strings & regular expressions).
+ * <p/>
+ * Characters read in advance can be pushed back with {@link #unread(int)}. The scanner keeps track of the last
+ * significant token in order to decide if a slash starts a regular expression or is a division operator.
+ * <p/>
+ * Instances are stateful and not thread-safe: create one for each stream to process.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+abstract class JsStreamScanner {
+  /**
+   * The keywords which can be followed by a regular expression.
+   */
+  private static final String[] REGEX_PREFIX_KEYWORDS = {
+    "return", "typeof", "instanceof", "in", "of", "new", "delete", "void", "throw", "case", "do", "else", "yield",
+    "await"
+  };
+  private final Reader reader;
+  private char[] pushback = new char[64];
+  private int pushbackSize = 0;
+  /**
+   * True if the last significant token ends an operand (identifier, number, literal, closing parenthesis or
+   * bracket), in which case a slash is a division operator.
+   */
+  private boolean operand = false;
+  private int lastSignificant = -1;
+
+  protected JsStreamScanner(final Reader reader) {
+    notNull(reader);
+    this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+  }
+
+  protected final int read()
+      throws IOException {
+    if (pushbackSize > 0) {
+      return pushback[--pushbackSize];
+    }
+    return reader.read();
+  }
+
+  /**
+   * Pushes back a character, which will be returned by the next {@link #read()} call. The end of stream (-1) is
+   * ignored.
+   */
+  protected final void unread(final int c) {
+    if (c < 0) {
+      return;
+    }
+    if (pushbackSize == pushback.length) {
+      final char[] copy = new char[pushbackSize * 2];
+      System.arraycopy(pushback, 0, copy, 0, pushbackSize);
+      pushback = copy;
+    }
+    pushback[pushbackSize++] = (char) c;
+  }
+
+  /**
+   * Pushes back all the characters of the sequence, which will be read in the same order.
+   */
+  protected final void unread(final CharSequence chars) {
+    for (int i = chars.length() - 1; i >= 0; i--) {
+      unread(chars.charAt(i));
+    }
+  }
+
+  protected final int peek()
+      throws IOException {
+    final int c = read();
+    unread(c);
+    return c;
+  }
+
+  protected static boolean isWhitespace(final int c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+  }
+
+  protected static boolean isIdentifierPart(final int c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_' || c == '$' || c > 127;
+  }
+
+  /**
+   * @return true if a slash found at the current position starts a regular expression literal.
+   */
+  protected final boolean isRegexAllowed() {
+    return !operand;
+  }
+
+  /**
+   * @return the last significant character, or -1 if there is none.
+   */
+  protected final int getLastSignificant() {
+    return lastSignificant;
+  }
+
+  /**
+   * Saves the state used to recognize the regular expressions, in order to restore it when the scanned characters are
+   * pushed back.
+   */
+  protected final Object saveState() {
+    return new int[] {
+      operand ? 1 : 0, lastSignificant
+    };
+  }
+
+  protected final void restoreState(final Object state) {
+    final int[] values = (int[]) state;
+    operand = values[0] == 1;
+    lastSignificant = values[1];
+  }
+
+  /**
+   * Notifies the scanner about a punctuator (operator, parenthesis, bracket, semicolon...).
+   */
+  protected final void onPunctuator(final int c) {
+    operand = c == ')' || c == ']';
+    lastSignificant = c;
+  }
+
+  /**
+   * Reads the identifier (or number) starting with the provided character.
+   */
+  protected final String readWord(final int first)
+      throws IOException {
+    final StringBuilder word = new StringBuilder();
+    word.append((char) first);
+    int c;
+    while (isIdentifierPart(c = read())) {
+      word.append((char) c);
+    }
+    unread(c);
+    final String result = word.toString();
+    operand = true;
+    for (final String keyword : REGEX_PREFIX_KEYWORDS) {
+      if (keyword.equals(result)) {
+        operand = false;
+        break;
+      }
+    }
+    lastSignificant = first;
+    return result;
+  }
+
+  /**
+   * Copies a string or template literal, the opening quote being already read.
+   */
+  protected final void copyString(final int quote, final Appendable target)
+      throws IOException {
+    target.append((char) quote);
+    int c;
+    while ((c = read()) >= 0) {
+      if (c == '\\') {
+        target.append((char) c);
+        c = read();
+        if (c < 0) {
+          break;
+        }
+      } else if (c == quote) {
+        target.append((char) c);
+        break;
+      } else if (c == '\n' && quote != '`') {
+        // unterminated string
+        unread(c);
+        break;
+      }
+      target.append((char) c);
+    }
+    operand = true;
+    lastSignificant = quote;
+  }
+
+  /**
+   * Copies a regular expression literal (without its flags), the opening slash being already read. The slashes of
+   * character classes do not end the literal.
+   */
+  protected final void copyRegex(final Appendable target)
+      throws IOException {
+    target.append('/');
+    boolean inClass = false;
+    int c;
+    while ((c = read()) >= 0) {
+      if (c == '\n' || c == '\r') {
+        // unterminated regular expression
+        unread(c);
+        break;
+      }
+      target.append((char) c);
+      if (c == '\\') {
+        c = read();
+        if (c < 0 || c == '\n' || c == '\r') {
+          unread(c);
+          break;
+        }
+        target.append((char) c);
+      } else if (c == '[') {
+        inClass = true;
+      } else if (c == ']') {
+        inClass = false;
+      } else if (c == '/' && !inClass) {
+        break;
+      }
+    }
+    operand = true;
+    lastSignificant = '/';
+  }
+
+  /**
+   * Reads a multi line comment, the opening characters being already read.
+   *
+   * @param target
+   *          where the comment is copied, or null if it should be skipped.
+   */
+  protected final void readMultiLineComment(final Appendable target)
+      throws IOException {
+    if (target != null) {
+      target.append("/*");
+    }
+    int previous = -1;
+    int c;
+    while ((c = read()) >= 0) {
+      if (target != null) {
+        target.append((char) c);
+      }
+      if (previous == '*' && c == '/') {
+        break;
+      }
+      previous = c;
+    }
+  }
+
+  /**
+   * Reads a single line comment (without the line terminator), the opening characters being already read.
+   *
+   * @param target
+   *          where the comment is copied, or null if it should be skipped.
+   */
+  protected final void readSingleLineComment(final Appendable target)
+      throws IOException {
+    if (target != null) {
+      target.append("//");
+    }
+    int c;
+    while ((c = read()) >= 0 && c != '\n' && c != '\r') {
+      if (target != null) {
+        target.append((char) c);
+      }
+    }
+    unread(c);
+  }
+}
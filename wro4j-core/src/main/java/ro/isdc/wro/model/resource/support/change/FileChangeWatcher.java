@@ -0,0 +1,231 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.support.change;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.processor.Destroyable;
+import ro.isdc.wro.util.ObjectFactory;
+
+
+/**
+ * Detects the changes of the resources backed by files using the {@link WatchService} of the file system, instead of
+ * re-reading and hashing their content. The folder of each watched file is registered to the watch service and the
+ * pending events are polled periodically by the shared scheduler. This class is thread-safe.
+ * <p/>
+ * The {@link WatchService} is available only since JDK 1.7, thus this class must not be loaded unless
+ * {@link ResourceWatcher#isNativeWatcherSupported()} is true.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class FileChangeWatcher
+    implements Destroyable {
+  private static final Logger LOG = LoggerFactory.getLogger(FileChangeWatcher.class);
+  /**
+   * The number of milliseconds between two consecutive polls of the watch service.
+   */
+  static final long POLL_PERIOD = 100;
+
+  /**
+   * Notified about the changed resources.
+   */
+  public static interface Callback {
+    /**
+     * Invoked when the file backing the resource was modified, created or deleted.
+     */
+    void onResourceChanged(final Resource resource);
+  }
+
+  private final ObjectFactory<ScheduledExecutorService> schedulerFactory;
+  private final Callback callback;
+  /**
+   * The watched resources mapped by the absolute path of their file.
+   */
+  private final Map<String, Map<String, Resource>> resourcesByPath = new ConcurrentHashMap<String, Map<String, Resource>>();
+  /**
+   * The uri's of the watched resources.
+   */
+  private final Map<String, Boolean> watchedUris = new ConcurrentHashMap<String, Boolean>();
+  private final Map<Path, Boolean> watchedFolders = new ConcurrentHashMap<Path, Boolean>();
+  private WatchService watchService;
+  private ScheduledFuture<?> pollFuture;
+
+  /**
+   * @param schedulerFactory
+   *          provides the scheduler polling the pending events.
+   * @param callback
+   *          notified about the changed resources.
+   */
+  public FileChangeWatcher(final ObjectFactory<ScheduledExecutorService> schedulerFactory, final Callback callback) {
+    notNull(schedulerFactory);
+    notNull(callback);
+    this.schedulerFactory = schedulerFactory;
+    this.callback = callback;
+  }
+
+  /**
+   * Watches the file backing the provided resource.
+   *
+   * @param resource
+   *          the {@link Resource} to watch.
+   * @param file
+   *          the file backing the resource.
+   * @return true if the resource is watched.
+   */
+  public boolean watch(final Resource resource, final File file) {
+    notNull(resource);
+    notNull(file);
+    if (isWatched(resource.getUri())) {
+      return true;
+    }
+    final Path path = file.toPath().toAbsolutePath().normalize();
+    final Path folder = path.getParent();
+    if (folder == null || !file.isFile()) {
+      return false;
+    }
+    try {
+      register(folder);
+    } catch (final IOException e) {
+      LOG.debug("Cannot watch {} (Exception message: {})", file, e.getMessage());
+      return false;
+    }
+    getOrCreate(path.toString()).put(resource.getUri(), resource);
+    watchedUris.put(resource.getUri(), Boolean.TRUE);
+    LOG.debug("Watching {} using file: {}", resource.getUri(), path);
+    return true;
+  }
+
+  private Map<String, Resource> getOrCreate(final String path) {
+    Map<String, Resource> resources = resourcesByPath.get(path);
+    if (resources == null) {
+      synchronized (resourcesByPath) {
+        resources = resourcesByPath.get(path);
+        if (resources == null) {
+          resources = new ConcurrentHashMap<String, Resource>();
+          resourcesByPath.put(path, resources);
+        }
+      }
+    }
+    return resources;
+  }
+
+  private synchronized void register(final Path folder)
+      throws IOException {
+    if (!watchedFolders.containsKey(folder)) {
+      if (watchService == null) {
+        watchService = FileSystems.getDefault().newWatchService();
+        pollFuture = schedulerFactory.create().scheduleWithFixedDelay(new Runnable() {
+          public void run() {
+            pollEvents();
+          }
+        }, POLL_PERIOD, POLL_PERIOD, TimeUnit.MILLISECONDS);
+      }
+      folder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+          StandardWatchEventKinds.ENTRY_MODIFY);
+      watchedFolders.put(folder, Boolean.TRUE);
+    }
+  }
+
+  /**
+   * @return true if the changes of the resource with provided uri are detected by this watcher.
+   */
+  public boolean isWatched(final String uri) {
+    return watchedUris.containsKey(uri);
+  }
+
+  /**
+   * Notifies the callback about the resources changed since the previous poll. Any failure is logged, since the
+   * scheduler would stop polling otherwise.
+   *
+   * @VisibleForTesting
+   */
+  void pollEvents() {
+    final WatchService service = watchService;
+    if (service == null) {
+      return;
+    }
+    try {
+      WatchKey key;
+      while ((key = service.poll()) != null) {
+        final Path folder = (Path) key.watchable();
+        for (final WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            LOG.debug("Events lost for folder: {}", folder);
+            onFolderChanged(folder);
+          } else {
+            onFileChanged(folder.resolve((Path) event.context()).toString());
+          }
+        }
+        if (!key.reset()) {
+          watchedFolders.remove(folder);
+        }
+      }
+    } catch (final ClosedWatchServiceException e) {
+      LOG.debug("The watch service is closed");
+    } catch (final Exception e) {
+      LOG.error("Failed to process the file change events", e);
+    }
+  }
+
+  private void onFolderChanged(final Path folder) {
+    for (final String path : resourcesByPath.keySet()) {
+      if (folder.equals(new File(path).toPath().getParent())) {
+        onFileChanged(path);
+      }
+    }
+  }
+
+  private void onFileChanged(final String path) {
+    final Map<String, Resource> resources = resourcesByPath.get(path);
+    if (resources != null) {
+      for (final Resource resource : resources.values()) {
+        LOG.debug("Change detected for resource: {}", resource.getUri());
+        try {
+          callback.onResourceChanged(resource);
+        } catch (final Exception e) {
+          LOG.error("Failed to notify the change of resource: " + resource.getUri(), e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops watching the files.
+   */
+  public synchronized void destroy()
+      throws Exception {
+    if (pollFuture != null) {
+      pollFuture.cancel(false);
+      pollFuture = null;
+    }
+    if (watchService != null) {
+      watchService.close();
+      watchService = null;
+    }
+    watchedFolders.clear();
+    watchedUris.clear();
+    resourcesByPath.clear();
+  }
+}
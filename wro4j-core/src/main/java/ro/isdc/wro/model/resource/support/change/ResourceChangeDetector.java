@@ -13,13 +13,16 @@ import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.config.ReadOnlyContext;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
 import ro.isdc.wro.model.resource.support.hash.HashStrategy;
 
 
 /**
- * Responsbile for keeping details about resources contents and identify the change of any resource in time.
+ * Responsbile for keeping details about resources contents and identify the change of any resource in time. The content
+ * of a resource is hashed only when its metadata (read by {@link ResourceMetadataReader}) is not available or has
+ * changed since the previous check.
  *
  * @author Alex Objelean
  * @since 1.6.0
@@ -31,6 +34,8 @@ public class ResourceChangeDetector {
   private UriLocatorFactory locatorFactory;
   @Inject
   private HashStrategy hashStrategy;
+  @Inject
+  private ReadOnlyContext context;
   /**
    * Map between a resource uri and a corresponding {@link ResourceChangeInfo} object. It is ensured that any get(key)
    * operation will return a not null object.
@@ -71,12 +76,19 @@ public class ResourceChangeDetector {
     LOG.debug("group={}, uri={}", groupName, uri);
     final ResourceChangeInfo resourceInfo = changeInfoMap.get(uri);
     if (resourceInfo.isCheckRequiredForGroup(groupName)) {
-      final InputStream inputStream = locatorFactory.locate(uri);
-      try{
-        final String currentHash = hashStrategy.getHash(inputStream);
-        resourceInfo.updateHashForGroup(currentHash, groupName);
-      }finally{
-        IOUtils.closeQuietly(inputStream);
+      // the metadata is read before the content, in order to not miss any change occurring in between
+      final String metadata = new ResourceMetadataReader(context).getMetadata(uri);
+      if (resourceInfo.updateHashForGroupIfMetadataUnchanged(metadata, groupName)) {
+        LOG.debug("metadata unchanged for uri={}", uri);
+      } else {
+        final InputStream inputStream = locatorFactory.locate(uri);
+        try{
+          final String currentHash = hashStrategy.getHash(inputStream);
+          resourceInfo.updateHashForGroup(currentHash, groupName);
+          resourceInfo.updateMetadata(metadata);
+        }finally{
+          IOUtils.closeQuietly(inputStream);
+        }
       }
     }
     return resourceInfo.isChanged(groupName);
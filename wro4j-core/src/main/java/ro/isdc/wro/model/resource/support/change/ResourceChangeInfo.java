@@ -23,6 +23,11 @@ public final class ResourceChangeInfo {
    * Persisted hash of the resource retrieved during previous request cycle.
    */
   private String prevHash;
+  /**
+   * The metadata of the resource when the hash was computed, used to avoid computing the hash again while the metadata
+   * is unchanged.
+   */
+  private String metadata;
   /**
    * A set of groups for which changes were detected. This set is required to handle the situations when the same
    * resource is contained in two different groups and only the first group is notified about the change.
@@ -47,6 +52,32 @@ public final class ResourceChangeInfo {
     }
   }
 
+  /**
+   * Reuses the hash computed during the previous cycle, when the metadata of the resource is unchanged.
+   *
+   * @param metadata
+   *          the current metadata of the resource (can be null if not available).
+   * @param groupName
+   *          name of the group for which the change of resource is detected.
+   * @return true if the previous hash was reused, false if the hash must be computed.
+   */
+  public boolean updateHashForGroupIfMetadataUnchanged(final String metadata, final String groupName) {
+    notNull(groupName);
+    if (metadata != null && prevHash != null && metadata.equals(this.metadata)) {
+      updateHashForGroup(prevHash, groupName);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @param metadata
+   *          the metadata of the resource corresponding to the most recent computed hash.
+   */
+  public void updateMetadata(final String metadata) {
+    this.metadata = metadata;
+  }
+
   private boolean isChangedHash() {
     return currentHash != null ? !currentHash.equals(prevHash) : prevHash != null;
   }
@@ -0,0 +1,162 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.support.change;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.jar.JarEntry;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.config.ReadOnlyContext;
+import ro.isdc.wro.model.resource.locator.ClasspathUriLocator;
+import ro.isdc.wro.model.resource.locator.ServletContextUriLocator;
+import ro.isdc.wro.model.resource.locator.UrlUriLocator;
+import ro.isdc.wro.util.StringUtils;
+
+
+/**
+ * Reads cheap metadata of a resource, which changes whenever the content of the resource changes, without reading its
+ * content:
+ * <ul>
+ * <li>the size and the last modified time of the resources backed by files (servletContext resources having a real
+ * path, classpath resources from a folder and file urls).</li>
+ * <li>the CRC and the size of the classpath resources packed in a jar.</li>
+ * <li>the ETag or Last-Modified header returned by a HEAD request for the http urls.</li>
+ * </ul>
+ * The metadata is not available (null) for any other resource (ex: resources containing wildcards, resources located
+ * with a dispatcher), in which case the content must be read in order to detect a change.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class ResourceMetadataReader {
+  private static final Logger LOG = LoggerFactory.getLogger(ResourceMetadataReader.class);
+  /**
+   * The number of milliseconds during which the last modified time of a file is not trusted. Some file systems (and the
+   * {@link File#lastModified()} of some JVM's) have a granularity of one second or worse, thus a file modified twice
+   * during the same second would preserve its size and last modified time.
+   */
+  static final long RACY_PERIOD = 2000;
+  private final ReadOnlyContext context;
+
+  public ResourceMetadataReader(final ReadOnlyContext context) {
+    notNull(context);
+    this.context = context;
+  }
+
+  /**
+   * @param uri
+   *          the uri of the resource.
+   * @return the metadata of the resource or null if it cannot be read without reading the content of the resource.
+   */
+  public String getMetadata(final String uri) {
+    notNull(uri);
+    if (hasWildcard(uri)) {
+      return null;
+    }
+    try {
+      final File file = getFile(uri);
+      if (file != null) {
+        return getFileMetadata(file);
+      }
+      final URL url = getUrl(uri);
+      return url != null ? getUrlMetadata(url) : null;
+    } catch (final Exception e) {
+      LOG.debug("Cannot read metadata of {} (Exception message: {})", uri, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * @return the file backing the resource with provided uri or null if there is no such file (ex: the resource is
+   *         located using a dispatcher, inside a jar or using an http url).
+   */
+  public File getFile(final String uri) {
+    notNull(uri);
+    if (hasWildcard(uri)) {
+      return null;
+    }
+    if (ServletContextUriLocator.isValid(uri)) {
+      final String realPath = context.getServletContext() != null ? context.getServletContext().getRealPath(uri)
+          : null;
+      return realPath != null ? new File(realPath) : null;
+    }
+    final URL url = getUrl(uri);
+    return url != null ? FileUtils.toFile(url) : null;
+  }
+
+  private URL getUrl(final String uri) {
+    if (ClasspathUriLocator.isValid(uri)) {
+      final String location = StringUtils.cleanPath(uri.replaceFirst(ClasspathUriLocator.PREFIX, "")).trim();
+      return Thread.currentThread().getContextClassLoader().getResource(location);
+    }
+    if (!ServletContextUriLocator.isValid(uri) && UrlUriLocator.isValid(uri)) {
+      try {
+        return new URL(uri);
+      } catch (final IOException e) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private boolean hasWildcard(final String uri) {
+    return uri.contains("*") || uri.contains("?");
+  }
+
+  private String getFileMetadata(final File file) {
+    final long lastModified = file.lastModified();
+    if (!file.isFile() || System.currentTimeMillis() - lastModified < RACY_PERIOD) {
+      return null;
+    }
+    return String.format("file:%s:%s", file.length(), lastModified);
+  }
+
+  private String getUrlMetadata(final URL url)
+      throws IOException {
+    final URLConnection connection = url.openConnection();
+    if (connection instanceof JarURLConnection) {
+      final JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+      return entry != null && entry.getCrc() != -1 ? String.format("jar:%s:%s", entry.getSize(), entry.getCrc()) : null;
+    }
+    if (connection instanceof HttpURLConnection) {
+      return getHttpMetadata((HttpURLConnection) connection);
+    }
+    return null;
+  }
+
+  /**
+   * Uses a HEAD request in order to get the validators of the resource, without transferring its content.
+   */
+  private String getHttpMetadata(final HttpURLConnection connection)
+      throws IOException {
+    final int timeout = context.getConfig().getConnectionTimeout();
+    connection.setConnectTimeout(timeout);
+    connection.setReadTimeout(timeout);
+    connection.setRequestMethod("HEAD");
+    try {
+      if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        return null;
+      }
+      final String etag = connection.getHeaderField("ETag");
+      if (etag != null) {
+        return "etag:" + etag;
+      }
+      final long lastModified = connection.getLastModified();
+      return lastModified > 0 ? String.format("http:%s:%s", connection.getContentLength(), lastModified) : null;
+    } finally {
+      connection.disconnect();
+    }
+  }
+}
@@ -2,6 +2,7 @@ package ro.isdc.wro.model.resource.support.change;
 
 import static org.apache.commons.lang3.Validate.notNull;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -9,10 +10,12 @@ import java.io.StringWriter;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.http.HttpServletRequest;
@@ -23,18 +26,21 @@ import org.slf4j.LoggerFactory;
 import ro.isdc.wro.cache.CacheKey;
 import ro.isdc.wro.cache.CacheStrategy;
 import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.ReadOnlyContext;
+import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.config.support.ContextPropagatingCallable;
 import ro.isdc.wro.http.WroFilter;
 import ro.isdc.wro.http.handler.ResourceWatcherRequestHandler;
 import ro.isdc.wro.http.support.PreserveDetailsRequestWrapper;
 import ro.isdc.wro.manager.callback.LifecycleCallbackRegistry;
-import ro.isdc.wro.model.WroModelInspector;
+import ro.isdc.wro.model.factory.DefaultWroModelFactoryDecorator;
 import ro.isdc.wro.model.factory.WroModelFactory;
 import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.group.processor.Injector;
+import ro.isdc.wro.model.group.processor.PreProcessorExecutor;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
@@ -44,14 +50,23 @@ import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.model.resource.processor.decorator.ExceptionHandlingProcessorDecorator;
 import ro.isdc.wro.model.resource.processor.impl.css.AbstractCssImportPreProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssImportPreProcessor;
-import ro.isdc.wro.util.DestroyableLazyInitializer;
+import ro.isdc.wro.util.ObjectFactory;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.util.concurrent.WroExecutorProvider;
 
 
 /**
  * A runnable responsible for watching if any resources were changed and invalidate the cache entry for the group
  * containing obsolete resources. This class is thread-safe.
+ * <p/>
+ * When the resourceWatcherNative flag is enabled, the resources backed by files are registered to a
+ * {@link FileChangeWatcher} once checked, thus their changes are pushed instead of being detected by comparing the hash
+ * of the content. The <code>@import</code>'s of a natively watched css resource are remembered and checked on each
+ * check (they are not necessarily backed by files), until the watcher reports a change of the resource.
+ * <p/>
+ * Besides the resources of the group, the other resources located while processing the checked key (recorded by the
+ * {@link ResourceDependencyGraph}, ex: the images converted to data uri) are checked by comparing the hash of their
+ * content.
  *
  * @author Alex Objelean
  * @created 06 Aug 2012
@@ -60,10 +75,6 @@ import ro.isdc.wro.util.WroUtil;
 public class ResourceWatcher
     implements Destroyable {
   private static final Logger LOG = LoggerFactory.getLogger(ResourceWatcher.class);
-  /**
-   * The thread pool size of the executor which is responsible for performing async check
-   */
-  private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
 
   public static interface Callback {
     /**
@@ -112,22 +123,23 @@ public class ResourceWatcher
   @Inject
   private DispatcherStreamLocator dispatcherLocator;
   /**
-   * Executor responsible for running the check asynchronously.
+   * Provides the executor responsible for running the check asynchronously.
    */
-  private final DestroyableLazyInitializer<ExecutorService> executorServiceRef = new DestroyableLazyInitializer<ExecutorService>() {
-    @Override
-    protected ExecutorService initialize() {
-      return Executors.newFixedThreadPool(POOL_SIZE, WroUtil.createDaemonThreadFactory(ResourceWatcher.class.getName()));
-    }
-
-    @Override
-    public void destroy() {
-      if (isInitialized()) {
-        get().shutdownNow();
-      }
-      super.destroy();
-    };
-  };
+  @Inject
+  private WroExecutorProvider executorProvider;
+  @Inject
+  private PreProcessorExecutor preProcessorExecutor;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
+  /**
+   * Detects the changes of the resources backed by files, when the native resource watcher is enabled.
+   */
+  private FileChangeWatcher fileChangeWatcher;
+  /**
+   * The uri's imported by the natively watched css resources, mapped by the uri of the importing resource. Removed when
+   * the watcher reports a change of the importing resource, thus its content is scanned again.
+   */
+  private final Map<String, List<String>> watchedImports = new ConcurrentHashMap<String, List<String>>();
 
   /**
    * Default constructor with a NoOP callback.
@@ -179,7 +191,7 @@ public class ResourceWatcher
    *          {@link Callable} to submit for asynchronous execution.
    */
   void submit(final Callable<Void> callable) {
-    executorServiceRef.get().submit(callable);
+    executorProvider.submit(callable);
   }
 
   /**
@@ -194,8 +206,10 @@ public class ResourceWatcher
     final StopWatch watch = new StopWatch();
     watch.start("detect changes");
     try {
-      final Group group = new WroModelInspector(modelFactory.create()).getGroupByName(cacheKey.getGroupName());
-      if (isGroupChanged(group.collectResourcesOfType(cacheKey.getType()), callback)) {
+      final Group group = DefaultWroModelFactoryDecorator.inspect(modelFactory).getFilteredGroup(
+          cacheKey.getGroupName(), cacheKey.getType());
+      final boolean groupChanged = isGroupChanged(group, callback);
+      if (isDependencyChanged(cacheKey, group) || groupChanged) {
         callback.onGroupChanged(cacheKey);
         cacheStrategy.put(cacheKey, null);
       }
@@ -225,7 +239,7 @@ public class ResourceWatcher
     try {
       for (final Resource resource : resources) {
         if (isAsync) {
-          futures.add(executorServiceRef.get().submit(ContextPropagatingCallable.decorate(new Callable<Void>() {
+          futures.add(executorProvider.submit(ContextPropagatingCallable.decorate(new Callable<Void>() {
             public Void call()
                 throws Exception {
               checkResourceChange(resource, group, callback, isChanged);
@@ -250,6 +264,32 @@ public class ResourceWatcher
     return isChanged.get();
   }
 
+  /**
+   * @return true if any resource located while processing the key, other than the resources of the group, was changed
+   *         (ex: the images converted to data uri, the imports resolved by the less processors).
+   */
+  private boolean isDependencyChanged(final CacheKey cacheKey, final Group group) {
+    final Set<String> uris = dependencyGraph.getDependencies(cacheKey);
+    for (final Resource resource : group.getResources()) {
+      uris.remove(resource.getUri());
+    }
+    boolean changed = false;
+    for (final String uri : uris) {
+      try {
+        if (resourceChangeDetector.checkChangeForGroup(uri, group.getName())) {
+          LOG.debug("dependency={} of {} changed", uri, cacheKey);
+          changed = true;
+          preProcessorExecutor.invalidate(uri);
+          evictDependentKeys(uri);
+        }
+      } catch (final IOException e) {
+        LOG.debug("[FAIL] Cannot check {} dependency (Exception message: {}). Assuming it is unchanged...", uri,
+            e.getMessage());
+      }
+    }
+    return changed;
+  }
+
   /**
    * Will check if a given resource was changed and will invoke the appropriate callback.
    */
@@ -258,11 +298,25 @@ public class ResourceWatcher
       throws Exception {
     if (isChanged(resource, group.getName())) {
       isChanged.compareAndSet(false, true);
+      // the resource or one of its imports has changed, thus the pre processed content is no longer valid
+      preProcessorExecutor.invalidate(resource.getUri());
+      evictDependentKeys(resource.getUri());
       callback.onResourceChanged(resource);
       lifecycleCallback.onResourceChanged(resource);
     }
   }
 
+  /**
+   * Evicts the cached content of all groups which were processed using the changed resource (including the groups
+   * which only import it).
+   */
+  private void evictDependentKeys(final String uri) {
+    for (final CacheKey key : dependencyGraph.getDependentKeys(uri)) {
+      LOG.debug("Evicting {} depending on changed resource: {}", key, uri);
+      cacheStrategy.put(key, null);
+    }
+  }
+
   /**
    * Check if the resource was changed from previous run. The implementation uses resource content digest (hash) to
    * check for change.
@@ -275,14 +329,19 @@ public class ResourceWatcher
     boolean changed = false;
     try {
       final String uri = resource.getUri();
-      // using AtomicBoolean because we need to mutate this variable inside an anonymous class.
-      final AtomicBoolean changeDetected = new AtomicBoolean(resourceChangeDetector.checkChangeForGroup(uri, groupName));
-      if (!changeDetected.get() && resource.getType() == ResourceType.CSS) {
-        final Reader reader = new InputStreamReader(locatorFactory.locate(uri));
-        LOG.debug("\tCheck @import directive from {}", resource);
-        createCssImportProcessor(changeDetected, groupName).process(resource, reader, new StringWriter());
+      final FileChangeWatcher watcher = getFileChangeWatcher();
+      if (watcher != null && watcher.isWatched(uri)) {
+        LOG.debug("resource={} is watched natively, its changes are pushed", uri);
+        return resource.getType() == ResourceType.CSS && isImportChanged(resource, groupName);
+      }
+      changed = resourceChangeDetector.checkChangeForGroup(uri, groupName);
+      if (!changed && resource.getType() == ResourceType.CSS) {
+        changed = checkImports(resource, groupName);
+      }
+      if (watcher != null) {
+        // the hash was computed, thus any further change can be pushed by the watch service
+        watchNatively(watcher, resource);
       }
-      changed = changeDetected.get();
     } catch (final IOException e) {
       LOG.debug("[FAIL] Cannot check {} resource (Exception message: {}). Assuming it is unchanged...", resource,
           e.getMessage());
@@ -291,23 +350,127 @@ public class ResourceWatcher
     return changed;
   }
 
+  /**
+   * @return true if any resource imported by the natively watched css resource was changed. The resource is scanned for
+   *         <code>@import</code>'s only if it was changed since the previous scan.
+   */
+  private boolean isImportChanged(final Resource resource, final String groupName)
+      throws IOException {
+    final List<String> imports = watchedImports.get(resource.getUri());
+    if (imports == null) {
+      return checkImports(resource, groupName);
+    }
+    boolean changed = false;
+    for (final String importedUri : imports) {
+      if (isChanged(Resource.create(importedUri, ResourceType.CSS), groupName)) {
+        changed = true;
+        evictDependentKeys(importedUri);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Scans the css resource for <code>@import</code>'s and checks if any imported resource was changed. The imports are
+   * remembered when the native resource watcher is used.
+   */
+  private boolean checkImports(final Resource resource, final String groupName)
+      throws IOException {
+    // using AtomicBoolean because we need to mutate this variable inside an anonymous class.
+    final AtomicBoolean changeDetected = new AtomicBoolean();
+    final List<String> imports = new ArrayList<String>();
+    final Reader reader = new InputStreamReader(locatorFactory.locate(resource.getUri()));
+    LOG.debug("\tCheck @import directive from {}", resource);
+    createCssImportProcessor(changeDetected, groupName, imports).process(resource, reader, new StringWriter());
+    if (getFileChangeWatcher() != null) {
+      watchedImports.put(resource.getUri(), imports);
+    }
+    return changeDetected.get();
+  }
+
+  /**
+   * @return the {@link FileChangeWatcher} to use or null if the native resource watcher is not enabled or not supported
+   *         by the JVM.
+   */
+  private synchronized FileChangeWatcher getFileChangeWatcher() {
+    if (fileChangeWatcher == null && context.getConfig().isResourceWatcherNative()) {
+      if (isNativeWatcherSupported()) {
+        fileChangeWatcher = newFileChangeWatcher();
+      } else {
+        LOG.warn("The native resource watcher is not supported by this JVM, using the resource hash instead.");
+      }
+    }
+    return fileChangeWatcher;
+  }
+
+  /**
+   * Checked by this class, since the {@link FileChangeWatcher} cannot be loaded when java.nio.file is not available.
+   *
+   * @return true if the JVM provides the WatchService used by the {@link FileChangeWatcher}.
+   * @VisibleForTesting
+   */
+  static boolean isNativeWatcherSupported() {
+    try {
+      Class.forName("java.nio.file.WatchService");
+      return true;
+    } catch (final ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private FileChangeWatcher newFileChangeWatcher() {
+    // the changes are pushed by the scheduler thread, outside of any request cycle
+    final WroConfiguration config = context.getConfig();
+    final ObjectFactory<ScheduledExecutorService> schedulerFactory = new ObjectFactory<ScheduledExecutorService>() {
+      public ScheduledExecutorService create() {
+        return executorProvider.getScheduler();
+      }
+    };
+    return new FileChangeWatcher(schedulerFactory, new FileChangeWatcher.Callback() {
+      public void onResourceChanged(final Resource resource) {
+        Context.set(Context.standaloneContext(), config);
+        try {
+          // the imports are scanned again by the next check
+          watchedImports.remove(resource.getUri());
+          preProcessorExecutor.invalidate(resource.getUri());
+          evictDependentKeys(resource.getUri());
+          lifecycleCallback.onResourceChanged(resource);
+        } finally {
+          Context.unset();
+        }
+      }
+    });
+  }
+
+  private void watchNatively(final FileChangeWatcher watcher, final Resource resource) {
+    final File file = new ResourceMetadataReader(context).getFile(resource.getUri());
+    if (file != null && !watcher.watch(resource, file)) {
+      LOG.debug("Cannot watch natively {}", resource);
+    }
+  }
+
   /**
    * @param changeDetected
    *          - flag indicating if the change is detected. When this value is true, the processing will be interrupted
    *          by throwing a {@link RuntimeException}.
    * @param groupName
    *          the name of the group being processed.
+   * @param imports
+   *          collects the uri's of the detected imports.
    * @return a processor used to detect changes in imported resources.
    */
-  private ResourcePreProcessor createCssImportProcessor(final AtomicBoolean changeDetected, final String groupName) {
+  private ResourcePreProcessor createCssImportProcessor(final AtomicBoolean changeDetected, final String groupName,
+      final List<String> imports) {
     final ResourcePreProcessor cssImportProcessor = new AbstractCssImportPreProcessor() {
       @Override
       protected void onImportDetected(final String importedUri) {
         LOG.debug("Found @import {}", importedUri);
+        imports.add(importedUri);
         final boolean isImportChanged = isChanged(Resource.create(importedUri, ResourceType.CSS), groupName);
         LOG.debug("\tisImportChanged={}", isImportChanged);
         if (isImportChanged) {
           changeDetected.set(true);
+          evictDependentKeys(importedUri);
           // we need to continue in order to store the hash for all imported resources, otherwise the change won't be
           // computed correctly.
         }
@@ -373,8 +536,17 @@ public class ResourceWatcher
     return resourceChangeDetector;
   }
 
+  /**
+   * The executor used for asynchronous checks is shared and destroyed by its {@link WroExecutorProvider}.
+   */
   public void destroy()
       throws Exception {
-    executorServiceRef.destroy();
+    synchronized (this) {
+      if (fileChangeWatcher != null) {
+        fileChangeWatcher.destroy();
+        fileChangeWatcher = null;
+      }
+      watchedImports.clear();
+    }
   }
 }
@@ -24,6 +24,7 @@ import ro.isdc.wro.WroRuntimeException;
 public abstract class AbstractDigesterHashStrategy
   implements HashStrategy {
   private static final Logger LOG = LoggerFactory.getLogger(AbstractDigesterHashStrategy.class);
+  private static final int BUFFER_SIZE = 8192;
 
 
   public String getHash(final InputStream input)
@@ -33,7 +34,13 @@ public abstract class AbstractDigesterHashStrategy
     }
     try {
       final MessageDigest messageDigest = newMessageDigest();
-      final byte[] digest = messageDigest.digest(IOUtils.toByteArray(input));
+      // digest the stream progressively, instead of loading the entire content in memory
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      int length = 0;
+      while ((length = input.read(buffer)) >= 0) {
+        messageDigest.update(buffer, 0, length);
+      }
+      final byte[] digest = messageDigest.digest();
       final String hash = new BigInteger(1, digest).toString(16);
 
       LOG.debug("{} hash: {}", getClass().getSimpleName(), hash);
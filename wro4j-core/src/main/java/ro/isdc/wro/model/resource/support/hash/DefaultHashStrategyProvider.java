@@ -25,6 +25,7 @@ public class DefaultHashStrategyProvider
     map.put(CRC32HashStrategy.ALIAS, new CRC32HashStrategy());
     map.put(MD5HashStrategy.ALIAS, new MD5HashStrategy());
     map.put(SHA1HashStrategy.ALIAS, new SHA1HashStrategy());
+    map.put(XXHash64HashStrategy.ALIAS, new XXHash64HashStrategy());
     return map;
   }
   
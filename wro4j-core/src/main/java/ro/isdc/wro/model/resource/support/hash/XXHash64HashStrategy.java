@@ -0,0 +1,152 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.support.hash;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Uses the xxHash64 algorithm for creating fingerprint. It is a non cryptographic hash, much faster than the message
+ * digests (MD5, SHA1) and having a better distribution than CRC32, which makes it a good fit for fingerprints, ETags and
+ * change detection. The content is hashed progressively while it is read and the hash is always encoded as 16
+ * hexadecimal characters.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class XXHash64HashStrategy
+    implements HashStrategy {
+  private static final Logger LOG = LoggerFactory.getLogger(XXHash64HashStrategy.class);
+  /**
+   * A short name of this hashBuilder.
+   */
+  public static final String ALIAS = "XXHASH64";
+  private static final long PRIME1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+  private static final long PRIME3 = 0x165667B19E3779F9L;
+  private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+  private static final long PRIME5 = 0x27D4EB2F165667C5L;
+  private static final int STRIPE_SIZE = 32;
+  private static final int BUFFER_SIZE = 8192;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * {@inheritDoc}
+   */
+  public String getHash(final InputStream input)
+      throws IOException {
+    if (input == null) {
+      throw new IllegalArgumentException("Content cannot be null!");
+    }
+    try {
+      final String hash = toHex(hash(input));
+      LOG.debug("xxHash64 hash: {}", hash);
+      return hash;
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  /**
+   * Computes the hash (using 0 as seed) of the stream content. The full stripes are consumed as soon as they are read,
+   * thus only the remaining bytes (less than a stripe) are moved to the beginning of the buffer.
+   */
+  private long hash(final InputStream input)
+      throws IOException {
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    long v1 = PRIME1 + PRIME2;
+    long v2 = PRIME2;
+    long v3 = 0;
+    long v4 = -PRIME1;
+    long totalLength = 0;
+    int filled = 0;
+    int read = 0;
+    while ((read = input.read(buffer, filled, buffer.length - filled)) >= 0) {
+      filled += read;
+      totalLength += read;
+      final int limit = filled - filled % STRIPE_SIZE;
+      for (int offset = 0; offset < limit; offset += STRIPE_SIZE) {
+        v1 = round(v1, readLong(buffer, offset));
+        v2 = round(v2, readLong(buffer, offset + 8));
+        v3 = round(v3, readLong(buffer, offset + 16));
+        v4 = round(v4, readLong(buffer, offset + 24));
+      }
+      System.arraycopy(buffer, limit, buffer, 0, filled - limit);
+      filled -= limit;
+    }
+    long hash;
+    if (totalLength >= STRIPE_SIZE) {
+      hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+      hash = mergeRound(hash, v1);
+      hash = mergeRound(hash, v2);
+      hash = mergeRound(hash, v3);
+      hash = mergeRound(hash, v4);
+    } else {
+      hash = PRIME5;
+    }
+    hash += totalLength;
+    int offset = 0;
+    for (; offset + 8 <= filled; offset += 8) {
+      hash ^= round(0, readLong(buffer, offset));
+      hash = Long.rotateLeft(hash, 27) * PRIME1 + PRIME4;
+    }
+    if (offset + 4 <= filled) {
+      hash ^= (readInt(buffer, offset) & 0xFFFFFFFFL) * PRIME1;
+      hash = Long.rotateLeft(hash, 23) * PRIME2 + PRIME3;
+      offset += 4;
+    }
+    for (; offset < filled; offset++) {
+      hash ^= (buffer[offset] & 0xFF) * PRIME5;
+      hash = Long.rotateLeft(hash, 11) * PRIME1;
+    }
+    hash ^= hash >>> 33;
+    hash *= PRIME2;
+    hash ^= hash >>> 29;
+    hash *= PRIME3;
+    hash ^= hash >>> 32;
+    return hash;
+  }
+
+  private static long round(final long accumulator, final long input) {
+    return Long.rotateLeft(accumulator + input * PRIME2, 31) * PRIME1;
+  }
+
+  private static long mergeRound(final long accumulator, final long value) {
+    return (accumulator ^ round(0, value)) * PRIME1 + PRIME4;
+  }
+
+  /**
+   * Reads a little endian long.
+   */
+  private static long readLong(final byte[] buffer, final int offset) {
+    return (buffer[offset] & 0xFFL) | (buffer[offset + 1] & 0xFFL) << 8 | (buffer[offset + 2] & 0xFFL) << 16
+        | (buffer[offset + 3] & 0xFFL) << 24 | (buffer[offset + 4] & 0xFFL) << 32 | (buffer[offset + 5] & 0xFFL) << 40
+        | (buffer[offset + 6] & 0xFFL) << 48 | (buffer[offset + 7] & 0xFFL) << 56;
+  }
+
+  /**
+   * Reads a little endian int.
+   */
+  private static int readInt(final byte[] buffer, final int offset) {
+    return (buffer[offset] & 0xFF) | (buffer[offset + 1] & 0xFF) << 8 | (buffer[offset + 2] & 0xFF) << 16
+        | (buffer[offset + 3] & 0xFF) << 24;
+  }
+
+  /**
+   * @return the hexadecimal representation of the value, padded with zeros up to 16 characters.
+   */
+  private static String toHex(final long value) {
+    final char[] chars = new char[16];
+    for (int i = chars.length - 1, shift = 0; i >= 0; i--, shift += 4) {
+      chars[i] = HEX[(int) (value >>> shift) & 0xF];
+    }
+    return new String(chars);
+  }
+}
@@ -5,6 +5,7 @@ package ro.isdc.wro.util;
 
 import static org.apache.commons.lang3.Validate.notNull;
 
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -24,17 +25,15 @@ public class SchedulerHelper {
   private static final Logger LOG = LoggerFactory.getLogger(SchedulerHelper.class);
 
 
-  private final LazyInitializer<ScheduledThreadPoolExecutor> poolInitializer = new LazyInitializer<ScheduledThreadPoolExecutor>() {
-    @Override
-    protected ScheduledThreadPoolExecutor initialize() {
-      return new ScheduledThreadPoolExecutor(1, WroUtil.createDaemonThreadFactory(SchedulerHelper.this.name)) {
-        @Override
-        public boolean getExecuteExistingDelayedTasksAfterShutdownPolicy() {
-          return false;
-        };
-      };
-    }
-  };
+  private final LazyInitializer<ScheduledExecutorService> poolInitializer;
+  /**
+   * True if the scheduler is provided and thus must not be shutdown on destroy.
+   */
+  private final boolean sharedPool;
+  /**
+   * True after destroy is invoked.
+   */
+  private volatile boolean destroyed;
 
   /**
    * An initializer providing the runnable to schedule.
@@ -62,6 +61,33 @@ public class SchedulerHelper {
     notNull(lazyRunnable);
     this.name = name;
     this.lazyRunnable = lazyRunnable;
+    this.sharedPool = false;
+    this.poolInitializer = new LazyInitializer<ScheduledExecutorService>() {
+      @Override
+      protected ScheduledExecutorService initialize() {
+        return new ScheduledThreadPoolExecutor(1, WroUtil.createDaemonThreadFactory(SchedulerHelper.this.name)) {
+          @Override
+          public boolean getExecuteExistingDelayedTasksAfterShutdownPolicy() {
+            return false;
+          };
+        };
+      }
+    };
+  }
+
+  private SchedulerHelper(final LazyInitializer<Runnable> lazyRunnable, final String name,
+      final ObjectFactory<ScheduledExecutorService> schedulerFactory) {
+    notNull(lazyRunnable);
+    notNull(schedulerFactory);
+    this.name = name;
+    this.lazyRunnable = lazyRunnable;
+    this.sharedPool = true;
+    this.poolInitializer = new LazyInitializer<ScheduledExecutorService>() {
+      @Override
+      protected ScheduledExecutorService initialize() {
+        return schedulerFactory.create();
+      }
+    };
   }
 
   /**
@@ -78,6 +104,23 @@ public class SchedulerHelper {
     return new SchedulerHelper(runnableFactory, name);
   }
 
+  /**
+   * Factory method. Creates a {@link SchedulerHelper} which schedules the runnable using a scheduler shared with other
+   * jobs. The shared scheduler is not shutdown when this {@link SchedulerHelper} is destroyed, only the scheduled job
+   * is canceled.
+   *
+   * @param runnableFactory
+   *          a factory creating the runnable to schedule.
+   * @param name
+   *          the name associated with this {@link SchedulerHelper}.
+   * @param schedulerFactory
+   *          a factory providing the shared scheduler, invoked when the runnable is scheduled for the first time.
+   */
+  public static SchedulerHelper create(final LazyInitializer<Runnable> runnableFactory, final String name,
+      final ObjectFactory<ScheduledExecutorService> schedulerFactory) {
+    return new SchedulerHelper(runnableFactory, name, schedulerFactory);
+  }
+
   /**
    * @see SchedulerHelper#create(ObjectFactory, String)
    */
@@ -99,7 +142,7 @@ public class SchedulerHelper {
     LOG.debug("period: {} [{}]", period, timeUnit);
     if (this.period != period) {
       this.period = period;
-      if (!poolInitializer.get().isShutdown()) {
+      if (!isShutdown()) {
         startScheduler(period, timeUnit);
       } else {
         LOG.warn("Cannot schedule because destroy was already called!");
@@ -117,7 +160,7 @@ public class SchedulerHelper {
       final Runnable runnable = lazyRunnable.get();
       notNull(runnable);
       // avoid reject when this method is accessed concurrently.
-      if (!poolInitializer.get().isShutdown()) {
+      if (!isShutdown()) {
         LOG.debug("[START] Scheduling thread with period of {} {}. ThreadId:  {}", period, timeUnit,
             Thread.currentThread().getId());
         // do not execute immediately. Use period also for initial delay.
@@ -135,7 +178,14 @@ public class SchedulerHelper {
    *          - if true, any running operation will be stopped immediately, otherwise scheduler will await termination.
    */
   private synchronized void destroyScheduler() {
-    if (!poolInitializer.get().isShutdown()) {
+    destroyed = true;
+    if (sharedPool) {
+      // the shared scheduler is shutdown by its owner
+      if (future != null) {
+        future.cancel(true);
+      }
+      LOG.debug("[STOP] Scheduled job canceled! {}", name);
+    } else if (!poolInitializer.get().isShutdown()) {
       // Disable new tasks from being submitted
       poolInitializer.get().shutdown();
       if (future != null) {
@@ -158,6 +208,10 @@ public class SchedulerHelper {
     }
   }
 
+  private boolean isShutdown() {
+    return destroyed || poolInitializer.get().isShutdown();
+  }
+
   private void cancelRunningTask() {
     if (future != null) {
       future.cancel(false);
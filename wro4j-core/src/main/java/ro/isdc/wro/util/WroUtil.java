@@ -204,8 +204,38 @@ public final class WroUtil {
    *
    * @return true if this request support gzip encoding.
    */
-  @SuppressWarnings("unchecked")
   public static boolean isGzipSupported(final HttpServletRequest request) {
+    final String headerValue = getAcceptEncoding(request);
+    return headerValue != null && PATTERN_GZIP.matcher(headerValue).find();
+  }
+
+  /**
+   * Checks if the provided content-coding is accepted by the request. The Accept-Encoding header is searched the same
+   * way as in {@link #isGzipSupported(HttpServletRequest)}, by taking into account its mangled variations.
+   *
+   * @param contentCoding
+   *          the content-coding to check (ex: deflate).
+   * @return true if this request accepts the provided content-coding.
+   */
+  public static boolean isContentCodingAccepted(final HttpServletRequest request, final String contentCoding) {
+    final String headerValue = getAcceptEncoding(request);
+    if (headerValue != null) {
+      for (final String token : headerValue.split(",")) {
+        final String[] parts = token.split(";");
+        if (contentCoding.equalsIgnoreCase(parts[0].trim())) {
+          return parts.length < 2 || !parts[1].trim().matches("q\\s*=\\s*0(\\.0*)?");
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the value of Accept-Encoding header (or one of its variations mangled by proxies), or null if there is no
+   *         such header.
+   */
+  @SuppressWarnings("unchecked")
+  private static String getAcceptEncoding(final HttpServletRequest request) {
     if (request != null) {
       final Enumeration<String> headerNames = request.getHeaderNames();
       if (headerNames != null) {
@@ -213,14 +243,12 @@ public final class WroUtil {
           final String headerName = headerNames.nextElement();
           final Matcher m = PATTERN_ACCEPT_ENCODING.matcher(headerName);
           if (m.find()) {
-            final String headerValue = request.getHeader(headerName);
-            final Matcher mValue = PATTERN_GZIP.matcher(headerValue);
-            return mValue.find();
+            return request.getHeader(headerName);
           }
         }
       }
     }
-    return false;
+    return null;
   }
 
   /**
@@ -34,6 +34,27 @@ public class TaskExecutor<T> {
    * execution.
    */
   private ExecutorService completionExecutor;
+  /**
+   * True if the executor is provided and thus must not be shutdown by this class.
+   */
+  private final boolean sharedExecutor;
+
+  public TaskExecutor() {
+    this.sharedExecutor = false;
+  }
+
+  /**
+   * Runs the tasks using the provided executor (ex: {@link WroExecutorProvider#getExecutor()}), which is not shutdown
+   * when the tasks are completed.
+   *
+   * @param executor
+   *          the {@link ExecutorService} responsible for running the tasks.
+   */
+  public TaskExecutor(final ExecutorService executor) {
+    Validate.notNull(executor);
+    this.completionExecutor = executor;
+    this.sharedExecutor = true;
+  }
 
   private CompletionService<T> getCompletionService() {
     if (completionService == null) {
@@ -176,7 +197,7 @@ public class TaskExecutor<T> {
    * Shutdown all executors used by this class.
    */
   public void destroy() {
-    if (completionExecutor != null) {
+    if (completionExecutor != null && !sharedExecutor) {
       completionExecutor.shutdown();
     }
   }
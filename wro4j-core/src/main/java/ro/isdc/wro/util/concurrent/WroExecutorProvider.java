@@ -0,0 +1,362 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.util.concurrent;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.model.resource.processor.Destroyable;
+import ro.isdc.wro.util.DestroyableLazyInitializer;
+import ro.isdc.wro.util.WroUtil;
+
+
+/**
+ * Provides the threads used by all wro4j background work: a bounded executor (used for parallel preProcessing,
+ * asynchronous resource watcher checks, background cache refresh, warmup) and a scheduler (used for cache & model
+ * reload and resource watcher). Sharing the same threads avoids having a pool per component, which would multiply the
+ * number of threads by the number of available processors. The pools are created lazily, using the
+ * {@link WroConfiguration} of the {@link Context} available at creation time.
+ * <p/>
+ * The requests served asynchronously are run by a separate executor (see {@link #getServingExecutor()}), since writing
+ * a bundle to a slow client blocks the thread and would starve the background work.
+ * <p/>
+ * A task submitted with {@link #submit(Callable)} by a thread of the shared executor is run by the submitting thread.
+ * This prevents the deadlock which would occur when all threads of the executor await tasks they submitted themselves
+ * (ex: the preProcessing of a group refreshed in background).
+ * <p/>
+ * The executors are owned by this provider and must not be shutdown by their consumers.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class WroExecutorProvider
+    implements WroExecutorProviderMBean, Destroyable {
+  private static final Logger LOG = LoggerFactory.getLogger(WroExecutorProvider.class);
+  /**
+   * Rejected tasks are run by the submitting thread.
+   */
+  public static final String POLICY_CALLER_RUNS = "callerRuns";
+  /**
+   * Rejected tasks are failing with {@link java.util.concurrent.RejectedExecutionException}.
+   */
+  public static final String POLICY_ABORT = "abort";
+  /**
+   * Rejected tasks are discarded. The {@link Future} of a discarded task is canceled.
+   */
+  public static final String POLICY_DISCARD = "discard";
+  /**
+   * The oldest task waiting in the queue is discarded in favor of the rejected one. The {@link Future} of the discarded
+   * task is canceled.
+   */
+  public static final String POLICY_DISCARD_OLDEST = "discardOldest";
+  /**
+   * Marks the threads of the shared executor.
+   */
+  private final ThreadLocal<Boolean> workerThread = new ThreadLocal<Boolean>();
+  private final AtomicLong rejectedTaskCount = new AtomicLong();
+  private final DestroyableLazyInitializer<ThreadPoolExecutor> executorInitializer = new DestroyableLazyInitializer<ThreadPoolExecutor>() {
+    @Override
+    protected ThreadPoolExecutor initialize() {
+      return newExecutor(getConfig());
+    }
+
+    @Override
+    public void destroy() {
+      if (isInitialized()) {
+        for (final Runnable task : get().shutdownNow()) {
+          cancel(task);
+        }
+      }
+      super.destroy();
+    }
+  };
+  private final DestroyableLazyInitializer<ThreadPoolExecutor> servingExecutorInitializer = new DestroyableLazyInitializer<ThreadPoolExecutor>() {
+    @Override
+    protected ThreadPoolExecutor initialize() {
+      return newServingExecutor(getConfig());
+    }
+
+    @Override
+    public void destroy() {
+      if (isInitialized()) {
+        for (final Runnable task : get().shutdownNow()) {
+          cancel(task);
+        }
+      }
+      super.destroy();
+    }
+  };
+  private final DestroyableLazyInitializer<ScheduledThreadPoolExecutor> schedulerInitializer = new DestroyableLazyInitializer<ScheduledThreadPoolExecutor>() {
+    @Override
+    protected ScheduledThreadPoolExecutor initialize() {
+      return newScheduler(getConfig());
+    }
+
+    @Override
+    public void destroy() {
+      if (isInitialized()) {
+        get().shutdownNow();
+      }
+      super.destroy();
+    }
+  };
+
+  /**
+   * @return the executor shared by all wro4j background work.
+   */
+  public ExecutorService getExecutor() {
+    return executorInitializer.get();
+  }
+
+  /**
+   * @return the executor serving the requests processed asynchronously. It has the same size as the shared executor,
+   *         but its own threads. A task which cannot be accepted fails with
+   *         {@link java.util.concurrent.RejectedExecutionException}, regardless of the configured rejection policy. The
+   *         {@link Future} of a task still queued when this provider is destroyed is canceled.
+   */
+  public ExecutorService getServingExecutor() {
+    return servingExecutorInitializer.get();
+  }
+
+  /**
+   * @return the scheduler shared by all wro4j periodic jobs.
+   */
+  public ScheduledExecutorService getScheduler() {
+    return schedulerInitializer.get();
+  }
+
+  /**
+   * Submits the callable to the shared executor. When invoked by a thread of the shared executor, the callable is run
+   * synchronously.
+   *
+   * @return the {@link Future} holding the result of the callable.
+   */
+  public <T> Future<T> submit(final Callable<T> callable) {
+    notNull(callable);
+    if (isWorkerThread()) {
+      final FutureTask<T> task = new FutureTask<T>(callable);
+      task.run();
+      return task;
+    }
+    return getExecutor().submit(callable);
+  }
+
+  /**
+   * @return true if the current thread belongs to the shared executor.
+   */
+  public boolean isWorkerThread() {
+    return Boolean.TRUE.equals(workerThread.get());
+  }
+
+  private WroConfiguration getConfig() {
+    return Context.isContextSet() ? Context.get().getConfig() : new WroConfiguration();
+  }
+
+  private ThreadPoolExecutor newExecutor(final WroConfiguration config) {
+    final int poolSize = computePoolSize(config);
+    LOG.debug("Creating executor with poolSize: {}, queueSize: {}", poolSize, config.getExecutorQueueSize());
+    return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, newQueue(config),
+        markWorkerThreads(newThreadFactory(config, "worker")), newRejectionPolicy(config.getExecutorRejectionPolicy()));
+  }
+
+  /**
+   * The threads of the serving executor are not marked as worker threads, thus the background work they submit is run
+   * by the shared executor.
+   */
+  private ThreadPoolExecutor newServingExecutor(final WroConfiguration config) {
+    final int poolSize = computePoolSize(config);
+    LOG.debug("Creating serving executor with poolSize: {}", poolSize);
+    return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, newQueue(config),
+        newThreadFactory(config, "serving"), newRejectionPolicy(POLICY_ABORT));
+  }
+
+  private int computePoolSize(final WroConfiguration config) {
+    return config.getExecutorPoolSize() > 0 ? config.getExecutorPoolSize() : Runtime.getRuntime().availableProcessors();
+  }
+
+  private BlockingQueue<Runnable> newQueue(final WroConfiguration config) {
+    final int queueSize = config.getExecutorQueueSize();
+    return queueSize > 0 ? new ArrayBlockingQueue<Runnable>(queueSize) : new LinkedBlockingQueue<Runnable>();
+  }
+
+  private ThreadFactory newThreadFactory(final WroConfiguration config, final String name) {
+    return config.isExecutorVirtualThreads() ? newVirtualThreadFactory(name) : WroUtil.createDaemonThreadFactory(name);
+  }
+
+  private ScheduledThreadPoolExecutor newScheduler(final WroConfiguration config) {
+    final int poolSize = Math.max(1, config.getSchedulerPoolSize());
+    LOG.debug("Creating scheduler with poolSize: {}", poolSize);
+    return new ScheduledThreadPoolExecutor(poolSize, WroUtil.createDaemonThreadFactory("scheduler")) {
+      @Override
+      public boolean getExecuteExistingDelayedTasksAfterShutdownPolicy() {
+        return false;
+      };
+    };
+  }
+
+  /**
+   * @return the {@link ThreadFactory} creating virtual threads or the default {@link ThreadFactory} when virtual
+   *         threads are not supported by the JVM.
+   */
+  private ThreadFactory newVirtualThreadFactory(final String name) {
+    try {
+      // use reflection, since virtual threads are available only since JDK 21.
+      final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      final Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+      builder = nameMethod.invoke(builder, "wro4j-" + name + "-virtual-", 1L);
+      LOG.debug("Using virtual threads");
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (final Exception e) {
+      LOG.warn("Virtual threads are not supported by this JVM, using platform threads instead.");
+      LOG.debug("[FAIL] creating virtual thread factory", e);
+      return WroUtil.createDaemonThreadFactory(name);
+    }
+  }
+
+  private ThreadFactory markWorkerThreads(final ThreadFactory threadFactory) {
+    return new ThreadFactory() {
+      public Thread newThread(final Runnable runnable) {
+        return threadFactory.newThread(new Runnable() {
+          public void run() {
+            workerThread.set(Boolean.TRUE);
+            runnable.run();
+          }
+        });
+      }
+    };
+  }
+
+  /**
+   * Cancels a task which won't be run, in order to release the threads waiting for its result.
+   */
+  private static void cancel(final Runnable task) {
+    if (task instanceof Future) {
+      ((Future<?>) task).cancel(false);
+    }
+  }
+
+  /**
+   * @param alias
+   *          the alias of the policy. When null, the {@link #POLICY_CALLER_RUNS} policy is used.
+   * @return the {@link RejectedExecutionHandler} associated with the alias, which counts the rejected tasks. The tasks
+   *         which are not run (discarded or rejected after shutdown) are canceled.
+   */
+  private RejectedExecutionHandler newRejectionPolicy(final String alias) {
+    final RejectedExecutionHandler handler;
+    if (StringUtils.isEmpty(alias) || POLICY_CALLER_RUNS.equals(alias)) {
+      handler = new RejectedExecutionHandler() {
+        public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor executor) {
+          if (executor.isShutdown()) {
+            cancel(runnable);
+          } else {
+            runnable.run();
+          }
+        }
+      };
+    } else if (POLICY_ABORT.equals(alias)) {
+      handler = new ThreadPoolExecutor.AbortPolicy();
+    } else if (POLICY_DISCARD.equals(alias)) {
+      handler = new RejectedExecutionHandler() {
+        public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor executor) {
+          cancel(runnable);
+        }
+      };
+    } else if (POLICY_DISCARD_OLDEST.equals(alias)) {
+      handler = new RejectedExecutionHandler() {
+        public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor executor) {
+          if (executor.isShutdown()) {
+            cancel(runnable);
+          } else {
+            cancel(executor.getQueue().poll());
+            executor.execute(runnable);
+          }
+        }
+      };
+    } else {
+      throw new WroRuntimeException("Invalid executor rejection policy: " + alias);
+    }
+    return new RejectedExecutionHandler() {
+      public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor executor) {
+        rejectedTaskCount.incrementAndGet();
+        LOG.debug("Task rejected, queue size: {}", executor.getQueue().size());
+        handler.rejectedExecution(runnable, executor);
+      }
+    };
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getPoolSize() {
+    return executorInitializer.isInitialized() ? executorInitializer.get().getPoolSize() : 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getActiveCount() {
+    return executorInitializer.isInitialized() ? executorInitializer.get().getActiveCount() : 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getQueueSize() {
+    return executorInitializer.isInitialized() ? executorInitializer.get().getQueue().size() : 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getCompletedTaskCount() {
+    return executorInitializer.isInitialized() ? executorInitializer.get().getCompletedTaskCount() : 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getRejectedTaskCount() {
+    return rejectedTaskCount.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getScheduledTaskCount() {
+    return schedulerInitializer.isInitialized() ? schedulerInitializer.get().getQueue().size() : 0;
+  }
+
+  /**
+   * Stops the shared threads. Any running task is interrupted.
+   */
+  public void destroy() {
+    servingExecutorInitializer.destroy();
+    executorInitializer.destroy();
+    schedulerInitializer.destroy();
+  }
+}
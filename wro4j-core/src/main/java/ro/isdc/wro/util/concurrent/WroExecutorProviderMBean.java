@@ -0,0 +1,43 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.util.concurrent;
+
+/**
+ * Exposes through JMX the state of the threads used for wro4j background work.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public interface WroExecutorProviderMBean {
+  /**
+   * @return the number of threads of the shared executor.
+   */
+  int getPoolSize();
+
+  /**
+   * @return the number of threads of the shared executor which are running a task.
+   */
+  int getActiveCount();
+
+  /**
+   * @return the number of tasks waiting for a thread of the shared executor.
+   */
+  int getQueueSize();
+
+  /**
+   * @return the number of tasks completed by the shared executor.
+   */
+  long getCompletedTaskCount();
+
+  /**
+   * @return the number of tasks rejected because the queue of the shared executor was full.
+   */
+  long getRejectedTaskCount();
+
+  /**
+   * @return the number of tasks scheduled by the shared scheduler.
+   */
+  int getScheduledTaskCount();
+}
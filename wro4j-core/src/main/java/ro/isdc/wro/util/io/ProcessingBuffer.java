@@ -0,0 +1,158 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.util.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+import org.apache.commons.io.output.StringBuilderWriter;
+
+
+/**
+ * A pair of reusable char buffers used to chain processors: the output of one processor becomes the input of the next
+ * one after a {@link #flip()}, without creating intermediate {@link String} copies of the content. The capacity of the
+ * buffers is preserved between usages, thus a single instance can be used to process several resources in a row.
+ * <p/>
+ * This class is not thread-safe.
+ *
+ * @author Alex Objelean
+ * @created 18 Oct 2014
+ * @since 1.7.8
+ */
+public class ProcessingBuffer {
+  private StringBuilder input = new StringBuilder();
+  private StringBuilder output = new StringBuilder();
+
+  /**
+   * @return a {@link Reader} over the content written before the last {@link #flip()}.
+   */
+  public Reader getReader() {
+    return new StringBuilderReader(input);
+  }
+
+  /**
+   * @return a {@link Writer} appending to the output buffer. The output buffer is emptied by {@link #clear()} and
+   *         {@link #flip()}.
+   */
+  public Writer getWriter() {
+    return new StringBuilderWriter(output);
+  }
+
+  /**
+   * Makes the content written so far available for reading and prepares an empty output buffer.
+   */
+  public void flip() {
+    final StringBuilder temp = input;
+    input = output;
+    output = temp;
+    output.setLength(0);
+  }
+
+  /**
+   * Discards the content of both buffers, keeping their capacity.
+   */
+  public void clear() {
+    input.setLength(0);
+    output.setLength(0);
+  }
+
+  /**
+   * Writes the readable content (written before the last {@link #flip()}) to the provided writer.
+   */
+  public void writeTo(final Writer writer)
+      throws IOException {
+    final int length = input.length();
+    final char[] chunk = new char[Math.min(length, StringBuilderReader.CHUNK_SIZE)];
+    int index = 0;
+    while (index < length) {
+      final int count = Math.min(chunk.length, length - index);
+      input.getChars(index, index + count, chunk, 0);
+      writer.write(chunk, 0, count);
+      index += count;
+    }
+  }
+
+  /**
+   * @return the length of readable content.
+   */
+  public int length() {
+    return input.length();
+  }
+
+  /**
+   * @return the readable content as {@link String}.
+   */
+  @Override
+  public String toString() {
+    return input.toString();
+  }
+
+  /**
+   * A {@link Reader} over a {@link StringBuilder} which reads using bulk {@link StringBuilder#getChars(int, int, char[], int)}
+   * copies.
+   */
+  private static class StringBuilderReader
+      extends Reader {
+    private static final int CHUNK_SIZE = 8192;
+    private final StringBuilder builder;
+    private int index;
+    private int mark;
+
+    public StringBuilderReader(final StringBuilder builder) {
+      this.builder = builder;
+    }
+
+    @Override
+    public int read()
+        throws IOException {
+      return index < builder.length() ? builder.charAt(index++) : -1;
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len)
+        throws IOException {
+      final int available = builder.length() - index;
+      if (available <= 0) {
+        return -1;
+      }
+      final int count = Math.min(available, len);
+      builder.getChars(index, index + count, cbuf, off);
+      index += count;
+      return count;
+    }
+
+    @Override
+    public long skip(final long n)
+        throws IOException {
+      final int count = (int) Math.min(Math.max(n, 0), builder.length() - index);
+      index += count;
+      return count;
+    }
+
+    @Override
+    public boolean ready() {
+      return true;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public void mark(final int readAheadLimit) {
+      mark = index;
+    }
+
+    @Override
+    public void reset() {
+      index = mark;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
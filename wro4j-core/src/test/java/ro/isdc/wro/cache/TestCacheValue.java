@@ -3,6 +3,15 @@
  */
 package ro.isdc.wro.cache;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -10,6 +19,9 @@ import org.junit.Test;
 
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.http.support.ContentEncoder;
+import ro.isdc.wro.http.support.DeflateContentEncoder;
+import ro.isdc.wro.http.support.GzipContentEncoder;
 
 /**
  * @author Alex Objelean
@@ -56,6 +68,88 @@ public class TestCacheValue {
     Assert.assertNotNull(entry.getGzippedContent());
   }
 
+  @Test
+  public void shouldStoreEncodedContent()
+      throws Exception {
+    final String content = "\u0103\u00ee\u0219";
+    final CacheValue entry = CacheValue.valueOf(content, "hash");
+    Assert.assertEquals(content, entry.getRawContent());
+    Assert.assertArrayEquals(content.getBytes("UTF-8"), entry.getContent());
+    Assert.assertEquals(6, entry.getContentLength());
+    Assert.assertEquals("UTF-8", entry.getCharset());
+  }
+
+  @Test
+  public void shouldHandleNullContent() {
+    final CacheValue entry = CacheValue.valueOf(null, null);
+    Assert.assertNull(entry.getRawContent());
+    Assert.assertNull(entry.getContent());
+    Assert.assertEquals(0, entry.getContentLength());
+  }
+
+  @Test
+  public void shouldComputeDistinctETagForEncodedContent() {
+    final CacheValue entry = CacheValue.valueOf(RAW_CONTENT, "hash");
+    Assert.assertEquals("\"hash\"", entry.getETag());
+    Assert.assertEquals("\"hash\"", entry.getETag(null));
+    Assert.assertEquals("\"hash-gzip\"", entry.getETag(new GzipContentEncoder()));
+    Assert.assertEquals("\"hash-deflate\"", entry.getETag(new DeflateContentEncoder()));
+  }
+
+  @Test
+  public void shouldEncodeContentWithProvidedEncoder()
+      throws Exception {
+    final CacheValue entry = CacheValue.valueOf(RAW_CONTENT, "hash");
+    final byte[] encoded = entry.getEncodedContent(new DeflateContentEncoder(9));
+    Assert.assertEquals(RAW_CONTENT, IOUtils.toString(new InflaterInputStream(new ByteArrayInputStream(encoded))));
+    final byte[] gzipped = entry.getGzippedContent();
+    Assert.assertEquals(RAW_CONTENT, IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(gzipped))));
+  }
+
+  @Test
+  public void shouldMemoizeEncodedContentWhenCacheGzippedContentIsEnabled() {
+    Context.get().getConfig().setCacheGzippedContent(true);
+    final CacheValue entry = CacheValue.valueOf(RAW_CONTENT, "hash");
+    final ContentEncoder encoder = new DeflateContentEncoder();
+    Assert.assertSame(entry.getEncodedContent(encoder), entry.getEncodedContent(encoder));
+    Assert.assertSame(entry.getGzippedContent(), entry.getGzippedContent());
+  }
+
+  @Test
+  public void shouldNotMemoizeEncodedContentByDefault() {
+    final CacheValue entry = CacheValue.valueOf(RAW_CONTENT, "hash");
+    final ContentEncoder encoder = new DeflateContentEncoder();
+    Assert.assertNotSame(entry.getEncodedContent(encoder), entry.getEncodedContent(encoder));
+  }
+
+  @Test
+  public void shouldServeContentBackedByBuffer()
+      throws Exception {
+    Context.get().getConfig().setCacheGzippedContent(true);
+    final CacheValue entry = CacheValue.valueOf(RAW_CONTENT, "hash");
+    final CacheValue bufferedEntry = entry.withContentBuffer(ByteBuffer.wrap(entry.getContent()));
+    Assert.assertTrue(bufferedEntry.hasContent());
+    Assert.assertEquals(RAW_CONTENT, bufferedEntry.getRawContent());
+    Assert.assertEquals(entry.getETag(), bufferedEntry.getETag());
+    Assert.assertEquals(entry.getContentLength(), bufferedEntry.getContentLength());
+    Assert.assertNotNull(bufferedEntry.getGzippedContentInternal());
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    bufferedEntry.writeContentTo(os);
+    Assert.assertEquals(RAW_CONTENT, new String(os.toByteArray(), entry.getCharset()));
+  }
+
+  @Test
+  public void shouldSerializeContentBackedByBuffer()
+      throws Exception {
+    final CacheValue entry = CacheValue.valueOf(RAW_CONTENT, "hash");
+    final CacheValue bufferedEntry = entry.withContentBuffer(ByteBuffer.wrap(entry.getContent()));
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    new ObjectOutputStream(os).writeObject(bufferedEntry);
+    final CacheValue deserialized = (CacheValue) new ObjectInputStream(new ByteArrayInputStream(os.toByteArray())).readObject();
+    Assert.assertEquals(RAW_CONTENT, deserialized.getRawContent());
+    Assert.assertEquals("hash", deserialized.getHash());
+  }
+
   @After
   public void tearDown() {
     Context.unset();
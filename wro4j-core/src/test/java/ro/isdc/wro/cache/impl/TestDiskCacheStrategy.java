@@ -0,0 +1,315 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.cache.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.WroModel;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.group.Inject;
+import ro.isdc.wro.model.group.processor.Injector;
+import ro.isdc.wro.model.group.processor.InjectorBuilder;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.locator.UriLocator;
+import ro.isdc.wro.model.resource.locator.factory.AbstractUriLocatorFactory;
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.factory.SimpleProcessorsFactory;
+import ro.isdc.wro.util.WroTestUtils;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestDiskCacheStrategy {
+  private static final String GROUP_NAME = "g1";
+  private static final String RESOURCE_URI = "/test.js";
+  private static final String DEPENDENCY_URI = "/imported.js";
+  private static final CacheKey KEY = new CacheKey(GROUP_NAME, ResourceType.JS, true);
+  private File directory;
+  private String resourceContent;
+  /**
+   * The content of the resources whose content is different than {@link #resourceContent}, mapped by uri.
+   */
+  private Map<String, String> contents;
+  private AtomicInteger locateCount;
+  private ConfigurableProcessor processor;
+  private Injector injector;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
+
+  /**
+   * A processor having an option.
+   */
+  private static class ConfigurableProcessor
+      implements ResourcePreProcessor {
+    private String option = "initial";
+
+    public void process(final Resource resource, final Reader reader, final Writer writer)
+        throws IOException {
+    }
+  }
+
+  @Before
+  public void setUp() {
+    Context.set(Context.standaloneContext());
+    directory = new File(FileUtils.getTempDirectory(), "wro4j-disk-" + System.nanoTime());
+    resourceContent = "initial";
+    contents = new HashMap<String, String>();
+    locateCount = new AtomicInteger();
+    processor = new ConfigurableProcessor();
+    final WroModel model = new WroModel().addGroup(new Group(GROUP_NAME).addResource(Resource.create(RESOURCE_URI)));
+    final BaseWroManagerFactory factory = new BaseWroManagerFactory().setModelFactory(
+        WroTestUtils.simpleModelFactory(model)).setUriLocatorFactory(new AbstractUriLocatorFactory() {
+      public UriLocator getInstance(final String uri) {
+        return new UriLocator() {
+          public InputStream locate(final String uri)
+              throws IOException {
+            locateCount.incrementAndGet();
+            final String content = contents.containsKey(uri) ? contents.get(uri) : resourceContent;
+            return new ByteArrayInputStream(content.getBytes());
+          }
+
+          public boolean accept(final String uri) {
+            return true;
+          }
+        };
+      }
+    });
+    factory.setProcessorsFactory(new SimpleProcessorsFactory().addPreProcessor(processor));
+    injector = InjectorBuilder.create(factory).build();
+    injector.inject(this);
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+    FileUtils.deleteQuietly(directory);
+  }
+
+  /**
+   * Simulates a new JVM, by creating a new instance using the same folder.
+   */
+  private DiskCacheStrategy createVictim() {
+    return injector.inject(new DiskCacheStrategy(new MemoryCacheStrategy<CacheKey, CacheValue>(), directory));
+  }
+
+  @Test
+  public void shouldLoadPersistedValueAfterRestart() {
+    createVictim().put(KEY, CacheValue.valueOf("processed", "hash"));
+    final CacheValue value = createVictim().get(KEY);
+    assertNotNull(value);
+    assertEquals("processed", value.getRawContent());
+    assertEquals("hash", value.getHash());
+  }
+
+  @Test
+  public void shouldPersistNullContent() {
+    createVictim().put(KEY, CacheValue.valueOf(null, null));
+    final CacheValue value = createVictim().get(KEY);
+    assertNotNull(value);
+    assertNull(value.getRawContent());
+    assertNull(value.getHash());
+  }
+
+  @Test
+  public void shouldNotUsePersistedValueWhenResourceChanged() {
+    createVictim().put(KEY, CacheValue.valueOf("processed", "hash"));
+    resourceContent = "changed";
+    assertNull(createVictim().get(KEY));
+  }
+
+  @Test
+  public void shouldNotUsePersistedValueOfDifferentKey() {
+    createVictim().put(KEY, CacheValue.valueOf("processed", "hash"));
+    assertNull(createVictim().get(new CacheKey(GROUP_NAME, ResourceType.JS, false)));
+    assertNull(createVictim().get(new CacheKey(GROUP_NAME, ResourceType.JS, true).addAttribute("browser", "ie")));
+  }
+
+  @Test
+  public void shouldNotUsePersistedValueWhenProcessorConfigurationChanged() {
+    createVictim().put(KEY, CacheValue.valueOf("processed", "hash"));
+    processor.option = "changed";
+    assertNull(createVictim().get(KEY));
+  }
+
+  @Test
+  public void shouldReadResourcesOncePerGroupVersion() {
+    final DiskCacheStrategy victim = createVictim();
+    victim.get(KEY);
+    victim.get(new CacheKey(GROUP_NAME, ResourceType.JS, false));
+    victim.get(new CacheKey(GROUP_NAME, ResourceType.JS, true).addAttribute("browser", "ie"));
+    assertEquals(1, locateCount.get());
+    victim.put(KEY, null);
+    victim.get(KEY);
+    assertEquals(2, locateCount.get());
+  }
+
+  @Test
+  public void shouldDeletePersistedValueWhenInvalidated() {
+    final DiskCacheStrategy victim = createVictim();
+    victim.put(KEY, CacheValue.valueOf("processed", "hash"));
+    victim.put(KEY, null);
+    assertNull(victim.get(KEY));
+    assertNull(createVictim().get(KEY));
+  }
+
+  @Test
+  public void shouldDeletePersistedValuesOnClear() {
+    final DiskCacheStrategy victim = createVictim();
+    victim.put(KEY, CacheValue.valueOf("processed", "hash"));
+    victim.clear();
+    assertNull(createVictim().get(KEY));
+  }
+
+  @Test
+  public void shouldNotUsePersistedValueWhenDependencyChanged() {
+    contents.put(DEPENDENCY_URI, "initial import");
+    putWithDependency(createVictim(), KEY);
+    contents.put(DEPENDENCY_URI, "changed import");
+    assertNull(createVictim().get(KEY));
+    assertEquals(0, directory.listFiles().length);
+  }
+
+  @Test
+  public void shouldUsePersistedValueWhenDependencyNotChanged() {
+    putWithDependency(createVictim(), KEY);
+    assertNotNull(createVictim().get(KEY));
+  }
+
+  @Test
+  public void shouldRecordDependenciesOfLoadedValue() {
+    putWithDependency(createVictim(), KEY);
+    dependencyGraph.clear();
+    createVictim().get(KEY);
+    assertTrue(dependencyGraph.getDependencies(KEY).contains(RESOURCE_URI));
+    assertTrue(dependencyGraph.getDependencies(KEY).contains(DEPENDENCY_URI));
+  }
+
+  /**
+   * Puts a value of the provided key, processed using the resource located at {@link #DEPENDENCY_URI}.
+   */
+  private void putWithDependency(final DiskCacheStrategy victim, final CacheKey key) {
+    dependencyGraph.startRecording(key);
+    try {
+      dependencyGraph.record(RESOURCE_URI);
+      dependencyGraph.record(DEPENDENCY_URI);
+    } finally {
+      dependencyGraph.stopRecording();
+    }
+    victim.put(key, CacheValue.valueOf("processed", "hash"));
+  }
+
+  @Test
+  public void shouldDeleteStaleFingerprintsOfKeyWhenWritten() {
+    final CacheKey otherKey = new CacheKey(GROUP_NAME, ResourceType.JS, false);
+    createVictim().put(KEY, CacheValue.valueOf("processed", "hash"));
+    createVictim().put(otherKey, CacheValue.valueOf("processed", "hash"));
+    resourceContent = "changed";
+    createVictim().put(KEY, CacheValue.valueOf("changed", "hash"));
+    assertEquals(2, directory.listFiles().length);
+    assertEquals("changed", createVictim().get(KEY).getRawContent());
+  }
+
+  @Test
+  public void shouldDeleteAllKeysOfGroupWhenInvalidated() {
+    final DiskCacheStrategy victim = createVictim();
+    victim.put(KEY, CacheValue.valueOf("processed", "hash"));
+    victim.put(new CacheKey(GROUP_NAME, ResourceType.JS, false), CacheValue.valueOf("processed", "hash"));
+    victim.put(new CacheKey(GROUP_NAME, ResourceType.CSS, false), CacheValue.valueOf("processed", "hash"));
+    victim.put(KEY, null);
+    assertEquals(1, directory.listFiles().length);
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedEntriesWhenSizeExceeded()
+      throws Exception {
+    final String content = new String(new char[1000]).replace('\0', 'a');
+    final CacheKey recentlyUsedKey = new CacheKey(GROUP_NAME, ResourceType.JS, false);
+    final CacheKey leastRecentlyUsedKey = new CacheKey(GROUP_NAME, ResourceType.CSS, false);
+    // allows two entries
+    Context.get().getConfig().setDiskCacheSize(2500);
+    createVictim().put(recentlyUsedKey, CacheValue.valueOf(content, "hash"));
+    createVictim().put(leastRecentlyUsedKey, CacheValue.valueOf(content, "hash"));
+    for (final File file : directory.listFiles()) {
+      file.setLastModified(System.currentTimeMillis() - 60000);
+    }
+    // marks the entry as recently used
+    assertNotNull(createVictim().get(recentlyUsedKey));
+    createVictim().put(KEY, CacheValue.valueOf(content, "hash"));
+
+    assertEquals(2, directory.listFiles().length);
+    assertNull(createVictim().get(leastRecentlyUsedKey));
+    assertNotNull(createVictim().get(recentlyUsedKey));
+    assertNotNull(createVictim().get(KEY));
+  }
+
+  @Test
+  public void shouldUseApplicationFolderByDefault() {
+    final DiskCacheStrategy victim = injector.inject(new DiskCacheStrategy(
+        new MemoryCacheStrategy<CacheKey, CacheValue>(), null));
+    final File defaultFolder = new File(FileUtils.getTempDirectory(), DiskCacheStrategy.DEFAULT_FOLDER_NAME);
+    try {
+      victim.put(KEY, CacheValue.valueOf("processed", "hash"));
+      final File[] applicationFolders = defaultFolder.listFiles();
+      assertNotNull(applicationFolders);
+      boolean found = false;
+      for (final File folder : applicationFolders) {
+        final String[] files = folder.list();
+        found |= folder.isDirectory() && files != null && files.length > 0;
+        assertFalse(folder.getName().endsWith(DiskCacheStrategy.FILE_SUFFIX));
+      }
+      assertTrue(found);
+    } finally {
+      victim.clear();
+    }
+  }
+
+  @Test
+  public void shouldDeleteInvalidEntriesOnStartup()
+      throws Exception {
+    directory.mkdirs();
+    final File invalidFile = new File(directory, "invalid" + DiskCacheStrategy.FILE_SUFFIX);
+    FileUtils.writeStringToFile(invalidFile, "invalid");
+    createVictim().get(KEY);
+    assertFalse(invalidFile.exists());
+  }
+
+  @Test
+  public void shouldDeleteCorruptedEntry()
+      throws Exception {
+    createVictim().put(KEY, CacheValue.valueOf("processed", "hash"));
+    final File file = directory.listFiles()[0];
+    final byte[] bytes = FileUtils.readFileToByteArray(file);
+    // alter the content
+    bytes[bytes.length - 10]++;
+    FileUtils.writeByteArrayToFile(file, bytes);
+    assertNull(createVictim().get(KEY));
+    assertFalse(file.exists());
+  }
+}
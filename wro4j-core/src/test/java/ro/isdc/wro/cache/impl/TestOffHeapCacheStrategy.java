@@ -0,0 +1,118 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.cache.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.resource.ResourceType;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestOffHeapCacheStrategy {
+  private static final String CONTENT = "0123456789";
+  private static final CacheKey KEY1 = new CacheKey("g1", ResourceType.JS, false);
+  private static final CacheKey KEY2 = new CacheKey("g2", ResourceType.JS, false);
+  private static final CacheKey KEY3 = new CacheKey("g3", ResourceType.CSS, false);
+  private OffHeapCacheStrategy victim;
+  private File directory;
+
+  @Before
+  public void setUp() {
+    Context.set(Context.standaloneContext());
+    victim = new OffHeapCacheStrategy(25, null);
+    directory = new File(FileUtils.getTempDirectory(), "wro4j-offHeap-" + System.nanoTime());
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+    FileUtils.deleteQuietly(directory);
+  }
+
+  @Test
+  public void shouldStoreContentOffHeap()
+      throws Exception {
+    victim.put(KEY1, CacheValue.valueOf(CONTENT, "hash"));
+    final CacheValue value = victim.get(KEY1);
+    assertEquals(CONTENT, value.getRawContent());
+    assertEquals("hash", value.getHash());
+    assertEquals(CONTENT.length(), value.getContentLength());
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    value.writeContentTo(os);
+    assertEquals(CONTENT, new String(os.toByteArray(), value.getCharset()));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedWhenMaxBytesExceeded() {
+    victim.put(KEY1, CacheValue.valueOf(CONTENT, "1"));
+    victim.put(KEY2, CacheValue.valueOf(CONTENT, "2"));
+    assertNotNull(victim.get(KEY1));
+    victim.put(KEY3, CacheValue.valueOf(CONTENT, "3"));
+    assertNull(victim.get(KEY2));
+    assertNotNull(victim.get(KEY1));
+    assertNotNull(victim.get(KEY3));
+    assertEquals(20, victim.getUsedBytes());
+  }
+
+  @Test
+  public void shouldKeepEntryLargerThanMaxBytes() {
+    victim.put(KEY1, CacheValue.valueOf(CONTENT, "1"));
+    victim.put(KEY2, CacheValue.valueOf(CONTENT + CONTENT + CONTENT, "2"));
+    assertNull(victim.get(KEY1));
+    assertNotNull(victim.get(KEY2));
+    assertEquals(30, victim.getUsedBytes());
+  }
+
+  @Test
+  public void shouldInvalidateEntryWhenNullValueIsPut() {
+    victim.put(KEY1, CacheValue.valueOf(CONTENT, "1"));
+    victim.put(KEY1, null);
+    assertNull(victim.get(KEY1));
+    assertEquals(0, victim.getUsedBytes());
+  }
+
+  @Test
+  public void shouldReleaseBytesOnClear() {
+    victim.put(KEY1, CacheValue.valueOf(CONTENT, "1"));
+    victim.put(KEY2, CacheValue.valueOf(null, "2"));
+    victim.clear();
+    assertNull(victim.get(KEY1));
+    assertNull(victim.get(KEY2));
+    assertEquals(0, victim.getUsedBytes());
+  }
+
+  @Test
+  public void shouldStoreContentInMemoryMappedFiles() {
+    victim = new OffHeapCacheStrategy(100, directory);
+    victim.put(KEY1, CacheValue.valueOf(CONTENT, "1"));
+    victim.put(KEY2, CacheValue.valueOf("", "2"));
+    assertEquals(CONTENT, victim.get(KEY1).getRawContent());
+    assertEquals("", victim.get(KEY2).getRawContent());
+  }
+
+  @Test
+  public void shouldUseSettingsFromConfiguration() {
+    Context.get().getConfig().setOffHeapCacheSize(15);
+    victim = new OffHeapCacheStrategy();
+    victim.put(KEY1, CacheValue.valueOf(CONTENT, "1"));
+    victim.put(KEY2, CacheValue.valueOf(CONTENT, "2"));
+    assertNull(victim.get(KEY1));
+    assertEquals(10, victim.getUsedBytes());
+  }
+}
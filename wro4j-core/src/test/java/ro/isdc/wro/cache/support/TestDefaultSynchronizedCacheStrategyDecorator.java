@@ -29,6 +29,7 @@ import ro.isdc.wro.cache.impl.MemoryCacheStrategy;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
 import ro.isdc.wro.model.WroModel;
+import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.factory.WroModelFactory;
 import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.group.processor.Injector;
@@ -53,6 +54,8 @@ public class TestDefaultSynchronizedCacheStrategyDecorator {
   private DefaultSynchronizedCacheStrategyDecorator victim;
   @Mock
   private ResourceWatcher mockResourceWatcher;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
 
   @BeforeClass
   public static void onBeforeClass() {
@@ -75,7 +78,9 @@ public class TestDefaultSynchronizedCacheStrategyDecorator {
         return TimeUnit.MILLISECONDS;
       }
     };
-    createInjector().inject(victim);
+    final Injector injector = createInjector();
+    injector.inject(victim);
+    injector.inject(this);
   }
 
   @After
@@ -203,4 +208,28 @@ public class TestDefaultSynchronizedCacheStrategyDecorator {
     victim.get(key);
     assertTrue(victim.wasCheckedForChange(key));
   }
+
+  @Test
+  public void shouldRemoveDependenciesOfInvalidatedKey() {
+    final CacheKey key = new CacheKey(GROUP_NAME, ResourceType.JS, true);
+    victim.get(key);
+    assertTrue(dependencyGraph.getDependencies(key).contains(RESOURCE_URI));
+
+    victim.put(key, null);
+    assertTrue(dependencyGraph.getDependencies(key).isEmpty());
+    assertTrue(dependencyGraph.getDependentKeys(RESOURCE_URI).isEmpty());
+
+    victim.get(key);
+    assertTrue(dependencyGraph.getDependentKeys(RESOURCE_URI).contains(key));
+  }
+
+  @Test
+  public void shouldClearDependenciesWhenCacheIsCleared() {
+    final CacheKey key = new CacheKey(GROUP_NAME, ResourceType.JS, true);
+    victim.get(key);
+    assertEquals(1, dependencyGraph.getCacheKeyCount());
+
+    victim.clear();
+    assertEquals(0, dependencyGraph.getCacheKeyCount());
+  }
 }
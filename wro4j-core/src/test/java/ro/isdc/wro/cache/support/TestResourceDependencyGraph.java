@@ -0,0 +1,146 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.cache.support;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.model.resource.ResourceType;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestResourceDependencyGraph {
+  private ResourceDependencyGraph victim;
+  private CacheKey jsKey;
+  private CacheKey cssKey;
+
+  @Before
+  public void setUp() {
+    victim = new ResourceDependencyGraph();
+    jsKey = new CacheKey("g1", ResourceType.JS, true);
+    cssKey = new CacheKey("g1", ResourceType.CSS, true);
+  }
+
+  @Test
+  public void shouldNotRecordWhenNoKeyIsRecorded() {
+    victim.record("/a.js");
+    assertTrue(victim.getDependentKeys("/a.js").isEmpty());
+    assertEquals(0, victim.getResourceCount());
+  }
+
+  @Test
+  public void shouldCountLocatedResourcesEvenWhenNoKeyIsRecorded() {
+    assertEquals(0, victim.getLocatedCount());
+    victim.record("/a.js");
+    victim.startRecording(jsKey);
+    victim.record("/b.js");
+    victim.stopRecording();
+    assertEquals(2, victim.getLocatedCount());
+  }
+
+  @Test
+  public void shouldRecordLocatedResources() {
+    victim.startRecording(jsKey);
+    victim.record("/a.js");
+    victim.record("/b.js");
+    victim.stopRecording();
+    victim.record("/c.js");
+    assertEquals(new HashSet<CacheKey>(Arrays.asList(jsKey)), victim.getDependentKeys("/a.js"));
+    assertEquals(new HashSet<String>(Arrays.asList("/a.js", "/b.js")), victim.getDependencies(jsKey));
+    assertEquals(2, victim.getResourceCount());
+    assertEquals(1, victim.getCacheKeyCount());
+  }
+
+  @Test
+  public void shouldRecordNestedKeys() {
+    victim.startRecording(cssKey);
+    victim.record("/a.css");
+    victim.startRecording(jsKey);
+    victim.record("/a.js");
+    victim.stopRecording();
+    victim.record("/imported.css");
+    victim.stopRecording();
+    assertEquals(new HashSet<String>(Arrays.asList("/a.css", "/imported.css")), victim.getDependencies(cssKey));
+    assertEquals(new HashSet<String>(Arrays.asList("/a.js")), victim.getDependencies(jsKey));
+  }
+
+  @Test
+  public void shouldKeepPreviousDependenciesWhenKeyIsRecordedAgain() {
+    victim.startRecording(cssKey);
+    victim.record("/imported.css");
+    victim.stopRecording();
+    victim.startRecording(cssKey);
+    victim.record("/a.css");
+    victim.stopRecording();
+    assertEquals(new HashSet<String>(Arrays.asList("/a.css", "/imported.css")), victim.getDependencies(cssKey));
+  }
+
+  @Test
+  public void shouldRecordResourcesLocatedInOtherThreads()
+      throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      victim.startRecording(jsKey);
+      final Callable<Void> task = victim.propagate(new Callable<Void>() {
+        public Void call() {
+          victim.record("/a.js");
+          return null;
+        }
+      });
+      victim.stopRecording();
+      executor.submit(task).get();
+      assertEquals(new HashSet<CacheKey>(Arrays.asList(jsKey)), victim.getDependentKeys("/a.js"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void shouldRemoveDependenciesOfKey() {
+    victim.startRecording(jsKey);
+    victim.record("/a.js");
+    victim.stopRecording();
+    victim.startRecording(cssKey);
+    victim.record("/a.css");
+    victim.stopRecording();
+    victim.remove(jsKey);
+    assertTrue(victim.getDependentKeys("/a.js").isEmpty());
+    assertArrayEquals(new String[] {
+      "/a.css"
+    }, victim.getResourceUris());
+  }
+
+  @Test
+  public void shouldDescribeDependentKeys() {
+    victim.startRecording(jsKey);
+    victim.record("/a.js");
+    victim.stopRecording();
+    assertArrayEquals(new String[] {
+      "g1.js"
+    }, victim.getDependentCacheKeys("/a.js"));
+  }
+
+  @Test
+  public void shouldClearAllDependencies() {
+    victim.startRecording(jsKey);
+    victim.record("/a.js");
+    victim.stopRecording();
+    victim.clear();
+    assertEquals(0, victim.getResourceCount());
+    assertEquals(0, victim.getCacheKeyCount());
+  }
+}
@@ -2,6 +2,7 @@ package ro.isdc.wro.cache.support;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -14,9 +15,11 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.cache.CacheStrategy;
 import ro.isdc.wro.cache.impl.MemoryCacheStrategy;
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.util.concurrent.WroExecutorProvider;
 
 
 /**
@@ -82,18 +85,210 @@ public class TestSynchronizedCacheStrategyDecorator {
     Assert.assertEquals(2, count.get());
   }
   
+  @Test(expected = WroRuntimeException.class)
+  public void shouldFailWhenPendingLoadExceedsTimeout()
+      throws Exception {
+    createSlowCountingDecorator(100, false);
+    executor.execute(getRunnableForKey("key"));
+    Thread.sleep(50);
+    victim.get("key");
+  }
+
+  @Test
+  public void shouldPropagateLoadFailure() {
+    victim = new AbstractSynchronizedCacheStrategyDecorator<String, String>(decorated) {
+      @Override
+      protected String loadValue(final String key) {
+        throw new IllegalStateException("BOOM");
+      }
+    };
+    try {
+      victim.get("key");
+      Assert.fail("Should have failed");
+    } catch (final IllegalStateException e) {
+      assertEquals("BOOM", e.getMessage());
+    }
+    // a failed load should not prevent subsequent loads
+    try {
+      victim.get("key");
+      Assert.fail("Should have failed");
+    } catch (final IllegalStateException e) {
+    }
+  }
+
+  @Test
+  public void shouldServeStaleValueWhileRevalidating()
+      throws Exception {
+    final AtomicInteger count = createSlowCountingDecorator(0, true);
+    assertEquals("value-key-1", victim.get("key"));
+    victim.put("key", null);
+    final long start = System.currentTimeMillis();
+    assertEquals("value-key-1", victim.get("key"));
+    Assert.assertTrue(System.currentTimeMillis() - start < 300);
+    Thread.sleep(500);
+    assertEquals("value-key-2", victim.get("key"));
+    assertEquals(2, count.get());
+  }
+
+  @Test
+  public void shouldNotServeStaleValueAfterClear()
+      throws Exception {
+    final AtomicInteger count = createSlowCountingDecorator(0, true);
+    victim.get("key");
+    victim.put("key", null);
+    victim.clear();
+    assertEquals("value-key-2", victim.get("key"));
+    assertEquals(2, count.get());
+  }
+
+  @Test
+  public void shouldNotStoreValueInvalidatedDuringLoad()
+      throws Exception {
+    final AtomicInteger count = createSlowCountingDecorator();
+    executor.execute(getRunnableForKey("key"));
+    Thread.sleep(100);
+    victim.put("key", null);
+    awaitTermination();
+    assertEquals(1, count.get());
+    assertEquals(null, decorated.get("key"));
+  }
+
+  @Test
+  public void shouldRefreshAgainWhenRefreshIsDiscarded()
+      throws Exception {
+    final CountDownLatch latch = occupyExecutor(WroExecutorProvider.POLICY_DISCARD, true);
+    assertEquals("value-key-1", victim.get("key"));
+    latch.countDown();
+    assertRefreshed();
+  }
+
+  @Test
+  public void shouldRefreshAgainWhenRefreshIsDiscardedInFavorOfNewerTask()
+      throws Exception {
+    final CountDownLatch latch = occupyExecutor(WroExecutorProvider.POLICY_DISCARD_OLDEST, false);
+    // the refresh is queued, then discarded by the next submitted task
+    assertEquals("value-key-1", victim.get("key"));
+    victim.getExecutorProvider().getExecutor().execute(await(latch));
+    latch.countDown();
+    assertRefreshed();
+  }
+
+  @Test
+  public void shouldServeStaleValueWhenRefreshIsAborted()
+      throws Exception {
+    final CountDownLatch latch = occupyExecutor(WroExecutorProvider.POLICY_ABORT, true);
+    assertEquals("value-key-1", victim.get("key"));
+    latch.countDown();
+    assertRefreshed();
+  }
+
+  @Test
+  public void shouldServeStaleValueWhenRefreshIsRejectedAfterShutdown()
+      throws Exception {
+    occupyExecutor(WroExecutorProvider.POLICY_CALLER_RUNS, false);
+    victim.getExecutorProvider().getExecutor().shutdownNow();
+    assertEquals("value-key-1", victim.get("key"));
+    assertEquals("value-key-1", victim.get("key"));
+    victim.destroy();
+  }
+
+  /**
+   * Creates a decorator using an executor with a single thread which is busy until the returned latch is released. The
+   * value of "key" is loaded and invalidated, thus the next get triggers a refresh.
+   *
+   * @param fillQueue
+   *          true if the queue of the executor should be full as well.
+   */
+  private CountDownLatch occupyExecutor(final String rejectionPolicy, final boolean fillQueue) {
+    Context.set(Context.standaloneContext());
+    try {
+      Context.get().getConfig().setExecutorPoolSize(1);
+      Context.get().getConfig().setExecutorQueueSize(1);
+      Context.get().getConfig().setExecutorRejectionPolicy(rejectionPolicy);
+      createCountingDecorator();
+      // the executor is created using the configuration of the current context
+      victim.getExecutorProvider().getExecutor();
+    } finally {
+      Context.unset();
+    }
+    assertEquals("value-key-1", victim.get("key"));
+    victim.put("key", null);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final ExecutorService executor = victim.getExecutorProvider().getExecutor();
+    executor.execute(await(latch));
+    if (fillQueue) {
+      executor.execute(await(latch));
+    }
+    return latch;
+  }
+
+  private Runnable await(final CountDownLatch latch) {
+    return new Runnable() {
+      public void run() {
+        try {
+          latch.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+  /**
+   * Asserts that the stale value is served until a new refresh stores the new value.
+   */
+  private void assertRefreshed()
+      throws Exception {
+    final long start = System.currentTimeMillis();
+    String value = victim.get("key");
+    while ("value-key-1".equals(value) && System.currentTimeMillis() - start < 2000) {
+      Thread.sleep(10);
+      value = victim.get("key");
+    }
+    assertEquals("value-key-2", value);
+    victim.destroy();
+  }
+
+  private void createCountingDecorator() {
+    final AtomicInteger count = new AtomicInteger();
+    victim = new AbstractSynchronizedCacheStrategyDecorator<String, String>(decorated) {
+      @Override
+      protected String loadValue(final String key) {
+        return "value-" + key + "-" + count.incrementAndGet();
+      }
+
+      @Override
+      protected boolean isStaleWhileRevalidate() {
+        return true;
+      }
+    };
+  }
+
   protected AtomicInteger createSlowCountingDecorator() {
+    return createSlowCountingDecorator(0, false);
+  }
+
+  private AtomicInteger createSlowCountingDecorator(final long loadTimeout, final boolean staleWhileRevalidate) {
     final AtomicInteger count = new AtomicInteger();
     victim = new AbstractSynchronizedCacheStrategyDecorator<String, String>(decorated) {
       @Override
       protected String loadValue(final String key) {
         try {
           Thread.sleep(300);
-          count.incrementAndGet();
+          return "value-" + key + "-" + count.incrementAndGet();
         } catch (final InterruptedException e) {
           throw new RuntimeException(e);
         }
-        return "value-" + key;
+      }
+
+      @Override
+      protected long getLoadTimeout() {
+        return loadTimeout;
+      }
+
+      @Override
+      protected boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
       }
     };
     return count;
@@ -60,6 +60,8 @@ public class TestPropertyWroConfigurationFactory {
     assertEquals(true, config.isJmxEnabled());
     assertEquals(false, config.isCacheGzippedContent());
     assertEquals(false, config.isParallelPreprocessing());
+    assertEquals(false, config.isCachePreProcessedResources());
+    assertEquals(false, config.isDisableCache());
     assertEquals(true, config.isMinimizeEnabled());
     assertEquals(WroConfiguration.DEFAULT_CONNECTION_TIMEOUT, config.getConnectionTimeout());
     assertEquals(WroConfiguration.DEFAULT_ENCODING, config.getEncoding());
@@ -99,6 +101,7 @@ public class TestPropertyWroConfigurationFactory {
     assertEquals(10, config.getCacheUpdatePeriod());
     assertEquals(20, config.getModelUpdatePeriod());
     assertEquals(30, config.getResourceWatcherUpdatePeriod());
+    assertEquals(true, config.isDisableCache());
     assertEquals(false, config.isGzipEnabled());
     assertEquals(true, config.isCacheGzippedContent());
     assertEquals(true, config.isParallelPreprocessing());
@@ -12,6 +12,8 @@ import java.util.Collections;
 import java.util.zip.GZIPInputStream;
 
 import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
@@ -113,6 +115,33 @@ public class TestGzipFilter {
     assertEquals(content, IOUtils.toString(ungzippedStream));
   }
   
+  @Test
+  public void shouldNotGzipContentSmallerThanMinSize()
+      throws Exception {
+    markGzipAsAllowed();
+    final FilterConfig filterConfig = Mockito.mock(FilterConfig.class);
+    when(filterConfig.getInitParameter(GzipFilter.PARAM_MIN_SIZE)).thenReturn("100");
+    victim.init(filterConfig);
+    final String content = "sampleContent";
+    final ByteArrayOutputStream targetStream = new ByteArrayOutputStream();
+    when(mockRequest.getInputStream()).thenReturn(
+        new DelegatingServletInputStream(new ByteArrayInputStream(content.getBytes())));
+    when(mockResponse.getOutputStream()).thenReturn(new DelegatingServletOutputStream(targetStream));
+
+    victim.doFilter(mockRequest, mockResponse, mockFilterChain);
+
+    assertEquals(content, new String(targetStream.toByteArray()));
+    verify(mockResponse, Mockito.never()).setHeader("Content-Encoding", "gzip");
+  }
+
+  @Test(expected = ServletException.class)
+  public void cannotInitWithInvalidCompressionLevel()
+      throws Exception {
+    final FilterConfig filterConfig = Mockito.mock(FilterConfig.class);
+    when(filterConfig.getInitParameter(GzipFilter.PARAM_COMPRESSION_LEVEL)).thenReturn("10");
+    victim.init(filterConfig);
+  }
+
   private void markGzipAsAllowed() {
     final String headerName = "Accept-Encoding";
     when(mockRequest.getHeaderNames()).thenReturn(Collections.enumeration(Arrays.asList(headerName)));
@@ -4,19 +4,27 @@
 package ro.isdc.wro.http;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static ro.isdc.wro.http.handler.ResourceProxyRequestHandler.PARAM_RESOURCE_ID;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -55,6 +63,7 @@ import ro.isdc.wro.http.handler.RequestHandler;
 import ro.isdc.wro.http.handler.ResourceProxyRequestHandler;
 import ro.isdc.wro.http.handler.factory.RequestHandlerFactory;
 import ro.isdc.wro.http.support.DelegatingServletOutputStream;
+import ro.isdc.wro.http.support.TestAsyncContextAdapter.AsyncRequest;
 import ro.isdc.wro.http.support.UnauthorizedRequestException;
 import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
 import ro.isdc.wro.manager.factory.ConfigurableWroManagerFactory;
@@ -850,6 +859,166 @@ public class TestWroFilter {
     });
   }
 
+  @Test
+  public void shouldServeBundleAsynchronouslyWhenAsyncServingIsEnabled()
+      throws Exception {
+    final WroConfiguration config = new WroConfiguration();
+    config.setAsyncServing(true);
+    victim.setConfiguration(config);
+    victim.setWroManagerFactory(createValidManagerFactory());
+    victim.init(mockFilterConfig);
+    when(mockRequest.getRequestURI()).thenReturn("/folder/g1.css");
+    final AsyncRequest request = new AsyncRequest(mockRequest, true);
+    final ByteArrayOutputStream os = new ByteArrayOutputStream();
+    final HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(os));
+
+    victim.doFilter(request, response, mockFilterChain);
+
+    assertTrue(request.getAsyncContext().getCompleted().await(5, TimeUnit.SECONDS));
+    assertEquals(1, request.getAsyncContext().getCompleteCount());
+    assertTrue(os.size() > 0);
+    verifyChainIsNotCalled(mockFilterChain);
+  }
+
+  @Test
+  public void shouldDispatchRequestToContainerWhenAsyncProcessingFails()
+      throws Exception {
+    final WroConfiguration config = new WroConfiguration();
+    config.setAsyncServing(true);
+    victim.setConfiguration(config);
+    victim.setWroManagerFactory(createValidManagerFactory());
+    victim.init(mockFilterConfig);
+    when(mockRequest.getRequestURI()).thenReturn("/folder/invalidGroup.css");
+    final Map<String, Object> attributes = new HashMap<String, Object>();
+    final AsyncRequest request = new AsyncRequest(mockRequest, true) {
+      @Override
+      public Object getAttribute(final String name) {
+        return attributes.get(name);
+      }
+
+      @Override
+      public void setAttribute(final String name, final Object value) {
+        attributes.put(name, value);
+      }
+
+      @Override
+      public void removeAttribute(final String name) {
+        attributes.remove(name);
+      }
+    };
+    final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    victim.doFilter(request, response, mockFilterChain);
+
+    assertTrue(request.getAsyncContext().getCompleted().await(5, TimeUnit.SECONDS));
+    assertEquals(1, request.getAsyncContext().getDispatchCount());
+    assertEquals(0, request.getAsyncContext().getCompleteCount());
+    // the chain is not continued by the executor thread
+    verifyChainIsNotCalled(mockFilterChain);
+    // the container dispatches the request back to the filter, which handles the exception (rethrown by victim)
+    try {
+      victim.doFilter(request, response, mockFilterChain);
+      fail("onException should have been invoked");
+    } catch (final WroRuntimeException e) {
+      assertTrue(e.getMessage().contains("invalidGroup"));
+    }
+    assertNull(attributes.get(WroFilter.class.getName() + ".async_exception"));
+  }
+
+  @Test
+  public void shouldRespondUnavailableWhenAsyncProcessingIsRejected()
+      throws Exception {
+    final CountDownLatch latch = initFilterWithBusyServingExecutor(true);
+    when(mockRequest.getRequestURI()).thenReturn("/folder/g1.css");
+    final AsyncRequest request = new AsyncRequest(mockRequest, true);
+    final HttpServletResponse response = mock(HttpServletResponse.class);
+    try {
+      victim.doFilter(request, response, mockFilterChain);
+
+      verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      assertEquals(1, request.getAsyncContext().getCompleteCount());
+      verifyChainIsNotCalled(mockFilterChain);
+    } finally {
+      latch.countDown();
+    }
+  }
+
+  @Test
+  public void shouldRespondUnavailableWhenAsyncProcessingTimesOut()
+      throws Exception {
+    final CountDownLatch latch = initFilterWithBusyServingExecutor(false);
+    when(mockRequest.getRequestURI()).thenReturn("/folder/g1.css");
+    final AsyncRequest request = new AsyncRequest(mockRequest, true);
+    final HttpServletResponse response = mock(HttpServletResponse.class);
+    try {
+      victim.doFilter(request, response, mockFilterChain);
+      assertEquals(60000, request.getAsyncContext().getTimeout());
+      request.getAsyncContext().timeout();
+
+      verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      assertEquals(1, request.getAsyncContext().getCompleteCount());
+    } finally {
+      latch.countDown();
+    }
+    // the timed out request is not processed anymore
+    Thread.sleep(100);
+    verify(response, Mockito.never()).getOutputStream();
+    assertEquals(1, request.getAsyncContext().getCompleteCount());
+  }
+
+  /**
+   * Initializes the victim serving the bundles asynchronously using a single thread, which is busy until the returned
+   * latch is released.
+   *
+   * @param fillQueue
+   *          true if the queue of the serving executor should be full as well.
+   */
+  private CountDownLatch initFilterWithBusyServingExecutor(final boolean fillQueue)
+      throws Exception {
+    final WroConfiguration config = new WroConfiguration();
+    config.setAsyncServing(true);
+    config.setExecutorPoolSize(1);
+    config.setExecutorQueueSize(1);
+    victim.setConfiguration(config);
+    final WroManagerFactory managerFactory = createValidManagerFactory();
+    victim.setWroManagerFactory(managerFactory);
+    victim.init(mockFilterConfig);
+    final ExecutorService executor;
+    // the serving executor is created using the configuration of the current context
+    Context.set(Context.standaloneContext(), config);
+    try {
+      executor = managerFactory.create().getExecutorProvider().getServingExecutor();
+    } finally {
+      Context.unset();
+    }
+    final CountDownLatch latch = new CountDownLatch(1);
+    final Runnable awaitLatch = new Runnable() {
+      public void run() {
+        try {
+          latch.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    executor.execute(awaitLatch);
+    if (fillQueue) {
+      executor.execute(awaitLatch);
+    }
+    return latch;
+  }
+
+  @Test
+  public void shouldServeBundleSynchronouslyWhenAsyncIsNotSupportedByContainer()
+      throws Exception {
+    final WroConfiguration config = new WroConfiguration();
+    config.setAsyncServing(true);
+    prepareValidRequest(config);
+    victim.doFilter(mockRequest, mockResponse, mockFilterChain);
+    verifyChainIsNotCalled(mockFilterChain);
+  }
+
   @After
   public void tearDown() {
     if (victim != null) {
@@ -0,0 +1,90 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.group.processor.InjectorBuilder;
+import ro.isdc.wro.model.resource.ResourceType;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestDependencyGraphRequestHandler {
+  private DependencyGraphRequestHandler victim;
+  @Mock
+  private HttpServletRequest request;
+  @Mock
+  private HttpServletResponse response;
+  private ResourceDependencyGraph dependencyGraph;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    Context.set(Context.webContext(request, response, mock(FilterConfig.class)));
+    final BaseWroManagerFactory managerFactory = new BaseWroManagerFactory();
+    dependencyGraph = managerFactory.create().getDependencyGraph();
+    victim = new DependencyGraphRequestHandler();
+    InjectorBuilder.create(managerFactory).build().inject(victim);
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+  }
+
+  @Test
+  public void shouldAcceptDependencyGraphRequest() {
+    when(request.getRequestURI()).thenReturn("wroApi/dependencyGraph");
+    assertTrue(victim.accept(request));
+  }
+
+  @Test
+  public void shouldNotAcceptOtherRequests() {
+    when(request.getRequestURI()).thenReturn("wroApi/somethingElse");
+    assertFalse(victim.accept(request));
+  }
+
+  @Test
+  public void shouldBeEnabledOnlyInDebugMode() {
+    Context.get().getConfig().setDebug(true);
+    assertTrue(victim.isEnabled());
+    Context.get().getConfig().setDebug(false);
+    assertFalse(victim.isEnabled());
+  }
+
+  @Test
+  public void shouldListDependentKeysOfEachResource()
+      throws Exception {
+    final StringWriter out = new StringWriter();
+    when(response.getWriter()).thenReturn(new PrintWriter(out));
+    dependencyGraph.startRecording(new CacheKey("g1", ResourceType.CSS, true));
+    dependencyGraph.record("/imported.css");
+    dependencyGraph.stopRecording();
+    victim.handle(request, response);
+    assertEquals(String.format("/imported.css%n  g1.css%n"), out.toString());
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.handler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.cache.impl.MemoryCacheStrategy;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.WroModel;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.group.processor.InjectorBuilder;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.factory.SimpleProcessorsFactory;
+import ro.isdc.wro.util.WroTestUtils;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestWarmupRequestHandler {
+  private WarmupRequestHandler victim;
+  @Mock
+  private HttpServletRequest request;
+  @Mock
+  private HttpServletResponse response;
+  private MemoryCacheStrategy<CacheKey, CacheValue> cacheStrategy;
+  private SimpleProcessorsFactory processorsFactory;
+  private StringWriter output;
+
+  @BeforeClass
+  public static void onBeforeClass() {
+    assertEquals(0, Context.countActive());
+  }
+
+  @AfterClass
+  public static void onAfterClass() {
+    assertEquals(0, Context.countActive());
+  }
+
+  @Before
+  public void setUp()
+      throws Exception {
+    MockitoAnnotations.initMocks(this);
+    output = new StringWriter();
+    when(response.getWriter()).thenReturn(new PrintWriter(output));
+    when(request.getRequestURI()).thenReturn("/ctx/wro/wroAPI/warmup");
+    when(request.getContextPath()).thenReturn("/ctx");
+    Context.set(Context.webContext(request, response, mock(FilterConfig.class)));
+    final WroModel model = new WroModel();
+    model.addGroup(new Group("g1").addResource(Resource.create("/a.js")).addResource(Resource.create("/a.css")));
+    model.addGroup(new Group("g2").addResource(Resource.create("/b.js")));
+    cacheStrategy = new MemoryCacheStrategy<CacheKey, CacheValue>();
+    final BaseWroManagerFactory managerFactory = new BaseWroManagerFactory().setModelFactory(
+        WroTestUtils.simpleModelFactory(model)).setUriLocatorFactory(
+        WroTestUtils.createResourceMockingLocatorFactory()).setCacheStrategy(cacheStrategy);
+    processorsFactory = new SimpleProcessorsFactory();
+    managerFactory.setProcessorsFactory(processorsFactory);
+    victim = new WarmupRequestHandler();
+    InjectorBuilder.create(managerFactory).build().inject(victim);
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+  }
+
+  @Test
+  public void shouldAcceptWarmupRequest() {
+    assertTrue(victim.accept(request));
+  }
+
+  @Test
+  public void shouldNotAcceptOtherRequests() {
+    when(request.getRequestURI()).thenReturn("/ctx/wro/wroAPI/somethingElse");
+    assertFalse(victim.accept(request));
+  }
+
+  @Test
+  public void shouldProcessAllGroups()
+      throws Exception {
+    victim.handle(request, response);
+    assertTrue(victim.isCompleted());
+    assertNotNull(cacheStrategy.get(new CacheKey("g1", ResourceType.JS, true)));
+    assertNotNull(cacheStrategy.get(new CacheKey("g1", ResourceType.CSS, true)));
+    assertNotNull(cacheStrategy.get(new CacheKey("g2", ResourceType.JS, true)));
+    verify(response).setStatus(HttpServletResponse.SC_OK);
+    assertTrue(output.toString(), output.toString().startsWith("Warmup completed: 3 of 3 cache entries processed (0 failed)"));
+  }
+
+  @Test
+  public void shouldWarmupOnlyOnce()
+      throws Exception {
+    victim.handle(request, response);
+    cacheStrategy.clear();
+    victim.handle(request, response);
+    assertEquals(null, cacheStrategy.get(new CacheKey("g2", ResourceType.JS, true)));
+  }
+
+  @Test
+  public void shouldReportFailedWarmup()
+      throws Exception {
+    processorsFactory.addPreProcessor(new ResourcePreProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+          throws IOException {
+        if ("/b.js".equals(resource.getUri())) {
+          throw new IOException("BOOM");
+        }
+      }
+    });
+    victim.handle(request, response);
+    assertTrue(victim.isCompleted());
+    verify(response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    assertTrue(output.toString(), output.toString().startsWith("Warmup failed: 3 of 3 cache entries processed (1 failed)"));
+  }
+
+  @Test
+  public void shouldWarmupAgainWhenCacheIsReloaded()
+      throws Exception {
+    victim.handle(request, response);
+    cacheStrategy.clear();
+    Context.get().getConfig().reloadCache();
+    victim.handle(request, response);
+    assertNotNull(cacheStrategy.get(new CacheKey("g2", ResourceType.JS, true)));
+  }
+
+  @Test
+  public void shouldWarmupAgainWhenModelIsReloaded()
+      throws Exception {
+    victim.handle(request, response);
+    cacheStrategy.clear();
+    Context.get().getConfig().reloadModel();
+    victim.handle(request, response);
+    assertNotNull(cacheStrategy.get(new CacheKey("g2", ResourceType.JS, true)));
+    // the reload was handled
+    cacheStrategy.clear();
+    victim.handle(request, response);
+    assertEquals(null, cacheStrategy.get(new CacheKey("g2", ResourceType.JS, true)));
+  }
+}
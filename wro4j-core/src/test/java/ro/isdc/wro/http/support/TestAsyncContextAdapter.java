@@ -0,0 +1,195 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.WroRuntimeException;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestAsyncContextAdapter {
+  private AsyncRequest request;
+  private final AtomicInteger timeoutCount = new AtomicInteger();
+  private final Runnable timeoutHandler = new Runnable() {
+    public void run() {
+      timeoutCount.incrementAndGet();
+    }
+  };
+
+  /**
+   * Simulates the AsyncListener of a servlet 3.0 container.
+   */
+  public static interface AsyncListenerStub {
+    void onComplete(Object event);
+
+    void onTimeout(Object event);
+  }
+
+  /**
+   * Simulates the AsyncContext of a servlet 3.0 container.
+   */
+  public static class AsyncContextStub {
+    private final List<AsyncListenerStub> listeners = new ArrayList<AsyncListenerStub>();
+    private final AtomicInteger completeCount = new AtomicInteger();
+    private final AtomicInteger dispatchCount = new AtomicInteger();
+    private final CountDownLatch completed = new CountDownLatch(1);
+    private long timeout = 30000;
+
+    public void setTimeout(final long timeout) {
+      this.timeout = timeout;
+    }
+
+    public long getTimeout() {
+      return timeout;
+    }
+
+    public void addListener(final AsyncListenerStub listener) {
+      listeners.add(listener);
+    }
+
+    /**
+     * Simulates the expiration of the timeout.
+     */
+    public void timeout() {
+      for (final AsyncListenerStub listener : listeners) {
+        listener.onTimeout(this);
+      }
+    }
+
+    public void complete() {
+      completeCount.incrementAndGet();
+      completed.countDown();
+    }
+
+    public int getCompleteCount() {
+      return completeCount.get();
+    }
+
+    /**
+     * Simulates the end of the processing of the dispatched request.
+     */
+    public void dispatch() {
+      dispatchCount.incrementAndGet();
+      completed.countDown();
+    }
+
+    public int getDispatchCount() {
+      return dispatchCount.get();
+    }
+
+    public CountDownLatch getCompleted() {
+      return completed;
+    }
+  }
+
+  /**
+   * Simulates a request of a servlet 3.0 container.
+   */
+  public static class AsyncRequest
+      extends HttpServletRequestWrapper {
+    private final boolean asyncSupported;
+    private AsyncContextStub asyncContext;
+
+    public AsyncRequest(final HttpServletRequest request, final boolean asyncSupported) {
+      super(request);
+      this.asyncSupported = asyncSupported;
+    }
+
+    public boolean isAsyncSupported() {
+      return asyncSupported;
+    }
+
+    public AsyncContextStub startAsync() {
+      asyncContext = new AsyncContextStub();
+      return asyncContext;
+    }
+
+    public AsyncContextStub getAsyncContext() {
+      return asyncContext;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    request = new AsyncRequest(mock(HttpServletRequest.class), true);
+  }
+
+  @Test
+  public void shouldNotSupportAsyncForServlet2Request() {
+    assertFalse(AsyncContextAdapter.isAsyncSupported(mock(HttpServletRequest.class)));
+  }
+
+  @Test
+  public void shouldNotSupportAsyncWhenDisabledByContainer() {
+    assertFalse(AsyncContextAdapter.isAsyncSupported(new AsyncRequest(mock(HttpServletRequest.class), false)));
+  }
+
+  @Test
+  public void shouldSupportAsyncWhenEnabledByContainer() {
+    assertTrue(AsyncContextAdapter.isAsyncSupported(request));
+  }
+
+  @Test(expected = WroRuntimeException.class)
+  public void cannotStartAsyncForServlet2Request() {
+    AsyncContextAdapter.start(mock(HttpServletRequest.class), 1000, timeoutHandler);
+  }
+
+  @Test
+  public void shouldSetTimeoutWhenStarted() {
+    AsyncContextAdapter.start(request, 1000, timeoutHandler);
+    assertNotNull(request.getAsyncContext());
+    assertEquals(1000, request.getAsyncContext().getTimeout());
+  }
+
+  @Test
+  public void shouldUseContainerTimeoutWhenTimeoutIsNotPositive() {
+    AsyncContextAdapter.start(request, 0, timeoutHandler);
+    assertEquals(30000, request.getAsyncContext().getTimeout());
+  }
+
+  @Test
+  public void shouldInvokeHandlerOnTimeout() {
+    AsyncContextAdapter.start(request, 1000, timeoutHandler);
+    request.getAsyncContext().listeners.get(0).onComplete(null);
+    assertEquals(0, timeoutCount.get());
+    request.getAsyncContext().timeout();
+    assertEquals(1, timeoutCount.get());
+  }
+
+  @Test
+  public void shouldCompleteOnlyOnce() {
+    final AsyncContextAdapter victim = AsyncContextAdapter.start(request, 1000, timeoutHandler);
+    victim.complete();
+    victim.complete();
+    assertEquals(1, request.getAsyncContext().getCompleteCount());
+  }
+
+  @Test
+  public void shouldDispatchOnlyOnce() {
+    final AsyncContextAdapter victim = AsyncContextAdapter.start(request, 1000, timeoutHandler);
+    victim.dispatch();
+    victim.dispatch();
+    victim.complete();
+    assertEquals(1, request.getAsyncContext().getDispatchCount());
+    assertEquals(0, request.getAsyncContext().getCompleteCount());
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestByteRange {
+  @Test
+  public void shouldIgnoreMissingOrInvalidRange() {
+    assertNull(ByteRange.parse(null, 10));
+    assertNull(ByteRange.parse("items=1-2", 10));
+    assertNull(ByteRange.parse("bytes=-", 10));
+    assertNull(ByteRange.parse("bytes=5-2", 10));
+  }
+
+  @Test
+  public void shouldIgnoreMultipleRanges() {
+    assertNull(ByteRange.parse("bytes=0-1,4-5", 10));
+  }
+
+  @Test
+  public void shouldParseClosedRange() {
+    final ByteRange range = ByteRange.parse("bytes=2-4", 10);
+    assertTrue(range.isSatisfiable());
+    assertEquals(2, range.getOffset());
+    assertEquals(3, range.getLength());
+    assertEquals("bytes 2-4/10", range.getContentRange());
+  }
+
+  @Test
+  public void shouldLimitRangeToContentLength() {
+    final ByteRange range = ByteRange.parse("bytes=8-100", 10);
+    assertEquals(8, range.getOffset());
+    assertEquals(2, range.getLength());
+  }
+
+  @Test
+  public void shouldParseOpenRange() {
+    final ByteRange range = ByteRange.parse("bytes=7-", 10);
+    assertEquals("bytes 7-9/10", range.getContentRange());
+  }
+
+  @Test
+  public void shouldParseSuffixRange() {
+    assertEquals("bytes 7-9/10", ByteRange.parse("bytes=-3", 10).getContentRange());
+    assertEquals("bytes 0-9/10", ByteRange.parse("bytes=-30", 10).getContentRange());
+  }
+
+  @Test
+  public void shouldDetectUnsatisfiableRange() {
+    final ByteRange range = ByteRange.parse("bytes=10-", 10);
+    assertFalse(range.isSatisfiable());
+    assertEquals("bytes */10", range.getContentRange());
+    assertFalse(ByteRange.parse("bytes=-1", 0).isSatisfiable());
+  }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestConditionalRequestHelper {
+  private static final String ETAG = "\"123\"";
+  private static final long LAST_MODIFIED = 1000000;
+  private HttpServletRequest request;
+
+  @Before
+  public void setUp() {
+    request = mock(HttpServletRequest.class);
+    when(request.getDateHeader("If-Modified-Since")).thenReturn(-1L);
+  }
+
+  @Test
+  public void shouldMatchAnyETagFromList() {
+    assertTrue(ConditionalRequestHelper.matchesETag("\"abc\", \"123\"", ETAG));
+    assertTrue(ConditionalRequestHelper.matchesETag("W/\"123\"", ETAG));
+    assertTrue(ConditionalRequestHelper.matchesETag("*", ETAG));
+    assertFalse(ConditionalRequestHelper.matchesETag("\"1234\", \"12\"", ETAG));
+  }
+
+  @Test
+  public void shouldBeModifiedWhenNoConditionIsSent() {
+    assertFalse(ConditionalRequestHelper.isNotModified(request, ETAG, LAST_MODIFIED));
+  }
+
+  @Test
+  public void shouldPreferIfNoneMatchOverIfModifiedSince() {
+    when(request.getHeader("If-None-Match")).thenReturn("\"other\"");
+    when(request.getDateHeader("If-Modified-Since")).thenReturn(LAST_MODIFIED);
+    assertFalse(ConditionalRequestHelper.isNotModified(request, ETAG, LAST_MODIFIED));
+  }
+
+  @Test
+  public void shouldUseIfModifiedSince() {
+    when(request.getDateHeader("If-Modified-Since")).thenReturn(LAST_MODIFIED);
+    assertTrue(ConditionalRequestHelper.isNotModified(request, ETAG, LAST_MODIFIED));
+    assertFalse(ConditionalRequestHelper.isNotModified(request, ETAG, LAST_MODIFIED + 1000));
+  }
+
+  @Test
+  public void shouldIgnoreInvalidIfModifiedSince() {
+    when(request.getDateHeader("If-Modified-Since")).thenThrow(new IllegalArgumentException());
+    assertFalse(ConditionalRequestHelper.isNotModified(request, ETAG, LAST_MODIFIED));
+  }
+
+  @Test
+  public void shouldApplyRangeOnlyWhenIfRangeMatchesStrongly() {
+    assertTrue(ConditionalRequestHelper.isRangeApplicable(request, ETAG, LAST_MODIFIED));
+    when(request.getHeader("If-Range")).thenReturn(ETAG);
+    assertTrue(ConditionalRequestHelper.isRangeApplicable(request, ETAG, LAST_MODIFIED));
+    when(request.getHeader("If-Range")).thenReturn("W/" + ETAG);
+    assertFalse(ConditionalRequestHelper.isRangeApplicable(request, ETAG, LAST_MODIFIED));
+  }
+
+  @Test
+  public void shouldDetectHeadRequest() {
+    when(request.getMethod()).thenReturn("HEAD");
+    assertTrue(ConditionalRequestHelper.isHeadRequest(request));
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.http.support;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestGzipServletResponseWrapper {
+  private static final int MIN_SIZE = 100;
+  @Mock
+  private HttpServletResponse mockResponse;
+  private ByteArrayOutputStream outputStream;
+  private DeflaterPool deflaterPool;
+  private GzipServletResponseWrapper victim;
+
+  @Before
+  public void setUp()
+      throws Exception {
+    MockitoAnnotations.initMocks(this);
+    outputStream = new ByteArrayOutputStream();
+    when(mockResponse.getOutputStream()).thenReturn(new DelegatingServletOutputStream(outputStream));
+    deflaterPool = new DeflaterPool(6, 1);
+    victim = new GzipServletResponseWrapper(mockResponse, deflaterPool, MIN_SIZE);
+  }
+
+  @After
+  public void tearDown() {
+    deflaterPool.destroy();
+  }
+
+  private String gunzip(final byte[] content)
+      throws Exception {
+    return IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(content)));
+  }
+
+  @Test
+  public void shouldNotCompressContentSmallerThanMinSize()
+      throws Exception {
+    victim.setContentLength(5);
+    victim.getOutputStream().write("small".getBytes());
+    victim.finish();
+    assertEquals("small", outputStream.toString());
+    assertFalse(victim.isCompressing());
+    verify(mockResponse).setContentLength(5);
+    verify(mockResponse, never()).setHeader(HttpHeader.CONTENT_ENCODING.toString(), "gzip");
+  }
+
+  @Test
+  public void shouldCompressContentLargerThanMinSize()
+      throws Exception {
+    final String content = StringUtils.repeat("content", 100);
+    victim.setContentLength(content.length());
+    victim.getOutputStream().write(content.getBytes());
+    victim.finish();
+    assertTrue(victim.isCompressing());
+    assertEquals(content, gunzip(outputStream.toByteArray()));
+    verify(mockResponse).setHeader(HttpHeader.CONTENT_ENCODING.toString(), "gzip");
+    verify(mockResponse).addHeader(HttpHeader.VARY.toString(), "Accept-Encoding");
+    verify(mockResponse, never()).setContentLength(Mockito.anyInt());
+  }
+
+  @Test
+  public void shouldWriteCompressedChunksBeforeContentIsFinished()
+      throws Exception {
+    final byte[] chunk = new byte[64 * 1024];
+    new Random(1).nextBytes(chunk);
+    victim.getOutputStream().write(chunk);
+    assertTrue(outputStream.size() > 0);
+    victim.finish();
+  }
+
+  @Test
+  public void shouldCompressContentWrittenWithWriter()
+      throws Exception {
+    final String content = StringUtils.repeat("written with writer ", 20);
+    victim.getWriter().write(content);
+    victim.finish();
+    assertEquals(content, gunzip(outputStream.toByteArray()));
+  }
+
+  @Test
+  public void shouldNotCompressAlreadyCompressedContentType()
+      throws Exception {
+    final String content = StringUtils.repeat("x", MIN_SIZE * 2);
+    victim.setContentType("image/png");
+    victim.setHeader(HttpHeader.CONTENT_LENGTH.toString(), String.valueOf(content.length()));
+    victim.getOutputStream().write(content.getBytes());
+    victim.finish();
+    assertEquals(content, outputStream.toString());
+    verify(mockResponse).setContentLength(content.length());
+  }
+
+  @Test
+  public void shouldNotCompressAlreadyEncodedContent()
+      throws Exception {
+    final String content = StringUtils.repeat("x", MIN_SIZE * 2);
+    victim.setHeader(HttpHeader.CONTENT_ENCODING.toString(), "deflate");
+    victim.getOutputStream().write(content.getBytes());
+    victim.finish();
+    assertEquals(content, outputStream.toString());
+    assertFalse(victim.isCompressing());
+  }
+
+  @Test
+  public void shouldNotWriteEmptyContent()
+      throws Exception {
+    victim.finish();
+    assertEquals(0, outputStream.size());
+    verify(mockResponse, never()).getOutputStream();
+  }
+
+  @Test
+  public void shouldReleaseDeflaterWhenFinished()
+      throws Exception {
+    victim.getOutputStream().write(StringUtils.repeat("x", MIN_SIZE * 2).getBytes());
+    assertEquals(0, deflaterPool.getIdleCount());
+    victim.finish();
+    assertEquals(1, deflaterPool.getIdleCount());
+  }
+
+  @Test
+  public void shouldDetectCompressedContentTypes() {
+    assertTrue(GzipServletResponseWrapper.isCompressedContentType("image/jpeg"));
+    assertTrue(GzipServletResponseWrapper.isCompressedContentType("application/zip"));
+    assertTrue(GzipServletResponseWrapper.isCompressedContentType("font/woff2"));
+    assertFalse(GzipServletResponseWrapper.isCompressedContentType("image/svg+xml"));
+    assertFalse(GzipServletResponseWrapper.isCompressedContentType("text/css; charset=UTF-8"));
+    assertFalse(GzipServletResponseWrapper.isCompressedContentType(null));
+  }
+}
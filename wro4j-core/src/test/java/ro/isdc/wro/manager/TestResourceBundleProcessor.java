@@ -0,0 +1,180 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.cache.factory.CacheKeyFactory;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.group.processor.InjectorBuilder;
+import ro.isdc.wro.model.resource.ResourceType;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestResourceBundleProcessor {
+  private static final String CONTENT = "0123456789";
+  @Mock
+  private HttpServletRequest request;
+  @Mock
+  private HttpServletResponse response;
+  @Mock
+  private CacheStrategy<CacheKey, CacheValue> cacheStrategy;
+  @Mock
+  private CacheKeyFactory cacheKeyFactory;
+  private ByteArrayOutputStream output;
+  private CacheValue cacheValue;
+  private ResourceBundleProcessor victim;
+
+  @Before
+  public void setUp()
+      throws Exception {
+    initMocks(this);
+    final WroConfiguration config = new WroConfiguration();
+    config.setGzipEnabled(false);
+    Context.set(Context.webContext(request, response, mock(FilterConfig.class)), config);
+    output = new ByteArrayOutputStream();
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(final int b)
+          throws IOException {
+        output.write(b);
+      }
+    });
+    when(request.getMethod()).thenReturn("GET");
+    when(request.getDateHeader(any(String.class))).thenReturn(-1L);
+    final CacheKey cacheKey = new CacheKey("g1", ResourceType.JS, true);
+    when(cacheKeyFactory.create(request)).thenReturn(cacheKey);
+    cacheValue = CacheValue.valueOf(CONTENT, "hash");
+    when(cacheStrategy.get(cacheKey)).thenReturn(cacheValue);
+    final BaseWroManagerFactory managerFactory = new BaseWroManagerFactory().setCacheStrategy(cacheStrategy);
+    managerFactory.setCacheKeyFactory(cacheKeyFactory);
+    victim = new ResourceBundleProcessor();
+    InjectorBuilder.create(managerFactory).build().inject(victim);
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+  }
+
+  @Test
+  public void shouldServeEntireContent()
+      throws Exception {
+    victim.serveProcessedBundle();
+    assertEquals(CONTENT, output.toString());
+    verify(response).setContentLength(CONTENT.length());
+    verify(response).setHeader("ETag", "\"hash\"");
+    verify(response).setDateHeader("Last-Modified", cacheValue.getLastModified());
+  }
+
+  @Test
+  public void shouldNotServeContentWhenAnyETagMatches()
+      throws Exception {
+    when(request.getHeader("If-None-Match")).thenReturn("\"other\", W/\"hash\"");
+    victim.serveProcessedBundle();
+    verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    assertEquals(0, output.size());
+  }
+
+  @Test
+  public void shouldServeContentWhenNoETagMatches()
+      throws Exception {
+    when(request.getHeader("If-None-Match")).thenReturn("\"other\"");
+    victim.serveProcessedBundle();
+    verify(response, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    assertEquals(CONTENT, output.toString());
+  }
+
+  @Test
+  public void shouldNotServeContentWhenNotModifiedSince()
+      throws Exception {
+    when(request.getDateHeader("If-Modified-Since")).thenReturn(cacheValue.getLastModified());
+    victim.serveProcessedBundle();
+    verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    assertEquals(0, output.size());
+  }
+
+  @Test
+  public void shouldServeContentModifiedSince()
+      throws Exception {
+    when(request.getDateHeader("If-Modified-Since")).thenReturn(cacheValue.getLastModified() - 1000);
+    victim.serveProcessedBundle();
+    assertEquals(CONTENT, output.toString());
+  }
+
+  @Test
+  public void shouldServeOnlyHeadersForHeadRequest()
+      throws Exception {
+    when(request.getMethod()).thenReturn("HEAD");
+    victim.serveProcessedBundle();
+    verify(response).setContentLength(CONTENT.length());
+    verify(response, never()).getOutputStream();
+  }
+
+  @Test
+  public void shouldServeRequestedRange()
+      throws Exception {
+    when(request.getHeader("Range")).thenReturn("bytes=2-4");
+    victim.serveProcessedBundle();
+    verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    verify(response).setHeader("Content-Range", "bytes 2-4/10");
+    verify(response).setContentLength(3);
+    assertEquals("234", output.toString());
+  }
+
+  @Test
+  public void shouldServeSuffixRange()
+      throws Exception {
+    when(request.getHeader("Range")).thenReturn("bytes=-3");
+    victim.serveProcessedBundle();
+    assertEquals("789", output.toString());
+  }
+
+  @Test
+  public void shouldRejectUnsatisfiableRange()
+      throws Exception {
+    when(request.getHeader("Range")).thenReturn("bytes=20-");
+    victim.serveProcessedBundle();
+    verify(response).setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    verify(response).setHeader("Content-Range", "bytes */10");
+    assertEquals(0, output.size());
+  }
+
+  @Test
+  public void shouldServeEntireContentWhenIfRangeDoesNotMatch()
+      throws Exception {
+    when(request.getHeader("Range")).thenReturn("bytes=2-4");
+    when(request.getHeader("If-Range")).thenReturn("\"other\"");
+    victim.serveProcessedBundle();
+    verify(response, never()).setStatus(anyInt());
+    assertEquals(CONTENT, output.toString());
+  }
+}
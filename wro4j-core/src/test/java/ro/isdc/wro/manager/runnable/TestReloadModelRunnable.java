@@ -10,7 +10,10 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.factory.WroModelFactory;
 
 
@@ -48,4 +51,17 @@ public class TestReloadModelRunnable {
     victim.run();
     Mockito.verify(mockModelFactory).destroy();
   }
+
+  @Test
+  public void shouldClearDependencyGraphWhenInvokingRun() {
+    final ResourceDependencyGraph dependencyGraph = new ResourceDependencyGraph();
+    dependencyGraph.startRecording(new CacheKey("g1", ResourceType.JS, true));
+    dependencyGraph.record("/test.js");
+    dependencyGraph.stopRecording();
+    victim = new ReloadModelRunnable(mockModelFactory, dependencyGraph);
+    victim.run();
+    Mockito.verify(mockModelFactory).destroy();
+    assertEquals(0, dependencyGraph.getCacheKeyCount());
+    assertEquals(0, dependencyGraph.getResourceCount());
+  }
 }
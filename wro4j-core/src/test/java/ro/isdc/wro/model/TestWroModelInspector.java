@@ -2,6 +2,8 @@ package ro.isdc.wro.model;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
@@ -18,6 +20,7 @@ import ro.isdc.wro.model.factory.WroModelFactory;
 import ro.isdc.wro.model.factory.XmlModelFactory;
 import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 
 /**
  * @author Alex Objelean
@@ -108,6 +111,26 @@ public class TestWroModelInspector {
     assertEquals(2, new WroModelInspector(model).getAllResources().size());
   }
 
+  @Test
+  public void shouldFilterGroupResourcesByType() {
+    final Group group = victim.getFilteredGroup("g2", ResourceType.CSS);
+    assertEquals("g2", group.getName());
+    assertEquals(1, group.getResources().size());
+    assertEquals(ResourceType.CSS, group.getResources().get(0).getType());
+    assertSame(group, victim.getFilteredGroup("g2", ResourceType.CSS));
+  }
+
+  @Test
+  public void shouldReturnNullWhenFilteringMissingGroup() {
+    assertNull(victim.getFilteredGroup("NOT_EXIST", ResourceType.JS));
+  }
+
+  @Test
+  public void shouldNotAlterIndexWhenResultIsChanged() {
+    victim.getGroupNamesContainingResource("/path/to/resource").clear();
+    assertEquals(2, victim.getGroupNamesContainingResource("/path/to/resource").size());
+  }
+
   @Test
   public void testHasGroup() {
     assertFalse(victim.hasGroup("NOT_EXIST"));
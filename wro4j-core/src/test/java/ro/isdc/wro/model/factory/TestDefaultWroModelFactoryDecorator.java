@@ -6,9 +6,15 @@ import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
 
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
 import ro.isdc.wro.model.WroModel;
+import ro.isdc.wro.model.WroModelInspector;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.util.ObjectDecorator;
 import ro.isdc.wro.util.Transformer;
+import ro.isdc.wro.util.WroTestUtils;
 
 /**
  * @author Alex Objelean
@@ -43,4 +49,21 @@ public class TestDefaultWroModelFactoryDecorator {
     Assert.assertTrue(victim instanceof DefaultWroModelFactoryDecorator);
     Assert.assertSame(original, victim);
   }
+
+  @Test
+  public void shouldReuseModelInspectorUntilModelIsReloaded() {
+    Context.set(Context.standaloneContext());
+    try {
+      final WroModel model = new WroModel().addGroup(new Group("g1").addResource(Resource.create("/a.js")));
+      victim = new BaseWroManagerFactory().setModelFactory(WroTestUtils.simpleModelFactory(model)).create().
+          getModelFactory();
+      final WroModelInspector inspector = DefaultWroModelFactoryDecorator.inspect(victim);
+      Assert.assertSame(inspector, DefaultWroModelFactoryDecorator.inspect(victim));
+      Assert.assertEquals("[g1]", inspector.getGroupNamesContainingResource("/a.js").toString());
+      victim.destroy();
+      Assert.assertNotSame(inspector, DefaultWroModelFactoryDecorator.inspect(victim));
+    } finally {
+      Context.unset();
+    }
+  }
 }
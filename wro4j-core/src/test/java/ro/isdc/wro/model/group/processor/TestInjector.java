@@ -81,6 +81,59 @@ public class TestInjector {
     }));
   }
 
+  private static class InjectedObject {
+    @Inject
+    private LifecycleCallbackRegistry registry;
+  }
+
+  @Test
+  public void shouldNotReturnPartiallyInjectedObjectToConcurrentThreads()
+      throws Exception {
+    initializeValidInjector();
+    final Object object = new Object() {
+      @Inject
+      private GroupsProcessor groupsProcessor;
+      @Inject
+      private PreProcessorExecutor preProcessorExecutor;
+
+      @Override
+      public String toString() {
+        return groupsProcessor + "" + preProcessorExecutor;
+      }
+    };
+    WroTestUtils.runConcurrently(new ContextPropagatingCallable<Void>(new Callable<Void>() {
+      public Void call()
+          throws Exception {
+        Assert.assertFalse(victim.inject(object).toString().contains("null"));
+        return null;
+      }
+    }));
+  }
+
+  @Test
+  public void shouldInjectEachInstanceOfTheSameClass() {
+    initializeValidInjector();
+    final InjectedObject first = victim.inject(new InjectedObject());
+    final InjectedObject second = victim.inject(new InjectedObject());
+    Assert.assertNotNull(first.registry);
+    Assert.assertNotNull(second.registry);
+  }
+
+  @Test(expected = WroRuntimeException.class)
+  public void shouldFailEachTimeWhenInjectingUnsupportedType() {
+    initializeValidInjector();
+    final Object unsupported = new Object() {
+      @Inject
+      private String value;
+    };
+    try {
+      victim.inject(unsupported);
+      Assert.fail("Should have failed");
+    } catch (final WroRuntimeException e) {
+      victim.inject(unsupported);
+    }
+  }
+
   @Test
   public void shouldInjectSupportedType()
       throws Exception {
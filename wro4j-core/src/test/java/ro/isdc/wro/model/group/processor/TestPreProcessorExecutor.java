@@ -15,6 +15,7 @@ import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletContext;
@@ -37,6 +38,7 @@ import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.manager.factory.WroManagerFactory;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
@@ -48,6 +50,8 @@ import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.model.resource.processor.decorator.CopyrightKeeperProcessorDecorator;
 import ro.isdc.wro.model.resource.processor.factory.SimpleProcessorsFactory;
 import ro.isdc.wro.model.resource.processor.impl.js.JSMinProcessor;
+import ro.isdc.wro.model.resource.processor.support.ProcessingCriteria;
+import ro.isdc.wro.model.resource.processor.support.ProcessingType;
 import ro.isdc.wro.util.StopWatch;
 import ro.isdc.wro.util.WroTestUtils;
 import ro.isdc.wro.util.WroUtil;
@@ -246,6 +250,8 @@ public class TestPreProcessorExecutor {
     if (availableProcessors > 1) {
       final StopWatch watch = new StopWatch();
       final WroConfiguration config = Context.get().getConfig();
+      // measure the processing, not the reuse of pre processed content
+      config.setCachePreProcessedResources(false);
 
       initExecutor(createSlowPreProcessor(100), createSlowPreProcessor(100), createSlowPreProcessor(100));
       final List<Resource> resources = createResources(Resource.create("r1", ResourceType.JS),
@@ -282,6 +288,191 @@ public class TestPreProcessorExecutor {
     }
   }
 
+  @Test
+  public void shouldPreserveOrderWhenProcessingInParallel()
+      throws Exception {
+    Context.get().getConfig().setParallelPreprocessingWindow(2);
+    initExecutor(new ResourcePreProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+          throws IOException {
+        try {
+          // the first resources are the slowest
+          Thread.sleep(50 - 10 * Integer.parseInt(resource.getUri()));
+        } catch (final InterruptedException e) {
+        }
+        writer.write(resource.getUri());
+      }
+    });
+    final List<Resource> resources = new ArrayList<Resource>();
+    for (int i = 0; i < 5; i++) {
+      resources.add(Resource.create(String.valueOf(i), ResourceType.JS));
+    }
+    final String result = victim.processAndMerge(resources, true);
+    Assert.assertEquals("01234", result.replaceAll("\\s", ""));
+  }
+
+  @Test
+  public void shouldNotProcessRemainingResourcesAfterFailure()
+      throws Exception {
+    Context.get().getConfig().setIgnoreFailingProcessor(false);
+    Context.get().getConfig().setParallelPreprocessingWindow(2);
+    final AtomicInteger processedCount = new AtomicInteger();
+    initExecutor(new ResourcePreProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+          throws IOException {
+        processedCount.incrementAndGet();
+        if ("0".equals(resource.getUri())) {
+          throw new WroRuntimeException("Boom!");
+        }
+      }
+    });
+    final List<Resource> resources = new ArrayList<Resource>();
+    for (int i = 0; i < 10; i++) {
+      resources.add(Resource.create(String.valueOf(i), ResourceType.JS));
+    }
+    try {
+      victim.processAndMerge(resources, true);
+      Assert.fail("Should have failed");
+    } catch (final WroRuntimeException e) {
+      Assert.assertTrue(processedCount.get() <= 2);
+    }
+  }
+
+  private ResourcePreProcessor createCountingPreProcessor(final AtomicInteger processedCount) {
+    return new ResourcePreProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+          throws IOException {
+        processedCount.incrementAndGet();
+        IOUtils.copy(reader, writer);
+      }
+    };
+  }
+
+  @Test
+  public void shouldNotReprocessUnchangedResources()
+      throws Exception {
+    Context.get().getConfig().setCachePreProcessedResources(true);
+    final AtomicInteger processedCount = new AtomicInteger();
+    initExecutor(createCountingPreProcessor(processedCount));
+    final List<Resource> resources = createResources(Resource.create("r1", ResourceType.JS),
+        Resource.create("r2", ResourceType.JS));
+    final String result = victim.processAndMerge(resources, true);
+    Assert.assertEquals(2, processedCount.get());
+    Assert.assertEquals(result, victim.processAndMerge(resources, true));
+    Assert.assertEquals(2, processedCount.get());
+  }
+
+  @Test
+  public void shouldReprocessOnlyChangedResources()
+      throws Exception {
+    Context.get().getConfig().setCachePreProcessedResources(true);
+    final AtomicInteger processedCount = new AtomicInteger();
+    initExecutor(createCountingPreProcessor(processedCount));
+    when(mockLocator.locate("r1")).thenReturn(new ByteArrayInputStream("content".getBytes()));
+    final List<Resource> resources = createResources(Resource.create("r1", ResourceType.JS),
+        Resource.create("r2", ResourceType.JS));
+    victim.processAndMerge(resources, true);
+    when(mockLocator.locate("r1")).thenReturn(new ByteArrayInputStream("changed".getBytes()));
+    final String result = victim.processAndMerge(resources, true);
+    Assert.assertEquals(3, processedCount.get());
+    Assert.assertTrue(result.contains("changed"));
+  }
+
+  @Test
+  public void shouldReprocessInvalidatedResource()
+      throws Exception {
+    Context.get().getConfig().setCachePreProcessedResources(true);
+    final AtomicInteger processedCount = new AtomicInteger();
+    initExecutor(createCountingPreProcessor(processedCount));
+    final List<Resource> resources = createResources(Resource.create("r1", ResourceType.JS),
+        Resource.create("r2", ResourceType.JS));
+    victim.processAndMerge(resources, true);
+    victim.invalidate("r1");
+    victim.processAndMerge(resources, true);
+    Assert.assertEquals(3, processedCount.get());
+    victim.clearCache();
+    victim.processAndMerge(resources, true);
+    Assert.assertEquals(5, processedCount.get());
+  }
+
+  @Test
+  public void shouldReprocessResourcesWhenCacheIsDisabled()
+      throws Exception {
+    Context.get().getConfig().setCachePreProcessedResources(false);
+    final AtomicInteger processedCount = new AtomicInteger();
+    initExecutor(createCountingPreProcessor(processedCount));
+    final List<Resource> resources = createResources(Resource.create("r1", ResourceType.JS));
+    victim.processAndMerge(resources, true);
+    victim.processAndMerge(resources, true);
+    Assert.assertEquals(2, processedCount.get());
+  }
+
+  @Test
+  public void shouldNotCachePreProcessedResourcesByDefault()
+      throws Exception {
+    Assert.assertFalse(new WroConfiguration().isCachePreProcessedResources());
+  }
+
+  @Test
+  public void shouldReprocessResourcesWhenCacheIsDisabledInDevelopmentMode()
+      throws Exception {
+    final WroConfiguration config = Context.get().getConfig();
+    config.setCachePreProcessedResources(true);
+    config.setDebug(true);
+    config.setDisableCache(true);
+    final AtomicInteger processedCount = new AtomicInteger();
+    initExecutor(createCountingPreProcessor(processedCount));
+    final List<Resource> resources = createResources(Resource.create("r1", ResourceType.JS));
+    victim.processAndMerge(resources, true);
+    victim.processAndMerge(resources, true);
+    Assert.assertEquals(2, processedCount.get());
+  }
+
+  @Test
+  public void shouldReprocessResourcesImportingOtherResources()
+      throws Exception {
+    Context.get().getConfig().setCachePreProcessedResources(true);
+    final AtomicInteger processedCount = new AtomicInteger();
+    final ResourcePreProcessor importingProcessor = new ResourcePreProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+          throws IOException {
+        processedCount.incrementAndGet();
+        writer.write(victim.processAndMerge(createResources(Resource.create("imported.css", ResourceType.CSS)),
+            ProcessingCriteria.create(ProcessingType.IMPORT_ONLY, false)));
+        IOUtils.copy(reader, writer);
+      }
+    };
+    initExecutor(importingProcessor);
+    final List<Resource> resources = createResources(Resource.create("r1.css", ResourceType.CSS));
+    victim.processAndMerge(resources, true);
+    victim.processAndMerge(resources, true);
+    Assert.assertEquals(2, processedCount.get());
+  }
+
+  @Test
+  public void shouldReprocessResourcesLocatingOtherResources()
+      throws Exception {
+    Context.get().getConfig().setCachePreProcessedResources(true);
+    final AtomicInteger processedCount = new AtomicInteger();
+    // locates another resource, like the processors converting images to data uri
+    final ResourcePreProcessor locatingProcessor = new ResourcePreProcessor() {
+      @Inject
+      private UriLocatorFactory locatorFactory;
+
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+          throws IOException {
+        processedCount.incrementAndGet();
+        IOUtils.closeQuietly(locatorFactory.locate("image.png"));
+        IOUtils.copy(reader, writer);
+      }
+    };
+    initExecutor(locatingProcessor);
+    final List<Resource> resources = createResources(Resource.create("r1.css", ResourceType.CSS));
+    victim.processAndMerge(resources, true);
+    victim.processAndMerge(resources, true);
+    Assert.assertEquals(2, processedCount.get());
+  }
+
   @Test
   public void shouldNotMinimizeDecoratedResourcesWithMinimizationDisabled()
       throws Exception {
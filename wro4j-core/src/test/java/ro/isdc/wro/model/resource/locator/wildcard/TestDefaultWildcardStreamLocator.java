@@ -13,6 +13,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -147,4 +149,51 @@ public class TestDefaultWildcardStreamLocator {
     };
     uriLocator.locate("classpath:" + WroUtil.toPackageAsFolder(getClass()) + "/*.css");
   }
+
+  @Test
+  public void shouldStreamMatchedFilesInAlphabeticalOrder()
+      throws IOException {
+    final File folder = createFolder();
+    try {
+      assertEquals("ab", IOUtils.toString(locator.locateStream("*.js", folder)));
+      assertEquals("abd", IOUtils.toString(locator.locateStream("**.js", folder)));
+    } finally {
+      FileUtils.deleteQuietly(folder);
+    }
+  }
+
+  @Test
+  public void shouldReuseExpansionUntilFolderIsModified()
+      throws IOException {
+    final File folder = createFolder();
+    try {
+      assertEquals("ab", IOUtils.toString(locator.locateStream("*.js", folder)));
+      final long lastModified = folder.lastModified();
+      FileUtils.write(new File(folder, "c.js"), "c");
+      folder.setLastModified(lastModified);
+      assertEquals("ab", IOUtils.toString(locator.locateStream("*.js", folder)));
+
+      folder.setLastModified(lastModified + 1000);
+      assertEquals("abc", IOUtils.toString(locator.locateStream("*.js", folder)));
+    } finally {
+      FileUtils.deleteQuietly(folder);
+    }
+  }
+
+  /**
+   * Creates a folder with old timestamps, in order to allow the wildcard expansion to be cached.
+   */
+  private File createFolder()
+      throws IOException {
+    final File folder = new File(FileUtils.getTempDirectory(), "wro4j-wildcard-" + System.nanoTime());
+    final File subfolder = new File(folder, "sub");
+    FileUtils.write(new File(folder, "b.js"), "b");
+    FileUtils.write(new File(folder, "a.js"), "a");
+    FileUtils.write(new File(folder, "a.css"), "css");
+    FileUtils.write(new File(subfolder, "d.js"), "d");
+    final long lastModified = System.currentTimeMillis() - 60000;
+    subfolder.setLastModified(lastModified);
+    folder.setLastModified(lastModified);
+    return folder;
+  }
 }
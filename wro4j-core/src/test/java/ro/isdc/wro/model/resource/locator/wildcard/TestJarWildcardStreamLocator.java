@@ -1,7 +1,10 @@
 package ro.isdc.wro.model.resource.locator.wildcard;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.ByteArrayInputStream;
@@ -13,9 +16,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.AfterClass;
@@ -189,6 +194,94 @@ public class TestJarWildcardStreamLocator {
     return uriLocator;
   }
   
+  @Test
+  public void shouldReuseJarIndexUntilJarIsModified()
+      throws IOException {
+    final File tempJar = new File(FileUtils.getTempDirectory(), "wro4j-" + System.nanoTime() + ".jar");
+    FileUtils.copyURLToFile(TestJarWildcardStreamLocator.class.getResource("resources.jar"), tempJar);
+    final AtomicInteger openCount = new AtomicInteger();
+    final JarWildcardStreamLocator locator = new JarWildcardStreamLocator() {
+      @Override
+      File getJarFile(final File folder) {
+        return tempJar;
+      }
+
+      @Override
+      JarFile open(final File jarFile)
+          throws IOException {
+        openCount.incrementAndGet();
+        return super.open(jarFile);
+      }
+    };
+    try {
+      final String uri = "classpath:com/app/**.css";
+      IOUtils.closeQuietly(locator.locateStream(uri, tempJar));
+      IOUtils.closeQuietly(locator.locateStream(uri, tempJar));
+      assertEquals(1, openCount.get());
+      tempJar.setLastModified(tempJar.lastModified() + 10000);
+      IOUtils.closeQuietly(locator.locateStream(uri, tempJar));
+      assertEquals(2, openCount.get());
+    } finally {
+      FileUtils.deleteQuietly(tempJar);
+    }
+  }
+
+  @Test
+  public void shouldCloseUncachedJarWhenStreamIsClosed()
+      throws IOException {
+    final InputStream is = jarStreamLocator.locateStream("com/test/app/*.js", new File(jarFileName));
+    verify(jarFile, never()).close();
+    assertEquals(testInfo, IOUtils.toString(is));
+    is.close();
+    verify(jarFile).close();
+  }
+
+  @Test
+  public void shouldCloseReplacedJarAndIndexedJarsWhenCleared()
+      throws IOException {
+    final File tempJar = new File(FileUtils.getTempDirectory(), "wro4j-" + System.nanoTime() + ".jar");
+    FileUtils.copyURLToFile(TestJarWildcardStreamLocator.class.getResource("resources.jar"), tempJar);
+    final List<AtomicInteger> closeCounts = new ArrayList<AtomicInteger>();
+    final JarWildcardStreamLocator locator = new JarWildcardStreamLocator() {
+      @Override
+      File getJarFile(final File folder) {
+        return tempJar;
+      }
+
+      @Override
+      JarFile open(final File jarFile)
+          throws IOException {
+        final AtomicInteger closeCount = new AtomicInteger();
+        closeCounts.add(closeCount);
+        return new JarFile(jarFile) {
+          @Override
+          public void close()
+              throws IOException {
+            closeCount.incrementAndGet();
+            super.close();
+          }
+        };
+      }
+    };
+    try {
+      final String uri = "classpath:com/app/**.css";
+      final InputStream pending = locator.locateStream(uri, tempJar);
+      tempJar.setLastModified(tempJar.lastModified() + 10000);
+      IOUtils.closeQuietly(locator.locateStream(uri, tempJar));
+      assertEquals(2, closeCounts.size());
+      //the replaced jar is still used by a pending stream
+      assertEquals(0, closeCounts.get(0).get());
+      assertFalse(IOUtils.toString(pending).isEmpty());
+      pending.close();
+      assertEquals(1, closeCounts.get(0).get());
+      assertEquals(0, closeCounts.get(1).get());
+      JarWildcardStreamLocator.clearIndexes();
+      assertEquals(1, closeCounts.get(1).get());
+    } finally {
+      FileUtils.deleteQuietly(tempJar);
+    }
+  }
+
   @Test
   public void shouldGetJarFileFromFile() {
     final String actual = jarStreamLocator.getJarFile(new File("file:path/to/file!one/two/three.class")).getPath();
@@ -0,0 +1,89 @@
+package ro.isdc.wro.model.resource.processor;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.model.resource.processor.impl.CommentStripperProcessor;
+import ro.isdc.wro.model.resource.processor.impl.MultiLineCommentStripperProcessor;
+import ro.isdc.wro.model.resource.processor.impl.SingleLineCommentStripperProcessor;
+import ro.isdc.wro.model.resource.processor.impl.js.ConsoleStripperProcessor;
+import ro.isdc.wro.util.StopWatch;
+import ro.isdc.wro.util.WroUtil;
+
+
+/**
+ * Used to compare the throughput of the streaming comment & console strippers with the regular expressions they
+ * replace, using a multi-megabyte script. Each implementation is warmed up before being measured.
+ *
+ * @author Alex Objelean
+ */
+@Ignore
+@SuppressWarnings("deprecation")
+public class BenchmarkCommentStrippers {
+  private static final Logger LOG = LoggerFactory.getLogger(BenchmarkCommentStrippers.class);
+  private static final int WARMUP_ITERATIONS = 5;
+  private static final int ITERATIONS = 20;
+
+  private interface Task {
+    void run(String content)
+        throws Exception;
+  }
+
+  @Test
+  public void test()
+      throws Exception {
+    final String sample = IOUtils.toString(getClass().getResourceAsStream("commentStripper/test/comment1.js"), "UTF-8")
+        + "\nconsole.log('a', \"b\");\n";
+    final String content = StringUtils.repeat(sample, 20000);
+    final StopWatch watch = new StopWatch();
+    measure(watch, "regex comment stripper", content, new Task() {
+      public void run(final String content) {
+        String result = SingleLineCommentStripperProcessor.PATTERN.matcher(content).replaceAll("");
+        result = MultiLineCommentStripperProcessor.PATTERN.matcher(result).replaceAll("");
+        WroUtil.EMTPY_LINE_PATTERN.matcher(result).replaceAll("");
+      }
+    });
+    measure(watch, "streaming comment stripper", content, new Task() {
+      public void run(final String content)
+          throws Exception {
+        new CommentStripperProcessor().process(new StringReader(content), new StringWriter());
+      }
+    });
+    measure(watch, "regex console stripper", content, new Task() {
+      public void run(final String content) {
+        ConsoleStripperProcessor.PATTERN.matcher(content).replaceAll("");
+      }
+    });
+    measure(watch, "streaming console stripper", content, new Task() {
+      public void run(final String content)
+          throws Exception {
+        new ConsoleStripperProcessor().process(null, new StringReader(content), new StringWriter());
+      }
+    });
+    LOG.debug(watch.prettyPrint());
+  }
+
+  private void measure(final StopWatch watch, final String name, final String content, final Task task)
+      throws Exception {
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      task.run(content);
+    }
+    watch.start(name);
+    final long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      task.run(content);
+    }
+    final long elapsed = System.nanoTime() - start;
+    watch.stop();
+    LOG.debug("{}: {} ms/op ({} chars)", new Object[] {
+      name, elapsed / ITERATIONS / 1000000d, content.length()
+    });
+  }
+}
@@ -0,0 +1,62 @@
+package ro.isdc.wro.model.resource.processor;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.model.resource.processor.impl.css.CssCompressorProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.CssMinProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.CssTokenMinProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.JawrCssMinifierProcessor;
+import ro.isdc.wro.util.StopWatch;
+
+
+/**
+ * Used to compare the throughput of the css minifiers provided by the core module, using a large real-world
+ * stylesheet. Each minifier is warmed up before being measured.
+ *
+ * @author Alex Objelean
+ */
+@Ignore
+public class BenchmarkCssMinifiers {
+  private static final Logger LOG = LoggerFactory.getLogger(BenchmarkCssMinifiers.class);
+  private static final int WARMUP_ITERATIONS = 50;
+  private static final int ITERATIONS = 200;
+
+  @Test
+  public void test()
+      throws Exception {
+    final String css = StringUtils.repeat(IOUtils.toString(getClass().getResourceAsStream(
+        "cssTokenMin/test/bootstrap-twitter.css"), "UTF-8"), 5);
+    final ResourcePostProcessor[] minifiers = {
+      new CssTokenMinProcessor(), new CssCompressorProcessor(), new CssMinProcessor(), new JawrCssMinifierProcessor()
+    };
+    final StopWatch watch = new StopWatch();
+    for (final ResourcePostProcessor minifier : minifiers) {
+      final String name = minifier.getClass().getSimpleName();
+      for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+        minifier.process(new StringReader(css), new StringWriter());
+      }
+      watch.start(name);
+      final long start = System.nanoTime();
+      int size = 0;
+      for (int i = 0; i < ITERATIONS; i++) {
+        final StringWriter writer = new StringWriter();
+        minifier.process(new StringReader(css), writer);
+        size = writer.getBuffer().length();
+      }
+      final long elapsed = System.nanoTime() - start;
+      watch.stop();
+      LOG.debug("{}: {} ms/op, size: {} -> {}", new Object[] {
+        name, elapsed / ITERATIONS / 1000000d, css.length(), size
+      });
+    }
+    LOG.debug(watch.prettyPrint());
+  }
+}
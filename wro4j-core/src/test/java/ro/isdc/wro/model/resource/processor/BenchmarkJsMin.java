@@ -0,0 +1,72 @@
+package ro.isdc.wro.model.resource.processor;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ReaderInputStream;
+import org.apache.commons.io.output.WriterOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.model.resource.processor.support.JSMin;
+import ro.isdc.wro.util.StopWatch;
+
+
+/**
+ * Compares the {@link JSMin} processing characters with the previous approach, which encoded the script into bytes
+ * and decoded the result back, using a large library. Each approach is warmed up before being measured.
+ *
+ * @author Alex Objelean
+ */
+@Ignore
+public class BenchmarkJsMin {
+  private static final Logger LOG = LoggerFactory.getLogger(BenchmarkJsMin.class);
+  private static final int WARMUP_ITERATIONS = 10;
+  private static final int ITERATIONS = 50;
+
+  @Test
+  public void test()
+      throws Exception {
+    final String script = StringUtils.repeat(IOUtils.toString(getClass().getResourceAsStream(
+        "jsmin/test/jquery-1.11.0.min.js"), "UTF-8"), 10);
+    final StopWatch watch = new StopWatch();
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      minifyBytes(script);
+      minifyChars(script);
+    }
+    watch.start("bytes");
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      minifyBytes(script);
+    }
+    LOG.debug("bytes: {} ms/op", (System.nanoTime() - start) / ITERATIONS / 1000000d);
+    watch.stop();
+    watch.start("chars");
+    start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      minifyChars(script);
+    }
+    LOG.debug("chars: {} ms/op", (System.nanoTime() - start) / ITERATIONS / 1000000d);
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
+  }
+
+  private void minifyBytes(final String script)
+      throws Exception {
+    final InputStream is = new ReaderInputStream(new StringReader(script), "UTF-8");
+    final OutputStream os = new WriterOutputStream(new StringWriter(), "UTF-8");
+    new JSMin(is, os).jsmin();
+    os.close();
+  }
+
+  private void minifyChars(final String script)
+      throws Exception {
+    new JSMin(new StringReader(script), new StringWriter()).jsmin();
+  }
+}
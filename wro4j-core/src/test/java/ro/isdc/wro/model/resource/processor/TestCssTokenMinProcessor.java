@@ -0,0 +1,106 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URL;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.processor.impl.css.CssCompressorProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.CssMinProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.CssTokenMinProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.JawrCssMinifierProcessor;
+import ro.isdc.wro.util.WroTestUtils;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestCssTokenMinProcessor {
+  private final ResourcePostProcessor victim = new CssTokenMinProcessor();
+
+  private File getTestFolder() {
+    final URL url = getClass().getResource("cssTokenMin");
+    return new File(url.getFile(), "test");
+  }
+
+  @Test
+  public void testFromFolder()
+      throws IOException {
+    final URL url = getClass().getResource("cssTokenMin");
+    final File expectedFolder = new File(url.getFile(), "expected");
+    WroTestUtils.compareFromDifferentFoldersByExtension(getTestFolder(), expectedFolder, "css", victim);
+  }
+
+  /**
+   * {@link CssCompressorProcessor} is not part of the comparison, because it also merges the rules having the same
+   * declarations (which changes the order of the rules). {@link CssMinProcessor} drops the at-rule blocks, thus it is
+   * compared only on stylesheets without at-rules.
+   */
+  @Test
+  public void shouldNotProduceLargerOutputThanOtherCssMinifiers()
+      throws IOException {
+    for (final File file : getTestFolder().listFiles()) {
+      final String css = FileUtils.readFileToString(file, "UTF-8");
+      final int size = process(victim, css).length();
+      assertNotLarger(file, size, new JawrCssMinifierProcessor(), css);
+      if (!css.contains("@")) {
+        assertNotLarger(file, size, new CssMinProcessor(), css);
+      }
+    }
+  }
+
+  private void assertNotLarger(final File file, final int size, final ResourcePostProcessor minifier,
+      final String css)
+      throws IOException {
+    final int otherSize = process(minifier, css).length();
+    assertTrue(file.getName() + ": " + size + " > " + otherSize + " (" + minifier.getClass().getSimpleName() + ")",
+        size <= otherSize);
+  }
+
+  private String process(final ResourcePostProcessor processor, final String css)
+      throws IOException {
+    final StringWriter writer = new StringWriter();
+    processor.process(new StringReader(css), writer);
+    return writer.toString();
+  }
+
+  @Test
+  public void shouldRemoveEmptyNestedRules()
+      throws IOException {
+    assertEquals("", process(victim, "@media print { .empty { } }"));
+  }
+
+  @Test
+  public void shouldPreserveWhitespacesOfStrings()
+      throws IOException {
+    assertEquals("a{content:\" a  {  } ; \"}", process(victim, "a { content : \" a  {  } ; \" ; }"));
+  }
+
+  @Test
+  public void shouldPreserveDescendantPseudoClassSelector()
+      throws IOException {
+    assertEquals("div :first-child{color:red}", process(victim, "div  :first-child { color: red }"));
+  }
+
+  @Test
+  public void shouldNotFailOnUnterminatedTokens()
+      throws IOException {
+    assertEquals("a{content:\"x", process(victim, "a { content: \"x\n/* comment"));
+  }
+
+  @Test
+  public void shouldSupportCorrectResourceTypes() {
+    WroTestUtils.assertProcessorSupportResourceTypes(new CssTokenMinProcessor(), ResourceType.CSS);
+  }
+}
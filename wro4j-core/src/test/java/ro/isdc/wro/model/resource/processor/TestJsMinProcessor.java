@@ -13,6 +13,7 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.net.URL;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.commons.io.output.WriterOutputStream;
 import org.junit.After;
@@ -180,6 +181,34 @@ public class TestJsMinProcessor {
     jsmin("var r = /a/*comment");
   }
   
+  @Test
+  public void shouldPreserveNonAsciiCharacters()
+      throws Exception {
+    final String script = "var \u00e9t\u00e9 = '\u0163ar\u0103 \u65e5\u672c';\nvar \u03c0 = \u00e9t\u00e9 + 1;";
+    final String expected = "\nvar \u00e9t\u00e9='\u0163ar\u0103 \u65e5\u672c';var \u03c0=\u00e9t\u00e9+1;";
+    final StringWriter writer = new StringWriter();
+    processor.process(null, new StringReader(script), writer);
+    assertEquals(expected, writer.toString());
+    assertEquals(expected, jsmin(script));
+  }
+
+  @Test
+  public void shouldRemoveByteOrderMarkOfCharacters()
+      throws Exception {
+    final StringWriter writer = new StringWriter();
+    new JSMin(new StringReader("\uFEFFvar a = 1;"), writer).jsmin();
+    assertEquals("\nvar a=1;", writer.toString());
+  }
+
+  @Test
+  public void shouldProduceSameResultForCharactersAndBytes()
+      throws Exception {
+    final String script = IOUtils.toString(getClass().getResourceAsStream("jsmin/test/jquery-1.11.0.min.js"), "UTF-8");
+    final StringWriter writer = new StringWriter();
+    new JSMin(new StringReader(script), writer).jsmin();
+    assertEquals(jsmin(script), writer.toString());
+  }
+
   private String jsmin(final String inputScript)
       throws Exception {
     final StringReader reader = new StringReader(inputScript);
@@ -0,0 +1,111 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestCommentStripper {
+  private String strip(final String content)
+      throws IOException {
+    return strip(new CommentStripper(new StringReader(content)));
+  }
+
+  private String strip(final CommentStripper stripper)
+      throws IOException {
+    final StringWriter writer = new StringWriter();
+    stripper.strip(writer);
+    return writer.toString();
+  }
+
+  @Test
+  public void shouldRemoveCommentsAndEmptyLines()
+      throws IOException {
+    assertEquals("var a = 1;\nvar b = 2;\n", strip("// first\nvar a = 1; // one\n\n  /* multi\n line */\nvar b = 2;\n"));
+  }
+
+  @Test
+  public void shouldPreserveCommentDelimitersInsideStrings()
+      throws IOException {
+    final String content = "var url = \"http://wro4j.org/*\", other = '*/ // \\' /*', t = `//\n/*`;";
+    assertEquals(content, strip(content));
+  }
+
+  @Test
+  public void shouldPreserveCommentDelimitersInsideRegularExpressions()
+      throws IOException {
+    final String content = "var re = /\\/\\*[/*]/g, half = a / b / c;";
+    assertEquals(content, strip(content + " // comment"));
+  }
+
+  @Test
+  public void shouldDistinguishRegularExpressionFromDivision()
+      throws IOException {
+    assertEquals("return /\\/*/.test(x);", strip("return /\\/*/.test(x);"));
+    assertEquals("x = (a) / 2;", strip("x = (a) / 2;//*comment*/"));
+  }
+
+  @Test
+  public void shouldNotJoinTokensSeparatedByComment()
+      throws IOException {
+    assertEquals("return x;", strip("return/**/x;"));
+  }
+
+  @Test
+  public void shouldStripOnlySingleLineComments()
+      throws IOException {
+    assertEquals("/* a // b */ c\n", strip(new CommentStripper(new StringReader("/* a // b */ c // d\n"))
+        .setStripMultiLine(false)));
+  }
+
+  @Test
+  public void shouldStripOnlyMultiLineComments()
+      throws IOException {
+    assertEquals("a // b /* c */\n", strip(new CommentStripper(new StringReader("a/* x */ // b /* c */\n"))
+        .setStripSingleLine(false)));
+  }
+
+  @Test
+  public void shouldNotStripUrlsOfStylesheets()
+      throws IOException {
+    assertEquals(".a{background:url(http://wro4j.org/a.png)}", strip(new CommentStripper(new StringReader(
+        ".a{/*comment*/background:url(http://wro4j.org/a.png)}")).setCss(true)));
+  }
+
+  @Test
+  public void shouldHandleUnterminatedTokens()
+      throws IOException {
+    assertEquals("var a = 'unterminated\nb = 1;", strip("var a = 'unterminated\nb = 1;/* unterminated"));
+  }
+
+  @Test(timeout = 5000)
+  public void shouldProcessLongStringLiteralsInLinearTime()
+      throws IOException {
+    final String content = "var a = \"" + StringUtils.repeat("/* \\\" //", 200000) + "\";";
+    assertEquals(content, strip(content));
+  }
+
+  @Test(timeout = 5000)
+  public void shouldProcessUnterminatedCommentsInLinearTime()
+      throws IOException {
+    assertEquals("a;", strip("a;/*" + StringUtils.repeat(" /*", 200000)));
+  }
+
+  @Test(timeout = 5000)
+  public void shouldProcessLongRegularExpressionsInLinearTime()
+      throws IOException {
+    final String content = "var re = /" + StringUtils.repeat("[/*]\\/", 200000) + "/;";
+    assertEquals(content, strip(content));
+  }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.processor.support;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestConsoleStripper {
+  private String strip(final String content)
+      throws IOException {
+    final StringWriter writer = new StringWriter();
+    new ConsoleStripper(new StringReader(content)).strip(writer);
+    return writer.toString();
+  }
+
+  @Test
+  public void shouldRemoveConsoleStatements()
+      throws IOException {
+    assertEquals("a();\nb();", strip("a();console.log(1);\nwindow.console.debug(2) ;b();"));
+  }
+
+  @Test
+  public void shouldRemoveStatementWithNestedParenthesesAndLiterals()
+      throws IOException {
+    assertEquals("a();", strip("console.info(f(\")\"), /\\)/, ')' /* ) */, g(h()));a();"));
+  }
+
+  @Test
+  public void shouldRemoveStatementSpanningMultipleLines()
+      throws IOException {
+    assertEquals("a();", strip("console.log(\n  'multi',\n  'line'\n);a();"));
+  }
+
+  @Test
+  public void shouldKeepStatementsWhichAreNotConsoleCalls()
+      throws IOException {
+    final String content = "myconsole.log(1); obj.console.log(2); console.warn(3); x = console.log; "
+        + "a && console.log(4)\nvar s = 'console.log(5);'; // console.log(6);";
+    assertEquals(content, strip(content));
+  }
+
+  @Test
+  public void shouldKeepUnterminatedConsoleCall()
+      throws IOException {
+    assertEquals("console.log('a', (b);", strip("console.log('a', (b);"));
+  }
+
+  @Test(timeout = 5000)
+  public void shouldProcessLongArgumentsInLinearTime()
+      throws IOException {
+    assertEquals("a();", strip("console.log(\"" + StringUtils.repeat(");\\\"", 200000) + "\");a();"));
+  }
+
+  @Test(timeout = 5000)
+  public void shouldProcessManyConsoleStatementsInLinearTime()
+      throws IOException {
+    assertEquals(StringUtils.repeat("a();", 100000), strip(StringUtils.repeat("console.log(x);a();", 100000)));
+  }
+}
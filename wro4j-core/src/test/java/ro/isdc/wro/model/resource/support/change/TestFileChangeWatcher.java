@@ -0,0 +1,122 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.support.change;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.util.ObjectFactory;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestFileChangeWatcher {
+  private static final long TIMEOUT = 10000;
+  private FileChangeWatcher victim;
+  private ScheduledExecutorService scheduler;
+  private File directory;
+  private List<Resource> changedResources;
+
+  @Before
+  public void setUp()
+      throws Exception {
+    directory = new File(FileUtils.getTempDirectory(), "wro4j-watch-" + System.nanoTime());
+    directory.mkdirs();
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    changedResources = new CopyOnWriteArrayList<Resource>();
+    victim = new FileChangeWatcher(new ObjectFactory<ScheduledExecutorService>() {
+      public ScheduledExecutorService create() {
+        return scheduler;
+      }
+    }, new FileChangeWatcher.Callback() {
+      public void onResourceChanged(final Resource resource) {
+        changedResources.add(resource);
+      }
+    });
+  }
+
+  @After
+  public void tearDown()
+      throws Exception {
+    victim.destroy();
+    scheduler.shutdownNow();
+    FileUtils.deleteQuietly(directory);
+  }
+
+  private File createFile(final String name, final String content)
+      throws Exception {
+    final File file = new File(directory, name);
+    FileUtils.write(file, content);
+    return file;
+  }
+
+  private void awaitChange()
+      throws Exception {
+    final long start = System.currentTimeMillis();
+    while (changedResources.isEmpty() && System.currentTimeMillis() - start < TIMEOUT) {
+      Thread.sleep(FileChangeWatcher.POLL_PERIOD);
+    }
+  }
+
+  @Test
+  public void shouldBeSupportedByCurrentJvm() {
+    assertTrue(ResourceWatcher.isNativeWatcherSupported());
+  }
+
+  @Test
+  public void shouldNotWatchMissingFile() {
+    assertFalse(victim.watch(Resource.create("/missing.js", ResourceType.JS), new File(directory, "missing.js")));
+    assertFalse(victim.isWatched("/missing.js"));
+  }
+
+  @Test
+  public void shouldWatchExistingFile()
+      throws Exception {
+    assertTrue(victim.watch(Resource.create("/a.js", ResourceType.JS), createFile("a.js", "initial")));
+    assertTrue(victim.isWatched("/a.js"));
+  }
+
+  @Test
+  public void shouldPushChangeOfWatchedFile()
+      throws Exception {
+    final File file = createFile("a.css", "initial");
+    final Resource resource = Resource.create("/a.css", ResourceType.CSS);
+    victim.watch(resource, file);
+    FileUtils.write(file, "changed");
+    awaitChange();
+    assertEquals(resource.getUri(), changedResources.get(0).getUri());
+  }
+
+  @Test
+  public void shouldNotPushChangeOfOtherFileFromSameFolder()
+      throws Exception {
+    victim.watch(Resource.create("/a.js", ResourceType.JS), createFile("a.js", "initial"));
+    createFile("b.js", "changed");
+    Thread.sleep(FileChangeWatcher.POLL_PERIOD * 5);
+    assertTrue(changedResources.isEmpty());
+  }
+
+  @Test
+  public void shouldStopWatchingWhenDestroyed()
+      throws Exception {
+    victim.watch(Resource.create("/a.js", ResourceType.JS), createFile("a.js", "initial"));
+    victim.destroy();
+    assertFalse(victim.isWatched("/a.js"));
+  }
+}
@@ -3,9 +3,14 @@ package ro.isdc.wro.model.resource.support.change;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
@@ -13,8 +18,8 @@ import ro.isdc.wro.manager.factory.WroManagerFactory;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.group.processor.Injector;
 import ro.isdc.wro.model.group.processor.InjectorBuilder;
+import ro.isdc.wro.model.resource.locator.UriLocator;
 import ro.isdc.wro.model.resource.locator.factory.SimpleUriLocatorFactory;
-import ro.isdc.wro.util.WroTestUtils;
 
 
 /**
@@ -25,12 +30,23 @@ public class TestResourceChangeDetector {
   private static final String GROUP2_NAME = "g2";
   @Inject
   private ResourceChangeDetector victim;
+  private UriLocator locator;
 
   @Before
   public void setUp() {
     Context.set(Context.standaloneContext());
+    locator = Mockito.spy(new UriLocator() {
+      public InputStream locate(final String uri)
+          throws IOException {
+        return new ByteArrayInputStream(uri.getBytes());
+      }
+
+      public boolean accept(final String uri) {
+        return true;
+      }
+    });
     final WroManagerFactory managerFactory = new BaseWroManagerFactory()
-        .setUriLocatorFactory(new SimpleUriLocatorFactory().addLocator(WroTestUtils.createResourceMockingLocator()));
+        .setUriLocatorFactory(new SimpleUriLocatorFactory().addLocator(locator));
     final Injector injector = InjectorBuilder.create(managerFactory).build();
     injector.inject(this);
   }
@@ -67,4 +83,14 @@ public class TestResourceChangeDetector {
     assertFalse(victim.checkChangeForGroup("resource", GROUP1_NAME));
     assertTrue(victim.checkChangeForGroup("resource", GROUP2_NAME));
   }
+
+  @Test
+  public void shouldNotReadResourceWhenMetadataIsUnchanged()
+      throws Exception {
+    final String uri = "classpath:org/junit/Test.class";
+    victim.checkChangeForGroup(uri, GROUP1_NAME);
+    victim.reset();
+    assertFalse(victim.checkChangeForGroup(uri, GROUP1_NAME));
+    Mockito.verify(locator, Mockito.times(1)).locate(uri);
+  }
 }
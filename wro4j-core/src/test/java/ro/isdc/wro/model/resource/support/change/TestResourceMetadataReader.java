@@ -0,0 +1,118 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.model.resource.support.change;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.ReadOnlyContext;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestResourceMetadataReader {
+  private static final String JAR_RESOURCE_URI = "classpath:org/junit/Test.class";
+  private ResourceMetadataReader victim;
+  private ServletContext servletContext;
+  private File directory;
+
+  @Before
+  public void setUp() {
+    servletContext = mock(ServletContext.class);
+    final FilterConfig filterConfig = mock(FilterConfig.class);
+    when(filterConfig.getServletContext()).thenReturn(servletContext);
+    final Context context = Context.webContext(mock(HttpServletRequest.class), mock(HttpServletResponse.class),
+        filterConfig);
+    Context.set(context);
+    victim = new ResourceMetadataReader(context);
+    directory = new File(FileUtils.getTempDirectory(), "wro4j-metadata-" + System.nanoTime());
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+    FileUtils.deleteQuietly(directory);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void cannotCreateWithNullContext() {
+    new ResourceMetadataReader((ReadOnlyContext) null);
+  }
+
+  private File createFile(final String content, final long lastModified)
+      throws Exception {
+    final File file = new File(directory, "style.css");
+    FileUtils.write(file, content);
+    file.setLastModified(lastModified);
+    when(servletContext.getRealPath("/style.css")).thenReturn(file.getPath());
+    return file;
+  }
+
+  @Test
+  public void shouldReadMetadataOfServletContextFile()
+      throws Exception {
+    final File file = createFile("content", 1000000);
+    assertEquals(file, victim.getFile("/style.css"));
+    assertEquals("file:7:1000000", victim.getMetadata("/style.css"));
+  }
+
+  @Test
+  public void shouldChangeMetadataWhenFileIsModified()
+      throws Exception {
+    createFile("content", 1000000);
+    final String metadata = victim.getMetadata("/style.css");
+    createFile("changed content", 1000000);
+    assertFalse(metadata.equals(victim.getMetadata("/style.css")));
+  }
+
+  @Test
+  public void shouldNotTrustRecentlyModifiedFile()
+      throws Exception {
+    createFile("content", System.currentTimeMillis());
+    assertNull(victim.getMetadata("/style.css"));
+  }
+
+  @Test
+  public void shouldNotReadMetadataOfMissingResource() {
+    assertNull(victim.getMetadata("/missing.css"));
+    assertNull(victim.getMetadata("classpath:missing.css"));
+  }
+
+  @Test
+  public void shouldNotReadMetadataOfResourceWithWildcard() {
+    assertNull(victim.getFile("/*.css"));
+    assertNull(victim.getMetadata("classpath:ro/isdc/wro/**.js"));
+  }
+
+  @Test
+  public void shouldReadCrcOfClasspathResourceFromJar() {
+    assertNull(victim.getFile(JAR_RESOURCE_URI));
+    final String metadata = victim.getMetadata(JAR_RESOURCE_URI);
+    assertNotNull(metadata);
+    assertEquals(metadata, victim.getMetadata(JAR_RESOURCE_URI));
+  }
+
+  @Test
+  public void shouldFindFileOfClasspathResourceFromFolder() {
+    assertNotNull(victim.getFile("classpath:log4j.properties"));
+  }
+}
@@ -10,6 +10,7 @@ import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.concurrent.Callable;
@@ -17,9 +18,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -36,6 +39,7 @@ import org.slf4j.LoggerFactory;
 import ro.isdc.wro.cache.CacheKey;
 import ro.isdc.wro.cache.CacheStrategy;
 import ro.isdc.wro.cache.CacheValue;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.support.ContextPropagatingCallable;
 import ro.isdc.wro.http.WroFilter;
@@ -244,6 +248,130 @@ public class TestResourceWatcher {
     verify(resourceWatcherCallback, Mockito.never()).onResourceChanged(Mockito.any(Resource.class));
   }
 
+  private static class DependencyGraphHolder {
+    @Inject
+    private ResourceDependencyGraph dependencyGraph;
+  }
+
+  @Test
+  public void shouldEvictKeysDependingOnChangedResource()
+      throws Exception {
+    final DependencyGraphHolder holder = new DependencyGraphHolder();
+    final Injector injector = createDefaultInjector();
+    injector.inject(victim);
+    injector.inject(holder);
+    final CacheKey dependentKey = new CacheKey("importingGroup", ResourceType.CSS, true);
+    holder.dependencyGraph.startRecording(dependentKey);
+    holder.dependencyGraph.record(RESOURCE_CSS_URI);
+    holder.dependencyGraph.stopRecording();
+    victim.check(cacheKey);
+
+    when(mockLocator.locate(RESOURCE_CSS_URI)).thenAnswer(answerWithContent("changed"));
+    victim.check(cacheKey);
+    verify(cacheStrategy, Mockito.atLeastOnce()).put(dependentKey, null);
+  }
+
+  @Test
+  public void shouldDetectChangeOfDependencyOutsideOfGroup()
+      throws Exception {
+    final DependencyGraphHolder holder = new DependencyGraphHolder();
+    final Injector injector = createDefaultInjector();
+    injector.inject(victim);
+    injector.inject(holder);
+    // a resource located while processing the group, like an image converted to data uri
+    final String dependencyUri = "/img/logo.png";
+    // the first check of the group resources and of the dependency detects a change. The dependencies are recorded
+    // again each time the evicted key is processed.
+    victim.check(cacheKey2);
+    recordDependencies(holder.dependencyGraph, cacheKey2, RESOURCE_JS_URI, dependencyUri);
+    victim.check(cacheKey2);
+    recordDependencies(holder.dependencyGraph, cacheKey2, RESOURCE_JS_URI, dependencyUri);
+    victim.check(cacheKey2, resourceWatcherCallback);
+    verify(resourceWatcherCallback, Mockito.never()).onGroupChanged(Mockito.any(CacheKey.class));
+
+    when(mockLocator.locate(dependencyUri)).thenAnswer(answerWithContent("changed"));
+    victim.check(cacheKey2, resourceWatcherCallback);
+    verify(resourceWatcherCallback).onGroupChanged(cacheKey2);
+    verify(cacheStrategy, Mockito.atLeastOnce()).put(cacheKey2, null);
+  }
+
+  private void recordDependencies(final ResourceDependencyGraph dependencyGraph, final CacheKey key,
+      final String... uris) {
+    dependencyGraph.startRecording(key);
+    for (final String uri : uris) {
+      dependencyGraph.record(uri);
+    }
+    dependencyGraph.stopRecording();
+  }
+
+  @Test
+  public void shouldPushChangeOfResourceWatchedNatively()
+      throws Exception {
+    final File directory = new File(FileUtils.getTempDirectory(), "wro4j-watcher-" + System.nanoTime());
+    final File file = new File(directory, "1.js");
+    FileUtils.write(file, "initial");
+    try {
+      final ServletContext servletContext = Mockito.mock(ServletContext.class);
+      when(filterConfig.getServletContext()).thenReturn(servletContext);
+      when(servletContext.getRealPath(RESOURCE_JS_URI)).thenReturn(file.getPath());
+      Context.unset();
+      Context.set(Context.webContext(request, response, filterConfig));
+      Context.get().getConfig().setResourceWatcherNative(true);
+      final DependencyGraphHolder holder = new DependencyGraphHolder();
+      final Injector injector = createDefaultInjector();
+      injector.inject(victim);
+      injector.inject(holder);
+      final CacheKey dependentKey = new CacheKey("importingGroup", ResourceType.JS, true);
+      holder.dependencyGraph.startRecording(dependentKey);
+      holder.dependencyGraph.record(RESOURCE_JS_URI);
+      holder.dependencyGraph.stopRecording();
+
+      victim.check(cacheKey2);
+      victim.check(cacheKey2);
+      // the natively watched resource is not read again
+      verify(mockLocator, Mockito.times(1)).locate(RESOURCE_JS_URI);
+
+      FileUtils.write(file, "changed");
+      verify(cacheStrategy, Mockito.timeout(10000).atLeastOnce()).put(dependentKey, null);
+    } finally {
+      FileUtils.deleteQuietly(directory);
+    }
+  }
+
+  @Test
+  public void shouldDetectChangeOfResourceImportedByResourceWatchedNatively()
+      throws Exception {
+    final File directory = new File(FileUtils.getTempDirectory(), "wro4j-watcher-" + System.nanoTime());
+    final File file = new File(directory, "test.css");
+    FileUtils.write(file, "initial");
+    try {
+      final ServletContext servletContext = Mockito.mock(ServletContext.class);
+      when(filterConfig.getServletContext()).thenReturn(servletContext);
+      when(servletContext.getRealPath(RESOURCE_CSS_URI)).thenReturn(file.getPath());
+      Context.unset();
+      Context.set(Context.webContext(request, response, filterConfig));
+      Context.get().getConfig().setResourceWatcherNative(true);
+      createDefaultInjector().inject(victim);
+      when(mockLocator.locate(Mockito.anyString())).thenAnswer(answerWithContent("initial"));
+      when(mockLocator.locate(RESOURCE_CSS_URI)).thenAnswer(answerWithContent("@import url(imported.css)"));
+
+      // the first checks detect the resource and its import as changed
+      victim.check(cacheKey);
+      victim.check(cacheKey);
+      victim.check(cacheKey, resourceWatcherCallback);
+      verify(resourceWatcherCallback, never()).onGroupChanged(Mockito.any(CacheKey.class));
+
+      when(mockLocator.locate(Mockito.anyString())).thenAnswer(answerWithContent("changed"));
+      when(mockLocator.locate(RESOURCE_CSS_URI)).thenAnswer(answerWithContent("@import url(imported.css)"));
+      victim.check(cacheKey, resourceWatcherCallback);
+      verify(resourceWatcherCallback).onGroupChanged(Mockito.any(CacheKey.class));
+      // the natively watched resource is hashed once and scanned for imports once
+      verify(mockLocator, Mockito.times(2)).locate(RESOURCE_CSS_URI);
+    } finally {
+      FileUtils.deleteQuietly(directory);
+    }
+  }
+
   private static class CallbackRegistryHolder {
     @Inject
     private LifecycleCallbackRegistry registry;
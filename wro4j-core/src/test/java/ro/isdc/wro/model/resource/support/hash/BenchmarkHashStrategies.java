@@ -0,0 +1,51 @@
+package ro.isdc.wro.model.resource.support.hash;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.util.StopWatch;
+
+
+/**
+ * Used to compare the throughput of all {@link HashStrategy} implementations provided by the core module. Each strategy
+ * is warmed up before being measured.
+ *
+ * @author Alex Objelean
+ */
+@Ignore
+public class BenchmarkHashStrategies {
+  private static final Logger LOG = LoggerFactory.getLogger(BenchmarkHashStrategies.class);
+  private static final int CONTENT_SIZE = 1024 * 1024;
+  private static final int WARMUP_ITERATIONS = 50;
+  private static final int ITERATIONS = 200;
+
+  @Test
+  public void test()
+      throws Exception {
+    final byte[] content = new byte[CONTENT_SIZE];
+    new Random(1).nextBytes(content);
+    final Map<String, HashStrategy> strategies = new DefaultHashStrategyProvider().provideHashStrategies();
+    final StopWatch watch = new StopWatch();
+    for (final Map.Entry<String, HashStrategy> entry : strategies.entrySet()) {
+      final HashStrategy strategy = entry.getValue();
+      for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+        strategy.getHash(new ByteArrayInputStream(content));
+      }
+      watch.start(entry.getKey());
+      final long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        strategy.getHash(new ByteArrayInputStream(content));
+      }
+      final long elapsed = System.nanoTime() - start;
+      watch.stop();
+      LOG.debug("{}: {} MB/s", entry.getKey(), (long) (ITERATIONS * (CONTENT_SIZE / 1048576d) / (elapsed / 1e9)));
+    }
+    LOG.debug(watch.prettyPrint());
+  }
+}
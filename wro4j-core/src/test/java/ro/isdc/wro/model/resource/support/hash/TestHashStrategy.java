@@ -6,6 +6,10 @@ package ro.isdc.wro.model.resource.support.hash;
 import static org.junit.Assert.assertEquals;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -59,4 +63,33 @@ public class TestHashStrategy {
     final String hash = fingerprintCreator.getHash(new ByteArrayInputStream(input.getBytes()));
     assertEquals("18f4fd08", hash);
   }
+
+  @Test
+  public void testXXHash64()
+      throws Exception {
+    fingerprintCreator = new XXHash64HashStrategy();
+    assertEquals("ef46db3751d8e999", fingerprintCreator.getHash(new ByteArrayInputStream(new byte[] {})));
+    assertEquals("44bc2cf5ad770999", fingerprintCreator.getHash(new ByteArrayInputStream("abc".getBytes())));
+    assertEquals("fbcea83c8a378bf1", fingerprintCreator.getHash(new ByteArrayInputStream(
+        "Nobody inspects the spammish repetition".getBytes())));
+  }
+
+  @Test
+  public void shouldComputeSameXXHash64RegardlessOfHowTheStreamIsRead()
+      throws Exception {
+    fingerprintCreator = new XXHash64HashStrategy();
+    final byte[] content = new byte[20000];
+    new Random(1).nextBytes(content);
+    final String hash = fingerprintCreator.getHash(new ByteArrayInputStream(content));
+    final InputStream slowStream = new FilterInputStream(new ByteArrayInputStream(content)) {
+      @Override
+      public int read(final byte[] b, final int off, final int len)
+          throws IOException {
+        // read at most 7 bytes at once
+        return super.read(b, off, Math.min(len, 7));
+      }
+    };
+    assertEquals(hash, fingerprintCreator.getHash(slowStream));
+    assertEquals(16, hash.length());
+  }
 }
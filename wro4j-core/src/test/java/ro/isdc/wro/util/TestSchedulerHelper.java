@@ -9,6 +9,7 @@ import static org.mockito.MockitoAnnotations.initMocks;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
@@ -39,6 +40,34 @@ public class TestSchedulerHelper {
     assertEquals(0, Context.countActive());
   }
   
+  @Test
+  public void shouldNotShutdownSharedSchedulerOnDestroy()
+      throws Exception {
+    final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    try {
+      helper = SchedulerHelper.create(new DestroyableLazyInitializer<Runnable>() {
+        @Override
+        protected Runnable initialize() {
+          return mockRunnable;
+        }
+      }, "shared", new ObjectFactory<ScheduledExecutorService>() {
+        public ScheduledExecutorService create() {
+          return scheduler;
+        }
+      });
+      helper.scheduleWithPeriod(10, TimeUnit.MILLISECONDS);
+      Thread.sleep(50);
+      verify(mockRunnable, Mockito.atLeastOnce()).run();
+      helper.destroy();
+      Assert.assertFalse(scheduler.isShutdown());
+      Mockito.reset(mockRunnable);
+      Thread.sleep(50);
+      verify(mockRunnable, Mockito.never()).run();
+    } finally {
+      scheduler.shutdownNow();
+    }
+  }
+  
   @AfterClass
   public static void onAfterClass() {
     assertEquals(0, Context.countActive());
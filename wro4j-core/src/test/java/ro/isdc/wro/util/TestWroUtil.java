@@ -128,6 +128,16 @@ public class TestWroUtil {
     assertTrue(WroUtil.isGzipSupported(request));
   }
 
+  @Test
+  public void shouldDetectAcceptedContentCoding() {
+    assertFalse(WroUtil.isContentCodingAccepted(mockRequestHeader("", ""), "deflate"));
+    assertFalse(WroUtil.isContentCodingAccepted(mockRequestHeader("Accept-Encoding", "gzip"), "deflate"));
+    assertTrue(WroUtil.isContentCodingAccepted(mockRequestHeader("Accept-Encoding", "gzip, deflate"), "deflate"));
+    assertTrue(WroUtil.isContentCodingAccepted(mockRequestHeader("Accept-Encoding", "gzip,DEFLATE;q=0.5"), "deflate"));
+    assertFalse(WroUtil.isContentCodingAccepted(mockRequestHeader("Accept-Encoding", "gzip, deflate;q=0"), "deflate"));
+    assertTrue(WroUtil.isContentCodingAccepted(mockRequestHeader("X-cept-Encoding", "br, gzip"), "br"));
+  }
+
   private HttpServletRequest mockRequestHeader(final String headerName, final String headerValue) {
     final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
     final Enumeration<String> enumeration = Collections.enumeration(Arrays.asList(headerName));
@@ -0,0 +1,217 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.util.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestWroExecutorProvider {
+  private WroExecutorProvider victim;
+  private WroConfiguration config;
+  private CountDownLatch release;
+
+  @Before
+  public void setUp() {
+    config = new WroConfiguration();
+    config.setExecutorPoolSize(1);
+    config.setExecutorQueueSize(1);
+    Context.set(Context.standaloneContext(), config);
+    victim = new WroExecutorProvider();
+    release = new CountDownLatch(1);
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    victim.destroy();
+    Context.unset();
+  }
+
+  private Callable<Void> blockingTask() {
+    return new Callable<Void>() {
+      public Void call()
+          throws Exception {
+        release.await(5, TimeUnit.SECONDS);
+        return null;
+      }
+    };
+  }
+
+  @Test
+  public void shouldNotCreateThreadsBeforeFirstUsage() {
+    assertEquals(0, victim.getPoolSize());
+    assertEquals(0, victim.getQueueSize());
+    assertEquals(0, victim.getScheduledTaskCount());
+  }
+
+  @Test
+  public void shouldUseConfiguredBounds()
+      throws Exception {
+    victim.submit(blockingTask());
+    victim.submit(blockingTask());
+    assertEquals(1, victim.getPoolSize());
+    assertEquals(1, victim.getQueueSize());
+  }
+
+  @Test
+  public void shouldRunRejectedTaskInCallerThreadByDefault()
+      throws Exception {
+    victim.submit(blockingTask());
+    victim.submit(blockingTask());
+    final Thread caller = Thread.currentThread();
+    final Future<Thread> future = victim.submit(new Callable<Thread>() {
+      public Thread call() {
+        return Thread.currentThread();
+      }
+    });
+    assertSame(caller, future.get());
+    assertEquals(1, victim.getRejectedTaskCount());
+  }
+
+  @Test(expected = RejectedExecutionException.class)
+  public void shouldAbortRejectedTaskWhenConfigured()
+      throws Exception {
+    config.setExecutorRejectionPolicy(WroExecutorProvider.POLICY_ABORT);
+    victim.submit(blockingTask());
+    victim.submit(blockingTask());
+    victim.submit(blockingTask());
+  }
+
+  @Test(expected = CancellationException.class)
+  public void shouldCancelDiscardedTaskWhenConfigured()
+      throws Exception {
+    config.setExecutorRejectionPolicy(WroExecutorProvider.POLICY_DISCARD);
+    victim.submit(blockingTask());
+    victim.submit(blockingTask());
+    final Future<Void> discarded = victim.submit(blockingTask());
+    assertTrue(discarded.isCancelled());
+    assertEquals(1, victim.getRejectedTaskCount());
+    discarded.get(5, TimeUnit.SECONDS);
+  }
+
+  @Test
+  public void shouldCancelOldestQueuedTaskWhenConfigured()
+      throws Exception {
+    config.setExecutorRejectionPolicy(WroExecutorProvider.POLICY_DISCARD_OLDEST);
+    victim.submit(blockingTask());
+    final Future<Void> oldest = victim.submit(blockingTask());
+    final Future<Void> newest = victim.submit(blockingTask());
+    assertTrue(oldest.isCancelled());
+    assertFalse(newest.isCancelled());
+    assertEquals(1, victim.getQueueSize());
+  }
+
+  @Test
+  public void shouldCancelQueuedTasksOnDestroy()
+      throws Exception {
+    victim.submit(blockingTask());
+    final Future<Void> queued = victim.submit(blockingTask());
+    victim.destroy();
+    assertTrue(queued.isCancelled());
+  }
+
+  @Test
+  public void shouldServeUsingThreadsNotShared()
+      throws Exception {
+    victim.submit(blockingTask());
+    victim.submit(blockingTask());
+    // the shared executor is busy, while the serving executor runs its tasks with its own threads
+    final Future<Boolean> future = victim.getServingExecutor().submit(new Callable<Boolean>() {
+      public Boolean call() {
+        return victim.isWorkerThread();
+      }
+    });
+    assertFalse(future.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldRejectServingTaskRegardlessOfPolicy()
+      throws Exception {
+    config.setExecutorRejectionPolicy(WroExecutorProvider.POLICY_DISCARD);
+    victim.getServingExecutor().submit(blockingTask());
+    victim.getServingExecutor().submit(blockingTask());
+    try {
+      victim.getServingExecutor().submit(blockingTask());
+      fail("Should have rejected the serving task");
+    } catch (final RejectedExecutionException e) {
+    }
+  }
+
+  @Test
+  public void shouldCancelQueuedServingTasksOnDestroy()
+      throws Exception {
+    victim.getServingExecutor().submit(blockingTask());
+    final Future<Void> queued = victim.getServingExecutor().submit(blockingTask());
+    victim.destroy();
+    assertTrue(queued.isCancelled());
+  }
+
+  @Test(expected = WroRuntimeException.class)
+  public void cannotUseInvalidRejectionPolicy() {
+    config.setExecutorRejectionPolicy("invalid");
+    victim.getExecutor();
+  }
+
+  @Test
+  public void shouldRunNestedTasksInWorkerThread()
+      throws Exception {
+    final Future<Boolean> future = victim.submit(new Callable<Boolean>() {
+      public Boolean call()
+          throws Exception {
+        // would deadlock if the nested task was queued, since the pool has a single thread
+        return victim.submit(new Callable<Boolean>() {
+          public Boolean call() {
+            return victim.isWorkerThread();
+          }
+        }).get(5, TimeUnit.SECONDS);
+      }
+    });
+    assertTrue(future.get(5, TimeUnit.SECONDS));
+    assertFalse(victim.isWorkerThread());
+  }
+
+  @Test
+  public void shouldFallbackToPlatformThreadsWhenVirtualThreadsAreNotSupported()
+      throws Exception {
+    config.setExecutorVirtualThreads(true);
+    assertTrue(victim.submit(new Callable<Boolean>() {
+      public Boolean call() {
+        return victim.isWorkerThread();
+      }
+    }).get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void shouldRecreateThreadsAfterDestroy()
+      throws Exception {
+    victim.getExecutor();
+    victim.getScheduler();
+    victim.destroy();
+    assertEquals(0, victim.getPoolSize());
+    assertFalse(victim.getExecutor().isShutdown());
+    assertFalse(victim.getScheduler().isShutdown());
+  }
+}
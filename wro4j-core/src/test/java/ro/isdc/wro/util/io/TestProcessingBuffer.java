@@ -0,0 +1,76 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.util.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestProcessingBuffer {
+  private ProcessingBuffer victim;
+
+  @Before
+  public void setUp() {
+    victim = new ProcessingBuffer();
+  }
+
+  @Test
+  public void shouldBeEmptyByDefault()
+      throws Exception {
+    assertEquals("", IOUtils.toString(victim.getReader()));
+    assertEquals(0, victim.length());
+  }
+
+  @Test
+  public void shouldReadWrittenContentOnlyAfterFlip()
+      throws Exception {
+    victim.getWriter().write("content");
+    assertEquals("", IOUtils.toString(victim.getReader()));
+    victim.flip();
+    assertEquals("content", IOUtils.toString(victim.getReader()));
+  }
+
+  @Test
+  public void shouldChainContentBetweenFlips()
+      throws Exception {
+    victim.getWriter().write("one");
+    victim.flip();
+    final String input = IOUtils.toString(victim.getReader());
+    victim.getWriter().write(input.toUpperCase());
+    victim.flip();
+    assertEquals("ONE", victim.toString());
+  }
+
+  @Test
+  public void shouldDiscardContentOnClear()
+      throws Exception {
+    victim.getWriter().write("content");
+    victim.flip();
+    victim.getWriter().write("other");
+    victim.clear();
+    victim.flip();
+    assertEquals("", victim.toString());
+  }
+
+  @Test
+  public void shouldWriteLargeContent()
+      throws Exception {
+    final String content = StringUtils.repeat("abcdefgh", 10000);
+    victim.getWriter().write(content);
+    victim.flip();
+    final StringWriter writer = new StringWriter();
+    victim.writeTo(writer);
+    assertEquals(content, writer.toString());
+    assertEquals(content, IOUtils.toString(victim.getReader()));
+  }
+}
@@ -17,6 +17,7 @@ import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.csslint.CssLint;
 import ro.isdc.wro.extensions.processor.support.csslint.CssLintException;
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
@@ -155,5 +156,6 @@ public class CssLintProcessor
   @Override
   public void destroy() throws Exception {
     enginePool.destroy();
+    RhinoScriptBuilder.clearCompiledScripts();
   }
 }
@@ -5,12 +5,17 @@ import static org.apache.commons.lang3.Validate.notNull;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
+import ro.isdc.wro.config.ReadOnlyContext;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
@@ -18,6 +23,7 @@ import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.support.change.ResourceMetadataReader;
 import ro.isdc.wro.util.WroUtil;
 
 import com.github.sommeri.less4j.Less4jException;
@@ -30,6 +36,12 @@ import com.github.sommeri.less4j.core.DefaultLessCompiler;
 
 /**
  * Yet another processor which compiles less to css. This implementation uses open source java library called less4j.
+ * <p/>
+ * This processor is thread-safe: the {@link DefaultLessCompiler} creates a new compiler for each compilation, thus
+ * several resources can be compiled in parallel. The content of the imported sources is cached and shared by all
+ * compilations, as long as the cheap metadata of the imported resource (size and last modified time, jar entry CRC,
+ * etc.) is unchanged. The imported resources without such metadata are read for each compilation. The cache holds at
+ * most {@link #MAX_CACHED_IMPORTS} sources, the least recently used being evicted first.
  *
  * @author Alex Objelean
  * @since 1.6.0
@@ -40,20 +52,35 @@ public class Less4jProcessor
     implements ResourcePreProcessor, ResourcePostProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(Less4jProcessor.class);
   public static final String ALIAS = "less4j";
+  /**
+   * The maximum number of imported sources kept in the cache.
+   */
+  public static final int MAX_CACHED_IMPORTS = 256;
+
+  /**
+   * Holds the content of an imported source along with the metadata describing its version.
+   */
+  private static class CachedImport {
+    private final String metadata;
+    private final String content;
+
+    public CachedImport(final String metadata, final String content) {
+      this.metadata = metadata;
+      this.content = content;
+    }
+  }
 
   /**
    * Required to use the less4j import mechanism.
    */
-  private static class RelativeAwareLessSource
+  private class RelativeAwareLessSource
       extends LessSource.StringSource {
     private final Resource resource;
-    private final UriLocatorFactory locatorFactory;
 
-    public RelativeAwareLessSource(final Resource resource, final String content, final UriLocatorFactory locatorFactory) {
+    public RelativeAwareLessSource(final Resource resource, final String content) {
       super(content);
       this.resource = resource;
       notNull(locatorFactory);
-      this.locatorFactory = locatorFactory;
     }
 
     @Override
@@ -66,8 +93,7 @@ public class Less4jProcessor
       try {
         final String relativeResourceUri = computeRelativeResourceUri(resource.getUri(), relativePath);
         final Resource relativeResource = Resource.create(relativeResourceUri, ResourceType.CSS);
-        final String relativeResourceContent = IOUtils.toString(locatorFactory.locate(relativeResourceUri), "UTF-8");
-        return new RelativeAwareLessSource(relativeResource, relativeResourceContent, locatorFactory);
+        return new RelativeAwareLessSource(relativeResource, getImportedContent(relativeResourceUri));
       } catch (final IOException e) {
         LOG.error("Failed to compute relative resource: " + resource, e);
         throw new StringSourceException();
@@ -81,7 +107,21 @@ public class Less4jProcessor
   }
   @Inject
   private UriLocatorFactory locatorFactory;
-
+  @Inject
+  private ReadOnlyContext context;
+  @Inject
+  private ResourceDependencyGraph dependencyGraph;
+  private ResourceMetadataReader metadataReader;
+  /**
+   * The content of the imported sources mapped by their uri, in access order.
+   */
+  private final Map<String, CachedImport> importCache = Collections.synchronizedMap(
+      new LinkedHashMap<String, CachedImport>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, CachedImport> eldest) {
+      return size() > MAX_CACHED_IMPORTS;
+    }
+  });
   private final LessCompiler compiler = new DefaultLessCompiler();
 
   @Override
@@ -94,7 +134,7 @@ public class Less4jProcessor
   public void process(final Resource resource, final Reader reader, final Writer writer)
       throws IOException {
     try {
-      final LessSource lessSource = new RelativeAwareLessSource(resource, IOUtils.toString(reader), locatorFactory);
+      final LessSource lessSource = new RelativeAwareLessSource(resource, IOUtils.toString(reader));
       final CompilationResult result = compiler.compile(lessSource);
       logWarnings(result);
       writer.write(result.getCss());
@@ -107,6 +147,43 @@ public class Less4jProcessor
     }
   }
 
+  /**
+   * @return the content of the imported resource, reused from the cache if its metadata is unchanged.
+   */
+  private String getImportedContent(final String uri)
+      throws IOException {
+    final String metadata = getMetadata(uri);
+    if (metadata != null) {
+      final CachedImport cachedImport = importCache.get(uri);
+      if (cachedImport != null && metadata.equals(cachedImport.metadata)) {
+        LOG.debug("Reusing imported source: {}", uri);
+        // the locator is skipped, thus the group being processed must be recorded as depending on the import.
+        if (dependencyGraph != null) {
+          dependencyGraph.record(uri);
+        }
+        return cachedImport.content;
+      }
+    }
+    final String content = IOUtils.toString(locatorFactory.locate(uri), "UTF-8");
+    if (metadata != null) {
+      importCache.put(uri, new CachedImport(metadata, content));
+    }
+    return content;
+  }
+
+  /**
+   * @return the metadata of the resource or null if it is not available (in which case the resource is not cached).
+   */
+  private String getMetadata(final String uri) {
+    if (context == null) {
+      return null;
+    }
+    if (metadataReader == null) {
+      metadataReader = new ResourceMetadataReader(context);
+    }
+    return metadataReader.getMetadata(uri);
+  }
+
   private void logWarnings(final CompilationResult result) {
     if (!result.getWarnings().isEmpty()) {
       LOG.warn("Less warnings are:");
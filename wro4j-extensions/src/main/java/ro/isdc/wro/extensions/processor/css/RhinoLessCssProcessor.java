@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.less.LessCss;
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
@@ -169,5 +170,6 @@ public class RhinoLessCssProcessor
   @Override
   public void destroy() throws Exception {
     enginePool.destroy();
+    RhinoScriptBuilder.clearCompiledScripts();
   }
 }
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.sass.SassCss;
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
@@ -109,5 +110,6 @@ public class SassCssProcessor
   @Override
   public void destroy() throws Exception {
     enginePool.destroy();
+    RhinoScriptBuilder.clearCompiledScripts();
   }
 }
@@ -17,6 +17,7 @@ import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.linter.AbstractLinter;
 import ro.isdc.wro.extensions.processor.support.linter.LinterException;
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
@@ -151,5 +152,6 @@ public abstract class AbstractLinterProcessor
   @Override
   public void destroy() throws Exception {
     enginePool.destroy();
+    RhinoScriptBuilder.clearCompiledScripts();
   }
 }
@@ -16,6 +16,7 @@ import org.slf4j.LoggerFactory;
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.uglify.UglifyJs;
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
@@ -108,5 +109,6 @@ public class BeautifyJsProcessor
   @Override
   public void destroy() throws Exception {
     enginePool.destroy();
+    RhinoScriptBuilder.clearCompiledScripts();
   }
 }
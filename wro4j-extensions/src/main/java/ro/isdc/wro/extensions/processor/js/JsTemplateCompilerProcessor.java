@@ -9,6 +9,7 @@ import org.apache.commons.io.IOUtils;
 
 import ro.isdc.wro.extensions.processor.support.ObjectPoolHelper;
 import ro.isdc.wro.extensions.processor.support.template.AbstractJsTemplateCompiler;
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.processor.Destroyable;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
@@ -67,5 +68,6 @@ public abstract class JsTemplateCompilerProcessor implements ResourcePreProcesso
   @Override
   public void destroy() throws Exception {
     enginePool.destroy();
+    RhinoScriptBuilder.clearCompiledScripts();
   }
 }
@@ -3,15 +3,21 @@
  */
 package ro.isdc.wro.extensions.script;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.tools.ToolErrorReporter;
 import org.slf4j.Logger;
@@ -19,6 +25,8 @@ import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.locator.WebjarUriLocator;
+import ro.isdc.wro.model.resource.support.hash.HashStrategy;
+import ro.isdc.wro.model.resource.support.hash.SHA1HashStrategy;
 
 
 /**
@@ -32,6 +40,23 @@ public final class RhinoScriptBuilder {
   private static final String SCRIPT_ENV = "env.rhino.min.js";
   private static final String SCRIPT_JSON = "json2.min.js";
   private static final String SCRIPT_CYCLE = "cycle.js";
+  /**
+   * The maximum number of compiled scripts kept in the cache, enough for the libraries of all the rhino based
+   * processors.
+   */
+  static final int MAX_COMPILED_SCRIPTS = 32;
+  private static final HashStrategy HASH_STRATEGY = new SHA1HashStrategy();
+  /**
+   * Scripts compiled from streams (the libraries), keyed by the digest of their source, in access order. The scripts
+   * are softly referenced, thus the large libraries can be reclaimed when the memory is low.
+   */
+  private static final Map<String, SoftReference<Script>> COMPILED_SCRIPTS = Collections.synchronizedMap(
+      new LinkedHashMap<String, SoftReference<Script>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, SoftReference<Script>> eldest) {
+          return size() > MAX_COMPILED_SCRIPTS;
+        }
+      });
   private final ScriptableObject scope;
 
   private RhinoScriptBuilder() {
@@ -40,13 +65,18 @@ public final class RhinoScriptBuilder {
 
 
   private RhinoScriptBuilder(final ScriptableObject scope) {
-    this.scope = createContext(scope);
+    this.scope = scope == null ? createContext() : createChildScope(scope);
   }
 
 
   private Context getContext() {
     initContext();
-    return Context.getCurrentContext();
+    final Context context = Context.getCurrentContext();
+    context.setOptimizationLevel(-1);
+    // TODO redirect errors from System.err to LOG.error()
+    context.setErrorReporter(new ToolErrorReporter(false));
+    context.setLanguageVersion(Context.VERSION_1_8);
+    return context;
   }
 
   /**
@@ -59,17 +89,13 @@ public final class RhinoScriptBuilder {
   /**
    * Initialize the context.
    */
-  private ScriptableObject createContext(final ScriptableObject initialScope) {
+  private ScriptableObject createContext() {
     final Context context = getContext();
-    context.setOptimizationLevel(-1);
-    // TODO redirect errors from System.err to LOG.error()
-    context.setErrorReporter(new ToolErrorReporter(false));
-    context.setLanguageVersion(Context.VERSION_1_8);
+    final ScriptableObject scriptCommon = (ScriptableObject) context.initStandardObjects();
     InputStream script = null;
-    final ScriptableObject scriptCommon = (ScriptableObject) context.initStandardObjects(initialScope);
     try {
       script = getClass().getResourceAsStream("commons.js");
-      context.evaluateReader(scriptCommon, new InputStreamReader(script), "commons.js", 1, null);
+      getCompiledScript(IOUtils.toString(new InputStreamReader(script)), "commons.js").exec(context, scriptCommon);
     } catch (final IOException e) {
       throw new RuntimeException("Problem while evaluationg commons script.", e);
     } finally {
@@ -78,6 +104,63 @@ public final class RhinoScriptBuilder {
     return scriptCommon;
   }
 
+  /**
+   * Creates a scope inheriting everything defined by the parent scope. The parent scope is sealed, thus the scripts
+   * evaluated in the child scope cannot alter the (shared) top level definitions of the parent scope.
+   */
+  private ScriptableObject createChildScope(final ScriptableObject parent) {
+    final Context context = getContext();
+    if (!parent.isSealed()) {
+      parent.sealObject();
+    }
+    final ScriptableObject child = (ScriptableObject) context.newObject(parent);
+    child.setPrototype(parent);
+    child.setParentScope(null);
+    return child;
+  }
+
+  /**
+   * The compilation of a script is expensive compared to its execution, especially for the large scripts (ex: less,
+   * uglify, coffeeScript) evaluated by each new {@link RhinoScriptBuilder}. Compiling a script in interpreted mode
+   * produces a {@link Script} which can be executed by any thread in any scope, thus the result is cached.
+   *
+   * @return the {@link Script} compiled from the provided source.
+   */
+  private Script getCompiledScript(final String source, final String sourceName) {
+    final String key = digest(source);
+    final SoftReference<Script> reference = COMPILED_SCRIPTS.get(key);
+    Script script = reference != null ? reference.get() : null;
+    if (script == null) {
+      LOG.debug("compiling script: {}", sourceName);
+      script = getContext().compileString(source, sourceName, 1, null);
+      COMPILED_SCRIPTS.put(key, new SoftReference<Script>(script));
+    }
+    return script;
+  }
+
+  private String digest(final String source) {
+    try {
+      return HASH_STRATEGY.getHash(new ByteArrayInputStream(source.getBytes("UTF-8")));
+    } catch (final IOException e) {
+      throw WroRuntimeException.wrap(e);
+    }
+  }
+
+  /**
+   * Removes all the cached compiled scripts. Invoked when the processors using rhino are destroyed.
+   */
+  public static void clearCompiledScripts() {
+    COMPILED_SCRIPTS.clear();
+  }
+
+  /**
+   * @return the number of cached compiled scripts.
+   * @VisibleForTesting
+   */
+  static int countCompiledScripts() {
+    return COMPILED_SCRIPTS.size();
+  }
+
   /**
    * Add a client side environment to the script context (client-side aware).
    *
@@ -125,7 +208,8 @@ public final class RhinoScriptBuilder {
     throws IOException {
     Validate.notNull(stream);
     try {
-      getContext().evaluateReader(scope, new InputStreamReader(stream), sourceName, 1, null);
+      final String source = IOUtils.toString(new InputStreamReader(stream));
+      getCompiledScript(source, sourceName).exec(getContext(), scope);
       return this;
     } catch(final RhinoException e) {
       if (e instanceof RhinoException) {
@@ -217,6 +301,12 @@ public final class RhinoScriptBuilder {
   }
 
 
+  /**
+   * @param scope
+   *          the scope created by a previous chain, containing the already evaluated scripts.
+   * @return {@link RhinoScriptBuilder} evaluating scripts in a new scope inheriting the definitions of the provided
+   *         scope, without evaluating them again.
+   */
   public static RhinoScriptBuilder newChain(final ScriptableObject scope) {
     return new RhinoScriptBuilder(scope);
   }
@@ -3,6 +3,9 @@
  */
 package ro.isdc.wro.extensions.processor;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.io.File;
 import java.io.FileReader;
 import java.io.StringReader;
@@ -10,13 +13,18 @@ import java.io.StringWriter;
 import java.net.URL;
 import java.util.concurrent.Callable;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import ro.isdc.wro.cache.CacheKey;
+import ro.isdc.wro.cache.support.ResourceDependencyGraph;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.extensions.processor.css.Less4jProcessor;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.group.processor.InjectorBuilder;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
@@ -108,6 +116,67 @@ public class TestLess4jProcessor {
     WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "css", processor);
   }
 
+  @Test
+  public void shouldReuseImportedSourceWhileItsMetadataIsUnchanged()
+      throws Exception {
+    final File folder = new File(FileUtils.getTempDirectory(), "wro4j-less4j-" + System.nanoTime());
+    try {
+      final File imported = new File(folder, "imported.less");
+      final long lastModified = System.currentTimeMillis() - 60000;
+      writeFile(imported, "@color: red;", lastModified);
+      final Resource resource = Resource.create(new File(folder, "main.less").toURI().toString(), ResourceType.CSS);
+      final String content = "@import 'imported.less'; a {color: @color;}";
+      assertTrue(compile(resource, content).contains("red"));
+      // same size & last modified time: the cached content is reused
+      writeFile(imported, "@color: tan;", lastModified);
+      assertTrue(compile(resource, content).contains("red"));
+      writeFile(imported, "@color: tan;", lastModified + 1000);
+      assertTrue(compile(resource, content).contains("tan"));
+    } finally {
+      FileUtils.deleteQuietly(folder);
+    }
+  }
+
+  @Test
+  public void shouldRecordDependencyOnCachedImportedSource()
+      throws Exception {
+    final BaseWroManagerFactory managerFactory = new BaseWroManagerFactory();
+    InjectorBuilder.create(managerFactory).build().inject(victim);
+    final ResourceDependencyGraph dependencyGraph = managerFactory.create().getDependencyGraph();
+    final File folder = new File(FileUtils.getTempDirectory(), "wro4j-less4j-" + System.nanoTime());
+    try {
+      final File imported = new File(folder, "imported.less");
+      writeFile(imported, "@color: red;", System.currentTimeMillis() - 60000);
+      final Resource resource = Resource.create(new File(folder, "main.less").toURI().toString(), ResourceType.CSS);
+      final String content = "@import 'imported.less'; a {color: @color;}";
+      final CacheKey first = new CacheKey("first", ResourceType.CSS, true);
+      final CacheKey second = new CacheKey("second", ResourceType.CSS, true);
+      dependencyGraph.startRecording(first);
+      compile(resource, content);
+      dependencyGraph.stopRecording();
+      dependencyGraph.startRecording(second);
+      compile(resource, content);
+      dependencyGraph.stopRecording();
+      assertEquals(dependencyGraph.getDependencies(first), dependencyGraph.getDependencies(second));
+      assertEquals(1, dependencyGraph.getDependencies(second).size());
+    } finally {
+      FileUtils.deleteQuietly(folder);
+    }
+  }
+
+  private void writeFile(final File file, final String content, final long lastModified)
+      throws Exception {
+    FileUtils.write(file, content);
+    file.setLastModified(lastModified);
+  }
+
+  private String compile(final Resource resource, final String content)
+      throws Exception {
+    final StringWriter writer = new StringWriter();
+    victim.process(resource, new StringReader(content), writer);
+    return writer.toString();
+  }
+
   @Test
   public void shouldSupportCorrectResourceTypes() {
     WroTestUtils.assertProcessorSupportResourceTypes(new Less4jProcessor(), ResourceType.CSS);
@@ -0,0 +1,64 @@
+/**
+ * Copyright wro4j@2014
+ */
+package ro.isdc.wro.extensions.script;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mozilla.javascript.ScriptableObject;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestRhinoScriptBuilder {
+  private ScriptableObject scope;
+
+  @Before
+  public void setUp()
+      throws Exception {
+    scope = RhinoScriptBuilder.newChain().evaluateChain(
+        new ByteArrayInputStream("function twice(value) { return value * 2; }".getBytes()), "lib.js").getScope();
+  }
+
+  @Test
+  public void shouldReuseDefinitionsOfParentScope() {
+    assertEquals(4, ((Number) RhinoScriptBuilder.newChain(scope).evaluate("twice(2)", "test")).intValue());
+  }
+
+  @Test
+  public void shouldNotLeakVariablesBetweenChildScopes() {
+    RhinoScriptBuilder.newChain(scope).evaluateChain("var leaked = 1; twice = null;", "first");
+    assertEquals("undefined", RhinoScriptBuilder.newChain(scope).evaluate("typeof leaked", "second"));
+    assertEquals(6, ((Number) RhinoScriptBuilder.newChain(scope).evaluate("twice(3)", "third")).intValue());
+  }
+
+  @Test
+  public void shouldProvideCommonsScriptToEachChain() {
+    assertEquals("function", RhinoScriptBuilder.newChain().evaluate("typeof print", "test"));
+    assertEquals("function", RhinoScriptBuilder.newChain(scope).evaluate("typeof print", "test"));
+  }
+
+  @Test
+  public void shouldBoundCompiledScripts()
+      throws Exception {
+    for (int i = 0; i < RhinoScriptBuilder.MAX_COMPILED_SCRIPTS + 5; i++) {
+      RhinoScriptBuilder.newChain().evaluateChain(new ByteArrayInputStream(("var value = " + i + ";").getBytes()),
+          "script" + i);
+    }
+    assertEquals(RhinoScriptBuilder.MAX_COMPILED_SCRIPTS, RhinoScriptBuilder.countCompiledScripts());
+  }
+
+  @Test
+  public void shouldClearCompiledScripts() {
+    assertTrue(RhinoScriptBuilder.countCompiledScripts() > 0);
+    RhinoScriptBuilder.clearCompiledScripts();
+    assertEquals(0, RhinoScriptBuilder.countCompiledScripts());
+    assertEquals(4, ((Number) RhinoScriptBuilder.newChain(scope).evaluate("twice(2)", "test")).intValue());
+  }
+}